@@ -0,0 +1,164 @@
+package com.movie.recommendation;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.parser.MovieParser;
+import com.movie.recommendation.parser.UserParser;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+import com.movie.recommendation.tools.DatasetGenerator;
+import com.movie.recommendation.validator.MovieValidator;
+import com.movie.recommendation.validator.UserValidator;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+/**
+ * Allocation regression tests for the hot paths.
+ *
+ * Each test measures the bytes the current thread allocates per user (or per
+ * parsed record) with com.sun.management.ThreadMXBean and fails when the
+ * measurement exceeds its budget. The budgets were calibrated on a generated
+ * dataset and leave about 50% headroom over the measured value, so a change
+ * that adds an object per user fails here like a functional bug would. When a
+ * change allocates more on purpose, re-measure and raise the budget in the
+ * same commit.
+ *
+ * Every measurement runs after a warm-up of the same work, so the JIT has
+ * compiled (and escape-analysed) the path being measured.
+ */
+public class AllocationBudgetTest {
+
+    private static final int MOVIES = 200;
+    private static final int USERS = 2000;
+    private static final int WARMUP_ROUNDS = 20;
+
+    // Budgets in bytes per user or per record (measured: 2166, 986, 1376, 90, 6743, 9118, 715)
+    private static final long PARSE_MOVIE_BUDGET = 3200;
+    private static final long PARSE_USER_BUDGET = 1500;
+    private static final long VALIDATE_MOVIE_BUDGET = 2000;
+    private static final long VALIDATE_USER_BUDGET = 150;
+    private static final long SCAN_RECOMMEND_BUDGET = 10_000;
+    private static final long RANKED_RECOMMEND_BUDGET = 14_000;
+    private static final long FORMAT_BUDGET = 1100;
+
+    @TempDir
+    static Path tempDir;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static String moviesFile;
+    private static String usersFile;
+    private static List<Movie> movies;
+    private static List<User> users;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "allocation counters not available");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation counters not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        moviesFile = tempDir.resolve("movies.txt").toString();
+        usersFile = tempDir.resolve("users.txt").toString();
+        new DatasetGenerator().generate(MOVIES, USERS, moviesFile, usersFile);
+        movies = new MovieParser(new MovieValidator()).parseMovies(moviesFile);
+        users = new UserParser(new UserValidator()).parseUsers(usersFile);
+    }
+
+    @Test
+    public void testParseMovies_BytesPerRecord() throws Exception {
+        long bytes = measure(() -> new MovieParser(new MovieValidator()).parseMovies(moviesFile));
+        assertWithinBudget("parse movie", bytes / MOVIES, PARSE_MOVIE_BUDGET);
+    }
+
+    @Test
+    public void testParseUsers_BytesPerRecord() throws Exception {
+        long bytes = measure(() -> new UserParser(new UserValidator()).parseUsers(usersFile));
+        assertWithinBudget("parse user", bytes / USERS, PARSE_USER_BUDGET);
+    }
+
+    @Test
+    public void testValidateMovie_BytesPerRecord() throws Exception {
+        long bytes = measure(() -> {
+            MovieValidator validator = new MovieValidator();
+            for (Movie movie : movies) {
+                validator.validateMovie(movie.getTitle(), movie.getId());
+            }
+        });
+        assertWithinBudget("validate movie", bytes / MOVIES, VALIDATE_MOVIE_BUDGET);
+    }
+
+    @Test
+    public void testValidateUser_BytesPerRecord() throws Exception {
+        long bytes = measure(() -> {
+            UserValidator validator = new UserValidator();
+            for (User user : users) {
+                validator.validateUser(user.getName(), user.getId());
+            }
+        });
+        assertWithinBudget("validate user", bytes / USERS, VALIDATE_USER_BUDGET);
+    }
+
+    @Test
+    public void testScanRecommendations_BytesPerUser() throws Exception {
+        RecommendationService service = new RecommendationService();
+        long bytes = measure(() -> {
+            for (User user : users) {
+                service.getRecommendations(user, movies);
+            }
+        });
+        assertWithinBudget("scan recommendations", bytes / USERS, SCAN_RECOMMEND_BUDGET);
+    }
+
+    @Test
+    public void testRankedRecommendations_BytesPerUser() throws Exception {
+        RecommendationService service = new RecommendationService(new CatalogIndex(movies));
+        service.setRankingMode(RankingMode.NONE);
+        long bytes = measure(() -> {
+            for (User user : users) {
+                service.getRankedRecommendations(user);
+            }
+        });
+        assertWithinBudget("ranked recommendations", bytes / USERS, RANKED_RECOMMEND_BUDGET);
+    }
+
+    @Test
+    public void testFormatRecommendations_BytesPerUser() throws Exception {
+        RecommendationService service = new RecommendationService();
+        List<String> titles = List.of(movies.get(0).getTitle(), movies.get(1).getTitle(),
+                movies.get(2).getTitle(), movies.get(3).getTitle());
+        long bytes = measure(() -> {
+            for (User user : users) {
+                service.formatRecommendations(user, titles);
+            }
+        });
+        assertWithinBudget("format recommendations", bytes / USERS, FORMAT_BUDGET);
+    }
+
+    /**
+     * Runs the work WARMUP_ROUNDS times, then once more while counting.
+     */
+    private static long measure(Work work) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            work.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        work.run();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static void assertWithinBudget(String path, long measured, long budget) {
+        assertTrue(measured <= budget,
+                path + " allocates " + measured + " bytes, budget is " + budget);
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+}
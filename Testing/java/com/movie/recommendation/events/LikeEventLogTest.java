@@ -0,0 +1,165 @@
+package com.movie.recommendation.events;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+/**
+ * Appended events must survive close, torn writes and compaction.
+ */
+public class LikeEventLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testOpen_ReplaysSyncedEvents() throws Exception {
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.open();
+            log.append("12345678A", "TM123", true);
+            log.append("12345678A", "DK456", true);
+            log.append("12345678A", "TM123", false);
+            log.append("987654321", "TM123", true);
+            log.sync();
+            assertEquals(List.of("DK456"), log.getLikedMovieIds("12345678A"));
+        }
+
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.open();
+            assertEquals(4, log.getRecoveredEvents());
+            assertEquals(List.of("DK456"), log.getLikedMovieIds("12345678A"));
+            assertEquals(List.of("TM123"), log.getLikedMovieIds("987654321"));
+            assertEquals(2, log.getLikeCount());
+        }
+        assertEquals(List.of("TM123"), LikeEventLog.recover(dir).getUnlikedMovieIds("12345678A"));
+    }
+
+    @Test
+    public void testOpen_SkipsTornFrame() throws Exception {
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.open();
+            log.awaitDurable(log.append("123456789", "TM123", true));
+        }
+        // A crash in the middle of the next frame: header written, payload missing
+        Path segment = segments(dir).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(8).putInt(100).putInt(0).flip());
+        }
+
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.open();
+            assertEquals(1, log.getTornFrames());
+            assertEquals(List.of("TM123"), log.getLikedMovieIds("123456789"));
+        }
+    }
+
+    @Test
+    public void testCompact_SnapshotReplacesSegments() throws Exception {
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.setSegmentBytes(64);
+            log.open();
+            for (int i = 0; i < 50; i++) {
+                log.awaitDurable(log.append("123456789", "MV" + (100 + i % 7), i % 3 != 0));
+            }
+            assertTrue(log.getActiveSegment() > 1);
+            assertTrue(log.compact());
+            assertEquals(1, segments(dir).size());
+            log.append("123456789", "ZZ999", true);
+        }
+
+        LikeState expected = new LikeState();
+        for (int i = 0; i < 50; i++) {
+            expected.apply("123456789", "MV" + (100 + i % 7), i % 3 != 0);
+        }
+        expected.apply("123456789", "ZZ999", true);
+
+        LikeState recovered = LikeEventLog.recover(dir);
+        assertEquals(expected.getLikedMovieIds("123456789"), recovered.getLikedMovieIds("123456789"));
+        assertEquals(expected.getLikeCount(), recovered.getLikeCount());
+    }
+
+    @Test
+    public void testOpen_DamagedSnapshotWithoutSegmentsFails() throws Exception {
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.setSegmentBytes(64);
+            log.open();
+            for (int i = 0; i < 10; i++) {
+                log.awaitDurable(log.append("123456789", "MV" + (100 + i), true));
+            }
+            assertTrue(log.compact());
+            log.awaitDurable(log.append("123456789", "ZZ999", true));
+        }
+        Path snapshot;
+        try (Stream<Path> files = Files.list(dir)) {
+            snapshot = files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).findFirst().get();
+        }
+        // Damage the first row size: skip magic, movie table, user count and user ID
+        ByteBuffer body = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        int rowSizeOffset = 8;
+        for (int code = 0; code < body.getInt(4); code++) {
+            rowSizeOffset += 2 + Math.max(0, body.getShort(rowSizeOffset));
+        }
+        rowSizeOffset += 4 + 8;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(-1).flip(), rowSizeOffset);
+        }
+
+        // The segments the snapshot replaced are gone, so its likes cannot be rebuilt
+        IOException e = assertThrows(IOException.class, () -> LikeEventLog.recover(dir));
+        assertTrue(e.getMessage().contains("damaged"));
+        LikeEventLog log = new LikeEventLog(dir);
+        assertThrows(IOException.class, log::open);
+        log.close();
+    }
+
+    @Test
+    public void testOpen_DamagedSnapshotFallsBackToOlderOne() throws Exception {
+        Path olderSnapshot;
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.setSegmentBytes(64);
+            log.open();
+            for (int i = 0; i < 10; i++) {
+                log.awaitDurable(log.append("123456789", "MV" + (100 + i), true));
+            }
+            assertTrue(log.compact());
+            try (Stream<Path> files = Files.list(dir)) {
+                olderSnapshot = files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).findFirst().get();
+            }
+            log.awaitDurable(log.append("123456789", "ZZ999", true));
+        }
+        // A crash after the next snapshot was written but before anything was deleted
+        List<Path> kept = segments(dir);
+        Path newer = dir.resolve(String.format("snapshot-%016d.snap",
+                Long.parseLong(kept.get(kept.size() - 1).getFileName().toString().substring(8, 24)) + 1));
+        Files.write(newer, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.open();
+            List<String> liked = log.getLikedMovieIds("123456789");
+            assertTrue(liked.contains("MV100"));
+            assertTrue(liked.contains("ZZ999"));
+        }
+        assertTrue(Files.exists(olderSnapshot));
+    }
+
+    @Test
+    public void testAppend_InvalidUserIdRejected() throws Exception {
+        try (LikeEventLog log = new LikeEventLog(dir)) {
+            log.open();
+            assertThrows(IllegalArgumentException.class, () -> log.append("12345678a", "TM123", true));
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+    }
+}
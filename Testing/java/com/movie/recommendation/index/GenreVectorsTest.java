@@ -0,0 +1,38 @@
+package com.movie.recommendation.index;
+import com.movie.recommendation.model.Movie;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * Unit tests for TF-IDF genre vectors.
+ */
+public class GenreVectorsTest {
+
+    private final List<Movie> movies = Arrays.asList(
+        new Movie("Movie A", "MA123", Arrays.asList("action", "noir")),
+        new Movie("Movie B", "MB456", Arrays.asList("action")),
+        new Movie("Movie C", "MC789", Arrays.asList("action")),
+        new Movie("Movie D", "MD012", Arrays.asList())
+    );
+
+    @Test
+    public void testIdf_RareGenreWeighsMore() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        GenreVectors vectors = new GenreVectors(catalog);
+
+        assertTrue(vectors.getIdf(catalog.genreIdOf("noir")) > vectors.getIdf(catalog.genreIdOf("action")));
+    }
+
+    @Test
+    public void testNorm_MatchesWeights() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        GenreVectors vectors = new GenreVectors(catalog);
+
+        float action = vectors.getIdf(catalog.genreIdOf("action"));
+        float noir = vectors.getIdf(catalog.genreIdOf("noir"));
+        assertEquals(Math.sqrt(action * action + noir * noir), vectors.getNorm(0), 1e-5);
+        assertEquals(action, vectors.getNorm(1), 1e-5);
+        assertEquals(0.0, vectors.getNorm(3), 1e-9);
+    }
+}
@@ -0,0 +1,47 @@
+package com.movie.recommendation.index;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * Unit tests for the CSR likes table.
+ */
+public class LikesTableTest {
+
+    private final List<Movie> movies = Arrays.asList(
+        new Movie("Movie A", "MA123", Arrays.asList("action")),
+        new Movie("Movie B", "MB456", Arrays.asList("drama")),
+        new Movie("Movie C", "MC789", Arrays.asList("comedy"))
+    );
+
+    @Test
+    public void testBuild_SortedDistinctRows() {
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MC789", "MA123", "MC789")),
+            new User("Jane", "987654321", Arrays.asList("XY999", "MB456"))
+        );
+        LikesTable table = new LikesTable(new CatalogIndex(movies), users);
+
+        assertEquals(2, table.rowCount());
+        assertEquals(3, table.columnCount());
+        assertArrayEquals(new int[] {0, 2}, Arrays.copyOfRange(table.getColumns(), table.rowStart(0), table.rowEnd(0)));
+        assertArrayEquals(new int[] {1}, Arrays.copyOfRange(table.getColumns(), table.rowStart(1), table.rowEnd(1)));
+        assertEquals(1, table.getUnresolvedCount());
+    }
+
+    @Test
+    public void testTranspose_MoviesToUsers() {
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MA123", "MB456")),
+            new User("Jane", "987654321", Arrays.asList("MA123"))
+        );
+        LikesTable transposed = new LikesTable(new CatalogIndex(movies), users).transpose();
+
+        assertEquals(3, transposed.rowCount());
+        assertArrayEquals(new int[] {0, 1},
+            Arrays.copyOfRange(transposed.getColumns(), transposed.rowStart(0), transposed.rowEnd(0)));
+        assertEquals(0, transposed.rowEnd(2) - transposed.rowStart(2));
+    }
+}
@@ -0,0 +1,74 @@
+package com.movie.recommendation.index;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for the minimal perfect hash.
+ */
+public class PerfectHashTest {
+
+    private static String[] ids(int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "M" + i;
+        }
+        return keys;
+    }
+
+    @Test
+    public void testIndexOf_IsPermutation() {
+        for (int count : new int[] {1, 2, 5, 100, 10_000}) {
+            String[] keys = ids(count);
+            PerfectHash hash = new PerfectHash(keys);
+            boolean[] seen = new boolean[count];
+
+            for (String key : keys) {
+                int slot = hash.indexOf(key);
+                assertTrue(slot >= 0 && slot < count);
+                assertFalse(seen[slot]);
+                seen[slot] = true;
+                assertEquals(key, hash.keyAt(slot));
+            }
+            assertEquals(count, hash.size());
+        }
+    }
+
+    @Test
+    public void testIndexOf_UnknownKey() {
+        PerfectHash hash = new PerfectHash(ids(1000));
+
+        for (int i = 1000; i < 2000; i++) {
+            assertEquals(-1, hash.indexOf("M" + i));
+        }
+        assertEquals(-1, hash.indexOf(null));
+    }
+
+    @Test
+    public void testIndexOf_CollidingHashCodes() {
+        // All four have the same String.hashCode()
+        String[] keys = {"AaAa", "AaBB", "BBAa", "BBBB", "M1", "M2"};
+        PerfectHash hash = new PerfectHash(keys);
+        boolean[] seen = new boolean[keys.length];
+
+        for (String key : keys) {
+            int slot = hash.indexOf(key);
+            assertFalse(seen[slot]);
+            seen[slot] = true;
+            assertEquals(key, hash.keyAt(slot));
+        }
+        assertEquals(-1, hash.indexOf("AaAb"));
+    }
+
+    @Test
+    public void testEmpty() {
+        PerfectHash hash = new PerfectHash(new String[0]);
+
+        assertEquals(0, hash.size());
+        assertEquals(-1, hash.indexOf("M1"));
+    }
+
+    @Test
+    public void testDuplicateKey_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PerfectHash(new String[] {"M1", "M2", "M1"}));
+        assertThrows(IllegalArgumentException.class, () -> new PerfectHash(new String[] {"M1", null}));
+    }
+}
@@ -0,0 +1,81 @@
+package com.movie.recommendation.index;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.BitSet;
+import java.util.Random;
+/**
+ * Unit tests for the Roaring-style compressed bitmap.
+ */
+public class RoaringBitmapTest {
+
+    @Test
+    public void testAdd_SwitchesToBitmapContainerWhenDense() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < RoaringBitmap.ARRAY_MAX; i++) {
+            bitmap.add(i * 2);
+        }
+        assertEquals(0, bitmap.getBitmapContainerCount());
+
+        bitmap.add(1);
+        bitmap.add(1);
+        assertEquals(1, bitmap.getBitmapContainerCount());
+        assertEquals(RoaringBitmap.ARRAY_MAX + 1, bitmap.cardinality());
+        assertTrue(bitmap.contains(1));
+        assertFalse(bitmap.contains(3));
+    }
+
+    @Test
+    public void testToArray_AscendingAcrossChunks() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.add(200_000);
+        bitmap.add(5);
+        bitmap.add(70_000);
+
+        int[] out = new int[3];
+        assertEquals(3, bitmap.toArray(out));
+        assertArrayEquals(new int[] {5, 70_000, 200_000}, out);
+
+        int[] firstTwo = new int[2];
+        assertEquals(2, bitmap.toArray(firstTwo));
+        assertArrayEquals(new int[] {5, 70_000}, firstTwo);
+    }
+
+    @Test
+    public void testOrAndNot_MatchBitSet() {
+        Random random = new Random(7);
+        RoaringBitmap[] bitmaps = new RoaringBitmap[3];
+        BitSet expected = new BitSet();
+        for (int b = 0; b < bitmaps.length; b++) {
+            bitmaps[b] = new RoaringBitmap();
+            // Bitmap 0 is dense in the first chunk, the others are sparse over several chunks
+            int values = b == 0 ? 30_000 : 2_000;
+            for (int i = 0; i < values; i++) {
+                int value = b == 0 ? random.nextInt(65_536) : random.nextInt(300_000);
+                bitmaps[b].add(value);
+                expected.set(value);
+            }
+        }
+        RoaringBitmap removed = new RoaringBitmap();
+        for (int i = 0; i < 40_000; i++) {
+            int value = random.nextInt(300_000);
+            removed.add(value);
+            expected.clear(value);
+        }
+
+        RoaringBitmap result = RoaringBitmap.or(bitmaps, 3).andNot(removed);
+
+        int[] out = new int[result.cardinality()];
+        result.toArray(out);
+        assertArrayEquals(expected.stream().toArray(), out);
+    }
+
+    @Test
+    public void testOr_DoesNotShareContainersWithInputs() {
+        RoaringBitmap first = RoaringBitmap.of(new int[] {1, 2}, 0, 2);
+        RoaringBitmap union = first.or(new RoaringBitmap());
+        union.add(3);
+
+        assertFalse(first.contains(3));
+        assertEquals(3, union.cardinality());
+    }
+}
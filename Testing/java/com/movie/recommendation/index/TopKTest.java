@@ -0,0 +1,113 @@
+package com.movie.recommendation.index;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+/**
+ * Unit tests for the bounded top-K selector.
+ */
+public class TopKTest {
+
+    @Test
+    public void testDrainSorted_KeepsBestK() {
+        TopK top = new TopK(3);
+        double[] scores = {5, 1, 9, 3, 7, 2};
+        for (int id = 0; id < scores.length; id++) {
+            top.offer(id, scores[id]);
+        }
+
+        int[] out = new int[3];
+        assertEquals(3, top.drainSorted(out));
+        assertArrayEquals(new int[] {2, 4, 0}, out);
+        assertEquals(0, top.size());
+    }
+
+    @Test
+    public void testDrainSorted_TiesByLowerId() {
+        TopK top = new TopK(2);
+        top.offer(7, 1.0);
+        top.offer(3, 1.0);
+        top.offer(5, 1.0);
+
+        int[] out = new int[2];
+        top.drainSorted(out);
+        assertArrayEquals(new int[] {3, 5}, out);
+    }
+
+    @Test
+    public void testOffer_FewerThanCapacity() {
+        TopK top = new TopK(10);
+        top.offer(1, 2.0);
+        top.offer(2, 4.0);
+
+        int[] out = new int[2];
+        double[] outScores = new double[2];
+        assertEquals(2, top.drainSorted(out, outScores));
+        assertArrayEquals(new int[] {2, 1}, out);
+        assertArrayEquals(new double[] {4.0, 2.0}, outScores);
+    }
+
+    @Test
+    public void testOffer_ZeroCapacity() {
+        TopK top = new TopK(0);
+        assertFalse(top.offer(1, 100.0));
+        assertEquals(0, top.size());
+    }
+
+    @Test
+    public void testKeys_OnePairPerKey() {
+        int[] keys = {0, 0, 1, 1, 2, 2, 3, 0};
+        double[] scores = {1, 9, 8, 2, 5, 6, 7, 3};
+        TopK top = new TopK(3, keys, 4);
+        for (int id = 0; id < keys.length; id++) {
+            top.offer(id, scores[id]);
+        }
+
+        int[] out = new int[3];
+        assertEquals(3, top.drainSorted(out));
+        assertArrayEquals(new int[] {1, 2, 6}, out);
+    }
+
+    @Test
+    public void testKeys_MatchBestPerKeyAfterEvictions() {
+        Random random = new Random(7);
+        int[] keys = new int[500];
+        double[] scores = new double[keys.length];
+        for (int id = 0; id < keys.length; id++) {
+            keys[id] = random.nextInt(40);
+            scores[id] = random.nextInt(100);
+        }
+        TopK top = new TopK(0, keys, 40);
+        for (int capacity : new int[] {1, 5, 12, 40}) {
+            top = top.withCapacity(capacity);
+            for (int id = 0; id < keys.length; id++) {
+                top.offer(id, scores[id]);
+            }
+            int[] out = new int[capacity];
+            int count = top.drainSorted(out);
+
+            // Reference: the best id of each key, then the best keys
+            int[] best = new int[40];
+            Arrays.fill(best, -1);
+            for (int id = 0; id < keys.length; id++) {
+                int kept = best[keys[id]];
+                if (kept < 0 || scores[id] > scores[kept]) {
+                    best[keys[id]] = id;
+                }
+            }
+            List<Integer> expected = new ArrayList<>();
+            for (int id : best) {
+                if (id >= 0) {
+                    expected.add(id);
+                }
+            }
+            expected.sort((a, b) -> scores[a] != scores[b] ? Double.compare(scores[b], scores[a]) : a - b);
+            assertEquals(Math.min(capacity, expected.size()), count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected.get(i).intValue(), out[i]);
+            }
+        }
+    }
+}
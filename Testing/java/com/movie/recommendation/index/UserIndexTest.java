@@ -0,0 +1,46 @@
+package com.movie.recommendation.index;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * Unit tests for the packed user ID index.
+ */
+public class UserIndexTest {
+
+    private final List<Movie> movies = Arrays.asList(
+        new Movie("Movie A", "MA123", Arrays.asList("action")),
+        new Movie("Movie B", "MB456", Arrays.asList("drama"))
+    );
+
+    @Test
+    public void testRowOf_ParsedUsersAndUnknownIds() {
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MB456", "MA123")),
+            new User("Jane", "98765432A", Arrays.asList()),
+            new User("Copy", "123456789", Arrays.asList("MA123"))
+        );
+        UserIndex index = new UserIndex(new CatalogIndex(movies), users);
+
+        assertEquals(0, index.rowOf("123456789")); // first user keeps a repeated ID
+        assertEquals(1, index.rowOf("98765432A"));
+        assertEquals(-1, index.rowOf("98765432B"));
+        assertEquals(-1, index.rowOf("abc"));
+        assertEquals(-1, index.rowOf(null));
+        assertEquals(2, index.size());
+        assertSame(users.get(1), index.getUser(1));
+
+        LikesTable likes = index.getLikes();
+        assertArrayEquals(new int[] {0, 1}, Arrays.copyOfRange(likes.getColumns(), likes.rowStart(0), likes.rowEnd(0)));
+    }
+
+    @Test
+    public void testConstructor_RejectsMismatchedTable() {
+        List<User> users = Arrays.asList(new User("John", "123456789", Arrays.asList("MA123")));
+        LikesTable empty = new LikesTable(2, new int[] {0}, new int[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> new UserIndex(users, empty));
+    }
+}
@@ -0,0 +1,98 @@
+package com.movie.recommendation.index;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * Unit tests for the MinHash LSH user index.
+ */
+public class UserSimilarityIndexTest {
+
+    @Test
+    public void testFindCandidates_IdenticalLikes() {
+        UserSimilarityIndex index = new UserSimilarityIndex(8, 4, 1);
+        int first = index.add(Arrays.asList("TDK123", "I456", "TM789"));
+        index.add(Arrays.asList("A001", "B002"));
+        int third = index.add(Arrays.asList("TM789", "TDK123", "I456"));
+
+        IntHashSet candidates = new IntHashSet(8);
+        index.findCandidates(index.signatureOf(List.of("TDK123", "I456", "TM789")), candidates);
+
+        assertTrue(candidates.contains(first));
+        assertTrue(candidates.contains(third));
+        assertEquals(1.0, index.estimateSimilarity(index.signatureOf(List.of("I456", "TM789", "TDK123")), third));
+    }
+
+    @Test
+    public void testFindCandidates_AcrossChunks() {
+        // 8192 hashes per user: 512 users per chunk, so 1200 users span three chunks
+        UserSimilarityIndex index = new UserSimilarityIndex(64, 128, 1);
+        for (int i = 0; i < 1200; i++) {
+            index.add(List.of("M" + (i / 2), "N" + (i / 2)));
+        }
+
+        IntHashSet candidates = new IntHashSet(8);
+        int[] signature = index.signatureOf(List.of("M550", "N550"));
+        index.findCandidates(signature, candidates);
+
+        assertEquals(2, candidates.size());
+        assertTrue(candidates.contains(1100));
+        assertTrue(candidates.contains(1101));
+        assertEquals(1.0, index.estimateSimilarity(signature, 1101));
+        assertEquals(0.0, index.estimateSimilarity(signature, 3));
+    }
+
+    @Test
+    public void testFindCandidates_DisjointLikes() {
+        UserSimilarityIndex index = new UserSimilarityIndex(8, 4, 1);
+        index.add(Arrays.asList("A001", "B002", "C003"));
+
+        IntHashSet candidates = new IntHashSet(8);
+        index.findCandidates(index.signatureOf(List.of("X100", "Y200", "Z300")), candidates);
+
+        assertEquals(0, candidates.size());
+    }
+
+    @Test
+    public void testFindCandidates_EmptyLikesNeverMatch() {
+        UserSimilarityIndex index = new UserSimilarityIndex(4, 2, 1);
+        index.add(Arrays.asList());
+        index.add(Arrays.asList());
+
+        IntHashSet candidates = new IntHashSet(8);
+        index.findCandidates(index.signatureOf(List.of()), candidates);
+
+        assertEquals(2, index.size());
+        assertEquals(0, candidates.size());
+    }
+
+    @Test
+    public void testFindNeighbours_MostSimilarFirst() {
+        UserSimilarityIndex index = new UserSimilarityIndex(16, 2, 3);
+        int close = index.add(Arrays.asList("A001", "B002", "C003", "D004"));
+        int far = index.add(Arrays.asList("A001", "E005", "F006", "G007"));
+
+        int[] neighbours = new int[2];
+        int found = index.findNeighbours(index.signatureOf(List.of("A001", "B002", "C003", "D004")),
+                -1, 0.0, neighbours);
+
+        assertTrue(found >= 1);
+        assertEquals(close, neighbours[0]);
+        assertNotEquals(far, neighbours[0]);
+    }
+
+    @Test
+    public void testCandidateProbability_MoreBandsMoreRecall() {
+        double few = UserSimilarityIndex.candidateProbability(0.5, 4, 4);
+        double many = UserSimilarityIndex.candidateProbability(0.5, 16, 4);
+        assertTrue(many > few);
+        assertEquals(1.0, UserSimilarityIndex.candidateProbability(1.0, 4, 4), 1e-9);
+    }
+
+    @Test
+    public void testForThreshold_ChoosesCloseBanding() {
+        UserSimilarityIndex index = UserSimilarityIndex.forThreshold(32, 0.6, 1);
+        assertEquals(32, index.getBands() * index.getRows());
+        assertEquals(0.6, UserSimilarityIndex.threshold(index.getBands(), index.getRows()), 0.1);
+    }
+}
@@ -0,0 +1,161 @@
+package com.movie.recommendation.output;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * Unit tests for the indexed output file.
+ */
+public class IndexedRecommendationFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String ALICE = "Alice,12345678A\nMovie A,Movie B\n";
+    private static final String BOB = "Bob,12345678B\n\n";
+    private static final String CAROL = "Carol,12345678C\nMovie C\n";
+
+    private Path firstRun() throws Exception {
+        Path data = tempDir.resolve("recommendations.txt");
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            file.put("12345678A", ALICE);
+            file.put("12345678B", BOB);
+            file.put("12345678C", CAROL);
+        }
+        return data;
+    }
+
+    @Test
+    public void testFirstRun_PlainContent() throws Exception {
+        Path data = firstRun();
+
+        assertEquals(ALICE + BOB + CAROL, new String(Files.readAllBytes(data), StandardCharsets.UTF_8));
+        assertTrue(Files.exists(IndexedRecommendationFile.indexPathFor(data)));
+    }
+
+    @Test
+    public void testUnchangedBlocks_WriteNothing() throws Exception {
+        Path data = firstRun();
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            file.put("12345678A", ALICE);
+            file.put("12345678B", BOB);
+            file.put("12345678C", CAROL);
+            assertEquals(3, file.getUnchanged());
+            assertEquals(0, file.getBytesWritten());
+        }
+    }
+
+    @Test
+    public void testChangedBlocks_InPlaceOrAppended() throws Exception {
+        Path data = firstRun();
+        String alice = "Alice,12345678A\nMovie X,Movie Y\n";
+        String bob = "Bob,12345678B\nMovie Z\n";
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            file.put("12345678A", alice);
+            file.put("12345678B", bob);
+            file.put("12345678C", CAROL);
+            assertEquals(1, file.getRewrittenInPlace());
+            assertEquals(1, file.getAppended());
+            assertEquals(BOB.length(), file.getDeadBytes());
+        }
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            assertEquals(alice, file.read("12345678A"));
+            assertEquals(bob, file.read("12345678B"));
+            assertEquals(CAROL, file.read("12345678C"));
+            assertNull(file.read("99999999Z"));
+            assertEquals(BOB.length(), file.getDeadBytes());
+        }
+    }
+
+    @Test
+    public void testRemoveUntouchedAndCompact() throws Exception {
+        Path data = firstRun();
+        String alice = "Alice,12345678A\nA much longer list,Of titles\n";
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            file.put("12345678C", CAROL);
+            file.put("12345678A", alice);
+            assertEquals(1, file.removeUntouched());
+            file.compact();
+            assertEquals(0, file.getDeadBytes());
+            assertEquals(alice, file.read("12345678A"));
+        }
+
+        assertEquals(alice + CAROL, new String(Files.readAllBytes(data), StandardCharsets.UTF_8));
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            assertEquals(2, file.size());
+            assertEquals(CAROL, file.read("12345678C"));
+        }
+    }
+
+    @Test
+    public void testTornIndexRecord_Ignored() throws Exception {
+        Path data = firstRun();
+        Path index = IndexedRecommendationFile.indexPathFor(data);
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            assertEquals(2, file.size());
+            assertNull(file.read("12345678C"));
+            file.put("12345678C", CAROL);
+            assertEquals(CAROL, file.read("12345678C"));
+        }
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            assertEquals(3, file.size());
+            assertEquals(CAROL, file.read("12345678C"));
+        }
+    }
+
+    @Test
+    public void testDataFileReplaced_StaleIndexRefused() throws Exception {
+        Path data = firstRun();
+        Files.write(data, (CAROL + BOB + ALICE + BOB).getBytes(StandardCharsets.UTF_8));
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            assertEquals(0, file.size());
+            assertNull(file.read("12345678C"));
+            file.put("12345678C", CAROL);
+        }
+        assertEquals(CAROL, new String(Files.readAllBytes(data), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCrashAfterInPlaceRewrite_IndexRefused() throws Exception {
+        Path data = firstRun();
+        Path crashed = Files.createDirectory(tempDir.resolve("crashed")).resolve("recommendations.txt");
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            file.put("12345678A", "Alice,12345678A\nMovie X,Movie Y\n");
+            // Copy both files before flush(): the block is rewritten, its index record is not
+            Files.copy(data, crashed);
+            Files.copy(IndexedRecommendationFile.indexPathFor(data), IndexedRecommendationFile.indexPathFor(crashed));
+        }
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(crashed)) {
+            assertEquals(0, file.size());
+            file.put("12345678A", ALICE);
+            assertEquals(1, file.getAppended());
+        }
+        assertEquals(ALICE, new String(Files.readAllBytes(crashed), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPlainFileWithoutIndex_Truncated() throws Exception {
+        Path data = tempDir.resolve("recommendations.txt");
+        Files.write(data, "Error\nsomething\n".getBytes(StandardCharsets.UTF_8));
+
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(data)) {
+            assertEquals(0, file.size());
+            file.put("12345678B", BOB);
+        }
+        assertEquals(BOB, new String(Files.readAllBytes(data), StandardCharsets.UTF_8));
+    }
+}
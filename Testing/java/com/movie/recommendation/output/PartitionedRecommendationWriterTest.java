@@ -0,0 +1,135 @@
+package com.movie.recommendation.output;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+/**
+ * Partition files must hold every user once and concatenate back to the plain output.
+ */
+public class PartitionedRecommendationWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final RecommendationService service = new RecommendationService();
+
+    private List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new User("User", String.format("%08d%d", i, i % 10), Collections.emptyList()));
+        }
+        return users;
+    }
+
+    private List<String> recommend(User user) {
+        return user.getId().endsWith("0") ? Collections.emptyList() : Arrays.asList("Movie " + user.getId());
+    }
+
+    private String plainOutput(List<User> users) {
+        StringBuilder expected = new StringBuilder();
+        for (User user : users) {
+            expected.append(service.formatRecommendations(user, recommend(user)));
+        }
+        return expected.toString();
+    }
+
+    @Test
+    public void testConcatenate_InputOrder() throws Exception {
+        Path output = tempDir.resolve("out.txt");
+        List<User> users = users(500);
+        PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, 4);
+
+        writer.writeAll(users, service, this::recommend);
+        writer.concatenate(users);
+
+        assertEquals(plainOutput(users), new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testPartitions_EveryUserOnce() throws Exception {
+        Path output = tempDir.resolve("out.txt");
+        List<User> users = users(500);
+        PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, 3);
+
+        writer.writeAll(users, service, this::recommend);
+
+        long total = 0;
+        for (int p = 0; p < 3; p++) {
+            List<String> lines = Files.readAllLines(writer.getPartitionPath(p));
+            assertEquals(2 * writer.getUsers(p), lines.size());
+            assertEquals(Files.size(writer.getPartitionPath(p)), writer.getBytes(p));
+            for (int i = 0; i < lines.size(); i += 2) {
+                String id = lines.get(i).substring(lines.get(i).indexOf(',') + 1);
+                assertEquals(p, PartitionedRecommendationWriter.partitionOf(id, 3));
+            }
+            total += writer.getUsers(p);
+            assertTrue(writer.getUsers(p) > 0);
+        }
+        assertEquals(500, total);
+        List<String> manifest = Files.readAllLines(writer.getManifestPath());
+        assertTrue(manifest.contains("users=500"));
+        assertTrue(manifest.contains("out.txt.part-0002," + writer.getUsers(2) + "," + writer.getBytes(2)));
+    }
+
+    @Test
+    public void testConcatenate_PartitionOrder() throws Exception {
+        Path output = tempDir.resolve("out.txt");
+        List<User> users = users(100);
+        PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, 2);
+
+        writer.writeAll(users, service, this::recommend);
+        writer.concatenate(null);
+
+        String expected = new String(Files.readAllBytes(writer.getPartitionPath(0)), StandardCharsets.UTF_8)
+                + new String(Files.readAllBytes(writer.getPartitionPath(1)), StandardCharsets.UTF_8);
+        assertEquals(expected, new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteAll_RemovesPreviousOutput() throws Exception {
+        Path output = tempDir.resolve("out.txt");
+        Files.write(output, "Error\nfrom an earlier run\n".getBytes(StandardCharsets.UTF_8));
+        PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, 2);
+
+        writer.writeAll(users(20), service, this::recommend);
+
+        assertFalse(Files.exists(output));
+        assertTrue(Files.exists(writer.getManifestPath()));
+    }
+
+    @Test
+    public void testDeletePartitionFiles_RemovesEarlierRuns() throws Exception {
+        Path output = tempDir.resolve("out.txt");
+        new PartitionedRecommendationWriter(output, 4).writeAll(users(20), service, this::recommend);
+        Files.write(output.resolveSibling("out.txt.part-notes"), new byte[0]);
+
+        // Fewer partitions: the files of partitions 2 and 3 must not survive
+        PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, 2);
+        writer.writeAll(users(20), service, this::recommend);
+        assertTrue(Files.exists(writer.getPartitionPath(1)));
+        assertFalse(Files.exists(new PartitionedRecommendationWriter(output, 4).getPartitionPath(3)));
+
+        PartitionedRecommendationWriter.deletePartitionFiles(output);
+        assertFalse(Files.exists(writer.getManifestPath()));
+        assertFalse(Files.exists(writer.getPartitionPath(0)));
+        assertTrue(Files.exists(output.resolveSibling("out.txt.part-notes")));
+    }
+
+    @Test
+    public void testRecommenderFailure_Rethrown() throws Exception {
+        Path output = tempDir.resolve("out.txt");
+        PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, 2);
+
+        assertThrows(IllegalStateException.class, () -> writer.writeAll(users(10), service, user -> {
+            throw new IllegalStateException("boom");
+        }));
+    }
+}
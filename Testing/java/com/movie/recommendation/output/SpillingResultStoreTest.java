@@ -0,0 +1,89 @@
+package com.movie.recommendation.output;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+/**
+ * Spilled runs must merge back in input order.
+ */
+public class SpillingResultStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWriteTo_NoSpill() throws Exception {
+        Path output = dir.resolve("out.txt");
+
+        try (SpillingResultStore store = new SpillingResultStore(1 << 20, dir)) {
+            store.add(1, "Bob,987654321\nMovie B\n");
+            store.add(0, "Alice,123456789\nMovie A\n");
+            store.writeTo(output.toString());
+
+            assertEquals(0, store.getSpillRunCount());
+            assertEquals(0, store.getSpilledBytes());
+        }
+
+        assertEquals(List.of("Alice,123456789", "Movie A", "Bob,987654321", "Movie B"),
+                Files.readAllLines(output));
+    }
+
+    @Test
+    public void testWriteTo_SpillEveryBlock() throws Exception {
+        Path output = dir.resolve("out.txt");
+
+        try (SpillingResultStore store = new SpillingResultStore(1, dir)) {
+            store.add(2, "Carl,333333333\n\n");
+            store.add(0, "Alice,123456789\nMovie A\n");
+            store.add(1, "Bob,987654321\nMovie B,Movie C\n");
+            store.writeTo(output.toString());
+
+            assertEquals(3, store.getSpillRunCount());
+            assertEquals(3, store.getSpilledRecords());
+            assertTrue(store.getSpilledBytes() > 0);
+        }
+
+        assertEquals("Alice,123456789\nMovie A\nBob,987654321\nMovie B,Movie C\nCarl,333333333\n\n",
+                Files.readString(output));
+    }
+
+    @Test
+    public void testWriteTo_BoundedFanIn() throws Exception {
+        Path output = dir.resolve("out.txt");
+        int users = SpillingResultStore.MERGE_FAN_IN * SpillingResultStore.MERGE_FAN_IN + 7;
+
+        StringBuilder expected = new StringBuilder();
+        try (SpillingResultStore store = new SpillingResultStore(1, dir)) {
+            // Reverse order, so every run interleaves with all others
+            for (int ordinal = users - 1; ordinal >= 0; ordinal--) {
+                store.add(ordinal, "User" + ordinal + "\n\n");
+            }
+            store.writeTo(output.toString());
+
+            assertEquals(users, store.getSpillRunCount());
+            assertEquals(2, store.getMergePassCount());
+        }
+        for (int ordinal = 0; ordinal < users; ordinal++) {
+            expected.append("User").append(ordinal).append("\n\n");
+        }
+
+        assertEquals(expected.toString(), Files.readString(output));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testClose_DeletesRunFiles() throws Exception {
+
+        SpillingResultStore store = new SpillingResultStore(1, dir);
+        store.add(0, "Alice,123456789\nMovie A\n");
+        store.close();
+
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.movie.recommendation.parser;
+import com.movie.recommendation.exception.ValidationException;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.validator.MovieValidator;
+import com.movie.recommendation.validator.UserValidator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+/**
+ * Unit tests for the lenient parsing mode.
+ */
+public class RejectLogTest {
+
+    @Test
+    public void testParseMovies_SkipsInvalidRecords() throws Exception {
+        Path temp = Files.createTempFile("movies", ".txt");
+        Files.write(temp, List.of(
+                "The Dark Knight,TDK123",
+                "action",
+                "the matrix,TM456",          // lowercase title
+                "sci-fi",
+                "Inception,I123",            // number already used
+                "thriller",
+                "Up,U789",
+                "animation"
+        ));
+        StringWriter rejects = new StringWriter();
+        RejectLog rejectLog = new RejectLog(rejects);
+
+        MovieParser parser = new MovieParser(new MovieValidator());
+        parser.setRejectLog(rejectLog);
+        List<Movie> movies = parser.parseMovies(temp.toString());
+
+        assertEquals(2, movies.size());
+        assertEquals("Up", movies.get(1).getTitle());
+        assertEquals(2, rejectLog.getTotal());
+        assertEquals(1, rejectLog.getCount(ValidationException.Code.MOVIE_TITLE));
+        assertEquals(1, rejectLog.getCount(ValidationException.Code.MOVIE_ID_NUMBERS));
+        String[] lines = rejects.toString().split("\n");
+        assertEquals(temp + ":3 MOVIE_TITLE ERROR: Movie Title {the matrix} is wrong", lines[0]);
+        assertTrue(lines[1].startsWith(temp + ":5 MOVIE_ID_NUMBERS "));
+    }
+
+    @Test
+    public void testParseUsers_SkipsInvalidRecords() throws Exception {
+        Path temp = Files.createTempFile("users", ".txt");
+        Files.write(temp, List.of(
+                "John Doe,123456789",
+                "M123",
+                "Jane Roe,123456789",        // duplicate ID
+                "M245",
+                "No Comma Here",
+                "M357",
+                "Ann Lee,98765432A"
+        ));
+        RejectLog rejectLog = new RejectLog(new StringWriter());
+
+        UserParser parser = new UserParser(new UserValidator());
+        parser.setRejectLog(rejectLog);
+        List<User> users = parser.parseUsers(temp.toString());
+
+        assertEquals(1, users.size());
+        assertEquals(1, rejectLog.getCount(ValidationException.Code.DUPLICATE_USER_ID));
+        assertEquals(1, rejectLog.getCount(ValidationException.Code.INVALID_FORMAT));
+        assertEquals(1, rejectLog.getCount(ValidationException.Code.MISSING_LINE));
+        assertEquals("3 rejected (INVALID_FORMAT=1, MISSING_LINE=1, DUPLICATE_USER_ID=1)", rejectLog.summary());
+    }
+
+    @Test
+    public void testRejectBudget_Exceeded() throws Exception {
+        RejectLog rejectLog = new RejectLog(new StringWriter());
+        rejectLog.setMaxRejects(1);
+        ValidationException error = new ValidationException(ValidationException.Code.USER_NAME, "bad");
+
+        rejectLog.reject("users.txt", 1, error);
+        ValidationException ex = assertThrows(ValidationException.class,
+                () -> rejectLog.reject("users.txt", 3, error));
+        assertEquals(ValidationException.Code.ERROR_BUDGET, ex.getCode());
+        assertEquals(0, ex.getStackTrace().length);
+    }
+
+    @Test
+    public void testRejectFraction_Exceeded() throws Exception {
+        RejectLog rejectLog = new RejectLog(new StringWriter());
+        rejectLog.setMaxRejectFraction(0.1);
+
+        rejectLog.checkFile("movies.txt", 90, 10);
+        ValidationException ex = assertThrows(ValidationException.class,
+                () -> rejectLog.checkFile("movies.txt", 89, 11));
+        assertEquals(ValidationException.Code.ERROR_BUDGET, ex.getCode());
+    }
+
+    @Test
+    public void testStrictMode_StillThrows() throws Exception {
+        Path temp = Files.createTempFile("movies", ".txt");
+        Files.write(temp, List.of("the matrix,TM456", "sci-fi"));
+
+        ValidationException ex = assertThrows(ValidationException.class,
+                () -> new MovieParser(new MovieValidator()).parseMovies(temp.toString()));
+        assertEquals(ValidationException.Code.MOVIE_TITLE, ex.getCode());
+    }
+}
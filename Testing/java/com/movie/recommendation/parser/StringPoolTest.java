@@ -0,0 +1,75 @@
+package com.movie.recommendation.parser;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.validator.MovieValidator;
+import com.movie.recommendation.validator.UserValidator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for the parser string pool and its use by the parsers.
+ */
+public class StringPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCanonical_SameInstanceInEveryMode() {
+        for (StringPool.Mode mode : StringPool.Mode.values()) {
+            StringPool pool = new StringPool(mode);
+            String first = pool.canonical(new String("action"));
+            String second = pool.canonical(new String("action"));
+
+            assertEquals("action", second);
+            assertSame(first, second, mode.toString());
+            assertEquals(2, pool.getLookups());
+            assertEquals(1, pool.getHits());
+        }
+    }
+
+    @Test
+    public void testCanonical_NullPassesThrough() {
+        StringPool pool = new StringPool();
+        assertNull(pool.canonical(null));
+        assertEquals(0, pool.getLookups());
+    }
+
+    @Test
+    public void testBounded_NeverExceedsCapacity() {
+        StringPool pool = new StringPool(StringPool.Mode.BOUNDED, 16);
+        for (int i = 0; i < 1000; i++) {
+            pool.canonical("id" + i);
+        }
+        assertTrue(pool.size() <= 16);
+        // A hot value still dedupes after the table has churned
+        String hot = pool.canonical(new String("hot"));
+        assertSame(hot, pool.canonical(new String("hot")));
+    }
+
+    @Test
+    public void testParsers_SharedPoolDedupesGenresAndLikedIds() throws Exception {
+        Path moviesFile = tempDir.resolve("movies.txt");
+        Path usersFile = tempDir.resolve("users.txt");
+        Files.write(moviesFile, List.of("The Dark Knight,TDK123", "Action,Drama",
+                "The Godfather,TG456", "drama"));
+        Files.write(usersFile, List.of("Alice Smith,12345678A", "TDK123,TG456",
+                "Bob Brown,12345679B", "TG456"));
+
+        StringPool pool = new StringPool();
+        MovieParser movieParser = new MovieParser(new MovieValidator());
+        UserParser userParser = new UserParser(new UserValidator());
+        movieParser.setStringPool(pool);
+        userParser.setStringPool(pool);
+        List<Movie> movies = movieParser.parseMovies(moviesFile.toString());
+        List<User> users = userParser.parseUsers(usersFile.toString());
+
+        assertSame(movies.get(0).getGenres().get(1), movies.get(1).getGenres().get(0));
+        assertSame(movies.get(1).getId(), users.get(0).getLikedMovieIds().get(1));
+        assertSame(users.get(0).getLikedMovieIds().get(1), users.get(1).getLikedMovieIds().get(0));
+        assertEquals("drama", movies.get(1).getGenres().get(0));
+    }
+}
@@ -3,6 +3,8 @@
  * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
  */
 package com.movie.recommendation.parser;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.model.Movie;
 import com.movie.recommendation.model.User;
 import com.movie.recommendation.exception.ValidationException;
 import com.movie.recommendation.validator.UserValidator;
@@ -74,4 +76,30 @@ public void testParseUsers_InvalidName() throws Exception {
 }
 
 
+@Test
+public void testParseUsers_FlagsDanglingIds() throws Exception {
+    Path temp = Files.createTempFile("users", ".txt");
+    Files.write(temp, List.of(
+            "John Doe,123456789",
+            "M123,M999,M245",               // M999 not in the catalog
+            "Jane Roe,98765432A",
+            "M245"
+    ));
+    CatalogIndex catalog = new CatalogIndex(Arrays.asList(
+            new Movie("Movie A", "M123", Arrays.asList("action")),
+            new Movie("Movie B", "M245", Arrays.asList("drama"))
+    ));
+
+    UserParser parser = new UserParser(new UserValidator());
+    parser.setCatalog(catalog);
+    List<User> users = parser.parseUsers(temp.toString());
+
+    assertEquals(2, users.size());
+    assertEquals(List.of("M123", "M999", "M245"), users.get(0).getLikedMovieIds());
+    assertEquals(1, parser.getDanglingIdCount());
+    assertEquals(1, parser.getUsersWithDanglingIds());
+    assertEquals(1, parser.getDanglingReport().size());
+    assertTrue(parser.getDanglingReport().get(0).contains("M999"));
+}
+
 }
\ No newline at end of file
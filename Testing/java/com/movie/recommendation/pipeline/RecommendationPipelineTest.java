@@ -0,0 +1,136 @@
+package com.movie.recommendation.pipeline;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * Unit tests for the two-stage candidate generation and re-ranking pipeline.
+ */
+public class RecommendationPipelineTest {
+
+    private final List<Movie> movies = Arrays.asList(
+        new Movie("Movie A", "MA123", Arrays.asList("action", "drama")),
+        new Movie("Movie B", "MB456", Arrays.asList("action")),
+        new Movie("Movie C", "MC789", Arrays.asList("drama", "action")),
+        new Movie("Movie D", "MD012", Arrays.asList("comedy")),
+        new Movie("Movie E", "ME345", Arrays.asList("drama"))
+    );
+
+    private final List<User> users = Arrays.asList(
+        new User("John", "123456789", Arrays.asList("MA123")),
+        new User("Jane", "987654321", Arrays.asList("MA123", "MD012")),
+        new User("Jack", "111111111", Arrays.asList("MD012", "ME345")),
+        new User("Jill", "222222222", Arrays.asList("XY999"))
+    );
+
+    @Test
+    public void testDefaultPipeline_SameAsUnrankedScan() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService scan = new RecommendationService(catalog);
+        RecommendationService piped = new RecommendationService(catalog);
+        piped.setPipeline(RecommendationPipeline.defaultPipeline(catalog));
+
+        for (User user : users) {
+            assertEquals(scan.getRankedRecommendations(user), piped.getRankedRecommendations(user));
+        }
+        assertEquals(Arrays.asList("Movie B", "Movie C", "Movie E"), piped.getRankedRecommendations(users.get(0)));
+    }
+
+    @Test
+    public void testGenreGenerator_MovieWithTwoLikedGenresProposedOnce() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        CandidateContext context = new CandidateContext(catalog);
+        context.reset(users.get(0));
+
+        int[] out = new int[10];
+        int count = new GenreCandidateGenerator(catalog).generate(context, out);
+
+        int[] sorted = Arrays.copyOf(out, count);
+        Arrays.sort(sorted);
+        assertArrayEquals(new int[] {1, 2, 4}, sorted);
+    }
+
+    @Test
+    public void testCoLikeGenerator_MostCoLikedFirst() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        CandidateContext context = new CandidateContext(catalog);
+        context.reset(new User("Anna", "333333333", Arrays.asList("MD012")));
+
+        int[] out = new int[1];
+        int count = new CoLikeCandidateGenerator(new LikesTable(catalog, users), 10).generate(context, out);
+
+        assertEquals(1, count);
+        assertEquals(0, out[0]); // Movie A and E are co-liked once each; ties go to the lower position
+    }
+
+    @Test
+    public void testMerge_DuplicatesAcrossGeneratorsScoredOnce() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        PopularityIndex popularity = new PopularityIndex(catalog, users, 5);
+        RecommendationPipeline pipeline = new RecommendationPipeline(catalog);
+        pipeline.addGenerator(new GenreCandidateGenerator(catalog), 10, 0);
+        pipeline.addGenerator(new PopularityCandidateGenerator(popularity), 10, 0);
+        pipeline.setReRanker(new PopularityReRanker(popularity), 0);
+
+        int[] out = new int[10];
+        int count = pipeline.rank(users.get(0), out);
+
+        // Genre proposes B, C, E; popularity proposes D, E, B, C (A is liked)
+        assertEquals(4, count);
+        assertEquals(4, pipeline.getMergedCandidates());
+        assertEquals(3, pipeline.getDuplicateCandidates());
+        assertEquals(3, out[0]); // Movie D, liked twice
+    }
+
+    @Test
+    public void testColdStart_PopularityGeneratorServesUnknownLikes() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService service = new RecommendationService(catalog);
+        RecommendationPipeline pipeline = RecommendationPipeline.defaultPipeline(catalog);
+        pipeline.addGenerator(new PopularityCandidateGenerator(new PopularityIndex(catalog, users, 2)), 2, 0);
+        service.setPipeline(pipeline);
+        service.setRankingMode(RankingMode.POPULARITY);
+
+        assertEquals(Arrays.asList("Movie A", "Movie D"), service.getRankedRecommendations(users.get(3)));
+    }
+
+    @Test
+    public void testColdStart_FallbackListAndMetrics() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService service = new RecommendationService(catalog);
+        service.setPipeline(RecommendationPipeline.defaultPipeline(catalog));
+        service.setColdStartTitles(Arrays.asList("Movie D"));
+
+        assertEquals(Arrays.asList("Movie D"), service.getRankedRecommendations(users.get(3)));
+        assertEquals(Arrays.asList("Movie B", "Movie C", "Movie E"), service.getRankedRecommendations(users.get(0)));
+        assertEquals(1, service.getMetrics().getColdStartUsers());
+        assertEquals(2, service.getMetrics().getUsers());
+    }
+
+    @Test
+    public void testStageStats_CountsCallsAndOverBudget() {
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationPipeline pipeline = new RecommendationPipeline(catalog);
+        pipeline.addGenerator(new GenreCandidateGenerator(catalog), 10, 1);
+        pipeline.setReRanker(new CatalogOrderReRanker(), 0);
+
+        int[] out = new int[10];
+        for (User user : users) {
+            pipeline.rank(user, out);
+        }
+
+        List<StageStats> stats = pipeline.getStageStats();
+        assertEquals(2, stats.size());
+        assertEquals("genre", stats.get(0).getName());
+        assertEquals(4, stats.get(0).getCalls());
+        assertTrue(stats.get(0).getOverBudget() > 0); // a 1 ns budget is always exceeded
+        assertEquals(0, stats.get(1).getOverBudget());
+    }
+}
@@ -0,0 +1,171 @@
+package com.movie.recommendation.server;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.UserIdCodec;
+import com.movie.recommendation.index.UserIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for the non-blocking binary recommendation server.
+ */
+public class RecommendationServerTest {
+
+    private final List<User> users = new ArrayList<>();
+    private CatalogIndex catalog;
+    private RecommendationService service;
+    private RecommendationServer server;
+    private InetSocketAddress address;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Random random = new Random(5);
+        String[] genres = {"action", "drama", "comedy", "horror", "war"};
+        List<Movie> movies = new ArrayList<>();
+        for (int m = 0; m < 200; m++) {
+            movies.add(new Movie("Movie é " + random.nextInt(150), "M" + m,
+                Arrays.asList(genres[random.nextInt(genres.length)], genres[random.nextInt(genres.length)])));
+        }
+        for (int u = 0; u < 50; u++) {
+            List<String> liked = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                liked.add("M" + random.nextInt(200));
+            }
+            users.add(new User("User", String.format("%09d", u), liked));
+        }
+        catalog = new CatalogIndex(movies);
+        service = new RecommendationService(catalog);
+        service.setPopularityIndex(new PopularityIndex(catalog, users, 0));
+        service.setRankingMode(RankingMode.POPULARITY);
+        service.setUserIndex(new UserIndex(catalog, users));
+        server = new RecommendationServer(service, catalog, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testResponses_MatchRankedRecommendations() throws Exception {
+        try (RecommendationClient client = new RecommendationClient(address)) {
+            int[] positions = new int[5];
+            for (User user : users) {
+                List<String> ranked = service.getRankedRecommendations(user);
+                List<String> expected = ranked.subList(0, Math.min(5, ranked.size()));
+                long packed = UserIdCodec.encode(user.getId());
+
+                assertEquals(expected, client.recommendTitles(packed, 5), user.getId());
+                int count = client.recommendPositions(packed, 5, positions);
+                assertEquals(expected.size(), count);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(expected.get(i), catalog.getTitle(positions[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownUser_ReturnsStatus() throws Exception {
+        try (RecommendationClient client = new RecommendationClient(address)) {
+            assertNull(client.recommendTitles(UserIdCodec.encode("999999999"), 5));
+            assertEquals(-1, client.recommendPositions(UserIdCodec.encode("999999999"), 5, new int[5]));
+        }
+    }
+
+    @Test
+    public void testFailingRequest_ServerKeepsServing() throws Exception {
+        // CONTENT ranking without genre vectors: every computation throws
+        RecommendationService broken = new RecommendationService(catalog);
+        broken.setRankingMode(RankingMode.CONTENT);
+        broken.setUserIndex(new UserIndex(catalog, users));
+        try (RecommendationServer failing = new RecommendationServer(broken, catalog,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), startAndGetPort(failing))) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < 2; i++) {
+                out.writeInt(RecommendationProtocol.REQUEST_LENGTH);
+                out.writeByte(RecommendationProtocol.MODE_TITLES);
+                out.writeLong(UserIdCodec.encode(users.get(i).getId()));
+                out.writeInt(3);
+                out.flush();
+
+                assertEquals(RecommendationProtocol.RESPONSE_HEADER - 4, in.readInt());
+                assertEquals(RecommendationProtocol.STATUS_SERVER_ERROR, in.readByte());
+                assertEquals(0, in.readInt());
+            }
+            assertEquals(2, failing.getFailedRequestCount());
+        }
+    }
+
+    private static int startAndGetPort(RecommendationServer server) {
+        server.start();
+        return server.getPort();
+    }
+
+    @Test
+    public void testPipelinedAndMalformedFrames() throws Exception {
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < 20; i++) {
+                out.writeInt(RecommendationProtocol.REQUEST_LENGTH);
+                out.writeByte(RecommendationProtocol.MODE_POSITIONS);
+                out.writeLong(UserIdCodec.encode(users.get(i).getId()));
+                out.writeInt(3);
+            }
+            out.writeInt(99);
+            out.flush();
+
+            for (int i = 0; i < 20; i++) {
+                int length = in.readInt();
+                assertEquals(RecommendationProtocol.STATUS_OK, in.readByte());
+                int count = in.readInt();
+                assertEquals(RecommendationProtocol.RESPONSE_HEADER - 4 + 4 * count, length);
+                in.skipBytes(4 * count);
+            }
+            in.readInt();
+            assertEquals(RecommendationProtocol.STATUS_BAD_REQUEST, in.readByte());
+            in.readInt();
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testInvalidMode_ClosesConnection() throws Exception {
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < 2; i++) {
+                out.writeInt(RecommendationProtocol.REQUEST_LENGTH);
+                out.writeByte(i == 0 ? 7 : RecommendationProtocol.MODE_POSITIONS);
+                out.writeLong(UserIdCodec.encode(users.get(i).getId()));
+                out.writeInt(3);
+            }
+            out.flush();
+
+            in.readInt();
+            assertEquals(RecommendationProtocol.STATUS_BAD_REQUEST, in.readByte());
+            in.readInt();
+            // The second request is not answered
+            assertEquals(-1, in.read());
+        }
+    }
+}
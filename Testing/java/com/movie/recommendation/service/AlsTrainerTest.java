@@ -0,0 +1,62 @@
+package com.movie.recommendation.service;
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.TopK;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for the implicit ALS trainer.
+ */
+public class AlsTrainerTest {
+
+    // Two groups of users: 0-3 like items 0-2, 4-7 like items 3-5
+    private static LikesTable twoGroups() {
+        int[] offsets = new int[9];
+        int[] columns = new int[8 * 3];
+        for (int u = 0; u < 8; u++) {
+            int base = u < 4 ? 0 : 3;
+            for (int i = 0; i < 3; i++) {
+                columns[u * 3 + i] = base + i;
+            }
+            offsets[u + 1] = offsets[u] + 3;
+        }
+        return new LikesTable(6, offsets, columns);
+    }
+
+    @Test
+    public void testTrain_LikedItemsScoreHigher() {
+        AlsTrainer trainer = new AlsTrainer(4, 10);
+        trainer.setParallelism(1);
+        AlsModel model = trainer.train(twoGroups());
+
+        assertTrue(model.score(0, 1) > model.score(0, 4));
+        assertTrue(model.score(5, 4) > model.score(5, 1));
+        assertEquals(10, trainer.getIterationNanos().length);
+    }
+
+    @Test
+    public void testTrain_DeterministicWithSeed() {
+        AlsTrainer first = new AlsTrainer(3, 3);
+        first.setParallelism(1);
+        AlsTrainer second = new AlsTrainer(3, 3);
+        second.setParallelism(4);
+
+        assertArrayEquals(first.train(twoGroups()).getItemFactors(),
+                second.train(twoGroups()).getItemFactors(), 1e-6f);
+    }
+
+    @Test
+    public void testRecommend_FoldInSkipsExcluded() {
+        AlsTrainer trainer = new AlsTrainer(4, 10);
+        AlsModel model = trainer.train(twoGroups());
+
+        int[] liked = {0, 1};
+        float[] vector = new float[4];
+        model.foldIn(liked, 2, new double[4 * 4 + 4], vector);
+        TopK top = new TopK(1);
+        model.recommend(vector, 0, liked, 2, top);
+
+        int[] best = new int[1];
+        top.drainSorted(best);
+        assertEquals(2, best[0]); // the remaining item of the same group
+    }
+}
@@ -0,0 +1,103 @@
+package com.movie.recommendation.service;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for single-flight coalescing of identical recommendation requests.
+ */
+public class CoalescingRecommenderTest {
+
+    private static final int BURST = 16;
+
+    @Test
+    public void testResults_EqualGetRecommendations() {
+        Random random = new Random(8);
+        String[] genres = {"Action", "drama", "comedy", "horror", "war"};
+        List<Movie> movies = new ArrayList<>();
+        for (int m = 0; m < 100; m++) {
+            movies.add(new Movie("Movie " + random.nextInt(60), "M" + m,
+                Arrays.asList(genres[random.nextInt(genres.length)], genres[random.nextInt(genres.length)])));
+        }
+        RecommendationService service = new RecommendationService();
+        CoalescingRecommender byUser = new CoalescingRecommender(service, movies, CoalescingRecommender.Key.USER_ID);
+        CoalescingRecommender byGenres = new CoalescingRecommender(service, movies,
+            CoalescingRecommender.Key.GENRE_SIGNATURE);
+
+        for (int u = 0; u < 30; u++) {
+            List<String> liked = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                liked.add("M" + random.nextInt(120));
+            }
+            User user = new User("User", String.format("%09d", u), liked);
+            List<String> expected = service.getRecommendations(user, movies);
+            assertEquals(expected, byUser.getRecommendations(user));
+            assertEquals(expected, byGenres.getRecommendations(user));
+        }
+    }
+
+    @Test
+    public void testBurst_ComputesOnce() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(BURST);
+        ExecutorService pool = Executors.newFixedThreadPool(BURST);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < BURST; i++) {
+                results.add(pool.submit(() -> {
+                    arrived.countDown();
+                    return flights.execute("user", () -> {
+                        computations.incrementAndGet();
+                        try {
+                            // Hold the flight open until every caller has arrived
+                            arrived.await(5, TimeUnit.SECONDS);
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return 42;
+                    }).join();
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+        assertEquals(1, flights.getExecutions());
+        assertEquals(BURST - 1, flights.getCoalesced());
+        assertTrue(flights.getSavedNanos() > 0);
+        assertEquals(0, flights.getInFlight());
+
+        flights.execute("user", computations::incrementAndGet);
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void testFailure_CompletesFlightExceptionally() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CompletableFuture<Integer> failed = flights.execute("user", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, failed::join);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(Integer.valueOf(1), flights.execute("user", () -> 1).join());
+    }
+}
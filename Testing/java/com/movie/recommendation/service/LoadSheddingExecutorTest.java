@@ -0,0 +1,132 @@
+package com.movie.recommendation.service;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for deadlines, CoDel admission and the load-shedding executor.
+ */
+public class LoadSheddingExecutorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static RecommendationService service(int movieCount) {
+        List<Movie> movies = new ArrayList<>();
+        for (int m = 0; m < movieCount; m++) {
+            movies.add(new Movie("Movie " + m, "M" + m, Arrays.asList(m % 2 == 0 ? "action" : "drama")));
+        }
+        CatalogIndex catalog = new CatalogIndex(movies);
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < 50; u++) {
+            users.add(new User("User", String.format("%09d", u), Arrays.asList("M" + (u * 7 % movieCount))));
+        }
+        RecommendationService service = new RecommendationService(catalog);
+        service.setPopularityIndex(new PopularityIndex(catalog, users, 0));
+        service.setRankingMode(RankingMode.POPULARITY);
+        service.setMaxResults(10);
+        return service;
+    }
+
+    @Test
+    public void testDeadline_PartialWhenPassed() {
+        RecommendationService service = service(5000);
+        User user = new User("John", "123456789", Arrays.asList("M1", "M2"));
+
+        TimedRecommendations complete = service.getTimedRecommendations(user, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+        assertEquals(TimedRecommendations.Status.COMPLETE, complete.getStatus());
+        assertEquals(service.getRankedRecommendations(user), complete.getTitles());
+
+        TimedRecommendations partial = service.getTimedRecommendations(user, System.nanoTime() - 1);
+        assertEquals(TimedRecommendations.Status.PARTIAL, partial.getStatus());
+        assertTrue(partial.getTitles().size() <= 10);
+        assertEquals(1, service.getMetrics().getPartialResults());
+        assertEquals(service.getRankedRecommendations(user), complete.getTitles());
+    }
+
+    @Test
+    public void testCoDel_ShedsStandingQueueOnly() {
+        CoDelAdmission admission = new CoDelAdmission(5 * MS, 100 * MS);
+        long now = 1_000 * MS;
+
+        // A burst above target shorter than one interval is absorbed
+        assertTrue(admission.admit(20 * MS, now));
+        assertTrue(admission.admit(20 * MS, now + 50 * MS));
+        assertTrue(admission.admit(1 * MS, now + 60 * MS));
+
+        // A standing queue is shed after one interval, then at an increasing rate
+        assertTrue(admission.admit(20 * MS, now + 200 * MS));
+        assertTrue(admission.admit(20 * MS, now + 250 * MS));
+        assertFalse(admission.admit(20 * MS, now + 300 * MS));
+        assertTrue(admission.isDropping());
+        assertTrue(admission.admit(20 * MS, now + 350 * MS));
+        assertFalse(admission.admit(20 * MS, now + 400 * MS));
+        assertFalse(admission.admit(20 * MS, now + 471 * MS));
+
+        assertTrue(admission.admit(1 * MS, now + 480 * MS));
+        assertFalse(admission.isDropping());
+        assertEquals(3, admission.getShed());
+        assertEquals(7, admission.getAdmitted());
+    }
+
+    @Test
+    public void testOverload_AdmittedRequestsMeetDeadline() throws Exception {
+        RecommendationService service = service(20000);
+        List<CompletableFuture<TimedRecommendations>> futures = new ArrayList<>();
+        long timeout = 50 * MS;
+        long[] submitted = new long[400];
+        try (LoadSheddingExecutor executor = new LoadSheddingExecutor(service,
+                new CoDelAdmission(2 * MS, 20 * MS), 1)) {
+            for (int i = 0; i < submitted.length; i++) {
+                submitted[i] = System.nanoTime();
+                futures.add(executor.submit(new User("User", "123456789", Arrays.asList("M" + i)), timeout));
+            }
+
+            int served = 0;
+            int shed = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                TimedRecommendations result = futures.get(i).get(30, TimeUnit.SECONDS);
+                if (result.getStatus() == TimedRecommendations.Status.SHED) {
+                    shed++;
+                    continue;
+                }
+                served++;
+                assertTrue(result.getQueueWaitNanos() < timeout);
+                if (result.getStatus() == TimedRecommendations.Status.COMPLETE) {
+                    assertEquals(10, result.getTitles().size());
+                }
+            }
+            assertEquals(400, served + shed);
+            assertTrue(served > 0);
+            assertTrue(shed > 0, "a burst of 400 requests should not all fit in 50 ms");
+            assertEquals(shed, executor.getExpired() + executor.getAdmission().getShed());
+        }
+    }
+
+    @Test
+    public void testClose_ShedsQueuedRequests() throws Exception {
+        RecommendationService service = service(20000);
+        List<CompletableFuture<TimedRecommendations>> futures = new ArrayList<>();
+        LoadSheddingExecutor executor = new LoadSheddingExecutor(service, null, 1);
+        for (int i = 0; i < 200; i++) {
+            futures.add(executor.submit(new User("User", "123456789", Arrays.asList("M" + i)), 10_000 * MS));
+        }
+        executor.close();
+
+        int shed = 0;
+        for (CompletableFuture<TimedRecommendations> future : futures) {
+            if (future.get(5, TimeUnit.SECONDS).getStatus() == TimedRecommendations.Status.SHED) {
+                shed++;
+            }
+        }
+        assertTrue(shed > 0);
+        CompletableFuture<TimedRecommendations> late = executor.submit(new User("User", "123456789", Arrays.asList("M1")), MS);
+        assertEquals(TimedRecommendations.Status.SHED, late.get(5, TimeUnit.SECONDS).getStatus());
+    }
+}
@@ -0,0 +1,80 @@
+package com.movie.recommendation.service;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for lazy, token-resumable recommendation cursors.
+ */
+public class RecommendationCursorTest {
+
+    private final List<Movie> movies = new ArrayList<>();
+    private final RecommendationService service;
+
+    public RecommendationCursorTest() {
+        Random random = new Random(3);
+        String[] genres = {"action", "drama", "comedy", "horror", "war"};
+        for (int m = 0; m < 300; m++) {
+            // Every title is used by up to three movies
+            movies.add(new Movie("Movie " + random.nextInt(100), "M" + m,
+                Arrays.asList(genres[random.nextInt(genres.length)], genres[random.nextInt(genres.length)])));
+        }
+        service = new RecommendationService(new CatalogIndex(movies));
+    }
+
+    @Test
+    public void testPages_ConcatenateToRankedRecommendations() {
+        User user = new User("John", "123456789", Arrays.asList("M0", "M7", "M42"));
+        List<String> expected = service.getRankedRecommendations(user);
+
+        List<String> paged = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            RecommendationPage page = service.getRecommendationPage(user, token, 7);
+            assertTrue(page.getTitles().size() <= 7);
+            paged.addAll(page.getTitles());
+            token = page.getNextToken();
+            pages++;
+        } while (token != null);
+
+        assertEquals(expected, paged);
+        assertEquals((expected.size() + 6) / 7, pages);
+    }
+
+    @Test
+    public void testToken_ResumesWhereTaken() {
+        User user = new User("John", "123456789", Arrays.asList("M3"));
+        RecommendationCursor cursor = service.openCursor(user);
+        List<String> first = cursor.nextPage(5);
+        RecommendationCursor resumed = service.openCursor(user, cursor.getToken());
+
+        assertEquals(cursor.nextPage(5), resumed.nextPage(5));
+        assertEquals(5, first.size());
+    }
+
+    @Test
+    public void testToken_RejectsOtherUserAndGarbage() {
+        User john = new User("John", "123456789", Arrays.asList("M3"));
+        User jane = new User("Jane", "987654321", Arrays.asList("M3"));
+        String token = service.openCursor(john).getToken();
+
+        assertThrows(IllegalArgumentException.class, () -> service.openCursor(jane, token));
+        assertThrows(IllegalArgumentException.class, () -> service.openCursor(john, "not a token!"));
+        assertThrows(IllegalArgumentException.class, () -> service.openCursor(john, "AAAA"));
+    }
+
+    @Test
+    public void testCursor_UnknownLikesIsEmpty() {
+        User user = new User("John", "123456789", Arrays.asList("XY999"));
+        RecommendationPage page = service.getRecommendationPage(user, null, 10);
+
+        assertTrue(page.getTitles().isEmpty());
+        assertNull(page.getNextToken());
+    }
+}
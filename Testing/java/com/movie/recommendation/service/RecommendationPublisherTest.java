@@ -0,0 +1,161 @@
+package com.movie.recommendation.service;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.output.RecommendationFileSubscriber;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for the Flow publisher of batch recommendations.
+ */
+public class RecommendationPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new User("User", String.format("%09d", i), Collections.emptyList()));
+        }
+        return users;
+    }
+
+    /** Recommends the user's own ID, with a random delay to shuffle completion order. */
+    private static List<String> echo(User user) {
+        try {
+            Thread.sleep((user.getId().hashCode() & 3));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Arrays.asList(user.getId());
+    }
+
+    @Test
+    public void testPublisher_InOrderWithinDemand() throws Exception {
+        List<User> users = users(200);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxComputedAhead = new AtomicInteger();
+        AtomicInteger received = new AtomicInteger();
+        RecommendationPublisher publisher = new RecommendationPublisher(users, user -> {
+            maxComputedAhead.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            List<String> result = echo(user);
+            inFlight.decrementAndGet();
+            return result;
+        }, 4);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<String> violation = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        publisher.subscribe(new Flow.Subscriber<UserRecommendation>() {
+            private Flow.Subscription subscription;
+            private long outstanding;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                outstanding = 3;
+                subscription.request(3);
+            }
+
+            @Override
+            public void onNext(UserRecommendation item) {
+                if (--outstanding < 0) {
+                    violation.set("onNext beyond demand");
+                }
+                order.add(item.getRecommendations().get(0));
+                received.incrementAndGet();
+                if (outstanding == 0) {
+                    outstanding = 3;
+                    subscription.request(3);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                violation.set(throwable.toString());
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(violation.get());
+        assertEquals(200, received.get());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(users.get(i).getId(), order.get(i));
+        }
+        assertTrue(maxComputedAhead.get() <= 3, "computed ahead of demand: " + maxComputedAhead.get());
+    }
+
+    @Test
+    public void testPublisher_CancelStopsEmission() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        RecommendationPublisher publisher = new RecommendationPublisher(users(100),
+            RecommendationPublisherTest::echo, 2);
+        publisher.subscribe(new Flow.Subscriber<UserRecommendation>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(UserRecommendation item) {
+                if (received.incrementAndGet() == 5) {
+                    subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        Thread.sleep(200);
+
+        assertEquals(5, received.get());
+    }
+
+    @Test
+    public void testFileSubscriber_WritesAllUsersOrFails() throws Exception {
+        List<User> users = users(500);
+        RecommendationService service = new RecommendationService();
+        Path output = tempDir.resolve("out.txt");
+
+        RecommendationFileSubscriber subscriber = new RecommendationFileSubscriber(output.toString(), service, 16);
+        new RecommendationPublisher(users, RecommendationPublisherTest::echo, 8).subscribe(subscriber);
+        assertEquals(500, subscriber.await());
+
+        StringBuilder expected = new StringBuilder();
+        for (User user : users) {
+            expected.append(service.formatRecommendations(user, Arrays.asList(user.getId())));
+        }
+        assertEquals(expected.toString(), Files.readString(output));
+
+        RecommendationFileSubscriber failing = new RecommendationFileSubscriber(output.toString(), service, 16);
+        new RecommendationPublisher(users, user -> {
+            throw new IllegalStateException("boom");
+        }, 2).subscribe(failing);
+        assertThrows(IllegalStateException.class, failing::await);
+    }
+}
@@ -3,6 +3,11 @@
  * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
  */
 package com.movie.recommendation.service;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.GenreVectors;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.UserIndex;
+import com.movie.recommendation.index.UserSimilarityIndex;
 import com.movie.recommendation.model.Movie;
 import com.movie.recommendation.model.User;
 import org.junit.jupiter.api.AfterEach;
@@ -11,6 +16,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 /**
@@ -132,4 +138,273 @@ public class RecommendationServiceTest {
         String[] lines = formatted.split("\n");
         assertEquals(3, lines.length); // Name line, empty recommendations line, final newline
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testGetNeighbourRecommendations_SimilarUserLikes() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("drama")),
+            new Movie("Movie C", "MC789", Arrays.asList("comedy")),
+            new Movie("Movie D", "MD012", Arrays.asList("horror"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MA123", "MB456")),
+            new User("Jane", "987654321", Arrays.asList("MA123", "MB456", "MC789")),
+            new User("Jack", "555444333", Arrays.asList("MD012"))
+        );
+        UserSimilarityIndex index = new UserSimilarityIndex(16, 2, 5);
+        for (User user : users) {
+            index.add(user.getLikedMovieIds());
+        }
+
+        List<String> recommendations =
+            service.getNeighbourRecommendations(users.get(0), users, movies, index, 10);
+
+        assertEquals(Arrays.asList("Movie C"), recommendations);
+    }
+    
+    @Test
+    public void testGetNeighbourRecommendations_RepeatedLikeCountsOnce() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("drama")),
+            new Movie("Movie C", "MC789", Arrays.asList("comedy")),
+            new Movie("Movie D", "MD012", Arrays.asList("horror"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MA123", "MB456")),
+            new User("Jane", "987654321", Arrays.asList("MA123", "MB456", "MC789", "MC789", "MD012")),
+            new User("Jill", "555444333", Arrays.asList("MA123", "MB456", "MD012"))
+        );
+        UserSimilarityIndex index = new UserSimilarityIndex(16, 2, 5);
+        for (User user : users) {
+            index.add(user.getLikedMovieIds());
+        }
+
+        // Movie D has two neighbours, Movie C one neighbour listing it twice
+        assertEquals(Arrays.asList("Movie D", "Movie C"),
+            service.getNeighbourRecommendations(users.get(0), users, movies, index, 10));
+    }
+    
+    @Test
+    public void testGetRankedRecommendations_Popularity() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action")),
+            new Movie("Movie C", "MC789", Arrays.asList("action")),
+            new Movie("Movie D", "MD012", Arrays.asList("drama"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MA123")),
+            new User("Jane", "987654321", Arrays.asList("MC789", "MD012")),
+            new User("Jack", "555444333", Arrays.asList("MC789"))
+        );
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService ranked = new RecommendationService(catalog);
+        ranked.setPopularityIndex(new PopularityIndex(catalog, users, 10));
+        ranked.setRankingMode(RankingMode.POPULARITY);
+
+        assertEquals(Arrays.asList("Movie C", "Movie B"), ranked.getRankedRecommendations(users.get(0)));
+
+        ranked.setMaxResults(1);
+        assertEquals(Arrays.asList("Movie C"), ranked.getRankedRecommendations(users.get(0)));
+    }
+
+    @Test
+    public void testGetRankedRecommendations_ColdStart() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("drama"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MB456")),
+            new User("Jane", "987654321", Arrays.asList("XY999"))
+        );
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService ranked = new RecommendationService(catalog);
+        ranked.setPopularityIndex(new PopularityIndex(catalog, users, 10));
+        ranked.setRankingMode(RankingMode.POPULARITY);
+
+        assertEquals(Arrays.asList("Movie B", "Movie A"), ranked.getRankedRecommendations(users.get(1)));
+    }
+    
+    @Test
+    public void testGetRankedRecommendations_ContentPrefersRareGenre() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action", "noir")),
+            new Movie("Movie B", "MB456", Arrays.asList("action")),
+            new Movie("Movie C", "MC789", Arrays.asList("action")),
+            new Movie("Movie D", "MD012", Arrays.asList("action")),
+            new Movie("Movie E", "ME345", Arrays.asList("noir"))
+        );
+        User user = new User("John", "123456789", Arrays.asList("MA123"));
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService ranked = new RecommendationService(catalog);
+        ranked.setGenreVectors(new GenreVectors(catalog));
+        ranked.setRankingMode(RankingMode.CONTENT);
+
+        List<String> recommendations = ranked.getRankedRecommendations(user);
+
+        assertEquals(4, recommendations.size());
+        assertEquals("Movie E", recommendations.get(0)); // shares the rare genre
+    }
+
+    @Test
+    public void testGetRankedRecommendations_RepeatedTitlesOnce() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action")),
+            new Movie("Movie B", "MB789", Arrays.asList("action"))
+        );
+        User user = new User("John", "123456789", Arrays.asList("MA123"));
+        RecommendationService ranked = new RecommendationService(new CatalogIndex(movies));
+
+        assertEquals(Arrays.asList("Movie B"), ranked.getRankedRecommendations(user));
+    }
+    
+    @Test
+    public void testGetRankedRecommendations_RepeatedTitlesKeepLimit() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action")),
+            new Movie("Movie B", "MB789", Arrays.asList("action")),
+            new Movie("Movie C", "MC012", Arrays.asList("action"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MA123")),
+            new User("Jane", "987654321", Arrays.asList("MB456", "MB789")),
+            new User("Jack", "555444333", Arrays.asList("MB456", "MB789", "MC012"))
+        );
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService ranked = new RecommendationService(catalog);
+        ranked.setPopularityIndex(new PopularityIndex(catalog, users, 2));
+        ranked.setRankingMode(RankingMode.POPULARITY);
+        ranked.setMaxResults(2);
+
+        // Both "Movie B" entries outrank "Movie C" but only fill one slot
+        assertEquals(Arrays.asList("Movie B", "Movie C"), ranked.getRankedRecommendations(users.get(0)));
+        assertEquals(Arrays.asList("Movie B", "Movie A"),
+            new PopularityIndex(catalog, users, 2).getTopTitles());
+    }
+
+    @Test
+    public void testPopularityIndex_RepeatedLikeCountsOnce() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MA123", "MA123", "MB456")),
+            new User("Jane", "987654321", Arrays.asList("MB456"))
+        );
+        CatalogIndex catalog = new CatalogIndex(movies);
+        PopularityIndex popularity = new PopularityIndex(catalog, users, 10);
+
+        assertEquals(1, popularity.getLikeCount(catalog.positionOf("MA123")));
+        assertEquals(2, popularity.getLikeCount(catalog.positionOf("MB456")));
+    }
+    
+    @Test
+    public void testGetRecommendations_ColdStartFallback() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("drama"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MB456")),
+            new User("Jane", "987654321", Arrays.asList("XY999"))
+        );
+        
+        // Default: unknown likes give an empty list, but are counted
+        assertTrue(service.getRecommendations(users.get(1), movies).isEmpty());
+        assertEquals(1, service.getMetrics().getColdStartUsers());
+        assertEquals(0, service.getMetrics().getFallbackServed());
+        
+        service.setColdStartTitles(new PopularityIndex(new CatalogIndex(movies), users, 10).getTopTitles());
+        assertEquals(Arrays.asList("Movie B", "Movie A"), service.getRecommendations(users.get(1), movies));
+        assertTrue(service.getRecommendations(users.get(0), movies).isEmpty()); // Known likes: no fallback
+        assertEquals(2, service.getMetrics().getColdStartUsers());
+        assertEquals(1, service.getMetrics().getFallbackServed());
+        assertEquals(3, service.getMetrics().getUsers());
+    }
+    
+    @Test
+    public void testGetRecommendations_MovieListEditedInPlace() {
+        List<Movie> movies = new ArrayList<>(Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action")),
+            new Movie("Movie C", "MC789", Arrays.asList("drama"))
+        ));
+        User user = new User("John", "123456789", Arrays.asList("MD012"));
+        assertTrue(service.getRecommendations(user, movies).isEmpty());
+
+        // Same list and size, now holding the liked movie: setMovies() rebuilds the lookup
+        movies.set(1, new Movie("Movie D", "MD012", Arrays.asList("drama")));
+        service.setMovies(movies);
+        assertEquals(Arrays.asList("Movie C"), service.getRecommendations(user, movies));
+
+        // A new list with the same movies gives the same result
+        assertEquals(Arrays.asList("Movie C"), service.getRecommendations(user, new ArrayList<>(movies)));
+    }
+    
+    @Test
+    public void testRecommendFor_MatchesRankedRecommendations() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action", "drama")),
+            new Movie("Movie C", "MC789", Arrays.asList("drama")),
+            new Movie("Movie D", "MD012", Arrays.asList("comedy"))
+        );
+        List<User> users = Arrays.asList(
+            new User("John", "123456789", Arrays.asList("MC789", "MA123")),
+            new User("Jane", "98765432A", Arrays.asList("MD012")),
+            new User("Sam", "55555555Z", Arrays.asList("XY999"))
+        );
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService ranked = new RecommendationService(catalog);
+        ranked.setPopularityIndex(new PopularityIndex(catalog, users, 10));
+        ranked.setRankingMode(RankingMode.POPULARITY);
+        ranked.setUserIndex(new UserIndex(catalog, users));
+        
+        for (User user : users) {
+            assertEquals(ranked.getRankedRecommendations(user), ranked.recommendFor(user.getId()));
+        }
+        assertEquals(Arrays.asList("Movie B"), ranked.recommendFor("123456789"));
+        assertNull(ranked.recommendFor("000000001"));
+        assertNull(ranked.recommendFor("not an id"));
+    }
+    
+    @Test
+    public void testGetFilteredRecommendations_PredicatesInScan() {
+        List<Movie> movies = Arrays.asList(
+            new Movie("Liked", "LK123", Arrays.asList("action", "drama")),
+            new Movie("Movie A", "MA123", Arrays.asList("action")),
+            new Movie("Movie B", "MB456", Arrays.asList("action", "drama")),
+            new Movie("Movie C", "MC789", Arrays.asList("drama", "horror")),
+            new Movie("Movie D", "MD012", Arrays.asList("action", "drama", "horror")),
+            new Movie("Movie E", "ME345", Arrays.asList("comedy"))
+        );
+        User user = new User("John", "123456789", Arrays.asList("LK123"));
+        RecommendationService ranked = new RecommendationService(new CatalogIndex(movies));
+        RecommendationQuery query = new RecommendationQuery();
+        
+        assertEquals(ranked.getRankedRecommendations(user), ranked.getFilteredRecommendations(user, query));
+        
+        query.setExcludedGenres(Arrays.asList("Horror"));
+        assertEquals(Arrays.asList("Movie A", "Movie B"), ranked.getFilteredRecommendations(user, query));
+        
+        query.setExcludedGenres(Arrays.asList());
+        query.setRequiredGenres(Arrays.asList("drama"));
+        assertEquals(Arrays.asList("Movie B", "Movie C", "Movie D"), ranked.getFilteredRecommendations(user, query));
+        
+        query.setRequiredGenres(Arrays.asList());
+        query.setMinOverlap(2);
+        assertEquals(Arrays.asList("Movie B", "Movie D"), ranked.getFilteredRecommendations(user, query));
+        
+        query.setLimit(1);
+        assertEquals(Arrays.asList("Movie B"), ranked.getFilteredRecommendations(user, query));
+        
+        query.setRequiredGenres(Arrays.asList("western"));
+        assertTrue(ranked.getFilteredRecommendations(user, query).isEmpty());
+    }
+}
@@ -0,0 +1,73 @@
+package com.movie.recommendation.service;
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.TopK;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+/**
+ * Unit tests for the dense scoring kernels.
+ */
+public class ScoringKernelTest {
+
+    @Test
+    public void testKernels_MatchPlainDotProduct() {
+        Random random = new Random(4);
+        int width = 21;
+        float[] vector = new float[width + 3];
+        float[] matrix = new float[37 * width];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = random.nextFloat() - 0.5f;
+        }
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = random.nextFloat() - 0.5f;
+        }
+
+        for (ScoringKernel kernel : new ScoringKernel[] {ScoringKernels.scalar(), ScoringKernels.best()}) {
+            float[] out = new float[30];
+            kernel.dotRows(vector, 3, matrix, width, 5, 35, out);
+            for (int row = 5; row < 35; row++) {
+                double expected = 0;
+                for (int k = 0; k < width; k++) {
+                    expected += vector[3 + k] * matrix[row * width + k];
+                }
+                assertEquals(expected, out[row - 5], 1e-5, kernel.getName() + " row " + row);
+            }
+        }
+    }
+
+    @Test
+    public void testRecommend_SameTopWithKernel() {
+        Random random = new Random(6);
+        int items = 3000;
+        int users = 200;
+        int[] offsets = new int[users + 1];
+        int[] columns = new int[users * 5];
+        for (int u = 0; u < users; u++) {
+            int first = random.nextInt(items - 5);
+            for (int i = 0; i < 5; i++) {
+                columns[u * 5 + i] = first + i;
+            }
+            offsets[u + 1] = offsets[u] + 5;
+        }
+        AlsTrainer trainer = new AlsTrainer(20, 2);
+        trainer.setParallelism(1);
+        AlsModel model = trainer.train(new LikesTable(items, offsets, columns));
+        int[] excluded = {3, 1500, 2999};
+
+        for (int u = 0; u < 10; u++) {
+            int[] expected = new int[50];
+            TopK top = new TopK(50);
+            model.recommend(model.getUserFactors(), u * model.getRank(), excluded, excluded.length, top);
+            top.drainSorted(expected);
+
+            for (ScoringKernel kernel : new ScoringKernel[] {ScoringKernels.scalar(), ScoringKernels.best()}) {
+                int[] actual = new int[50];
+                top.clear();
+                model.recommend(model.getUserFactors(), u * model.getRank(), excluded, excluded.length, top,
+                    kernel, new float[1024]);
+                top.drainSorted(actual);
+                assertArrayEquals(expected, actual, kernel.getName());
+            }
+        }
+    }
+}
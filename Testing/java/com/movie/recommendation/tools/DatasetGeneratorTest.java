@@ -0,0 +1,90 @@
+package com.movie.recommendation.tools;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.parser.MovieParser;
+import com.movie.recommendation.parser.UserParser;
+import com.movie.recommendation.validator.MovieValidator;
+import com.movie.recommendation.validator.UserValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+/**
+ * Generated datasets must always pass the validators.
+ */
+public class DatasetGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testGenerate_PassesValidators() throws Exception {
+        String moviesPath = dir.resolve("movies.txt").toString();
+        String usersPath = dir.resolve("users.txt").toString();
+
+        DatasetGenerator generator = new DatasetGenerator();
+        generator.setGenreCount(40);
+        generator.setHeavyUserFraction(0.05);
+        generator.setEmptyUserFraction(0.05);
+        generator.generate(DatasetGenerator.MAX_MOVIES, 2000, moviesPath, usersPath);
+
+        List<Movie> movies = new MovieParser(new MovieValidator()).parseMovies(moviesPath);
+        List<User> users = new UserParser(new UserValidator()).parseUsers(usersPath);
+
+        assertEquals(DatasetGenerator.MAX_MOVIES, movies.size());
+        assertEquals(2000, users.size());
+    }
+
+    @Test
+    public void testGenerate_GenreCardinality() throws Exception {
+        String moviesPath = dir.resolve("movies.txt").toString();
+
+        DatasetGenerator generator = new DatasetGenerator();
+        generator.setGenreCount(5);
+        generator.generateMovies(500, moviesPath);
+
+        Set<String> genres = new HashSet<>();
+        for (Movie movie : new MovieParser(new MovieValidator()).parseMovies(moviesPath)) {
+            genres.addAll(movie.getGenres());
+        }
+        assertTrue(genres.size() <= 5);
+    }
+
+    @Test
+    public void testGenerate_SameSeedSameFiles() throws Exception {
+
+        DatasetGenerator first = new DatasetGenerator();
+        first.generate(100, 100, dir.resolve("m1.txt").toString(), dir.resolve("u1.txt").toString());
+        DatasetGenerator second = new DatasetGenerator();
+        second.generate(100, 100, dir.resolve("m2.txt").toString(), dir.resolve("u2.txt").toString());
+
+        assertEquals(Files.readAllLines(dir.resolve("m1.txt")), Files.readAllLines(dir.resolve("m2.txt")));
+        assertEquals(Files.readAllLines(dir.resolve("u1.txt")), Files.readAllLines(dir.resolve("u2.txt")));
+    }
+
+    @Test
+    public void testGenerate_TooManyMovies() {
+        DatasetGenerator generator = new DatasetGenerator();
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.generateMovies(DatasetGenerator.MAX_MOVIES + 1, "unused.txt"));
+    }
+
+    @Test
+    public void testGenerate_ExtendedIds() throws Exception {
+        String moviesPath = dir.resolve("movies.txt").toString();
+
+        DatasetGenerator generator = new DatasetGenerator();
+        generator.setIdDigits(4);
+        generator.generateMovies(5000, moviesPath);
+        MovieValidator validator = new MovieValidator();
+        validator.setIdDigits(4);
+
+        assertEquals(10_000, generator.getMaxMovies());
+        assertEquals(5000, new MovieParser(validator).parseMovies(moviesPath).size());
+        assertThrows(IllegalArgumentException.class, () -> generator.generateMovies(10_001, "unused.txt"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.movie.recommendation.tools;
+import com.movie.recommendation.Main;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+/**
+ * Runs that fail validation must be told apart from successful runs.
+ */
+public class LoadHarnessTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testValidationError_DetectsErrorOutput() throws Exception {
+        Path movies = dir.resolve("movies.txt");
+        Path users = dir.resolve("users.txt");
+        Path output = dir.resolve("recommendations.txt");
+        Files.write(movies, "bad title,BT001\naction\n".getBytes());
+        Files.write(users, "Alice Smith,12345678X\nBT001\n".getBytes());
+
+        Main.processFiles(movies.toString(), users.toString(), output.toString());
+
+        String error = LoadHarness.validationError(output);
+        assertNotNull(error);
+        assertTrue(error.startsWith("ERROR"));
+    }
+
+    @Test
+    public void testValidationError_AcceptsRecommendations() throws Exception {
+        String moviesPath = dir.resolve("movies.txt").toString();
+        String usersPath = dir.resolve("users.txt").toString();
+        Path output = dir.resolve("recommendations.txt");
+        new DatasetGenerator().generate(50, 20, moviesPath, usersPath);
+
+        Main.processFiles(moviesPath, usersPath, output.toString());
+
+        assertNull(LoadHarness.validationError(output));
+    }
+}
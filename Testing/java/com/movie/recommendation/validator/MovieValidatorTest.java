@@ -167,6 +167,53 @@ public class MovieValidatorTest {
         assertEquals(expectedMessage, ex.getMessage());
     }
 
+    // ==========================
+    // Extended Movie Id Tests
+    // ==========================
+
+    @Test
+    public void testExtendedId_FiveDigits() throws ValidationException {
+        validator.setIdDigits(5);
+        validator.validateId("TDK12345", "The Dark Knight");
+        validator.validateId("I00042", "Inception");
+    }
+
+    @Test
+    public void testExtendedId_ThreeDigitsRejected() {
+        validator.setIdDigits(5);
+        ValidationException ex = assertThrows(ValidationException.class, () -> {
+            validator.validateId("TDK123", "The Dark Knight");
+        });
+        assertEquals("ERROR: Movie Id numbers {TDK123} aren't unique", ex.getMessage());
+    }
+
+    @Test
+    public void testExtendedId_Duplicate() throws ValidationException {
+        validator.setIdDigits(6);
+        validator.validateId("TDK000999", "The Dark Knight");
+        ValidationException ex = assertThrows(ValidationException.class, () -> {
+            validator.validateId("I000999", "Inception");
+        });
+        assertEquals("ERROR: Movie Id numbers {I000999} aren't unique", ex.getMessage());
+    }
+
+    @Test
+    public void testExtendedId_OutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> validator.setIdDigits(2));
+        assertThrows(IllegalArgumentException.class, () -> validator.setIdDigits(10));
+    }
+
+    @Test
+    public void testValidId_NonAsciiDigitsDistinct() throws ValidationException {
+        // Arabic-Indic digits one, two, three: the same value as "123", but a different number part
+        validator.validateId("TDK\u0661\u0662\u0663", "The Dark Knight");
+        assertDoesNotThrow(() -> validator.validateId("I123", "Inception"));
+        ValidationException ex = assertThrows(ValidationException.class, () -> {
+            validator.validateId("TM\u0661\u0662\u0663", "The Matrix");
+        });
+        assertEquals("ERROR: Movie Id numbers {TM\u0661\u0662\u0663} aren't unique", ex.getMessage());
+    }
+
 }
 
 
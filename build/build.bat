@@ -1,5 +1,8 @@
 @echo off
 REM Compilation and Execution Script for Movie Recommendation System (Windows)
+REM Usage: build.bat [--vector]
+REM   --vector  also compile the SIMD scoring kernel in src\vector\java
+REM             (JDK 17+ with the jdk.incubator.vector module)
 
 echo =========================================
 echo Movie Recommendation System - Build Script
@@ -19,13 +22,28 @@ REM Compile all Java files (targeting Java 11 compatibility)
 javac -source 11 -target 11 -d bin ^
     src\main\java\com\movie\recommendation\exception\*.java ^
     src\main\java\com\movie\recommendation\model\*.java ^
+    src\main\java\com\movie\recommendation\events\*.java ^
     src\main\java\com\movie\recommendation\validator\*.java ^
+    src\main\java\com\movie\recommendation\index\*.java ^
+    src\main\java\com\movie\recommendation\pipeline\*.java ^
     src\main\java\com\movie\recommendation\parser\*.java ^
     src\main\java\com\movie\recommendation\service\*.java ^
+    src\main\java\com\movie\recommendation\output\*.java ^
+    src\main\java\com\movie\recommendation\server\*.java ^
+    src\main\java\com\movie\recommendation\tools\*.java ^
     src\main\java\com\movie\recommendation\*.java
+set MAIN_BUILD=%errorlevel%
+
+REM Optional SIMD scoring kernel
+set JAVA_OPTS=
+if /i "%~1"=="--vector" if %MAIN_BUILD% equ 0 (
+    echo Compiling SIMD scoring kernel...
+    javac --release 17 --add-modules jdk.incubator.vector -cp bin -d bin src\vector\java\com\movie\recommendation\service\*.java && set JAVA_OPTS=--add-modules jdk.incubator.vector
+    echo.
+)
 
 REM Check if compilation was successful
-if %errorlevel% equ 0 (
+if %MAIN_BUILD% equ 0 (
     echo [92m[OK] Compilation successful![0m
     echo.
     echo Running the application...
@@ -33,7 +51,7 @@ if %errorlevel% equ 0 (
     echo.
     
     REM Run the application
-    java -cp bin com.movie.recommendation.Main
+    java %JAVA_OPTS% -cp bin com.movie.recommendation.Main
     
     echo.
     echo =========================================
@@ -1,6 +1,11 @@
 #!/bin/bash
 
 # Compilation and Execution Script for Movie Recommendation System
+#
+# Usage: ./build.sh [--vector]
+#   --vector  also compile the SIMD scoring kernel in src/vector/java
+#             (JDK 17+ with the jdk.incubator.vector module); without it
+#             ALS scoring falls back to the scalar kernel
 
 echo "========================================="
 echo "Movie Recommendation System - Build Script"
@@ -26,21 +31,39 @@ echo ""
 javac -source 11 -target 11 -d bin \
     src/main/java/com/movie/recommendation/exception/*.java \
     src/main/java/com/movie/recommendation/model/*.java \
+    src/main/java/com/movie/recommendation/events/*.java \
     src/main/java/com/movie/recommendation/validator/*.java \
+    src/main/java/com/movie/recommendation/index/*.java \
+    src/main/java/com/movie/recommendation/pipeline/*.java \
     src/main/java/com/movie/recommendation/parser/*.java \
     src/main/java/com/movie/recommendation/service/*.java \
+    src/main/java/com/movie/recommendation/output/*.java \
+    src/main/java/com/movie/recommendation/server/*.java \
+    src/main/java/com/movie/recommendation/tools/*.java \
     src/main/java/com/movie/recommendation/*.java
 
 # Check if compilation was successful
 if [ $? -eq 0 ]; then
     echo "✓ Compilation successful!"
     echo ""
+    
+    JAVA_OPTS=""
+    if [ "$1" == "--vector" ]; then
+        echo "Compiling SIMD scoring kernel..."
+        if javac --release 17 --add-modules jdk.incubator.vector -cp bin -d bin \
+            src/vector/java/com/movie/recommendation/service/*.java; then
+            JAVA_OPTS="--add-modules jdk.incubator.vector"
+        else
+            echo "SIMD kernel not compiled; the scalar kernel will be used."
+        fi
+        echo ""
+    fi
     echo "Running the application..."
     echo "========================================="
     echo ""
     
     # Run the application
-    java -cp bin com.movie.recommendation.Main
+    java $JAVA_OPTS -cp bin com.movie.recommendation.Main
     
     echo ""
     echo "========================================="
@@ -1,10 +1,36 @@
 package com.movie.recommendation;
 
+import com.movie.recommendation.events.LikeEventLog;
+import com.movie.recommendation.events.LikeState;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.GenreVectors;
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.PopularityIndex;
 import com.movie.recommendation.model.Movie;
 import com.movie.recommendation.model.User;
+import com.movie.recommendation.output.IndexedRecommendationFile;
+import com.movie.recommendation.output.PartitionedRecommendationWriter;
+import com.movie.recommendation.output.RecommendationFileSubscriber;
+import com.movie.recommendation.output.SpillingResultStore;
 import com.movie.recommendation.parser.MovieParser;
+import com.movie.recommendation.parser.RejectLog;
+import com.movie.recommendation.parser.StringPool;
 import com.movie.recommendation.parser.UserParser;
+import com.movie.recommendation.pipeline.CandidateSource;
+import com.movie.recommendation.pipeline.CatalogOrderReRanker;
+import com.movie.recommendation.pipeline.CoLikeCandidateGenerator;
+import com.movie.recommendation.pipeline.ContentReRanker;
+import com.movie.recommendation.pipeline.GenreCandidateGenerator;
+import com.movie.recommendation.pipeline.PopularityCandidateGenerator;
+import com.movie.recommendation.pipeline.PopularityReRanker;
+import com.movie.recommendation.pipeline.RecommendationPipeline;
+import com.movie.recommendation.pipeline.StageStats;
+import com.movie.recommendation.service.AlsTrainer;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationMetrics;
+import com.movie.recommendation.service.RecommendationPublisher;
 import com.movie.recommendation.service.RecommendationService;
+import com.movie.recommendation.service.ScoringKernels;
 import com.movie.recommendation.validator.MovieValidator;
 import com.movie.recommendation.validator.UserValidator;
 import com.movie.recommendation.exception.ValidationException;
@@ -12,7 +38,13 @@ import com.movie.recommendation.exception.ValidationException;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Map;
 
 /**
@@ -67,6 +99,9 @@ public class Main {
     private static final String MOVIES_FILE = "input/movies.txt";
     private static final String USERS_FILE = "input/users.txt";
     private static final String OUTPUT_FILE = "output/recommendations.txt";
+    private static final int COLD_START_LIST_SIZE = 20;
+    private static final int MAX_LIKERS_PER_MOVIE = 1000;
+    private static final int PUBLISHER_BATCH_SIZE = 256;
     
     /**
      * Main entry point of the application.
@@ -98,36 +133,301 @@ public class Main {
      */
     public static void processFiles(String moviesFilePath, String usersFilePath, String outputFilePath) 
             throws IOException {
+        processFiles(moviesFilePath, usersFilePath, outputFilePath, new RunOptions());
+    }
+    
+    /**
+     * Processes input files and generates recommendations using the given options.
+     * 
+     * TESTING NOTE:
+     * With a small result heap budget, verify that the output lists users in
+     * input order and that spill statistics are printed.
+     * 
+     * @param moviesFilePath path to movies input file
+     * @param usersFilePath path to users input file
+     * @param outputFilePath path to output file
+     * @param options run options (result heap budget, spill directory)
+     * @throws IOException if file I/O error occurs
+     */
+    public static void processFiles(String moviesFilePath, String usersFilePath, String outputFilePath,
+                                    RunOptions options) throws IOException {
         try {
             // Initialize validators
             MovieValidator movieValidator = new MovieValidator();
+            if (options.getMovieIdDigits() != MovieValidator.DEFAULT_ID_DIGITS) {
+                movieValidator.setIdDigits(options.getMovieIdDigits());
+            }
             UserValidator userValidator = new UserValidator();
             
             // Initialize parsers
             MovieParser movieParser = new MovieParser(movieValidator);
             UserParser userParser = new UserParser(userValidator);
+            StringPool stringPool = null;
+            if (options.getStringPoolMode() != null) {
+                stringPool = new StringPool(options.getStringPoolMode());
+                movieParser.setStringPool(stringPool);
+                userParser.setStringPool(stringPool);
+            }
             
-            // Parse movies (validates during parsing, stops at first error)
-            List<Movie> movies = movieParser.parseMovies(moviesFilePath);
+            RejectLog rejectLog = null;
+            if (options.getRejectFilePath() != null) {
+                rejectLog = new RejectLog(options.getRejectFilePath());
+                rejectLog.setMaxRejects(options.getMaxRejects());
+                rejectLog.setMaxRejectFraction(options.getMaxRejectFraction());
+                movieParser.setRejectLog(rejectLog);
+                userParser.setRejectLog(rejectLog);
+            }
             
-            // Parse users (validates during parsing, stops at first error)
-            List<User> users = userParser.parseUsers(usersFilePath);
+            List<Movie> movies;
+            List<User> users;
+            CatalogIndex catalog = null;
+            try {
+                // Parse movies (validates during parsing, stops at first error unless lenient)
+                movies = movieParser.parseMovies(moviesFilePath);
+                if (options.getDanglingReportPath() != null) {
+                    catalog = new CatalogIndex(movies);
+                    userParser.setCatalog(catalog);
+                }
+                
+                // Parse users (validates during parsing, stops at first error unless lenient)
+                users = userParser.parseUsers(usersFilePath);
+            } finally {
+                if (rejectLog != null) {
+                    rejectLog.close();
+                    System.out.println("Rejected records: " + rejectLog.summary()
+                        + " (reject file: " + options.getRejectFilePath() + ")");
+                }
+            }
+            if (catalog != null) {
+                writeDanglingReport(userParser, options.getDanglingReportPath());
+            }
+            if (stringPool != null) {
+                System.out.println("String pool (" + stringPool.getMode() + "): " + stringPool.size()
+                    + " distinct strings, " + stringPool.getHits() + " of " + stringPool.getLookups()
+                    + " parsed strings deduplicated");
+            }
+            if (options.getLikeLogDirectory() != null) {
+                users = applyLikeLog(users, Paths.get(options.getLikeLogDirectory()));
+            }
+            
+            RecommendationService recommendationService = createService(movies, users, options, catalog);
+            
+            // Only the indexed writer keeps the side index in step with the output file
+            boolean indexedWrite = options.isIndexedOutput() && options.getOutputPartitions() <= 0
+                && options.getResultHeapBudgetBytes() <= 0 && options.getPublisherWorkers() <= 0;
+            if (!indexedWrite) {
+                Files.deleteIfExists(IndexedRecommendationFile.indexPathFor(Paths.get(outputFilePath)));
+            }
+            // Likewise the manifest and partition files belong to partitioned mode only
+            if (options.getOutputPartitions() <= 0) {
+                PartitionedRecommendationWriter.deletePartitionFiles(Paths.get(outputFilePath));
+            }
+            
+            // Partitioned mode: one thread and one writer per partition file
+            if (options.getOutputPartitions() > 0) {
+                writeRecommendationsPartitioned(users, movies, recommendationService, outputFilePath, options);
+                return;
+            }
+            
+            // Memory-budgeted mode: buffer formatted blocks and spill to disk
+            if (options.getResultHeapBudgetBytes() > 0) {
+                writeRecommendationsWithSpill(users, movies, recommendationService, outputFilePath, options);
+                return;
+            }
+            
+            // Streaming mode: workers compute while the subscriber writes
+            if (options.getPublisherWorkers() > 0) {
+                writeRecommendationsWithPublisher(users, movies, recommendationService, outputFilePath, options);
+                return;
+            }
             
             // Generate recommendations
-            RecommendationService recommendationService = new RecommendationService();
-            Map<User, List<String>> allRecommendations = 
-                recommendationService.generateRecommendationsForAllUsers(users, movies);
+            Map<User, List<String>> allRecommendations = usesCatalog(options)
+                ? recommendationService.generateRankedRecommendationsForAllUsers(users)
+                : recommendationService.generateRecommendationsForAllUsers(users, movies);
             
             // Write recommendations to output file
-            writeRecommendationsToFile(allRecommendations, recommendationService, outputFilePath);
+            if (options.isIndexedOutput()) {
+                writeRecommendationsIndexed(allRecommendations, recommendationService, outputFilePath);
+            } else {
+                writeRecommendationsToFile(allRecommendations, recommendationService, outputFilePath);
+            }
+            printRunMetrics(recommendationService);
             
         } catch (ValidationException e) {
             // If validation error occurs, write error to output file
+            Files.deleteIfExists(IndexedRecommendationFile.indexPathFor(Paths.get(outputFilePath)));
+            PartitionedRecommendationWriter.deletePartitionFiles(Paths.get(outputFilePath));
             writeErrorToFile(e.getMessage(), outputFilePath);
             System.err.println("Validation error: " + e.getMessage());
         }
     }
     
+    /**
+     * Writes the liked movie IDs that the user parser did not find in the
+     * catalog, with a summary line, and prints the counts.
+     * 
+     * @param userParser the parser that checked the liked IDs
+     * @param reportPath path of the report file
+     * @throws IOException if the report cannot be written
+     */
+    private static void writeDanglingReport(UserParser userParser, String reportPath) throws IOException {
+        String summary = userParser.getDanglingIdCount() + " liked movie IDs not in the catalog, in "
+            + userParser.getUsersWithDanglingIds() + " users";
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(reportPath))) {
+            writer.write(summary);
+            writer.newLine();
+            for (String line : userParser.getDanglingReport()) {
+                writer.write(line);
+                writer.newLine();
+            }
+            if (userParser.getDanglingIdCount() > userParser.getDanglingReport().size()) {
+                writer.write("(first " + userParser.getDanglingReport().size() + " listed)");
+                writer.newLine();
+            }
+        }
+        System.out.println("Liked ID check: " + summary + " (report: " + reportPath + ")");
+    }
+    
+    /**
+     * Applies the state of a like event log to the parsed users.
+     * Users without events are kept as they are; for the others, movies whose
+     * latest event is an unlike are removed and liked movies are appended.
+     * 
+     * @param users the parsed users
+     * @param logDirectory the log directory
+     * @return the users with their current likes, in input order
+     * @throws IOException if the log cannot be read
+     */
+    private static List<User> applyLikeLog(List<User> users, Path logDirectory) throws IOException {
+        long start = System.nanoTime();
+        LikeState state = LikeEventLog.recover(logDirectory);
+        
+        List<User> updated = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (!state.hasUser(user.getId())) {
+                updated.add(user);
+                continue;
+            }
+            Set<String> liked = new LinkedHashSet<>(user.getLikedMovieIds());
+            liked.removeAll(state.getUnlikedMovieIds(user.getId()));
+            liked.addAll(state.getLikedMovieIds(user.getId()));
+            updated.add(new User(user.getName(), user.getId(), new ArrayList<>(liked)));
+        }
+        
+        System.out.println("Applied like log: " + state.getAppliedEvents() + " events replayed in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return updated;
+    }
+    
+    /**
+     * Creates the recommendation service for the run.
+     * Ranked modes get a catalog index, precomputed like counts and,
+     * for CONTENT ranking, TF-IDF genre vectors or, for ALS ranking, a
+     * latent factor model trained on the likes. With candidate sources set,
+     * a two-stage pipeline is built from them. With the cold-start fallback
+     * enabled, the most liked titles are computed once and set on the service.
+     * 
+     * @param movies the parsed movies
+     * @param users the parsed users
+     * @param options run options holding the ranking mode and result limit
+     * @param prebuiltCatalog catalog index already built from the movies, or null
+     * @return the configured service
+     */
+    private static RecommendationService createService(List<Movie> movies, List<User> users,
+                                                       RunOptions options, CatalogIndex prebuiltCatalog) {
+        if (!usesCatalog(options)) {
+            RecommendationService service = new RecommendationService();
+            if (options.isColdStartFallback()) {
+                CatalogIndex catalog = prebuiltCatalog != null ? prebuiltCatalog : new CatalogIndex(movies);
+                service.setColdStartTitles(new PopularityIndex(catalog, users, COLD_START_LIST_SIZE).getTopTitles());
+            }
+            return service;
+        }
+        
+        CatalogIndex catalog = prebuiltCatalog != null ? prebuiltCatalog : new CatalogIndex(movies);
+        RecommendationService service = new RecommendationService(catalog);
+        service.setRankingMode(options.getRankingMode());
+        service.setMaxResults(options.getMaxResults());
+        int topSize = options.getMaxResults() > 0 ? options.getMaxResults() : COLD_START_LIST_SIZE;
+        PopularityIndex popularity = new PopularityIndex(catalog, users, topSize);
+        service.setPopularityIndex(popularity);
+        if (options.isColdStartFallback()) {
+            service.setColdStartTitles(popularity.getTopTitles());
+        }
+        if (options.getRankingMode() == RankingMode.CONTENT) {
+            service.setGenreVectors(new GenreVectors(catalog));
+        }
+        if (options.getRankingMode() == RankingMode.ALS) {
+            AlsTrainer trainer = new AlsTrainer(options.getAlsRank(), options.getAlsIterations());
+            service.setAlsModel(trainer.train(new LikesTable(catalog, users)));
+            
+            long totalNanos = 0;
+            for (long nanos : trainer.getIterationNanos()) {
+                totalNanos += nanos;
+            }
+            System.out.println("ALS trained in " + totalNanos / 1_000_000 + " ms ("
+                    + options.getAlsIterations() + " iterations, rank " + options.getAlsRank() + ")");
+            if (options.isVectorScoring()) {
+                service.setScoringKernel(ScoringKernels.best());
+                System.out.println("ALS scoring kernel: " + ScoringKernels.best().getName());
+            }
+        }
+        if (!options.getCandidateSources().isEmpty()) {
+            service.setPipeline(createPipeline(catalog, users, service, options));
+        }
+        return service;
+    }
+    
+    /**
+     * Builds the two-stage pipeline: one generator per candidate source,
+     * re-ranked by the ranking mode.
+     * 
+     * @param catalog the catalog index
+     * @param users the parsed users
+     * @param service the service holding the popularity index and genre vectors
+     * @param options run options holding the sources, bounds and budgets
+     * @return the configured pipeline
+     */
+    private static RecommendationPipeline createPipeline(CatalogIndex catalog, List<User> users,
+                                                         RecommendationService service,
+                                                         RunOptions options) {
+        RecommendationPipeline pipeline = new RecommendationPipeline(catalog);
+        long budgetNanos = options.getStageBudgetMicros() * 1000;
+        int bound = options.getCandidatesPerSource();
+        PopularityIndex popularity = service.getPopularityIndex();
+        
+        for (CandidateSource source : options.getCandidateSources()) {
+            switch (source) {
+                case GENRE:
+                    pipeline.addGenerator(new GenreCandidateGenerator(catalog), bound, budgetNanos);
+                    break;
+                case CO_LIKES:
+                    pipeline.addGenerator(new CoLikeCandidateGenerator(new LikesTable(catalog, users),
+                            MAX_LIKERS_PER_MOVIE), bound, budgetNanos);
+                    break;
+                case POPULARITY:
+                    pipeline.addGenerator(new PopularityCandidateGenerator(popularity), bound, budgetNanos);
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        switch (options.getRankingMode()) {
+            case POPULARITY:
+                pipeline.setReRanker(new PopularityReRanker(popularity), budgetNanos);
+                break;
+            case CONTENT:
+                pipeline.setReRanker(new ContentReRanker(new GenreVectors(catalog)), budgetNanos);
+                break;
+            default:
+                pipeline.setReRanker(new CatalogOrderReRanker(), budgetNanos);
+                break;
+        }
+        return pipeline;
+    }
+    
     /**
      * Writes recommendations to the output file.
      * 
@@ -150,6 +450,168 @@ public class Main {
         }
     }
     
+    /**
+     * Writes recommendations to an indexed output file, rewriting only the
+     * blocks that differ from the previous run and removing users that are no
+     * longer in the input. Plain consumers read the same file without the
+     * index, so a run that left tombstoned blocks (resized or removed users)
+     * compacts it before returning; a run that only rewrote blocks in place
+     * keeps the incremental savings.
+     * 
+     * @param allRecommendations map of users to their recommendations
+     * @param service the recommendation service used to format blocks
+     * @param outputFilePath path to output file
+     * @throws IOException if file writing fails
+     */
+    private static void writeRecommendationsIndexed(Map<User, List<String>> allRecommendations,
+                                                    RecommendationService service,
+                                                    String outputFilePath) throws IOException {
+        try (IndexedRecommendationFile file = new IndexedRecommendationFile(Paths.get(outputFilePath))) {
+            for (Map.Entry<User, List<String>> entry : allRecommendations.entrySet()) {
+                file.put(entry.getKey().getId(), service.formatRecommendations(entry.getKey(), entry.getValue()));
+            }
+            file.removeUntouched();
+            boolean compacted = file.getDeadBytes() > 0;
+            if (compacted) {
+                file.compact();
+            }
+            System.out.println("Indexed output: " + file.getUnchanged() + " unchanged, "
+                + file.getRewrittenInPlace() + " rewritten in place, " + file.getAppended() + " appended, "
+                + file.getRemoved() + " removed, " + file.getBytesWritten() + " bytes written"
+                + (compacted ? " (compacted)" : ""));
+        }
+    }
+    
+    /**
+     * Writes recommendations to partition files, one thread and one writer per
+     * partition, and optionally concatenates them into the output file.
+     * 
+     * @param users the parsed users
+     * @param movies the parsed movies
+     * @param service the recommendation service
+     * @param outputFilePath path to output file, also the prefix of the partition files
+     * @param options run options holding the partition count
+     * @throws IOException if writing fails
+     */
+    private static void writeRecommendationsPartitioned(List<User> users, List<Movie> movies,
+                                                        RecommendationService service,
+                                                        String outputFilePath,
+                                                        RunOptions options) throws IOException {
+        PartitionedRecommendationWriter writer =
+            new PartitionedRecommendationWriter(Paths.get(outputFilePath), options.getOutputPartitions());
+        long start = System.nanoTime();
+        if (usesCatalog(options)) {
+            writer.writeAll(users, service, service::getRankedRecommendations);
+        } else {
+            writer.writeAll(users, service, user -> service.getRecommendations(user, movies));
+        }
+        long written = System.nanoTime();
+        if (options.isConcatenatePartitions()) {
+            writer.concatenate(users);
+        }
+        System.out.println("Partitioned output: " + writer.getPartitions() + " partitions in "
+            + (written - start) / 1_000_000 + " ms (manifest: " + writer.getManifestPath() + ")"
+            + (options.isConcatenatePartitions()
+                ? ", concatenated in " + (System.nanoTime() - written) / 1_000_000 + " ms" : ""));
+        printRunMetrics(service);
+    }
+    
+    /**
+     * Streams recommendations from a RecommendationPublisher into the output
+     * file through a RecommendationFileSubscriber.
+     * 
+     * @param users the parsed users
+     * @param movies the parsed movies
+     * @param service the recommendation service
+     * @param outputFilePath path to output file
+     * @param options run options holding the worker count
+     * @throws IOException if writing fails or a worker fails
+     */
+    private static void writeRecommendationsWithPublisher(List<User> users, List<Movie> movies,
+                                                          RecommendationService service,
+                                                          String outputFilePath,
+                                                          RunOptions options) throws IOException {
+        RecommendationPublisher publisher = usesCatalog(options)
+            ? service.publishRankedRecommendations(users, options.getPublisherWorkers())
+            : service.publishRecommendations(users, movies, options.getPublisherWorkers());
+        RecommendationFileSubscriber subscriber =
+            new RecommendationFileSubscriber(outputFilePath, service, PUBLISHER_BATCH_SIZE);
+        publisher.subscribe(subscriber);
+        try {
+            subscriber.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing recommendations", e);
+        }
+        printRunMetrics(service);
+    }
+    
+    /**
+     * Generates recommendations user by user into a SpillingResultStore and
+     * merges the spilled runs into the output file in input order.
+     * 
+     * @param users the parsed users
+     * @param movies the parsed movies
+     * @param service the recommendation service
+     * @param outputFilePath path to output file
+     * @param options run options holding the heap budget and spill directory
+     * @throws IOException if spilling or writing fails
+     */
+    private static void writeRecommendationsWithSpill(List<User> users, List<Movie> movies,
+                                                      RecommendationService service,
+                                                      String outputFilePath,
+                                                      RunOptions options) throws IOException {
+        Path spillDirectory = options.getSpillDirectory() != null
+                ? Paths.get(options.getSpillDirectory())
+                : Paths.get(System.getProperty("java.io.tmpdir"));
+        
+        try (SpillingResultStore store =
+                 new SpillingResultStore(options.getResultHeapBudgetBytes(), spillDirectory)) {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                List<String> recommendations = usesCatalog(options)
+                    ? service.getRankedRecommendations(user)
+                    : service.getRecommendations(user, movies);
+                store.add(i, service.formatRecommendations(user, recommendations));
+            }
+            store.writeTo(outputFilePath);
+            
+            System.out.println("Spilled " + store.getSpilledRecords() + " users in "
+                    + store.getSpillRunCount() + " runs (" + store.getSpilledBytes() + " bytes)");
+        }
+        printRunMetrics(service);
+    }
+    
+    /**
+     * Checks if the run needs the catalog index (ranked modes or the pipeline).
+     * Otherwise the original List-based recommendations are used.
+     */
+    private static boolean usesCatalog(RunOptions options) {
+        return options.getRankingMode() != RankingMode.NONE || !options.getCandidateSources().isEmpty();
+    }
+    
+    /**
+     * Prints the run counters: cold-start users and, if the service has a
+     * pipeline, the per-stage counters.
+     */
+    private static void printRunMetrics(RecommendationService service) {
+        RecommendationMetrics metrics = service.getMetrics();
+        if (metrics.getColdStartUsers() > 0) {
+            System.out.println("Cold-start users: " + metrics.getColdStartUsers() + " of "
+                    + metrics.getUsers() + " (" + metrics.getFallbackServed() + " served the fallback list)");
+        }
+        
+        RecommendationPipeline pipeline = service.getPipeline();
+        if (pipeline == null) {
+            return;
+        }
+        for (StageStats stats : pipeline.getStageStats()) {
+            System.out.println("Stage " + stats);
+        }
+        System.out.println("Merged " + pipeline.getMergedCandidates() + " candidates ("
+                + pipeline.getDuplicateCandidates() + " duplicates dropped)");
+    }
+    
     /**
      * Writes error message to the output file.
      * Format: "Error\n{error_message}\n"
@@ -0,0 +1,467 @@
+package com.movie.recommendation;
+
+import com.movie.recommendation.parser.StringPool;
+import com.movie.recommendation.pipeline.CandidateSource;
+import com.movie.recommendation.service.RankingMode;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Optional settings for Main.processFiles().
+ *
+ * The defaults reproduce the original behaviour: all recommendations are
+ * held in memory and written in one pass.
+ *
+ * TESTING NOTE:
+ * Create a RunOptions in the test, change only the setting under test and
+ * pass it to Main.processFiles(movies, users, output, options).
+ */
+public class RunOptions {
+
+    private long resultHeapBudgetBytes = 0;
+    private String spillDirectory = null;
+    private RankingMode rankingMode = RankingMode.NONE;
+    private int maxResults = 0;
+    private int alsRank = 32;
+    private int alsIterations = 10;
+    private Set<CandidateSource> candidateSources = EnumSet.noneOf(CandidateSource.class);
+    private int candidatesPerSource = 500;
+    private long stageBudgetMicros = 0;
+    private String likeLogDirectory = null;
+    private boolean coldStartFallback = false;
+    private StringPool.Mode stringPoolMode = null;
+    private int publisherWorkers = 0;
+    private boolean vectorScoring = false;
+    private String danglingReportPath = null;
+    private int movieIdDigits = 3;
+    private String rejectFilePath = null;
+    private long maxRejects = Long.MAX_VALUE;
+    private double maxRejectFraction = 1.0;
+    private boolean indexedOutput = false;
+    private int outputPartitions = 0;
+    private boolean concatenatePartitions = false;
+
+    /**
+     * Gets the heap budget for buffered results.
+     *
+     * @return the budget in bytes, or 0 if results are kept fully in memory
+     */
+    public long getResultHeapBudgetBytes() {
+        return resultHeapBudgetBytes;
+    }
+
+    /**
+     * Sets the heap budget for buffered results. When positive, results are
+     * written to temporary run files once the budget is exceeded and merged
+     * in input order at write time.
+     *
+     * @param resultHeapBudgetBytes the budget in bytes, 0 to disable spilling
+     */
+    public void setResultHeapBudgetBytes(long resultHeapBudgetBytes) {
+        this.resultHeapBudgetBytes = resultHeapBudgetBytes;
+    }
+
+    /**
+     * Gets the directory used for temporary spill files.
+     *
+     * @return the spill directory, or null for the system temp directory
+     */
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Sets the directory used for temporary spill files.
+     *
+     * @param spillDirectory the spill directory, or null for the system temp directory
+     */
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Gets the ranking mode.
+     *
+     * @return the ranking mode, NONE for the original unranked recommendations
+     */
+    public RankingMode getRankingMode() {
+        return rankingMode;
+    }
+
+    /**
+     * Sets the ranking mode. Any mode other than NONE builds a catalog index
+     * and uses RecommendationService.getRankedRecommendations().
+     *
+     * @param rankingMode the ranking mode
+     */
+    public void setRankingMode(RankingMode rankingMode) {
+        this.rankingMode = rankingMode;
+    }
+
+    /**
+     * Gets the maximum number of recommendations per user for ranked modes.
+     *
+     * @return the limit, or 0 for no limit
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Sets the maximum number of recommendations per user for ranked modes.
+     *
+     * @param maxResults the limit, or 0 for no limit
+     */
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Gets the number of latent factors for ALS ranking.
+     *
+     * @return the ALS rank
+     */
+    public int getAlsRank() {
+        return alsRank;
+    }
+
+    /**
+     * Sets the number of latent factors for ALS ranking.
+     *
+     * @param alsRank the ALS rank
+     */
+    public void setAlsRank(int alsRank) {
+        this.alsRank = alsRank;
+    }
+
+    /**
+     * Gets the number of training iterations for ALS ranking.
+     *
+     * @return the ALS iteration count
+     */
+    public int getAlsIterations() {
+        return alsIterations;
+    }
+
+    /**
+     * Sets the number of training iterations for ALS ranking.
+     *
+     * @param alsIterations the ALS iteration count
+     */
+    public void setAlsIterations(int alsIterations) {
+        this.alsIterations = alsIterations;
+    }
+
+    /**
+     * Gets the candidate generators of the two-stage pipeline.
+     *
+     * @return the candidate sources, empty if the pipeline is not used
+     */
+    public Set<CandidateSource> getCandidateSources() {
+        return candidateSources;
+    }
+
+    /**
+     * Sets the candidate generators of the two-stage pipeline. When not empty,
+     * candidates come from these generators and are re-ranked by the ranking
+     * mode (POPULARITY or CONTENT; other modes keep catalog order) instead of
+     * scanning the catalog.
+     *
+     * @param candidateSources the candidate sources, empty to disable the pipeline
+     */
+    public void setCandidateSources(Set<CandidateSource> candidateSources) {
+        this.candidateSources = candidateSources;
+    }
+
+    /**
+     * Gets the maximum number of candidates each pipeline generator may propose.
+     *
+     * @return the candidate bound per generator
+     */
+    public int getCandidatesPerSource() {
+        return candidatesPerSource;
+    }
+
+    /**
+     * Sets the maximum number of candidates each pipeline generator may propose.
+     *
+     * @param candidatesPerSource the candidate bound per generator
+     */
+    public void setCandidatesPerSource(int candidatesPerSource) {
+        this.candidatesPerSource = candidatesPerSource;
+    }
+
+    /**
+     * Gets the time budget of each pipeline stage per user.
+     *
+     * @return the budget in microseconds, 0 for none
+     */
+    public long getStageBudgetMicros() {
+        return stageBudgetMicros;
+    }
+
+    /**
+     * Sets the time budget of each pipeline stage per user. A stage that runs
+     * out of budget keeps the candidates it produced in time.
+     *
+     * @param stageBudgetMicros the budget in microseconds, 0 for none
+     */
+    public void setStageBudgetMicros(long stageBudgetMicros) {
+        this.stageBudgetMicros = stageBudgetMicros;
+    }
+
+    /**
+     * Gets the directory of the like event log applied on top of the users file.
+     *
+     * @return the log directory, or null if likes come only from the users file
+     */
+    public String getLikeLogDirectory() {
+        return likeLogDirectory;
+    }
+
+    /**
+     * Sets the directory of a like event log. Its state (latest snapshot plus
+     * replayed segments) is applied to the parsed users: likes are added and
+     * unlikes remove movies listed in the users file.
+     *
+     * @param likeLogDirectory the log directory, or null to disable
+     */
+    public void setLikeLogDirectory(String likeLogDirectory) {
+        this.likeLogDirectory = likeLogDirectory;
+    }
+
+    /**
+     * Checks if users without resolvable likes get a fallback list.
+     *
+     * @return true if the cold-start fallback is enabled
+     */
+    public boolean isColdStartFallback() {
+        return coldStartFallback;
+    }
+
+    /**
+     * Enables the cold-start fallback: users whose liked IDs match no movie
+     * get the most liked titles (computed once per run) instead of an empty line.
+     *
+     * @param coldStartFallback true to enable the fallback
+     */
+    public void setColdStartFallback(boolean coldStartFallback) {
+        this.coldStartFallback = coldStartFallback;
+    }
+
+    /**
+     * Gets the mode of the string pool shared by the parsers.
+     *
+     * @return the pool mode, or null if parsed strings are not canonicalized
+     */
+    public StringPool.Mode getStringPoolMode() {
+        return stringPoolMode;
+    }
+
+    /**
+     * Enables canonicalization of parsed genres, titles and IDs through one
+     * StringPool shared by MovieParser and UserParser.
+     *
+     * @param stringPoolMode the pool mode, or null to disable
+     */
+    public void setStringPoolMode(StringPool.Mode stringPoolMode) {
+        this.stringPoolMode = stringPoolMode;
+    }
+
+    /**
+     * Gets the number of workers computing recommendations for the streamed writer.
+     *
+     * @return the worker count, or 0 if results are collected before writing
+     */
+    public int getPublisherWorkers() {
+        return publisherWorkers;
+    }
+
+    /**
+     * Streams results to the output file through a RecommendationPublisher
+     * with this many worker threads. Users are written in input order while
+     * later ones are still being computed.
+     *
+     * @param publisherWorkers the worker count, or 0 to disable
+     */
+    public void setPublisherWorkers(int publisherWorkers) {
+        this.publisherWorkers = publisherWorkers;
+    }
+
+    /**
+     * Checks whether ALS scoring uses ScoringKernels.best().
+     *
+     * @return true if the SIMD kernel is used when available
+     */
+    public boolean isVectorScoring() {
+        return vectorScoring;
+    }
+
+    /**
+     * Scores ALS item factors with the SIMD kernel when the vector build is
+     * present (falls back to the scalar kernel otherwise).
+     *
+     * @param vectorScoring true to use ScoringKernels.best()
+     */
+    public void setVectorScoring(boolean vectorScoring) {
+        this.vectorScoring = vectorScoring;
+    }
+
+    /**
+     * Gets the path of the dangling liked ID report.
+     *
+     * @return the report path, or null if liked IDs are not checked
+     */
+    public String getDanglingReportPath() {
+        return danglingReportPath;
+    }
+
+    /**
+     * Checks liked movie IDs against the catalog while users are parsed and
+     * writes the IDs not in the catalog to a report file. The catalog index
+     * built for the check is reused by the ranked modes.
+     *
+     * @param danglingReportPath the report path, or null to skip the check
+     */
+    public void setDanglingReportPath(String danglingReportPath) {
+        this.danglingReportPath = danglingReportPath;
+    }
+
+    /**
+     * Gets the number of digits expected after the letters of a movie ID.
+     *
+     * @return the number of digits
+     */
+    public int getMovieIdDigits() {
+        return movieIdDigits;
+    }
+
+    /**
+     * Sets the number of digits expected after the letters of a movie ID.
+     * The default of 3 limits the catalog to 1000 movies.
+     *
+     * @param movieIdDigits number of digits, see MovieValidator.setIdDigits()
+     */
+    public void setMovieIdDigits(int movieIdDigits) {
+        this.movieIdDigits = movieIdDigits;
+    }
+
+    /**
+     * Gets the path of the reject file of the lenient mode.
+     *
+     * @return the reject file path, or null if the first invalid record aborts the run
+     */
+    public String getRejectFilePath() {
+        return rejectFilePath;
+    }
+
+    /**
+     * Turns on the lenient (quarantine) mode: invalid movie and user records
+     * are written with their line number and reason to this file and skipped,
+     * and the run goes on with the valid ones.
+     *
+     * @param rejectFilePath the reject file path, or null for the strict mode
+     */
+    public void setRejectFilePath(String rejectFilePath) {
+        this.rejectFilePath = rejectFilePath;
+    }
+
+    /**
+     * Gets the largest number of records the lenient mode may reject.
+     *
+     * @return the reject budget
+     */
+    public long getMaxRejects() {
+        return maxRejects;
+    }
+
+    /**
+     * Sets the largest number of records the lenient mode may reject before
+     * the run fails as in the strict mode.
+     *
+     * @param maxRejects the reject budget, Long.MAX_VALUE for no limit
+     */
+    public void setMaxRejects(long maxRejects) {
+        this.maxRejects = maxRejects;
+    }
+
+    /**
+     * Gets the largest share of rejected records per input file.
+     *
+     * @return the fraction between 0 and 1
+     */
+    public double getMaxRejectFraction() {
+        return maxRejectFraction;
+    }
+
+    /**
+     * Sets the largest share of records of one input file the lenient mode
+     * may reject before the run fails.
+     *
+     * @param maxRejectFraction fraction between 0 and 1; 1 for no limit
+     */
+    public void setMaxRejectFraction(double maxRejectFraction) {
+        this.maxRejectFraction = maxRejectFraction;
+    }
+
+    /**
+     * Checks whether the output file is written with a block index.
+     *
+     * @return true if only changed user blocks are rewritten
+     */
+    public boolean isIndexedOutput() {
+        return indexedOutput;
+    }
+
+    /**
+     * Writes the output through IndexedRecommendationFile: a side index
+     * (output path + ".idx") maps each user ID to its block, and later runs
+     * only write the blocks that changed. Applies when results are neither
+     * spilled nor streamed through a publisher.
+     *
+     * @param indexedOutput true to keep the output file indexed
+     */
+    public void setIndexedOutput(boolean indexedOutput) {
+        this.indexedOutput = indexedOutput;
+    }
+
+    /**
+     * Gets the number of partition files the output is written to.
+     *
+     * @return the partition count, or 0 for a single output file
+     */
+    public int getOutputPartitions() {
+        return outputPartitions;
+    }
+
+    /**
+     * Writes the output as this many partition files plus a manifest, one
+     * thread and one writer per partition (see PartitionedRecommendationWriter).
+     * The partition files are named after the output path.
+     *
+     * @param outputPartitions the partition count, 0 for a single output file
+     */
+    public void setOutputPartitions(int outputPartitions) {
+        this.outputPartitions = outputPartitions;
+    }
+
+    /**
+     * Checks whether partition files are also concatenated into the output file.
+     *
+     * @return true if the single output file is written too
+     */
+    public boolean isConcatenatePartitions() {
+        return concatenatePartitions;
+    }
+
+    /**
+     * Also writes the single output file, in input order, from the partition
+     * files. The partition files and the manifest are kept.
+     *
+     * @param concatenatePartitions true to write the single output file too
+     */
+    public void setConcatenatePartitions(boolean concatenatePartitions) {
+        this.concatenatePartitions = concatenatePartitions;
+    }
+}
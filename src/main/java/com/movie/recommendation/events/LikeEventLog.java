@@ -0,0 +1,827 @@
+package com.movie.recommendation.events;
+
+import com.movie.recommendation.index.UserIdCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Durable, append-only log of like/unlike events with snapshot compaction.
+ *
+ * Directory layout:
+ * - segment-NNNNNNNNNNNNNNNN.log: binary event segments, numbered in write order
+ * - snapshot-NNNNNNNNNNNNNNNN.snap: LikeState as of the start of segment N
+ *
+ * Segment format: a 16 byte header (magic, version, segment number) followed by
+ * frames. A frame is one group commit: [int payload length][int CRC32C][payload].
+ * Payload records:
+ * - LIKE / UNLIKE: [byte type][int packed user id][int movie code]
+ * - DEFINE: [byte type][int movie code][byte length][UTF-8 movie id], written
+ *   before the first use of a movie code in each segment, so a segment can be
+ *   replayed on top of any snapshot taken before it
+ *
+ * Group commit: append() only encodes the event into the pending batch and
+ * returns its sequence number. A committer thread writes the pending batch as
+ * one frame and calls FileChannel.force() once for all events in it, then
+ * wakes the callers waiting in awaitDurable(). A batch is committed when it
+ * reaches maxBatchBytes or commitIntervalMillis after its first event.
+ *
+ * open() rebuilds the state from the newest valid snapshot plus a replay of
+ * the later segments, and then starts a new segment. A frame with a bad length
+ * or checksum ends the replay of its segment (a torn write from a crash; it
+ * was never acknowledged as durable). A damaged snapshot is skipped, but if
+ * the segments it replaced were already deleted by compaction, open() fails
+ * instead of starting from a state that silently lacks those events.
+ *
+ * compact() folds the sealed segments into a new snapshot and deletes them.
+ * startCompactor() runs it in the background.
+ *
+ * TESTING NOTE:
+ * - Events appended and synced before close() are present after open()
+ * - A torn frame at the end of a segment is skipped and counted
+ * - After compact() the old segments are gone and open() gives the same state
+ * - A damaged snapshot whose segments are gone makes open() throw
+ */
+public class LikeEventLog implements Closeable {
+
+    private static final int SEGMENT_MAGIC = 0x4C4B4C47; // "LKLG"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 16;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final byte UNLIKE = 0;
+    private static final byte LIKE = 1;
+    private static final byte DEFINE = 2;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+    private final Object compactionLock = new Object();
+    private long segmentBytes = 64L * 1024 * 1024;
+    private int maxBatchBytes = 256 * 1024;
+    private long commitIntervalMillis = 2;
+    private int compactionThreshold = 4;
+
+    private LikeState state;
+    private FileChannel channel;
+    private volatile long activeSegment;
+    private long activeSegmentSize;
+    private BitSet definedInSegment = new BitSet();
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long appendedSequence = 0;
+    private long durableSequence = 0;
+    private boolean closing = false;
+    private IOException failure;
+    private Thread committer;
+    private ScheduledExecutorService compactor;
+    private long recoveredEvents = 0;
+    private long recoveryNanos = 0;
+    private long tornFrames = 0;
+    private long committedFrames = 0;
+
+    /**
+     * Constructs a log over a directory. Call open() before appending.
+     *
+     * @param directory the log directory, created if missing
+     */
+    public LikeEventLog(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the size after which a new segment is started.
+     *
+     * @param segmentBytes the segment size in bytes
+     */
+    public void setSegmentBytes(long segmentBytes) {
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Sets the batch size that triggers an immediate commit.
+     *
+     * @param maxBatchBytes the batch size in bytes
+     */
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Sets how long the committer waits for more events before committing a batch.
+     *
+     * @param commitIntervalMillis the wait in milliseconds
+     */
+    public void setCommitIntervalMillis(long commitIntervalMillis) {
+        this.commitIntervalMillis = commitIntervalMillis;
+    }
+
+    /**
+     * Sets the number of sealed segments that makes the background compactor write a snapshot.
+     *
+     * @param compactionThreshold the segment count
+     */
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Recovers the state and starts a new segment and the committer thread.
+     *
+     * @throws IOException if the directory cannot be read, the segment created,
+     *                     or events before the oldest segment have no valid snapshot
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        Recovery recovery = recover(directory, Long.MAX_VALUE);
+        state = recovery.state;
+        recoveredEvents = state.getAppliedEvents();
+        tornFrames = recovery.tornFrames;
+        recoveryNanos = System.nanoTime() - start;
+
+        activeSegment = Math.max(recovery.lastSegment, recovery.snapshotSegment - 1) + 1;
+        openSegment(activeSegment);
+        pending = ByteBuffer.allocate(maxBatchBytes * 2);
+        spare = ByteBuffer.allocate(maxBatchBytes * 2);
+
+        committer = new Thread(this::commitLoop, "like-log-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Rebuilds the state of a log directory without opening it for writing.
+     *
+     * @param directory the log directory
+     * @return the state: newest valid snapshot plus replay of the later segments
+     * @throws IOException if the directory cannot be read, or events before the
+     *                     oldest segment have no valid snapshot
+     */
+    public static LikeState recover(Path directory) throws IOException {
+        return recover(directory, Long.MAX_VALUE).state;
+    }
+
+    /**
+     * Appends an event. It is durable once awaitDurable() returns for its sequence number.
+     *
+     * @param userId a valid user ID
+     * @param movieId the movie ID
+     * @param liked true for like, false for unlike
+     * @return the sequence number of the event
+     * @throws IOException if the committer has failed
+     */
+    public synchronized long append(String userId, String movieId, boolean liked) throws IOException {
+        long user = UserIdCodec.encode(userId);
+        if (user == UserIdCodec.INVALID) {
+            throw new IllegalArgumentException("Invalid user id: " + userId);
+        }
+        byte[] movieBytes = movieId.getBytes(StandardCharsets.UTF_8);
+        if (movieBytes.length > 255) {
+            throw new IllegalArgumentException("Movie id too long: " + movieId);
+        }
+        // Backpressure: wait while a full batch is already queued
+        while (pending.position() >= maxBatchBytes && failure == null && !closing) {
+            notifyAll();
+            waitUninterruptibly();
+        }
+        checkOpen();
+
+        int code = state.movieCodeOf(movieId);
+        if (!definedInSegment.get(code)) {
+            definedInSegment.set(code);
+            ensurePending(6 + movieBytes.length);
+            pending.put(DEFINE).putInt(code).put((byte) movieBytes.length).put(movieBytes);
+        }
+        ensurePending(9);
+        pending.put(liked ? LIKE : UNLIKE).putInt((int) user).putInt(code);
+        state.apply(user, code, liked);
+
+        if (pending.position() >= maxBatchBytes || appendedSequence == durableSequence) {
+            notifyAll();
+        }
+        return ++appendedSequence;
+    }
+
+    /**
+     * Waits until an event and everything appended before it is on disk.
+     *
+     * @param sequence a sequence number returned by append()
+     * @throws IOException if the committer has failed or the log is closed first
+     */
+    public synchronized void awaitDurable(long sequence) throws IOException {
+        while (durableSequence < sequence) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (committer == null || !committer.isAlive()) {
+                throw new IOException("Like event log is closed");
+            }
+            notifyAll();
+            waitUninterruptibly();
+        }
+    }
+
+    /**
+     * Waits until every event appended so far is on disk.
+     *
+     * @throws IOException if the committer has failed
+     */
+    public void sync() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appendedSequence;
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Gets the current likes of a user (snapshot, replay and appended events).
+     *
+     * @param userId the user ID
+     * @return the liked movie IDs
+     */
+    public synchronized List<String> getLikedMovieIds(String userId) {
+        return state.getLikedMovieIds(userId);
+    }
+
+    /**
+     * Gets the number of users with at least one event.
+     *
+     * @return the user count
+     */
+    public synchronized int getUserCount() {
+        return state.getUserCount();
+    }
+
+    /**
+     * Gets the number of current likes over all users.
+     *
+     * @return the like count
+     */
+    public synchronized long getLikeCount() {
+        return state.getLikeCount();
+    }
+
+    /**
+     * Gets the number of events replayed from segments by open().
+     *
+     * @return the replayed event count
+     */
+    public long getRecoveredEvents() {
+        return recoveredEvents;
+    }
+
+    /**
+     * Gets the time open() spent loading the snapshot and replaying segments.
+     *
+     * @return nanoseconds
+     */
+    public long getRecoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /**
+     * Gets the number of torn frames skipped by open().
+     *
+     * @return the torn frame count
+     */
+    public long getTornFrames() {
+        return tornFrames;
+    }
+
+    /**
+     * Gets the number of frames (group commits) written since open().
+     *
+     * @return the frame count
+     */
+    public synchronized long getCommittedFrames() {
+        return committedFrames;
+    }
+
+    /**
+     * Gets the number of the segment currently written.
+     *
+     * @return the active segment number
+     */
+    public long getActiveSegment() {
+        return activeSegment;
+    }
+
+    /**
+     * Folds all sealed segments into a new snapshot and deletes them.
+     * The live state is not touched; the snapshot is built by replaying the
+     * segments on top of the previous snapshot.
+     *
+     * @return true if a snapshot was written
+     * @throws IOException if reading segments or writing the snapshot fails
+     */
+    public boolean compact() throws IOException {
+        synchronized (compactionLock) {
+            return compactSealedSegments();
+        }
+    }
+
+    private boolean compactSealedSegments() throws IOException {
+        long upTo = activeSegment;
+        Recovery recovery = recover(directory, upTo);
+        if (recovery.lastSegment < recovery.snapshotSegment) {
+            return false;
+        }
+
+        Path target = directory.resolve(snapshotName(upTo));
+        Path temporary = directory.resolve(snapshotName(upTo) + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream data = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16), crc));
+            recovery.state.writeTo(data);
+            data.flush();
+            // The checksum trails the body and is not part of it
+            ByteBuffer trailer = ByteBuffer.allocate(8).putLong(crc.getValue());
+            trailer.flip();
+            while (trailer.hasRemaining()) {
+                out.write(trailer);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Path file : list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (numberOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) < upTo) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Path file : list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (numberOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < upTo) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs compact() in a background thread whenever at least
+     * compactionThreshold segments have been sealed since the last snapshot.
+     *
+     * @param intervalMillis how often to check
+     */
+    public synchronized void startCompactor(long intervalMillis) {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                if (sealedSegmentCount() >= compactionThreshold) {
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println("Like log compaction failed: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Commits pending events, stops the background threads and closes the active
+     * segment. A compaction in progress is finished first.
+     *
+     * @throws IOException if the last commit fails
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService runningCompactor;
+        synchronized (this) {
+            closing = true;
+            notifyAll();
+            runningCompactor = compactor;
+        }
+        if (runningCompactor != null) {
+            runningCompactor.shutdown();
+            try {
+                runningCompactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (committer != null) {
+            try {
+                committer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private int sealedSegmentCount() throws IOException {
+        int count = 0;
+        long upTo = activeSegment;
+        for (Path file : list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (numberOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) < upTo) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void commitLoop() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                ByteBuffer prelude = null;
+                long lastSequence;
+                synchronized (this) {
+                    while (pending.position() == 0 && !closing) {
+                        wait();
+                    }
+                    if (pending.position() == 0) {
+                        return;
+                    }
+                    // Let more events join the batch, unless it is full or the log is closing
+                    long deadline = System.nanoTime() + commitIntervalMillis * 1_000_000;
+                    long remaining;
+                    while (pending.position() < maxBatchBytes && !closing
+                            && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                    batch = pending;
+                    pending = spare;
+                    spare = batch;
+                    lastSequence = appendedSequence;
+                    if (activeSegmentSize >= segmentBytes) {
+                        prelude = startDefinitions(batch);
+                    }
+                    notifyAll();
+                }
+
+                if (prelude != null) {
+                    channel.close();
+                    openSegment(activeSegment + 1);
+                    activeSegment++;
+                    prelude.flip();
+                }
+                batch.flip();
+                writeFrame(prelude, batch);
+                batch.clear();
+
+                synchronized (this) {
+                    durableSequence = lastSequence;
+                    committedFrames++;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new IOException("Committer interrupted", e));
+        } catch (RuntimeException e) {
+            fail(new IOException("Committer failed", e));
+        }
+    }
+
+    private synchronized void fail(IOException e) {
+        failure = e;
+        notifyAll();
+    }
+
+    /**
+     * Prepares the switch to a new segment. The batch was encoded against the
+     * definitions of the old segment, so the movie codes it uses without
+     * defining them are defined again in a prelude written before it.
+     * Called with the lock held, so appends after the swap see the new definitions.
+     */
+    private ByteBuffer startDefinitions(ByteBuffer batch) {
+        BitSet defined = new BitSet();
+        ByteBuffer prelude = ByteBuffer.allocate(256);
+        int position = 0;
+        while (position < batch.position()) {
+            byte type = batch.get(position);
+            if (type == DEFINE) {
+                defined.set(batch.getInt(position + 1));
+                position += 6 + (batch.get(position + 5) & 0xFF);
+                continue;
+            }
+            int code = batch.getInt(position + 5);
+            if (!defined.get(code)) {
+                defined.set(code);
+                byte[] movieBytes = state.getMovieId(code).getBytes(StandardCharsets.UTF_8);
+                if (prelude.remaining() < 6 + movieBytes.length) {
+                    ByteBuffer larger = ByteBuffer.allocate(prelude.capacity() * 2 + movieBytes.length);
+                    prelude.flip();
+                    prelude = larger.put(prelude);
+                }
+                prelude.put(DEFINE).putInt(code).put((byte) movieBytes.length).put(movieBytes);
+            }
+            position += 9;
+        }
+        definedInSegment = defined;
+        return prelude;
+    }
+
+    private void writeFrame(ByteBuffer prelude, ByteBuffer payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        int length = payload.remaining();
+        if (prelude != null) {
+            crc.update(prelude.duplicate());
+            length += prelude.remaining();
+        }
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        header.putInt(length).putInt((int) crc.getValue()).flip();
+
+        ByteBuffer[] frame = prelude != null
+                ? new ByteBuffer[] {header, prelude, payload}
+                : new ByteBuffer[] {header, payload};
+        while (payload.hasRemaining()) {
+            channel.write(frame);
+        }
+        channel.force(false);
+        activeSegmentSize += FRAME_HEADER_BYTES + length;
+    }
+
+    private void openSegment(long number) throws IOException {
+        channel = FileChannel.open(directory.resolve(segmentName(number)), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+        header.putInt(SEGMENT_MAGIC).putInt(VERSION).putLong(number).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        activeSegmentSize = SEGMENT_HEADER_BYTES;
+    }
+
+    private void ensurePending(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closing || pending == null) {
+            throw new IOException("Like event log is not open");
+        }
+    }
+
+    private void waitUninterruptibly() {
+        try {
+            wait(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads the newest valid snapshot and replays the segments numbered from it up to (excluding) upTo.
+     * Fails if segments between that snapshot (or the start of the log) and the oldest segment are gone.
+     */
+    private static Recovery recover(Path directory, long upTo) throws IOException {
+        Recovery recovery = new Recovery();
+        long damagedSnapshot = -1;
+        List<Path> snapshots = list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        Collections.reverse(snapshots);
+        for (Path snapshot : snapshots) {
+            long number = numberOf(snapshot, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            if (number > upTo) {
+                continue;
+            }
+            LikeState loaded = readSnapshot(snapshot);
+            if (loaded != null) {
+                recovery.state = loaded;
+                recovery.snapshotSegment = number;
+                break;
+            }
+            damagedSnapshot = Math.max(damagedSnapshot, number);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        long firstSegment = -1;
+        for (Path segment : list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            long number = numberOf(segment, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+            if (number >= upTo) {
+                continue;
+            }
+            if (firstSegment < 0) {
+                firstSegment = number;
+            }
+            if (number >= recovery.snapshotSegment) {
+                replaySegment(segment, recovery, buffer);
+            }
+            recovery.lastSegment = Math.max(recovery.lastSegment, number);
+        }
+
+        // Compaction deletes the segments below a snapshot; without that snapshot their events are lost
+        long missingBefore = firstSegment >= 0 ? firstSegment : damagedSnapshot;
+        if (missingBefore > recovery.snapshotSegment) {
+            throw new IOException("Cannot recover like event log " + directory + ": no valid snapshot covers the "
+                    + "segments " + recovery.snapshotSegment + " to " + (missingBefore - 1)
+                    + (damagedSnapshot >= 0 ? " (snapshot " + damagedSnapshot + " is damaged)" : ""));
+        }
+        return recovery;
+    }
+
+    /**
+     * Reads a snapshot; returns null if it is truncated, its counts don't fit
+     * its size or its checksum doesn't match.
+     */
+    private static LikeState readSnapshot(Path snapshot) throws IOException {
+        long size = Files.size(snapshot);
+        if (size < 8) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16)) {
+            InputStream body = new BoundedInputStream(file, size - 8);
+            DataInputStream data = new DataInputStream(new CheckedInputStream(body, crc));
+            LikeState loaded = LikeState.readFrom(data, size - 8);
+            long computed = crc.getValue();
+            long stored = new DataInputStream(file).readLong();
+            return computed == stored ? loaded : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void replaySegment(Path segment, Recovery recovery, ByteBuffer buffer) throws IOException {
+        LikeState state = recovery.state;
+        CRC32C crc = new CRC32C();
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+            if (size < SEGMENT_HEADER_BYTES || in.read(header, 0) < SEGMENT_HEADER_BYTES
+                    || header.getInt(0) != SEGMENT_MAGIC) {
+                recovery.tornFrames++;
+                return;
+            }
+            long position = SEGMENT_HEADER_BYTES;
+            while (position + FRAME_HEADER_BYTES <= size) {
+                ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+                in.read(frameHeader, position);
+                int length = frameHeader.getInt(0);
+                int checksum = frameHeader.getInt(4);
+                if (length <= 0 || position + FRAME_HEADER_BYTES + length > size) {
+                    recovery.tornFrames++;
+                    return;
+                }
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocateDirect(length);
+                }
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    in.read(buffer, position + FRAME_HEADER_BYTES + buffer.position());
+                }
+                buffer.flip();
+                crc.reset();
+                crc.update(buffer.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    recovery.tornFrames++;
+                    return;
+                }
+                applyFrame(buffer, state);
+                position += FRAME_HEADER_BYTES + length;
+            }
+            if (position != size) {
+                recovery.tornFrames++;
+            }
+        }
+    }
+
+    private static void applyFrame(ByteBuffer frame, LikeState state) throws IOException {
+        while (frame.hasRemaining()) {
+            byte type = frame.get();
+            int value = frame.getInt();
+            if (type == DEFINE) {
+                byte[] bytes = new byte[frame.get() & 0xFF];
+                frame.get(bytes);
+                if (!state.isDefined(value)) {
+                    state.defineMovie(value, new String(bytes, StandardCharsets.UTF_8));
+                }
+            } else if (type == LIKE || type == UNLIKE) {
+                int code = frame.getInt();
+                if (!state.isDefined(code)) {
+                    throw new IOException("Undefined movie code " + code + " in like event log");
+                }
+                state.apply(Integer.toUnsignedLong(value), code, type == LIKE);
+            } else {
+                throw new IOException("Unknown record type " + type + " in like event log");
+            }
+        }
+    }
+
+    private static List<Path> list(Path directory, String prefix, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        // Zero-padded numbers sort correctly as names
+        Collections.sort(files);
+        return files;
+    }
+
+    private static long numberOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+
+    private static String snapshotName(long number) {
+        return String.format("%s%016d%s", SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Result of recover(): the rebuilt state and what it was built from.
+     */
+    private static final class Recovery {
+        LikeState state = new LikeState();
+        long snapshotSegment = 0;
+        long lastSegment = -1;
+        long tornFrames = 0;
+    }
+
+    /**
+     * Reads at most a fixed number of bytes, so a checksum trailer is left in the underlying stream.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(bytes, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
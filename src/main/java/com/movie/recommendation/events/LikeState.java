@@ -0,0 +1,334 @@
+package com.movie.recommendation.events;
+
+import com.movie.recommendation.index.LongIntHashMap;
+import com.movie.recommendation.index.UserIdCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory result of applying like/unlike events: the latest event per (user, movie).
+ *
+ * Users are keyed by their packed ID (UserIdCodec) and get a dense row.
+ * Movie IDs are interned into dense movie codes that are also used on disk.
+ * Each row is a sorted int array of entries (movieCode << 1) | liked, so a
+ * row records both current likes and explicit unlikes; an unlike of a movie
+ * listed in users.txt can then remove it when the log is applied on top of
+ * the file.
+ *
+ * Not thread-safe; LikeEventLog guards its live state with its own lock.
+ *
+ * TESTING NOTE:
+ * - like then unlike of the same movie leaves it in getUnlikedMovieIds()
+ * - Repeated likes count once in getLikeCount()
+ * - writeTo() followed by readFrom() gives the same rows and movie codes
+ */
+public class LikeState {
+
+    private static final int SNAPSHOT_MAGIC = 0x4C4B5353; // "LKSS"
+    private static final int[] EMPTY_ROW = new int[0];
+
+    private final LongIntHashMap userRows = new LongIntHashMap(1024);
+    private long[] users = new long[1024];
+    private int[][] rows = new int[1024][];
+    private int[] rowSizes = new int[1024];
+    private int userCount = 0;
+    private long likeCount = 0;
+    private long appliedEvents = 0;
+    private final Map<String, Integer> movieCodes = new HashMap<>();
+    private String[] movieNames = new String[256];
+    private int movieCodeLimit = 0;
+
+    /**
+     * Gets the code of a movie ID, assigning the next free code to a new ID.
+     *
+     * @param movieId the movie ID
+     * @return the movie code
+     */
+    public int movieCodeOf(String movieId) {
+        Integer code = movieCodes.get(movieId);
+        if (code != null) {
+            return code;
+        }
+        defineMovie(movieCodeLimit, movieId);
+        return movieCodeLimit - 1;
+    }
+
+    /**
+     * Registers a movie ID under a given code (used by replay and snapshots).
+     *
+     * @param code the movie code
+     * @param movieId the movie ID
+     */
+    void defineMovie(int code, String movieId) {
+        if (code >= movieNames.length) {
+            movieNames = Arrays.copyOf(movieNames, Math.max(code + 1, movieNames.length * 2));
+        }
+        movieNames[code] = movieId;
+        movieCodes.put(movieId, code);
+        movieCodeLimit = Math.max(movieCodeLimit, code + 1);
+    }
+
+    /**
+     * Checks if a movie code has been defined.
+     *
+     * @param code the movie code
+     * @return true if the code has a movie ID
+     */
+    boolean isDefined(int code) {
+        return code >= 0 && code < movieCodeLimit && movieNames[code] != null;
+    }
+
+    /**
+     * Gets the movie ID of a code.
+     *
+     * @param code the movie code
+     * @return the movie ID
+     */
+    public String getMovieId(int code) {
+        return movieNames[code];
+    }
+
+    /**
+     * Applies one event by IDs.
+     *
+     * @param userId a valid user ID
+     * @param movieId the movie ID
+     * @param liked true for like, false for unlike
+     */
+    public void apply(String userId, String movieId, boolean liked) {
+        long user = UserIdCodec.encode(userId);
+        if (user == UserIdCodec.INVALID) {
+            throw new IllegalArgumentException("Invalid user id: " + userId);
+        }
+        apply(user, movieCodeOf(movieId), liked);
+    }
+
+    /**
+     * Applies one event by packed user ID and movie code.
+     *
+     * @param user the packed user ID
+     * @param movieCode the movie code
+     * @param liked true for like, false for unlike
+     */
+    public void apply(long user, int movieCode, boolean liked) {
+        appliedEvents++;
+        int row = rowOf(user);
+        int[] entries = rows[row];
+        int size = rowSizes[row];
+        int entry = movieCode << 1 | (liked ? 1 : 0);
+
+        int index = search(entries, size, movieCode);
+        if (index >= 0) {
+            if (entries[index] != entry) {
+                likeCount += liked ? 1 : -1;
+                entries[index] = entry;
+            }
+            return;
+        }
+        index = -index - 1;
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(4, size * 2));
+            rows[row] = entries;
+        }
+        System.arraycopy(entries, index, entries, index + 1, size - index);
+        entries[index] = entry;
+        rowSizes[row] = size + 1;
+        if (liked) {
+            likeCount++;
+        }
+    }
+
+    /**
+     * Checks if any event was applied for a user.
+     *
+     * @param userId the user ID
+     * @return true if the user has a row
+     */
+    public boolean hasUser(String userId) {
+        return userRows.containsKey(UserIdCodec.encode(userId));
+    }
+
+    /**
+     * Gets the movies whose latest event for the user is a like.
+     *
+     * @param userId the user ID
+     * @return the liked movie IDs, in movie code order
+     */
+    public List<String> getLikedMovieIds(String userId) {
+        return moviesWithFlag(userId, 1);
+    }
+
+    /**
+     * Gets the movies whose latest event for the user is an unlike.
+     *
+     * @param userId the user ID
+     * @return the unliked movie IDs, in movie code order
+     */
+    public List<String> getUnlikedMovieIds(String userId) {
+        return moviesWithFlag(userId, 0);
+    }
+
+    /**
+     * Gets the number of users with at least one event.
+     *
+     * @return the user count
+     */
+    public int getUserCount() {
+        return userCount;
+    }
+
+    /**
+     * Gets the number of (user, movie) pairs whose latest event is a like.
+     *
+     * @return the like count
+     */
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    /**
+     * Gets the number of events applied to this state object (not counting snapshot loading).
+     *
+     * @return the applied event count
+     */
+    public long getAppliedEvents() {
+        return appliedEvents;
+    }
+
+    /**
+     * Writes the state as a snapshot body.
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(movieCodeLimit);
+        for (int code = 0; code < movieCodeLimit; code++) {
+            if (movieNames[code] == null) {
+                out.writeShort(-1);
+            } else {
+                byte[] bytes = movieNames[code].getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+        out.writeInt(userCount);
+        for (int row = 0; row < userCount; row++) {
+            out.writeLong(users[row]);
+            out.writeInt(rowSizes[row]);
+            for (int i = 0; i < rowSizes[row]; i++) {
+                out.writeInt(rows[row][i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot body written by writeTo(). Every count is checked
+     * against the body size before anything is allocated, so a damaged
+     * count fails with an IOException instead of a huge allocation.
+     *
+     * @param in the input
+     * @param bodyBytes size of the snapshot body
+     * @return the state
+     * @throws IOException if reading fails or the data is not a valid snapshot
+     */
+    static LikeState readFrom(DataInputStream in, long bodyBytes) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a like state snapshot");
+        }
+        LikeState state = new LikeState();
+        int movies = in.readInt();
+        // Each movie takes at least its 2 byte length
+        checkCount(movies, 2, bodyBytes);
+        for (int code = 0; code < movies; code++) {
+            int length = in.readShort();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                state.defineMovie(code, new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        int userTotal = in.readInt();
+        // Each user takes at least its 8 byte ID and 4 byte row size
+        checkCount(userTotal, 12, bodyBytes);
+        for (int r = 0; r < userTotal; r++) {
+            int row = state.rowOf(in.readLong());
+            int size = in.readInt();
+            checkCount(size, 4, bodyBytes);
+            int[] entries = new int[size];
+            for (int i = 0; i < size; i++) {
+                entries[i] = in.readInt();
+                state.likeCount += entries[i] & 1;
+            }
+            state.rows[row] = entries;
+            state.rowSizes[row] = size;
+        }
+        return state;
+    }
+
+    private static void checkCount(int count, int minBytesEach, long bodyBytes) throws IOException {
+        if (count < 0 || (long) count * minBytesEach > bodyBytes) {
+            throw new IOException("Corrupt snapshot: count " + count + " does not fit in " + bodyBytes + " bytes");
+        }
+    }
+
+    private int rowOf(long user) {
+        int row = userRows.get(user, -1);
+        if (row >= 0) {
+            return row;
+        }
+        row = userCount++;
+        if (row == users.length) {
+            users = Arrays.copyOf(users, row * 2);
+            rows = Arrays.copyOf(rows, row * 2);
+            rowSizes = Arrays.copyOf(rowSizes, row * 2);
+        }
+        users[row] = user;
+        rows[row] = EMPTY_ROW;
+        userRows.put(user, row);
+        return row;
+    }
+
+    private List<String> moviesWithFlag(String userId, int flag) {
+        int row = userRows.get(UserIdCodec.encode(userId), -1);
+        List<String> movies = new ArrayList<>();
+        if (row < 0) {
+            return movies;
+        }
+        for (int i = 0; i < rowSizes[row]; i++) {
+            if ((rows[row][i] & 1) == flag) {
+                movies.add(movieNames[rows[row][i] >>> 1]);
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Binary search by movie code over the sorted entries.
+     */
+    private static int search(int[] entries, int size, int movieCode) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int code = entries[middle] >>> 1;
+            if (code < movieCode) {
+                low = middle + 1;
+            } else if (code > movieCode) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -11,9 +11,39 @@ package com.movie.recommendation.exception;
  *   public void testValidationExceptionThrown() {
  *       throw new ValidationException("Test error");
  *   }
+ * - Exceptions built with a Code carry that code and no stack trace
  */
 public class ValidationException extends Exception {
     
+    /**
+     * Reason a record was rejected, used to count rejects by kind in the
+     * lenient parsing mode (see RejectLog).
+     */
+    public enum Code {
+        /** A line is not in the expected "value,value" format */
+        INVALID_FORMAT,
+        /** The second line of a record is missing at the end of the file */
+        MISSING_LINE,
+        /** A movie title breaks the capital letter rule */
+        MOVIE_TITLE,
+        /** The letters of a movie ID do not match the title */
+        MOVIE_ID_LETTERS,
+        /** The digits of a movie ID are malformed or already used */
+        MOVIE_ID_NUMBERS,
+        /** A user name contains characters other than letters and spaces */
+        USER_NAME,
+        /** A user ID is malformed */
+        USER_ID,
+        /** A user ID is already used by an earlier user */
+        DUPLICATE_USER_ID,
+        /** The lenient mode's reject budget is exhausted */
+        ERROR_BUDGET,
+        /** Any other validation error */
+        OTHER
+    }
+    
+    private final Code code;
+    
     /**
      * Constructs a new ValidationException with the specified detail message.
      * 
@@ -21,6 +51,21 @@ public class ValidationException extends Exception {
      */
     public ValidationException(String message) {
         super(message);
+        this.code = Code.OTHER;
+    }
+    
+    /**
+     * Constructs a new ValidationException for a known kind of error.
+     * No stack trace is captured: validation errors are expected input
+     * problems, and rejecting a record in the lenient mode should cost no
+     * more than building the message.
+     * 
+     * @param code the kind of error
+     * @param message the detail message explaining the validation error
+     */
+    public ValidationException(Code code, String message) {
+        super(message, null, false, false);
+        this.code = code;
     }
     
     /**
@@ -31,5 +76,15 @@ public class ValidationException extends Exception {
      */
     public ValidationException(String message, Throwable cause) {
         super(message, cause);
+        this.code = Code.OTHER;
+    }
+    
+    /**
+     * Gets the kind of error.
+     * 
+     * @return the code, OTHER if none was given
+     */
+    public Code getCode() {
+        return code;
     }
 }
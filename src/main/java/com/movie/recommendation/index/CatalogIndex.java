@@ -0,0 +1,286 @@
+package com.movie.recommendation.index;
+
+import com.movie.recommendation.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, array-based view of the movie catalog built once from MovieParser output.
+ *
+ * Every movie gets a dense catalog position (its index in the parsed list).
+ * Genres are mapped to dense genre ids through a dictionary, and each movie's
+ * genres are stored as a slice of one flat int array, so recommendation code
+ * can work on primitive ids instead of Strings and HashMaps.
+ *
+ * Layout of the genre slices (CSR):
+ * movie p has genre ids movieGenres[genreOffsets[p] .. genreOffsets[p + 1])
+ *
+ * The inverse direction (genre to movies) is kept as one compressed
+ * RoaringBitmap of catalog positions per genre id.
+ *
+ * Movie IDs resolve through a minimal perfect hash (PerfectHash) and an int
+ * array from hash slot to position: one probe and one equals(), no boxing,
+ * and IDs outside the catalog are rejected as cheaply as known ones resolve.
+ *
+ * TESTING NOTE:
+ * - positionOf() returns -1 for IDs not in the catalog
+ * - Genre ids are shared between movies with the same (lowercase) genre
+ * - getMovie(p) returns the same Movie object that was passed in
+ * - Movies with equal titles share a title id
+ * - previousWithSameTitle() links each repeated title to its prior position
+ * - getGenreBitmap(g) contains exactly the positions of movies with genre g
+ */
+public class CatalogIndex {
+
+    private final List<Movie> movies;
+    private final String[] titles;
+    private final int[] titleIds;
+    private final int[] previousSameTitle;
+    private final int titleCount;
+    private final PerfectHash ids;
+    private final int[] positionBySlot;
+    private final Map<String, Integer> genreIds;
+    private final String[] genreNames;
+    private final int[] genreOffsets;
+    private final int[] movieGenres;
+    private final RoaringBitmap[] genreBitmaps;
+
+    /**
+     * Builds the index.
+     *
+     * @param movies the parsed movies, in file order
+     */
+    public CatalogIndex(List<Movie> movies) {
+        this.movies = movies;
+        int count = movies.size();
+        this.titles = new String[count];
+        this.titleIds = new int[count];
+        Map<String, Integer> positionsById = new HashMap<>(count * 2);
+        this.genreIds = new HashMap<>();
+        this.genreOffsets = new int[count + 1];
+
+        Map<String, Integer> distinctTitles = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int totalGenres = 0;
+        for (Movie movie : movies) {
+            totalGenres += movie.getGenres().size();
+        }
+        int[] flat = new int[totalGenres];
+        int next = 0;
+
+        for (int p = 0; p < count; p++) {
+            Movie movie = movies.get(p);
+            titles[p] = movie.getTitle();
+            Integer titleId = distinctTitles.putIfAbsent(movie.getTitle(), distinctTitles.size());
+            titleIds[p] = titleId == null ? distinctTitles.size() - 1 : titleId;
+            // Last occurrence wins, same as the movie map in RecommendationService
+            positionsById.put(movie.getId(), p);
+
+            genreOffsets[p] = next;
+            for (String genre : movie.getGenres()) {
+                String key = genre.toLowerCase();
+                Integer id = genreIds.get(key);
+                if (id == null) {
+                    id = names.size();
+                    genreIds.put(key, id);
+                    names.add(key);
+                }
+                flat[next++] = id;
+            }
+        }
+        genreOffsets[count] = next;
+        this.titleCount = distinctTitles.size();
+
+        this.ids = new PerfectHash(positionsById.keySet().toArray(new String[0]));
+        this.positionBySlot = new int[ids.size()];
+        for (Map.Entry<String, Integer> entry : positionsById.entrySet()) {
+            positionBySlot[ids.indexOf(entry.getKey())] = entry.getValue();
+        }
+
+        int[] lastWithTitle = new int[titleCount];
+        Arrays.fill(lastWithTitle, -1);
+        this.previousSameTitle = new int[count];
+        for (int p = 0; p < count; p++) {
+            previousSameTitle[p] = lastWithTitle[titleIds[p]];
+            lastWithTitle[titleIds[p]] = p;
+        }
+
+        this.movieGenres = flat;
+        this.genreNames = names.toArray(new String[0]);
+
+        // Positions are visited in ascending order, so every add appends
+        this.genreBitmaps = new RoaringBitmap[genreNames.length];
+        for (int g = 0; g < genreBitmaps.length; g++) {
+            genreBitmaps[g] = new RoaringBitmap();
+        }
+        for (int p = 0; p < count; p++) {
+            for (int i = genreOffsets[p]; i < genreOffsets[p + 1]; i++) {
+                genreBitmaps[flat[i]].add(p);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of movies.
+     *
+     * @return the catalog size
+     */
+    public int size() {
+        return titles.length;
+    }
+
+    /**
+     * Gets the catalog position of a movie ID.
+     *
+     * @param movieId the movie ID
+     * @return the position, or -1 if the ID is not in the catalog
+     */
+    public int positionOf(String movieId) {
+        int slot = ids.indexOf(movieId);
+        return slot < 0 ? -1 : positionBySlot[slot];
+    }
+
+    /**
+     * Gets the movie at a catalog position.
+     *
+     * @param position the catalog position
+     * @return the movie
+     */
+    public Movie getMovie(int position) {
+        return movies.get(position);
+    }
+
+    /**
+     * Gets the title of the movie at a catalog position.
+     *
+     * @param position the catalog position
+     * @return the movie title
+     */
+    public String getTitle(int position) {
+        return titles[position];
+    }
+
+    /**
+     * Gets the dense id of a movie's title. Movies with equal titles share the id,
+     * which lets callers drop repeated titles without hashing Strings.
+     *
+     * @param position the catalog position
+     * @return the title id, between 0 and getTitleCount() - 1
+     */
+    public int getTitleId(int position) {
+        return titleIds[position];
+    }
+
+    /**
+     * Gets the title ids of all movies, indexed by catalog position. Do not modify.
+     *
+     * @return the title id array
+     */
+    public int[] getTitleIds() {
+        return titleIds;
+    }
+
+    /**
+     * Gets the closest earlier position with the same title, so callers that
+     * emit titles lazily can tell a repeated title without remembering what
+     * they already emitted.
+     *
+     * @param position the catalog position
+     * @return the previous position with an equal title, or -1
+     */
+    public int previousWithSameTitle(int position) {
+        return previousSameTitle[position];
+    }
+
+    /**
+     * Gets the number of distinct titles.
+     *
+     * @return the number of distinct titles
+     */
+    public int getTitleCount() {
+        return titleCount;
+    }
+
+    /**
+     * Gets the parsed movies backing this index.
+     *
+     * @return the movies, in catalog order
+     */
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    /**
+     * Gets the number of distinct genres.
+     *
+     * @return the genre dictionary size
+     */
+    public int getGenreCount() {
+        return genreNames.length;
+    }
+
+    /**
+     * Gets the dense id of a genre.
+     *
+     * @param genre the genre name (case-insensitive)
+     * @return the genre id, or -1 if no movie has this genre
+     */
+    public int genreIdOf(String genre) {
+        Integer id = genreIds.get(genre.toLowerCase());
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the name of a genre id.
+     *
+     * @param genreId the genre id
+     * @return the lowercase genre name
+     */
+    public String getGenreName(int genreId) {
+        return genreNames[genreId];
+    }
+
+    /**
+     * Gets the start of a movie's genre slice in getMovieGenres().
+     *
+     * @param position the catalog position
+     * @return the first index of the slice
+     */
+    public int genreStart(int position) {
+        return genreOffsets[position];
+    }
+
+    /**
+     * Gets the end (exclusive) of a movie's genre slice in getMovieGenres().
+     *
+     * @param position the catalog position
+     * @return the index after the last genre of the slice
+     */
+    public int genreEnd(int position) {
+        return genreOffsets[position + 1];
+    }
+
+    /**
+     * Gets the flat array of genre ids for all movies.
+     * Read it with genreStart() and genreEnd(); do not modify.
+     *
+     * @return the genre id array
+     */
+    public int[] getMovieGenres() {
+        return movieGenres;
+    }
+
+    /**
+     * Gets the set of movies with a genre. Do not modify.
+     *
+     * @param genreId the genre id
+     * @return the catalog positions of the movies with the genre
+     */
+    public RoaringBitmap getGenreBitmap(int genreId) {
+        return genreBitmaps[genreId];
+    }
+}
@@ -0,0 +1,115 @@
+package com.movie.recommendation.index;
+
+/**
+ * Sparse TF-IDF vectors over the genre dictionary, one per catalog movie.
+ *
+ * The vector of movie p shares its layout with CatalogIndex.getMovieGenres():
+ * entry i in genreStart(p)..genreEnd(p) has genre id getMovieGenres()[i] and
+ * weight getWeights()[i]. Genres that occur in many movies (e.g. "action")
+ * get a low inverse document frequency, so matching on them counts for less
+ * than matching on a rare genre.
+ *
+ * idf(g) = ln((1 + N) / (1 + df(g))) + 1, where N is the catalog size and
+ * df(g) the number of movies with genre g. The term frequency is the number of
+ * times the genre is listed for the movie (normally 1).
+ *
+ * Vector norms are precomputed, so cosine similarity needs only a dot product.
+ *
+ * TESTING NOTE:
+ * - A rare genre has a higher weight than a common one
+ * - getNorm(p) equals the Euclidean length of movie p's vector
+ * - A movie without genres has norm 0
+ */
+public class GenreVectors {
+
+    private final CatalogIndex catalog;
+    private final float[] idf;
+    private final float[] weights;
+    private final float[] norms;
+
+    /**
+     * Builds the vectors.
+     *
+     * @param catalog the catalog index
+     */
+    public GenreVectors(CatalogIndex catalog) {
+        this.catalog = catalog;
+        int movieCount = catalog.size();
+        int genreCount = catalog.getGenreCount();
+        int[] movieGenres = catalog.getMovieGenres();
+
+        // Document frequency: count each genre once per movie
+        int[] documentFrequency = new int[genreCount];
+        int[] lastSeen = new int[genreCount];
+        for (int p = 0; p < movieCount; p++) {
+            for (int i = catalog.genreStart(p); i < catalog.genreEnd(p); i++) {
+                int genre = movieGenres[i];
+                if (lastSeen[genre] != p + 1) {
+                    lastSeen[genre] = p + 1;
+                    documentFrequency[genre]++;
+                }
+            }
+        }
+
+        idf = new float[genreCount];
+        for (int g = 0; g < genreCount; g++) {
+            idf[g] = (float) (Math.log((1.0 + movieCount) / (1.0 + documentFrequency[g])) + 1.0);
+        }
+
+        // Repeated genres add up, so the dot product with a dense vector stays exact
+        weights = new float[movieGenres.length];
+        norms = new float[movieCount];
+        float[] dense = new float[genreCount];
+        for (int p = 0; p < movieCount; p++) {
+            for (int i = catalog.genreStart(p); i < catalog.genreEnd(p); i++) {
+                weights[i] = idf[movieGenres[i]];
+                dense[movieGenres[i]] += weights[i];
+            }
+            double sumOfSquares = 0;
+            for (int i = catalog.genreStart(p); i < catalog.genreEnd(p); i++) {
+                int genre = movieGenres[i];
+                sumOfSquares += (double) dense[genre] * dense[genre];
+                dense[genre] = 0;
+            }
+            norms[p] = (float) Math.sqrt(sumOfSquares);
+        }
+    }
+
+    /**
+     * Gets the inverse document frequency of a genre.
+     *
+     * @param genreId the genre id
+     * @return the idf weight
+     */
+    public float getIdf(int genreId) {
+        return idf[genreId];
+    }
+
+    /**
+     * Gets the weights of all movie vectors, aligned with CatalogIndex.getMovieGenres(). Do not modify.
+     *
+     * @return the flat weight array
+     */
+    public float[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Gets the precomputed Euclidean norm of a movie's vector.
+     *
+     * @param position the catalog position
+     * @return the norm
+     */
+    public float getNorm(int position) {
+        return norms[position];
+    }
+
+    /**
+     * Gets the catalog these vectors were built for.
+     *
+     * @return the catalog index
+     */
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+}
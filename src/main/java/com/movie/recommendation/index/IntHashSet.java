@@ -0,0 +1,119 @@
+package com.movie.recommendation.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of non-negative primitive ints.
+ *
+ * Used to deduplicate candidate ids (user ordinals, catalog positions)
+ * without boxing. Inserted values are also kept in insertion order, so the
+ * set can be read back with size() and get(i), and cleared cheaply for reuse.
+ *
+ * TESTING NOTE:
+ * Test duplicates, growth, clear() followed by reuse and insertion order.
+ */
+public class IntHashSet {
+
+    private static final int EMPTY = -1;
+
+    private int[] table;
+    private int[] order;
+    private int size = 0;
+    private int mask;
+
+    /**
+     * Constructs a set sized for the expected number of values.
+     *
+     * @param expectedSize expected number of values
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        order = new int[Math.max(4, expectedSize)];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value a non-negative value
+     * @return true if the value was not already present
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be non-negative: " + value);
+        }
+        int slot = slotOf(value);
+        if (table[slot] == value) {
+            return false;
+        }
+        table[slot] = value;
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        order[size++] = value;
+        if (size * 2 > table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a value is present.
+     *
+     * @param value the value
+     * @return true if the value is present
+     */
+    public boolean contains(int value) {
+        return value >= 0 && table[slotOf(value)] == value;
+    }
+
+    /**
+     * Gets the number of values.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the i-th value in insertion order.
+     *
+     * @param i position between 0 and size() - 1
+     * @return the value
+     */
+    public int get(int i) {
+        return order[i];
+    }
+
+    /**
+     * Removes all values. Cost is proportional to the number of values, not the capacity.
+     * Values are removed newest first, so every probe chain is still intact when it is walked.
+     */
+    public void clear() {
+        for (int i = size - 1; i >= 0; i--) {
+            table[slotOf(order[i])] = EMPTY;
+        }
+        size = 0;
+    }
+
+    private int slotOf(int value) {
+        int hash = value * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != EMPTY && table[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            table[slotOf(order[i])] = order[i];
+        }
+    }
+}
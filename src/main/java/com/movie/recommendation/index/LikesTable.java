@@ -0,0 +1,199 @@
+package com.movie.recommendation.index;
+
+import com.movie.recommendation.model.User;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar user x movie likes matrix in compressed sparse row (CSR) layout.
+ *
+ * Row r holds the sorted, distinct catalog positions liked by the r-th user:
+ * columns[rowOffsets[r] .. rowOffsets[r + 1]). Rows follow the order of the
+ * parsed user list. Liked IDs that are not in the catalog are dropped and
+ * counted. transpose() gives the movie x user view used by item-side
+ * computations such as ALS item solves or co-like counting.
+ *
+ * TESTING NOTE:
+ * - Duplicate liked IDs appear once in a row
+ * - Unknown liked IDs are counted by getUnresolvedCount()
+ * - transpose().transpose() has the same rows as the original
+ */
+public class LikesTable {
+
+    private final int columnCount;
+    private final int[] rowOffsets;
+    private final int[] columns;
+    private final long unresolvedCount;
+
+    /**
+     * Builds the table from parsed users.
+     *
+     * @param catalog the catalog index used to resolve liked IDs
+     * @param users the parsed users
+     */
+    public LikesTable(CatalogIndex catalog, List<User> users) {
+        this.columnCount = catalog.size();
+        this.rowOffsets = new int[users.size() + 1];
+
+        int total = 0;
+        for (User user : users) {
+            total += user.getLikedMovieIds().size();
+        }
+        int[] flat = new int[total];
+        int next = 0;
+        long unresolved = 0;
+
+        for (int r = 0; r < users.size(); r++) {
+            int start = next;
+            List<String> liked = users.get(r).getLikedMovieIds();
+            for (int i = 0; i < liked.size(); i++) {
+                int position = catalog.positionOf(liked.get(i));
+                if (position >= 0) {
+                    flat[next++] = position;
+                } else {
+                    unresolved++;
+                }
+            }
+            next = start + sortUnique(flat, start, next);
+            rowOffsets[r + 1] = next;
+        }
+
+        this.columns = next == flat.length ? flat : Arrays.copyOf(flat, next);
+        this.unresolvedCount = unresolved;
+    }
+
+    /**
+     * Wraps existing CSR arrays. Each row must already be sorted and distinct.
+     *
+     * @param columnCount number of columns (e.g. catalog size)
+     * @param rowOffsets row start offsets, length rowCount + 1
+     * @param columns column indices of all rows
+     */
+    public LikesTable(int columnCount, int[] rowOffsets, int[] columns) {
+        this.columnCount = columnCount;
+        this.rowOffsets = rowOffsets;
+        this.columns = columns;
+        this.unresolvedCount = 0;
+    }
+
+    /**
+     * Builds the transposed table: one row per column of this table.
+     *
+     * @return the transposed table
+     */
+    public LikesTable transpose() {
+        int rowCount = rowCount();
+        int[] offsets = new int[columnCount + 1];
+        int entries = rowOffsets[rowCount];
+        for (int i = 0; i < entries; i++) {
+            offsets[columns[i] + 1]++;
+        }
+        for (int c = 0; c < columnCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+
+        int[] fill = Arrays.copyOf(offsets, columnCount);
+        int[] transposed = new int[entries];
+        // Rows are visited in order, so every transposed row comes out sorted
+        for (int r = 0; r < rowCount; r++) {
+            for (int i = rowOffsets[r]; i < rowOffsets[r + 1]; i++) {
+                transposed[fill[columns[i]]++] = r;
+            }
+        }
+        return new LikesTable(rowCount, offsets, transposed);
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of rows (users)
+     */
+    public int rowCount() {
+        return rowOffsets.length - 1;
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns (catalog size)
+     */
+    public int columnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Gets the start of a row in getColumns().
+     *
+     * @param row the row
+     * @return the first index of the row
+     */
+    public int rowStart(int row) {
+        return rowOffsets[row];
+    }
+
+    /**
+     * Gets the end (exclusive) of a row in getColumns().
+     *
+     * @param row the row
+     * @return the index after the last entry of the row
+     */
+    public int rowEnd(int row) {
+        return rowOffsets[row + 1];
+    }
+
+    /**
+     * Gets the flat column index array. Read it with rowStart() and rowEnd(); do not modify.
+     *
+     * @return the column indices
+     */
+    public int[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of stored likes.
+     *
+     * @return the number of non-zero entries
+     */
+    public int getEntryCount() {
+        return rowOffsets[rowCount()];
+    }
+
+    /**
+     * Gets the number of liked IDs that were not found in the catalog.
+     *
+     * @return the unresolved like count
+     */
+    public long getUnresolvedCount() {
+        return unresolvedCount;
+    }
+
+    /**
+     * Estimates the heap used by the arrays of this table.
+     *
+     * @return size in bytes
+     */
+    public long getMemoryBytes() {
+        return 4L * (rowOffsets.length + columns.length);
+    }
+
+    /**
+     * Sorts values[from..to) and removes duplicates in place.
+     *
+     * @return number of distinct values, stored from index from
+     */
+    private static int sortUnique(int[] values, int from, int to) {
+        if (to - from < 2) {
+            return to - from;
+        }
+        Arrays.sort(values, from, to);
+        int write = from + 1;
+        for (int read = from + 1; read < to; read++) {
+            if (values[read] != values[write - 1]) {
+                values[write++] = values[read];
+            }
+        }
+        return write - from;
+    }
+}
@@ -0,0 +1,143 @@
+package com.movie.recommendation.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to primitive int values.
+ *
+ * Avoids the Long/Integer boxing and per-entry node objects of HashMap.
+ * Uses linear probing with a power-of-two table kept at most half full.
+ * Entries cannot be removed; a key can be overwritten with put().
+ *
+ * TESTING NOTE:
+ * Test get() on missing keys, overwriting an existing key, key 0 and
+ * Long.MIN_VALUE, and growth past the initial capacity.
+ */
+public class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size = 0;
+    private int mask;
+
+    /**
+     * Constructs a map sized for the expected number of entries.
+     *
+     * @param expectedSize expected number of entries
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the previous value, or -1 if the key was absent
+     */
+    public int put(long key, int value) {
+        int slot = slotOf(key);
+        if (used[slot]) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the value for a key.
+     *
+     * @param key the key
+     * @param missingValue value returned when the key is absent
+     * @return the value, or missingValue if the key is absent
+     */
+    public int get(long key, int missingValue) {
+        int slot = slotOf(key);
+        return used[slot] ? values[slot] : missingValue;
+    }
+
+    /**
+     * Checks if the map contains a key.
+     *
+     * @param key the key
+     * @return true if the key is present
+     */
+    public boolean containsKey(long key) {
+        return used[slotOf(key)];
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding the key, or the empty slot where it would go.
+     */
+    private int slotOf(long key) {
+        int slot = (int) mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3, spreads keys that differ only in high bits.
+     *
+     * @param key value to mix
+     * @return the mixed value
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
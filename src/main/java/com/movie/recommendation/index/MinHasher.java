@@ -0,0 +1,111 @@
+package com.movie.recommendation.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Computes MinHash signatures of sets of liked movies.
+ *
+ * Each of the k hash functions is a 64-bit multiply-add hash of the element's
+ * 32-bit key. The fraction of positions where two signatures agree is an
+ * unbiased estimate of the Jaccard similarity of the two sets.
+ *
+ * TESTING NOTE:
+ * - Identical sets must give identical signatures
+ * - Disjoint sets should agree on almost no positions
+ * - The same seed must give the same signatures across runs
+ */
+public class MinHasher {
+
+    /** Signature value of an empty set. Never produced by a non-empty set. */
+    public static final int EMPTY = Integer.MAX_VALUE;
+
+    private final long[] multipliers;
+    private final long[] increments;
+
+    /**
+     * Constructs a MinHasher.
+     *
+     * @param numHashes number of hash functions (signature length)
+     * @param seed random seed for the hash functions
+     */
+    public MinHasher(int numHashes, long seed) {
+        if (numHashes < 1) {
+            throw new IllegalArgumentException("numHashes must be at least 1");
+        }
+        Random random = new Random(seed);
+        multipliers = new long[numHashes];
+        increments = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            increments[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Gets the signature length.
+     *
+     * @return the number of hash functions
+     */
+    public int getNumHashes() {
+        return multipliers.length;
+    }
+
+    /**
+     * Computes the signature of a set of movie IDs.
+     *
+     * @param movieIds the liked movie IDs
+     * @param signature output array of length getNumHashes()
+     */
+    public void signature(List<String> movieIds, int[] signature) {
+        Arrays.fill(signature, EMPTY);
+        for (int i = 0; i < movieIds.size(); i++) {
+            accumulate(movieIds.get(i).hashCode(), signature);
+        }
+    }
+
+    /**
+     * Computes the signature of a set of integer keys (e.g. catalog positions).
+     *
+     * @param keys the keys
+     * @param length number of keys to read from the array
+     * @param signature output array of length getNumHashes()
+     */
+    public void signature(int[] keys, int length, int[] signature) {
+        Arrays.fill(signature, EMPTY);
+        for (int i = 0; i < length; i++) {
+            accumulate(keys[i], signature);
+        }
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two sets from their signatures.
+     *
+     * @param a first signature
+     * @param aOffset start of the first signature in its array
+     * @param b second signature
+     * @param bOffset start of the second signature in its array
+     * @return the fraction of agreeing positions, between 0 and 1
+     */
+    public double estimateSimilarity(int[] a, int aOffset, int[] b, int bOffset) {
+        int k = multipliers.length;
+        int agree = 0;
+        for (int i = 0; i < k; i++) {
+            if (a[aOffset + i] == b[bOffset + i] && a[aOffset + i] != EMPTY) {
+                agree++;
+            }
+        }
+        return (double) agree / k;
+    }
+
+    private void accumulate(int key, int[] signature) {
+        for (int i = 0; i < multipliers.length; i++) {
+            // Upper 30 bits of the 64-bit hash, so EMPTY is never reached
+            int value = (int) ((multipliers[i] * key + increments[i]) >>> 34);
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+    }
+}
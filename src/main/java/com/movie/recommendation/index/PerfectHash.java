@@ -0,0 +1,252 @@
+package com.movie.recommendation.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal perfect hash over a fixed set of distinct String keys.
+ *
+ * Every key maps to its own slot in 0..size()-1 with one hash computation and
+ * one array probe; the keys are kept by slot so that indexOf() can reject
+ * keys outside the set with one equals(). There are no boxed values and no
+ * collision chains.
+ *
+ * Built with hash-and-displace: keys are split into buckets of about four by
+ * a mix of String.hashCode(), which the String caches, and buckets are placed
+ * largest first. Each bucket stores the seed that sends all its keys to free
+ * slots; single-key buckets are placed directly into a remaining free slot
+ * and store that slot instead. Distinct keys with the same hashCode() can
+ * never be separated by a seed, so all but the first of them take the last
+ * slots through a small overflow map that is only consulted on a miss.
+ *
+ * TESTING NOTE:
+ * - indexOf() of the keys is a permutation of 0..size()-1
+ * - keyAt(indexOf(k)) is k
+ * - Keys not in the set return -1
+ * - Duplicate keys are rejected
+ */
+public class PerfectHash {
+
+    private static final int KEYS_PER_BUCKET = 4;
+    private static final int MAX_SEED = 1 << 24;
+    private static final int MAX_SALTS = 8;
+
+    private final String[] keys;
+    private final int[] seeds;
+    private final long salt;
+    private final int primary;
+    private final Map<String, Integer> overflow;
+
+    /**
+     * Builds the hash.
+     *
+     * @param keys the distinct keys; not modified
+     * @throws IllegalArgumentException if a key is null or repeated
+     */
+    public PerfectHash(String[] keys) {
+        int n = keys.length;
+        // Sort (hashCode, index) pairs to find repeated and colliding keys
+        long[] byHash = new long[n];
+        for (int i = 0; i < n; i++) {
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Null key at " + i);
+            }
+            byHash[i] = ((long) keys[i].hashCode() << 32) | i;
+        }
+        Arrays.sort(byHash);
+        String[] unique = new String[n];
+        String[] colliding = new String[n];
+        int primaryCount = 0;
+        int overflowCount = 0;
+        for (int i = 0; i < n; i++) {
+            String key = keys[(int) byHash[i]];
+            int run = i;
+            while (run > 0 && (byHash[run - 1] >>> 32) == (byHash[i] >>> 32)) {
+                run--;
+                if (keys[(int) byHash[run]].equals(key)) {
+                    throw new IllegalArgumentException("Duplicate key: " + key);
+                }
+            }
+            if (run == i) {
+                unique[primaryCount++] = key;
+            } else {
+                colliding[overflowCount++] = key;
+            }
+        }
+
+        int bucketCount = Math.max(1, (primaryCount + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET);
+        for (int attempt = 0; attempt < MAX_SALTS; attempt++) {
+            long candidateSalt = 0x9E3779B97F4A7C15L * (attempt + 1);
+            int[] candidateSeeds = new int[bucketCount];
+            String[] bySlot = new String[n];
+            if (place(unique, primaryCount, candidateSalt, candidateSeeds, bySlot)) {
+                Map<String, Integer> extra = null;
+                if (overflowCount > 0) {
+                    extra = new HashMap<>();
+                    for (int i = 0; i < overflowCount; i++) {
+                        bySlot[primaryCount + i] = colliding[i];
+                        extra.put(colliding[i], primaryCount + i);
+                    }
+                }
+                this.keys = bySlot;
+                this.seeds = candidateSeeds;
+                this.salt = candidateSalt;
+                this.primary = primaryCount;
+                this.overflow = extra;
+                return;
+            }
+        }
+        throw new IllegalStateException("Could not build a perfect hash over " + n + " keys");
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @param key the key
+     * @return the slot in 0..size()-1, or -1 if the key is not in the set
+     */
+    public int indexOf(String key) {
+        if (primary == 0 || key == null) {
+            return -1;
+        }
+        long h = hash(key, salt);
+        int seed = seeds[bucket(h, seeds.length)];
+        int slot = seed < 0 ? -seed - 1 : slot(h, seed, primary);
+        if (key.equals(keys[slot])) {
+            return slot;
+        }
+        if (overflow == null) {
+            return -1;
+        }
+        Integer overflowSlot = overflow.get(key);
+        return overflowSlot == null ? -1 : overflowSlot;
+    }
+
+    /**
+     * Gets the key stored at a slot.
+     *
+     * @param slot a slot in 0..size()-1
+     * @return the key
+     */
+    public String keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Gets the number of keys.
+     *
+     * @return the key count
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    private static boolean place(String[] keys, int n, long salt, int[] seeds, String[] bySlot) {
+        int bucketCount = seeds.length;
+        long[] hashes = new long[n];
+        int[] bucketStart = new int[bucketCount + 1];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = hash(keys[i], salt);
+            bucketStart[bucket(hashes[i], bucketCount) + 1]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(bucketStart, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[bucket(hashes[i], bucketCount)]++] = i;
+        }
+
+        // Largest buckets first, while most slots are still free (counting sort by size)
+        int maxSize = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxSize = Math.max(maxSize, bucketStart[b + 1] - bucketStart[b]);
+        }
+        int[] sizeStart = new int[maxSize + 2];
+        for (int b = 0; b < bucketCount; b++) {
+            sizeStart[maxSize - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+        }
+        for (int s = 0; s <= maxSize; s++) {
+            sizeStart[s + 1] += sizeStart[s];
+        }
+        int[] order = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[sizeStart[maxSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+        }
+
+        // Keys have distinct hashCode() values, so no two share a hash
+        boolean[] taken = new boolean[n];
+        int[] slots = new int[64];
+        int nextFree = 0;
+        for (int b : order) {
+            int from = bucketStart[b];
+            int size = bucketStart[b + 1] - from;
+            if (size == 0) {
+                break;
+            }
+            if (size == 1) {
+                while (taken[nextFree]) {
+                    nextFree++;
+                }
+                taken[nextFree] = true;
+                seeds[b] = -nextFree - 1;
+                bySlot[nextFree] = keys[members[from]];
+                continue;
+            }
+            if (slots.length < size) {
+                slots = new int[size];
+            }
+            int seed = findSeed(hashes, members, from, size, taken, slots);
+            if (seed < 0) {
+                return false;
+            }
+            seeds[b] = seed;
+            for (int i = 0; i < size; i++) {
+                taken[slots[i]] = true;
+                bySlot[slots[i]] = keys[members[from + i]];
+            }
+        }
+        return true;
+    }
+
+    private static int findSeed(long[] hashes, int[] members, int from, int size, boolean[] taken, int[] slots) {
+        int n = taken.length;
+        for (int seed = 0; seed < MAX_SEED; seed++) {
+            boolean fits = true;
+            for (int i = 0; i < size && fits; i++) {
+                int slot = slot(hashes[members[from + i]], seed, n);
+                fits = !taken[slot];
+                for (int j = 0; j < i && fits; j++) {
+                    fits = slots[j] != slot;
+                }
+                slots[i] = slot;
+            }
+            if (fits) {
+                return seed;
+            }
+        }
+        return -1;
+    }
+
+    private static long hash(String key, long salt) {
+        // The cached hashCode() spread over 64 bits; the finalizer is a bijection
+        return mix((key.hashCode() & 0xFFFFFFFFL) ^ salt);
+    }
+
+    private static int bucket(long h, int bucketCount) {
+        return (int) (((h & 0xFFFFFFFFL) * bucketCount) >>> 32);
+    }
+
+    private static int slot(long h, int seed, int n) {
+        long mixed = mix(h ^ (seed * 0xC2B2AE3D27D4EB4FL));
+        return (int) (((mixed >>> 32) * n) >>> 32);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,113 @@
+package com.movie.recommendation.index;
+
+import com.movie.recommendation.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Global like counts per movie, indexed by catalog position.
+ *
+ * Counts are computed in a single pass over the parsed users. Liked IDs that
+ * are not in the catalog are ignored, and a user who lists the same movie
+ * more than once counts once. The most liked movies are also kept as a
+ * precomputed list, which serves as a cold-start list for users whose likes
+ * cannot be resolved against the catalog. The list keeps the most liked
+ * movie of each title, so it holds topSize distinct titles.
+ *
+ * TESTING NOTE:
+ * - A movie liked by n users has count n, even if a user lists it twice
+ * - Unknown liked IDs do not change any count
+ * - getTopTitles() has topSize titles when the catalog has that many
+ * - getTopPositions() is ordered by count, ties by catalog position
+ */
+public class PopularityIndex {
+
+    private final CatalogIndex catalog;
+    private final int[] likeCounts;
+    private final int[] topPositions;
+
+    /**
+     * Builds the like counts and the top list.
+     *
+     * @param catalog the catalog index
+     * @param users the parsed users
+     * @param topSize number of distinct most liked titles to precompute
+     */
+    public PopularityIndex(CatalogIndex catalog, List<User> users, int topSize) {
+        this.catalog = catalog;
+        this.likeCounts = new int[catalog.size()];
+
+        // lastLiker[p] is 1 + the index of the last user counted for movie p
+        int[] lastLiker = new int[catalog.size()];
+        for (int u = 0; u < users.size(); u++) {
+            List<String> liked = users.get(u).getLikedMovieIds();
+            for (int i = 0; i < liked.size(); i++) {
+                int position = catalog.positionOf(liked.get(i));
+                if (position >= 0 && lastLiker[position] != u + 1) {
+                    lastLiker[position] = u + 1;
+                    likeCounts[position]++;
+                }
+            }
+        }
+
+        TopK top = new TopK(Math.min(topSize, catalog.getTitleCount()), catalog.getTitleIds(),
+                catalog.getTitleCount());
+        for (int p = 0; p < likeCounts.length; p++) {
+            top.offer(p, likeCounts[p]);
+        }
+        this.topPositions = new int[top.size()];
+        top.drainSorted(topPositions);
+    }
+
+    /**
+     * Gets the like count of a movie.
+     *
+     * @param position the catalog position
+     * @return number of users that like the movie
+     */
+    public int getLikeCount(int position) {
+        return likeCounts[position];
+    }
+
+    /**
+     * Gets the like counts of all movies. Do not modify.
+     *
+     * @return like counts indexed by catalog position
+     */
+    public int[] getLikeCounts() {
+        return likeCounts;
+    }
+
+    /**
+     * Gets the most liked movies, most liked first, one movie per title. Do not modify.
+     *
+     * @return catalog positions of the top movies
+     */
+    public int[] getTopPositions() {
+        return topPositions;
+    }
+
+    /**
+     * Gets the titles of the most liked movies, without repeated titles.
+     * Used as the cold-start fallback list.
+     *
+     * @return at most topSize titles of the top movies, most liked first
+     */
+    public List<String> getTopTitles() {
+        List<String> titles = new ArrayList<>(topPositions.length);
+        for (int position : topPositions) {
+            titles.add(catalog.getTitle(position));
+        }
+        return titles;
+    }
+
+    /**
+     * Gets the catalog this index was built for.
+     *
+     * @return the catalog index
+     */
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+}
@@ -0,0 +1,478 @@
+package com.movie.recommendation.index;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of non-negative ints with Roaring-style containers.
+ *
+ * Values are split by their high 16 bits into chunks of 65536. Each non-empty
+ * chunk has one container holding the low 16 bits:
+ * - ArrayContainer: sorted char array, used up to 4096 values (at most 8 KB)
+ * - BitmapContainer: 1024 longs (8 KB), used above 4096 values
+ * so a sparse chunk costs 2 bytes per value and a dense one never more than
+ * 8 KB. Chunk keys are kept sorted, so set operations merge two sorted key
+ * lists and combine containers pairwise.
+ *
+ * or() and andNot() return new bitmaps and never share containers with their
+ * inputs, so a result can be modified without affecting the inputs.
+ *
+ * TESTING NOTE:
+ * - A chunk switches to a bitmap container above 4096 values and back after andNot()
+ * - toArray() returns values in ascending order
+ * - or() of bitmaps with disjoint chunks keeps all chunks
+ */
+public class RoaringBitmap {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size = 0;
+
+    /**
+     * Builds a bitmap from ascending values (duplicates allowed).
+     *
+     * @param values the values
+     * @param from first index to read
+     * @param to end index (exclusive)
+     * @return the bitmap
+     */
+    public static RoaringBitmap of(int[] values, int from, int to) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = from; i < to; i++) {
+            bitmap.add(values[i]);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Adds a value. Adding in ascending order is fastest.
+     *
+     * @param value a non-negative value
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be non-negative: " + value);
+        }
+        char key = (char) (value >>> 16);
+        int index = size > 0 && keys[size - 1] == key ? size - 1 : findKey(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer(4));
+        }
+        containers[index] = containers[index].add((char) value);
+    }
+
+    /**
+     * Checks if a value is present.
+     *
+     * @param value the value
+     * @return true if the value is present
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = findKey((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Gets the number of values.
+     *
+     * @return the cardinality
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    /**
+     * Checks if the bitmap has no values.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Computes the union of this bitmap and another one.
+     *
+     * @param other the other bitmap
+     * @return a new bitmap
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        return or(new RoaringBitmap[] {this, other}, 2);
+    }
+
+    /**
+     * Computes the union of several bitmaps in one pass over their chunks.
+     * Chunks present in several inputs are combined in a bitmap accumulator.
+     *
+     * @param bitmaps the bitmaps
+     * @param count number of bitmaps to read
+     * @return a new bitmap
+     */
+    public static RoaringBitmap or(RoaringBitmap[] bitmaps, int count) {
+        RoaringBitmap result = new RoaringBitmap();
+        int[] cursors = new int[count];
+        long[] accumulator = null;
+
+        while (true) {
+            // Smallest key not yet consumed, over all inputs
+            int key = Integer.MAX_VALUE;
+            for (int b = 0; b < count; b++) {
+                if (cursors[b] < bitmaps[b].size) {
+                    key = Math.min(key, bitmaps[b].keys[cursors[b]]);
+                }
+            }
+            if (key == Integer.MAX_VALUE) {
+                return result;
+            }
+
+            Container single = null;
+            int matches = 0;
+            for (int b = 0; b < count; b++) {
+                RoaringBitmap bitmap = bitmaps[b];
+                if (cursors[b] < bitmap.size && bitmap.keys[cursors[b]] == key) {
+                    Container container = bitmap.containers[cursors[b]++];
+                    if (matches == 0) {
+                        single = container;
+                    } else {
+                        if (matches == 1) {
+                            if (accumulator == null) {
+                                accumulator = new long[WORDS];
+                            }
+                            single.orInto(accumulator);
+                        }
+                        container.orInto(accumulator);
+                    }
+                    matches++;
+                }
+            }
+            Container combined = matches == 1 ? single.copy() : fromWords(accumulator);
+            if (matches > 1) {
+                Arrays.fill(accumulator, 0);
+            }
+            result.appendContainer((char) key, combined);
+        }
+    }
+
+    /**
+     * Computes the values of this bitmap that are not in another one.
+     *
+     * @param other the values to remove
+     * @return a new bitmap
+     */
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            char key = keys[i];
+            while (j < other.size && other.keys[j] < key) {
+                j++;
+            }
+            Container remaining = j < other.size && other.keys[j] == key
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (remaining != null) {
+                result.appendContainer(key, remaining);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the smallest values in ascending order.
+     *
+     * @param out receives values; at most out.length are written
+     * @return number of values written
+     */
+    public int toArray(int[] out) {
+        int count = 0;
+        for (int i = 0; i < size && count < out.length; i++) {
+            count = containers[i].toArray(keys[i] << 16, out, count);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of containers that use the bitmap representation.
+     *
+     * @return the bitmap container count
+     */
+    public int getBitmapContainerCount() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (containers[i] instanceof BitmapContainer) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Estimates the heap used by the keys and containers.
+     *
+     * @return size in bytes
+     */
+    public long getMemoryBytes() {
+        long bytes = 16 + 2L * keys.length + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].memoryBytes();
+        }
+        return bytes;
+    }
+
+    private int findKey(char key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else if (keys[middle] > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        insertContainer(size, key, container);
+    }
+
+    /**
+     * Builds the smallest container holding the bits of a 1024-word accumulator.
+     */
+    private static Container fromWords(long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality > ARRAY_MAX) {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+        char[] values = new char[cardinality];
+        int next = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[next++] = (char) (w * 64 + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new ArrayContainer(values, cardinality);
+    }
+
+    /**
+     * Low 16 bits of the values of one chunk.
+     */
+    private abstract static class Container {
+
+        /** Adds a value; returns the container to keep (it may change representation) */
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        /** Sets this container's values in a 1024-word accumulator */
+        abstract void orInto(long[] words);
+
+        /** Returns the values not in other, or null if none are left */
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        /** Writes high | value for each value from out[count], stopping when out is full */
+        abstract int toArray(int high, int[] out, int count);
+
+        abstract long memoryBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(int capacity) {
+            this.values = new char[capacity];
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = cardinality > 0 && values[cardinality - 1] < value
+                    ? -(cardinality + 1)
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                BitmapContainer bitmap = toBitmap();
+                return bitmap.add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] kept = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    kept[count++] = values[i];
+                }
+            }
+            return count == 0 ? null : new ArrayContainer(kept, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        @Override
+        int toArray(int high, int[] out, int count) {
+            for (int i = 0; i < cardinality && count < out.length; i++) {
+                out[count++] = high | values[i];
+            }
+            return count;
+        }
+
+        @Override
+        long memoryBytes() {
+            return 24 + 2L * values.length;
+        }
+
+        private BitmapContainer toBitmap() {
+            long[] words = new long[WORDS];
+            orInto(words);
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void orInto(long[] accumulator) {
+            for (int w = 0; w < WORDS; w++) {
+                accumulator[w] |= words[w];
+            }
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] remaining = words.clone();
+            if (other instanceof BitmapContainer) {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int w = 0; w < WORDS; w++) {
+                    remaining[w] &= ~otherWords[w];
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    remaining[array.values[i] >>> 6] &= ~(1L << array.values[i]);
+                }
+            }
+            Container result = fromWords(remaining);
+            return result.cardinality() == 0 ? null : result;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        int toArray(int high, int[] out, int count) {
+            for (int w = 0; w < WORDS && count < out.length; w++) {
+                long word = words[w];
+                while (word != 0 && count < out.length) {
+                    out[count++] = high | (w * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        long memoryBytes() {
+            return 24 + 8L * WORDS;
+        }
+    }
+}
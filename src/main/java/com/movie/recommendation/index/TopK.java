@@ -0,0 +1,252 @@
+package com.movie.recommendation.index;
+
+/**
+ * Bounded top-K selector over (id, score) pairs stored in primitive arrays.
+ *
+ * Keeps the K best pairs seen so far in a binary min-heap whose root is the
+ * worst kept pair, so each offer costs O(log K) and selecting from n
+ * candidates costs O(n log K) instead of a full O(n log n) sort.
+ * Higher scores are better; ties are broken by the lower id, which makes the
+ * result deterministic (e.g. earlier catalog position first).
+ *
+ * A selector can also keep one pair per key (for example catalog positions
+ * keyed by title id): an id whose key is already kept only replaces the kept
+ * pair if it is better. The heap then still holds K pairs, with K distinct
+ * keys, instead of growing to make room for repeats. A key whose pair was
+ * evicted can only come back with a better pair, since the worst kept pair
+ * only gets better.
+ *
+ * Instances are reusable through clear() and allocate nothing after construction.
+ *
+ * TESTING NOTE:
+ * - Offering fewer than K pairs keeps all of them
+ * - drainSorted() returns best first and empties the selector
+ * - Equal scores come out in ascending id order
+ * - With keys, the K best keys come out, each with its best id
+ */
+public class TopK {
+
+    private final int capacity;
+    private final int[] ids;
+    private final double[] scores;
+    // 1 + heap index of the kept pair of each key, 0 if none; null without keys
+    private final int[] keys;
+    private final int[] keySlots;
+    private int size = 0;
+
+    /**
+     * Constructs a selector.
+     *
+     * @param capacity K, the number of pairs to keep
+     */
+    public TopK(int capacity) {
+        this(capacity, null, null);
+    }
+
+    /**
+     * Constructs a selector that keeps at most one pair per key.
+     *
+     * @param capacity K, the number of pairs to keep
+     * @param keys the key of each id, between 0 and keyCount - 1; not copied, do not modify
+     * @param keyCount number of distinct keys
+     */
+    public TopK(int capacity, int[] keys, int keyCount) {
+        this(capacity, keys, new int[keyCount]);
+    }
+
+    private TopK(int capacity, int[] keys, int[] keySlots) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.ids = new int[capacity];
+        this.scores = new double[capacity];
+        this.keys = keys;
+        this.keySlots = keySlots;
+    }
+
+    /**
+     * Creates a selector with another capacity and the same keys. The two
+     * selectors share their per-key working memory, so only one of them may
+     * hold pairs at a time; this one should be cleared or drained.
+     *
+     * @param capacity K of the new selector
+     * @return the new selector
+     */
+    public TopK withCapacity(int capacity) {
+        return new TopK(capacity, keys, keySlots);
+    }
+
+    /**
+     * Offers a pair.
+     *
+     * @param id the candidate id
+     * @param score the candidate score, higher is better
+     * @return true if the pair is currently kept
+     */
+    public boolean offer(int id, double score) {
+        if (keys != null) {
+            int slot = keySlots[keys[id]] - 1;
+            if (slot >= 0) {
+                if (!better(id, score, ids[slot], scores[slot])) {
+                    return false;
+                }
+                // A better pair moves towards the leaves of the min-heap
+                ids[slot] = id;
+                scores[slot] = score;
+                siftDown(slot);
+                return true;
+            }
+        }
+        if (size < capacity) {
+            ids[size] = id;
+            scores[size] = score;
+            setSlot(size);
+            siftUp(size++);
+            return true;
+        }
+        if (capacity == 0 || !better(id, score, ids[0], scores[0])) {
+            return false;
+        }
+        clearSlot(ids[0]);
+        ids[0] = id;
+        scores[0] = score;
+        setSlot(0);
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Checks if a score could still enter the selection.
+     * Useful to skip expensive work for candidates that cannot win.
+     *
+     * @param score the candidate score
+     * @return true if the selector is not full or the score is at least the worst kept score
+     */
+    public boolean wouldAccept(double score) {
+        return size < capacity || (capacity > 0 && score >= scores[0]);
+    }
+
+    /**
+     * Gets the number of kept pairs.
+     *
+     * @return the number of kept pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return K
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes all pairs.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            clearSlot(ids[i]);
+        }
+        size = 0;
+    }
+
+    /**
+     * Writes the kept ids best first and empties the selector.
+     *
+     * @param out output array with room for size() ids
+     * @return number of ids written
+     */
+    public int drainSorted(int[] out) {
+        return drainSorted(out, null);
+    }
+
+    /**
+     * Writes the kept ids and scores best first and empties the selector.
+     *
+     * @param outIds output array with room for size() ids
+     * @param outScores output array for the scores, or null
+     * @return number of pairs written
+     */
+    public int drainSorted(int[] outIds, double[] outScores) {
+        int count = size;
+        // Repeatedly move the worst pair to the end of the heap area
+        for (int last = size - 1; last >= 0; last--) {
+            outIds[last] = ids[0];
+            if (outScores != null) {
+                outScores[last] = scores[0];
+            }
+            clearSlot(ids[0]);
+            ids[0] = ids[last];
+            scores[0] = scores[last];
+            size = last;
+            if (last > 0) {
+                setSlot(0);
+                siftDown(0);
+            }
+        }
+        size = 0;
+        return count;
+    }
+
+    private static boolean better(int id, double score, int otherId, double otherScore) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(ids[parent], scores[parent], ids[index], scores[index])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(ids[left], scores[left], ids[right], scores[right])) {
+                worst = right;
+            }
+            if (!better(ids[index], scores[index], ids[worst], scores[worst])) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        setSlot(a);
+        setSlot(b);
+    }
+
+    private void setSlot(int index) {
+        if (keys != null) {
+            keySlots[keys[ids[index]]] = index + 1;
+        }
+    }
+
+    private void clearSlot(int id) {
+        if (keys != null) {
+            keySlots[keys[id]] = 0;
+        }
+    }
+}
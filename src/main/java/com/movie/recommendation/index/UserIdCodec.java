@@ -0,0 +1,75 @@
+package com.movie.recommendation.index;
+
+/**
+ * Packs valid user IDs into a primitive long and back.
+ *
+ * A valid ID (see UserValidator) has 8 ASCII digits followed by a digit or an
+ * uppercase letter. It is packed as digits * 36 + code, where code is 0-9 for
+ * a final digit and 10-35 for a final letter. Packed values are below 2^32,
+ * so they also fit an unsigned int on disk.
+ *
+ * TESTING NOTE:
+ * - decode(encode(id)) equals id for every valid ID
+ * - IDs of the wrong length or with lowercase letters encode to INVALID
+ */
+public final class UserIdCodec {
+
+    /** Returned by encode() for IDs that cannot be packed */
+    public static final long INVALID = -1L;
+
+    private static final int ID_LENGTH = 9;
+
+    private UserIdCodec() {
+    }
+
+    /**
+     * Packs a user ID.
+     *
+     * @param id the user ID
+     * @return the packed ID, or INVALID
+     */
+    public static long encode(String id) {
+        if (id == null || id.length() != ID_LENGTH) {
+            return INVALID;
+        }
+        long digits = 0;
+        for (int i = 0; i < ID_LENGTH - 1; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            digits = digits * 10 + (c - '0');
+        }
+        char last = id.charAt(ID_LENGTH - 1);
+        int code;
+        if (last >= '0' && last <= '9') {
+            code = last - '0';
+        } else if (last >= 'A' && last <= 'Z') {
+            code = 10 + last - 'A';
+        } else {
+            return INVALID;
+        }
+        return digits * 36 + code;
+    }
+
+    /**
+     * Unpacks a user ID.
+     *
+     * @param packed a value returned by encode()
+     * @return the user ID
+     */
+    public static String decode(long packed) {
+        if (packed < 0 || packed >= 100_000_000L * 36) {
+            throw new IllegalArgumentException("not a packed user id: " + packed);
+        }
+        char[] chars = new char[ID_LENGTH];
+        int code = (int) (packed % 36);
+        chars[ID_LENGTH - 1] = code < 10 ? (char) ('0' + code) : (char) ('A' + code - 10);
+        long digits = packed / 36;
+        for (int i = ID_LENGTH - 2; i >= 0; i--) {
+            chars[i] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        return new String(chars);
+    }
+}
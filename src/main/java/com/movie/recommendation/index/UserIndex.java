@@ -0,0 +1,106 @@
+package com.movie.recommendation.index;
+
+import com.movie.recommendation.model.User;
+
+import java.util.List;
+
+/**
+ * Lookup of parsed users by ID, backed by a columnar likes table.
+ *
+ * IDs are packed with UserIdCodec and mapped to their LikesTable row by a
+ * primitive LongIntHashMap, so finding a user's liked catalog positions is
+ * one hash probe and one row slice, with no String hashing or boxing. If an
+ * ID appears more than once, the first user keeps it.
+ *
+ * TESTING NOTE:
+ * - rowOf() of every parsed user returns its position in the list
+ * - Unknown and invalid IDs return -1
+ * - The row of a user holds the sorted catalog positions of its liked IDs
+ */
+public class UserIndex {
+
+    private final List<User> users;
+    private final LikesTable likes;
+    private final LongIntHashMap rows;
+
+    /**
+     * Builds the index and its likes table.
+     *
+     * @param catalog the catalog index used to resolve liked IDs
+     * @param users the parsed users
+     */
+    public UserIndex(CatalogIndex catalog, List<User> users) {
+        this(users, new LikesTable(catalog, users));
+    }
+
+    /**
+     * Builds the index over an existing likes table whose rows follow the user list.
+     *
+     * @param users the parsed users
+     * @param likes the likes table built from the same list
+     */
+    public UserIndex(List<User> users, LikesTable likes) {
+        if (likes.rowCount() != users.size()) {
+            throw new IllegalArgumentException("Likes table has " + likes.rowCount()
+                    + " rows for " + users.size() + " users");
+        }
+        this.users = users;
+        this.likes = likes;
+        this.rows = new LongIntHashMap(users.size());
+        for (int row = 0; row < users.size(); row++) {
+            long packed = UserIdCodec.encode(users.get(row).getId());
+            if (packed != UserIdCodec.INVALID && !rows.containsKey(packed)) {
+                rows.put(packed, row);
+            }
+        }
+    }
+
+    /**
+     * Finds the row of a user.
+     *
+     * @param userId the user ID
+     * @return the row in getLikes() and the user list, or -1 if unknown
+     */
+    public int rowOf(String userId) {
+        long packed = UserIdCodec.encode(userId);
+        return packed == UserIdCodec.INVALID ? -1 : rows.get(packed, -1);
+    }
+
+    /**
+     * Finds the row of a packed user ID.
+     *
+     * @param packedId the ID packed with UserIdCodec
+     * @return the row, or -1 if unknown
+     */
+    public int rowOf(long packedId) {
+        return rows.get(packedId, -1);
+    }
+
+    /**
+     * Gets the user of a row.
+     *
+     * @param row the row
+     * @return the user
+     */
+    public User getUser(int row) {
+        return users.get(row);
+    }
+
+    /**
+     * Gets the likes table; row r holds the liked catalog positions of user r.
+     *
+     * @return the likes table
+     */
+    public LikesTable getLikes() {
+        return likes;
+    }
+
+    /**
+     * Gets the number of indexed users.
+     *
+     * @return the number of distinct valid IDs
+     */
+    public int size() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,352 @@
+package com.movie.recommendation.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Locality-sensitive hashing (LSH) index over MinHash signatures of users.
+ *
+ * Each user's signature of k = bands x rows values is cut into bands of
+ * consecutive rows. Users whose signatures are identical in at least one band
+ * land in the same bucket and become candidate neighbours, so a query only
+ * touches a handful of buckets instead of comparing against every user.
+ *
+ * The chance that two users with Jaccard similarity s become candidates is
+ * 1 - (1 - s^rows)^bands. More bands raise recall; more rows per band raise
+ * precision. Buckets are linked lists threaded through a flat int array
+ * (one "next" slot per user and band), so the index holds no per-user objects.
+ * Candidates are capped per band, which keeps query time bounded even when
+ * many users share the same popular likes.
+ *
+ * Signatures and bucket links are stored in chunks of a power-of-two number
+ * of users, each at most about 4M ints, so offsets stay within int range at
+ * any user count (10M users x 128 hashes is past 2^31 values).
+ *
+ * Users are identified by their ordinal: the order in which they were added,
+ * which equals their position in the list returned by UserParser.
+ *
+ * TESTING NOTE:
+ * - Users with identical likes must always be candidates of each other
+ * - Users with disjoint likes should almost never be candidates
+ * - Users with no likes are never returned as candidates
+ */
+public class UserSimilarityIndex {
+
+    private static final int NONE = -1;
+    private static final int CHUNK_INTS = 1 << 22;
+    private static final int INITIAL_USERS = 1024;
+
+    private final MinHasher hasher;
+    private final int bands;
+    private final int rows;
+    private final int numHashes;
+    private final LongIntHashMap[] bucketHeads;
+    private final int[] addScratch;
+    private final int chunkShift;
+    private final int chunkMask;
+
+    private int[][] signatures = new int[1][];
+    private int[][] next = new int[1][];
+    private int size = 0;
+    private int maxCandidatesPerBand = 1000;
+
+    /**
+     * Constructs an index.
+     *
+     * @param bands number of bands
+     * @param rows signature rows per band
+     * @param seed random seed for the MinHash functions
+     */
+    public UserSimilarityIndex(int bands, int rows, long seed) {
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("bands and rows must be at least 1");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.numHashes = Math.multiplyExact(bands, rows);
+        this.hasher = new MinHasher(numHashes, seed);
+        this.bucketHeads = new LongIntHashMap[bands];
+        for (int b = 0; b < bands; b++) {
+            bucketHeads[b] = new LongIntHashMap(1024);
+        }
+        this.addScratch = new int[numHashes];
+        // numHashes >= bands, so the signature chunk is the larger of the two
+        int chunkUsers = Integer.highestOneBit(Math.max(1, CHUNK_INTS / numHashes));
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkUsers);
+        this.chunkMask = chunkUsers - 1;
+    }
+
+    /**
+     * Creates an index whose bands and rows put the similarity threshold
+     * (the point where candidate probability rises steeply) close to the
+     * requested value.
+     *
+     * @param numHashes total signature length to split into bands
+     * @param threshold the Jaccard similarity at which users should start to match
+     * @param seed random seed for the MinHash functions
+     * @return a new index
+     */
+    public static UserSimilarityIndex forThreshold(int numHashes, double threshold, long seed) {
+        int bestRows = 1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int r = 1; r <= numHashes; r++) {
+            if (numHashes % r != 0) {
+                continue;
+            }
+            double distance = Math.abs(threshold(numHashes / r, r) - threshold);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestRows = r;
+            }
+        }
+        return new UserSimilarityIndex(numHashes / bestRows, bestRows, seed);
+    }
+
+    /**
+     * Probability that two users with the given Jaccard similarity become candidates.
+     * This is the expected recall of the index against exact Jaccard at that similarity.
+     *
+     * @param similarity Jaccard similarity between 0 and 1
+     * @param bands number of bands
+     * @param rows rows per band
+     * @return the candidate probability
+     */
+    public static double candidateProbability(double similarity, int bands, int rows) {
+        return 1.0 - Math.pow(1.0 - Math.pow(similarity, rows), bands);
+    }
+
+    /**
+     * Approximate similarity threshold of a banding scheme, (1 / bands)^(1 / rows).
+     *
+     * @param bands number of bands
+     * @param rows rows per band
+     * @return the threshold
+     */
+    public static double threshold(int bands, int rows) {
+        return Math.pow(1.0 / bands, 1.0 / rows);
+    }
+
+    /**
+     * Sets the maximum number of candidates read from one bucket during a query.
+     *
+     * @param maxCandidatesPerBand the cap, at least 1
+     */
+    public void setMaxCandidatesPerBand(int maxCandidatesPerBand) {
+        this.maxCandidatesPerBand = maxCandidatesPerBand;
+    }
+
+    /**
+     * Adds a user with the given liked movie IDs.
+     *
+     * @param likedMovieIds the user's liked movie IDs
+     * @return the user's ordinal
+     */
+    public synchronized int add(List<String> likedMovieIds) {
+        hasher.signature(likedMovieIds, addScratch);
+        return addSignature(addScratch);
+    }
+
+    /**
+     * Adds a user whose likes are given as integer keys (e.g. catalog positions).
+     *
+     * @param keys the liked keys
+     * @param length number of keys to read
+     * @return the user's ordinal
+     */
+    public synchronized int add(int[] keys, int length) {
+        hasher.signature(keys, length, addScratch);
+        return addSignature(addScratch);
+    }
+
+    /**
+     * Computes the signature a user with these likes would have.
+     *
+     * @param likedMovieIds the liked movie IDs
+     * @return a new signature array
+     */
+    public int[] signatureOf(List<String> likedMovieIds) {
+        int[] signature = new int[numHashes];
+        hasher.signature(likedMovieIds, signature);
+        return signature;
+    }
+
+    /**
+     * Computes the signature a user with these integer keys would have.
+     *
+     * @param keys the liked keys
+     * @param length number of keys to read
+     * @return a new signature array
+     */
+    public int[] signatureOf(int[] keys, int length) {
+        int[] signature = new int[numHashes];
+        hasher.signature(keys, length, signature);
+        return signature;
+    }
+
+    /**
+     * Collects the ordinals of all users sharing at least one band with the signature.
+     *
+     * @param signature the query signature
+     * @param candidates output set; cleared before use
+     */
+    public synchronized void findCandidates(int[] signature, IntHashSet candidates) {
+        candidates.clear();
+        if (signature[0] == MinHasher.EMPTY) {
+            return;
+        }
+        for (int b = 0; b < bands; b++) {
+            int ordinal = bucketHeads[b].get(bandKey(signature, 0, b), NONE);
+            for (int seen = 0; ordinal != NONE && seen < maxCandidatesPerBand; seen++) {
+                candidates.add(ordinal);
+                ordinal = next[ordinal >>> chunkShift][(ordinal & chunkMask) * bands + b];
+            }
+        }
+    }
+
+    /**
+     * Finds the most similar users to the signature, by estimated Jaccard similarity.
+     *
+     * @param signature the query signature
+     * @param excludeOrdinal ordinal to skip (the querying user), or -1
+     * @param minSimilarity minimum estimated similarity to keep a neighbour
+     * @param neighbours output array of ordinals; its length is the maximum neighbour count
+     * @return number of neighbours written, most similar first
+     */
+    public int findNeighbours(int[] signature, int excludeOrdinal, double minSimilarity, int[] neighbours) {
+        IntHashSet candidates = new IntHashSet(64);
+        findCandidates(signature, candidates);
+
+        int max = neighbours.length;
+        double[] scores = new double[max];
+        int count = 0;
+        synchronized (this) {
+            for (int i = 0; i < candidates.size(); i++) {
+                int ordinal = candidates.get(i);
+                if (ordinal == excludeOrdinal) {
+                    continue;
+                }
+                double similarity = hasher.estimateSimilarity(signature, 0, signatures[ordinal >>> chunkShift],
+                        (ordinal & chunkMask) * numHashes);
+                if (similarity < minSimilarity) {
+                    continue;
+                }
+                // Insertion into a small sorted array, best first
+                if (count == max && similarity <= scores[max - 1]) {
+                    continue;
+                }
+                int position = count < max ? count++ : max - 1;
+                while (position > 0 && scores[position - 1] < similarity) {
+                    scores[position] = scores[position - 1];
+                    neighbours[position] = neighbours[position - 1];
+                    position--;
+                }
+                scores[position] = similarity;
+                neighbours[position] = ordinal;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Estimates the Jaccard similarity between a signature and an indexed user.
+     *
+     * @param signature the query signature
+     * @param ordinal the indexed user's ordinal
+     * @return the estimated similarity
+     */
+    public synchronized double estimateSimilarity(int[] signature, int ordinal) {
+        return hasher.estimateSimilarity(signature, 0, signatures[ordinal >>> chunkShift],
+                (ordinal & chunkMask) * numHashes);
+    }
+
+    /**
+     * Gets the number of indexed users.
+     *
+     * @return the number of users
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of bands.
+     *
+     * @return the number of bands
+     */
+    public int getBands() {
+        return bands;
+    }
+
+    /**
+     * Gets the number of rows per band.
+     *
+     * @return the rows per band
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the signature length.
+     *
+     * @return bands x rows
+     */
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    private int addSignature(int[] signature) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Index is full at " + size + " users");
+        }
+        int ordinal = size++;
+        int chunk = ordinal >>> chunkShift;
+        int local = ordinal & chunkMask;
+        ensureChunkCapacity(chunk, local);
+        int[] nextChunk = next[chunk];
+        System.arraycopy(signature, 0, signatures[chunk], local * numHashes, numHashes);
+
+        for (int b = 0; b < bands; b++) {
+            if (signature[0] == MinHasher.EMPTY) {
+                // Users without likes are kept for ordinal alignment but never bucketed
+                nextChunk[local * bands + b] = NONE;
+                continue;
+            }
+            long key = bandKey(signature, 0, b);
+            nextChunk[local * bands + b] = bucketHeads[b].put(key, ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Makes room for user slot local of a chunk; the chunk being filled
+     * doubles until it reaches its full size.
+     */
+    private void ensureChunkCapacity(int chunk, int local) {
+        if (chunk == signatures.length) {
+            signatures = Arrays.copyOf(signatures, chunk * 2);
+            next = Arrays.copyOf(next, chunk * 2);
+        }
+        int[] chunkSignatures = signatures[chunk];
+        int capacity = chunkSignatures == null ? 0 : chunkSignatures.length / numHashes;
+        if (local < capacity) {
+            return;
+        }
+        int users = Math.min(chunkMask + 1, Math.max(INITIAL_USERS, capacity * 2));
+        signatures[chunk] = chunkSignatures == null
+                ? new int[users * numHashes]
+                : Arrays.copyOf(chunkSignatures, users * numHashes);
+        next[chunk] = next[chunk] == null
+                ? new int[users * bands]
+                : Arrays.copyOf(next[chunk], users * bands);
+    }
+
+    private long bandKey(int[] signature, int offset, int band) {
+        long key = band;
+        int start = offset + band * rows;
+        for (int r = 0; r < rows; r++) {
+            key = LongIntHashMap.mix(key * 31 + signature[start + r]);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,554 @@
+package com.movie.recommendation.output;
+
+import com.movie.recommendation.index.LongIntHashMap;
+import com.movie.recommendation.index.UserIdCodec;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Recommendations file with a side index of user ID to byte offset and length,
+ * so that a later run only writes the blocks that changed.
+ *
+ * The data file holds the blocks of RecommendationService.formatRecommendations()
+ * in UTF-8; after the first run it is byte for byte the plain output file.
+ * The index file next to it (data file name + ".idx") starts with a header
+ * holding the data file length it describes, followed by an append-only log
+ * of fixed-size records (packed user ID, offset, length, block hash); the last
+ * record of a user wins and a length of -1 removes the user. User IDs are
+ * packed with UserIdCodec, so only valid user IDs can be stored.
+ *
+ * put() compares the hash of the new block with the indexed one and skips
+ * unchanged blocks. A changed block of the same byte length is rewritten in
+ * place with a positional write; any other changed block is appended to the
+ * data file and its old bytes become a tombstone: they stay in the file but
+ * no index record points at them any more. Nothing in the data file marks
+ * them, so while getDeadBytes() is not 0 the data file must be read through
+ * the index (read()); compact() rewrites both files with the live blocks
+ * only, after which the data file is valid plain output again.
+ *
+ * Data is always written before the index records that point at it, and
+ * flush() then stores the data file length in the header. Before the first
+ * in-place rewrite after a flush the header length is cleared, because such a
+ * write changes bytes an index record already points at. On open, an index
+ * whose header length does not match the data file (a crash after the last
+ * flush, or another writer that replaced the data file) is not trusted: both
+ * files are truncated and the next run writes every block again. A torn last
+ * index record is dropped on open.
+ *
+ * The index is kept in primitive arrays by user ordinal (first-write order),
+ * with a LongIntHashMap from packed user ID to ordinal.
+ *
+ * TESTING NOTE:
+ * - A first run produces the same data file as the plain output
+ * - Rewriting unchanged blocks writes nothing
+ * - read() returns the latest block of every user after reopening
+ * - compact() keeps the live blocks in first-write order
+ */
+public class IndexedRecommendationFile implements Closeable {
+
+    private static final int MAGIC = 0x52494458; // "RIDX"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final long LENGTH_UNKNOWN = -1;
+    private static final int RECORD_BYTES = 28;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int REMOVED = -1;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private FileChannel data;
+    private FileChannel index;
+
+    private final LongIntHashMap ordinals = new LongIntHashMap(1024);
+    private long[] userIds = new long[1024];
+    private long[] offsets = new long[1024];
+    private int[] lengths = new int[1024];
+    private long[] hashes = new long[1024];
+    private final BitSet touched = new BitSet();
+    private int ordinalCount = 0;
+    private int size = 0;
+
+    // Appended blocks and index records are buffered; flush() writes data first
+    private final ByteBuffer appendBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private long dataEnd;
+    private boolean headerCurrent = true;
+
+    private long liveBytes = 0;
+    private long deadBytes = 0;
+    private long unchanged = 0;
+    private long rewrittenInPlace = 0;
+    private long appended = 0;
+    private long removed = 0;
+    private long bytesWritten = 0;
+
+    /**
+     * Opens a data file and its index, creating both if needed. A data file
+     * without a valid index (for example a plain output file, or one whose
+     * length differs from the index header) is truncated.
+     *
+     * @param dataFile path of the recommendations data file
+     * @throws IOException if a file cannot be opened or read
+     */
+    public IndexedRecommendationFile(Path dataFile) throws IOException {
+        this.dataFile = dataFile;
+        this.indexFile = indexPathFor(dataFile);
+        this.data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long indexLength = loadIndex();
+        if (indexLength < 0) {
+            ordinals.clear();
+            ordinalCount = 0;
+            size = 0;
+            liveBytes = 0;
+            data.truncate(0);
+            index.truncate(0);
+            writeHeader(index, 0);
+        } else {
+            // Drop a torn record left by a crash
+            index.truncate(indexLength);
+        }
+        this.dataEnd = data.size();
+        this.deadBytes = dataEnd - liveBytes;
+    }
+
+    /**
+     * Gets the index path used for a data file.
+     *
+     * @param dataFile path of the data file
+     * @return the data file path with ".idx" appended
+     */
+    public static Path indexPathFor(Path dataFile) {
+        return Paths.get(dataFile.toString() + ".idx");
+    }
+
+    /**
+     * Writes a user's block unless it is unchanged.
+     *
+     * @param userId a valid user ID
+     * @param block the formatted recommendation block
+     * @throws IOException if writing fails
+     */
+    public void put(String userId, String block) throws IOException {
+        long packed = UserIdCodec.encode(userId);
+        if (packed == UserIdCodec.INVALID) {
+            throw new IllegalArgumentException("Cannot index user ID " + userId);
+        }
+        byte[] bytes = block.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(bytes);
+        int ordinal = ordinals.get(packed, -1);
+        if (ordinal < 0) {
+            ordinal = newOrdinal(packed);
+        }
+        int oldLength = lengths[ordinal];
+        touched.set(ordinal);
+        if (oldLength == bytes.length && hashes[ordinal] == hash) {
+            unchanged++;
+            return;
+        }
+        if (oldLength == bytes.length) {
+            if (offsets[ordinal] >= dataEnd - appendBuffer.position()) {
+                flushData();
+            }
+            if (headerCurrent) {
+                writeHeader(index, LENGTH_UNKNOWN);
+                headerCurrent = false;
+            }
+            writeFully(ByteBuffer.wrap(bytes), offsets[ordinal]);
+            rewrittenInPlace++;
+        } else {
+            if (oldLength == REMOVED) {
+                size++;
+            } else {
+                deadBytes += oldLength;
+                liveBytes -= oldLength;
+            }
+            offsets[ordinal] = append(bytes);
+            lengths[ordinal] = bytes.length;
+            liveBytes += bytes.length;
+            appended++;
+        }
+        hashes[ordinal] = hash;
+        writeRecord(packed, offsets[ordinal], lengths[ordinal], hash);
+    }
+
+    /**
+     * Removes a user; its block becomes a tombstone.
+     *
+     * @param userId the user ID
+     * @return true if the user was present
+     * @throws IOException if the index cannot be written
+     */
+    public boolean remove(String userId) throws IOException {
+        int ordinal = ordinals.get(UserIdCodec.encode(userId), -1);
+        if (ordinal < 0 || lengths[ordinal] == REMOVED) {
+            return false;
+        }
+        removeOrdinal(ordinal);
+        return true;
+    }
+
+    /**
+     * Removes every user that was not written with put() since this file was opened,
+     * i.e. users that are no longer in the input.
+     *
+     * @return the number of removed users
+     * @throws IOException if the index cannot be written
+     */
+    public int removeUntouched() throws IOException {
+        int count = 0;
+        for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+            if (lengths[ordinal] != REMOVED && !touched.get(ordinal)) {
+                removeOrdinal(ordinal);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads one user's block with a positional read at its indexed offset.
+     *
+     * @param userId the user ID
+     * @return the block, or null if the user is not in the file
+     * @throws IOException if reading fails
+     */
+    public String read(String userId) throws IOException {
+        int ordinal = ordinals.get(UserIdCodec.encode(userId), -1);
+        if (ordinal < 0 || lengths[ordinal] == REMOVED) {
+            return null;
+        }
+        flushData();
+        ByteBuffer buffer = ByteBuffer.allocate(lengths[ordinal]);
+        readFully(buffer, offsets[ordinal]);
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rewrites the data file with the live blocks only, in first-write order,
+     * and starts a fresh index. The data file is then a plain output file again.
+     *
+     * @throws IOException if rewriting fails
+     */
+    public void compact() throws IOException {
+        flush();
+        Path compactData = Paths.get(dataFile.toString() + ".compact");
+        Path compactIndex = Paths.get(indexFile.toString() + ".compact");
+        long position = 0;
+        try (FileChannel out = FileChannel.open(compactData, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel outIndex = FileChannel.open(compactIndex, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(outIndex, LENGTH_UNKNOWN);
+            for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+                if (lengths[ordinal] == REMOVED) {
+                    continue;
+                }
+                long copied = 0;
+                while (copied < lengths[ordinal]) {
+                    copied += data.transferTo(offsets[ordinal] + copied, lengths[ordinal] - copied, out);
+                }
+                offsets[ordinal] = position;
+                position += lengths[ordinal];
+                if (indexBuffer.remaining() < RECORD_BYTES) {
+                    drainIndex(outIndex);
+                }
+                putRecord(userIds[ordinal], offsets[ordinal], lengths[ordinal], hashes[ordinal]);
+            }
+            drainIndex(outIndex);
+            writeHeader(outIndex, position);
+        }
+        data.close();
+        index.close();
+        // The data file is replaced first: an old index over new data fails the length check on open
+        Files.move(compactData, dataFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(compactIndex, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        data = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        bytesWritten += position;
+        dataEnd = position;
+        deadBytes = 0;
+        headerCurrent = true;
+    }
+
+    /**
+     * Gets the number of users in the file.
+     *
+     * @return the live user count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the bytes of the live blocks.
+     *
+     * @return the live byte count
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Gets the bytes of tombstoned blocks that compact() would reclaim.
+     *
+     * @return the dead byte count
+     */
+    public long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Gets the number of put() calls that found the block unchanged.
+     *
+     * @return the unchanged block count
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Gets the number of blocks rewritten in place.
+     *
+     * @return the in-place rewrite count
+     */
+    public long getRewrittenInPlace() {
+        return rewrittenInPlace;
+    }
+
+    /**
+     * Gets the number of blocks appended (new users and resized blocks).
+     *
+     * @return the appended block count
+     */
+    public long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Gets the number of removed users.
+     *
+     * @return the removed user count
+     */
+    public long getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the number of block bytes written to the data file since it was opened.
+     *
+     * @return the written byte count
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes buffered blocks, then the buffered index records, then the data
+     * file length to the index header.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        flushData();
+        drainIndex(index);
+        writeHeader(index, dataEnd);
+        headerCurrent = true;
+    }
+
+    /**
+     * Flushes and closes both files.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            data.close();
+            index.close();
+        }
+    }
+
+    private int newOrdinal(long packed) {
+        if (ordinalCount == userIds.length) {
+            int capacity = ordinalCount * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        int ordinal = ordinalCount++;
+        ordinals.put(packed, ordinal);
+        userIds[ordinal] = packed;
+        lengths[ordinal] = REMOVED;
+        return ordinal;
+    }
+
+    private void removeOrdinal(int ordinal) throws IOException {
+        deadBytes += lengths[ordinal];
+        liveBytes -= lengths[ordinal];
+        lengths[ordinal] = REMOVED;
+        size--;
+        removed++;
+        writeRecord(userIds[ordinal], offsets[ordinal], REMOVED, 0);
+    }
+
+    private long append(byte[] bytes) throws IOException {
+        long offset = dataEnd;
+        if (bytes.length > appendBuffer.remaining()) {
+            flushData();
+        }
+        if (bytes.length > appendBuffer.capacity()) {
+            writeFully(ByteBuffer.wrap(bytes), offset);
+        } else {
+            appendBuffer.put(bytes);
+        }
+        dataEnd += bytes.length;
+        return offset;
+    }
+
+    private void flushData() throws IOException {
+        if (appendBuffer.position() > 0) {
+            appendBuffer.flip();
+            writeFully(appendBuffer, dataEnd - appendBuffer.remaining());
+            appendBuffer.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += data.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = data.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Block ends past the end of " + dataFile);
+            }
+            position += read;
+        }
+    }
+
+    private void writeRecord(long packed, long offset, int length, long hash) throws IOException {
+        if (indexBuffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+        putRecord(packed, offset, length, hash);
+    }
+
+    private void putRecord(long packed, long offset, int length, long hash) {
+        indexBuffer.putLong(packed).putLong(offset).putInt(length).putLong(hash);
+    }
+
+    private void drainIndex(FileChannel target) throws IOException {
+        indexBuffer.flip();
+        long position = target.size();
+        while (indexBuffer.hasRemaining()) {
+            position += target.write(indexBuffer, position);
+        }
+        indexBuffer.clear();
+    }
+
+    private static void writeHeader(FileChannel target, long dataLength) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(dataLength);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += target.write(header, position);
+        }
+    }
+
+    /**
+     * Replays the index log.
+     *
+     * @return the length of the complete records, or -1 if there is no usable index
+     */
+    private long loadIndex() throws IOException {
+        long indexSize = index.size();
+        if (indexSize < HEADER_BYTES) {
+            return -1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES - BUFFER_BYTES % RECORD_BYTES);
+        buffer.limit(HEADER_BYTES);
+        readIndex(buffer, 0);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return -1;
+        }
+        long dataSize = data.size();
+        if (buffer.getLong() != dataSize) {
+            return -1;
+        }
+        long end = HEADER_BYTES + (indexSize - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        long position = HEADER_BYTES;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            readIndex(buffer, position);
+            position += buffer.limit();
+            while (buffer.hasRemaining()) {
+                long packed = buffer.getLong();
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                long hash = buffer.getLong();
+                int ordinal = ordinals.get(packed, -1);
+                if (ordinal < 0) {
+                    ordinal = newOrdinal(packed);
+                }
+                if (lengths[ordinal] != REMOVED) {
+                    liveBytes -= lengths[ordinal];
+                    size--;
+                }
+                if (length != REMOVED) {
+                    if (offset + length > dataSize) {
+                        return -1;
+                    }
+                    liveBytes += length;
+                    size++;
+                }
+                offsets[ordinal] = offset;
+                lengths[ordinal] = length;
+                hashes[ordinal] = hash;
+            }
+        }
+        return end;
+    }
+
+    private void readIndex(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = index.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Index ends early: " + indexFile);
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    // 64-bit FNV-1a; a collision would only make put() skip a changed block
+    private static long hash(byte[] bytes) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,337 @@
+package com.movie.recommendation.output;
+
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.RecommendationService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Writes recommendations to N partition files at once, one thread and one
+ * writer per partition, instead of one BufferedWriter for the whole output.
+ *
+ * A user goes to partition partitionOf(userId, N), a hash of the user ID, so
+ * the same user always lands in the same file for a given N. The user
+ * indices are bucketed by partition once, so each partition thread only visits
+ * its own users, in input order, and computes and writes their blocks; nothing
+ * is shared between the threads but read-only arrays, so the work scales with
+ * the cores and disks available.
+ *
+ * Files, for output path "out.txt" and 4 partitions:
+ * - out.txt.part-0000 ... out.txt.part-0003: blocks of
+ *   RecommendationService.formatRecommendations()
+ * - out.txt.manifest: one line per partition "file,users,bytes", after a
+ *   header with the partition count and the hash
+ *
+ * concatenate() builds the single file some consumers need: either the
+ * partitions back to back, or the original input order, which it rebuilds
+ * by taking the next block of each user's partition in turn. writeAll()
+ * deletes the single output file and the files of an earlier partitioned run
+ * first, so without concatenate() no file keeps the content of an earlier run.
+ * Writers of the single output file call deletePartitionFiles() for the same
+ * reason: a consumer following a stale manifest would read old results.
+ *
+ * TESTING NOTE:
+ * - Concatenating in input order gives the same file as the plain output
+ * - Every user is in exactly one partition, and the manifest counts match
+ */
+public class PartitionedRecommendationWriter {
+
+    /** Largest partition count; each partition has its own thread. */
+    public static final int MAX_PARTITIONS = 256;
+
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final Path outputFile;
+    private final int partitions;
+    private final long[] users;
+    private final long[] bytes;
+
+    /**
+     * Constructs a writer.
+     *
+     * @param outputFile path of the single output file; partition files and the manifest are named after it
+     * @param partitions number of partition files, between 1 and MAX_PARTITIONS
+     */
+    public PartitionedRecommendationWriter(Path outputFile, int partitions) {
+        if (partitions < 1 || partitions > MAX_PARTITIONS) {
+            throw new IllegalArgumentException("partitions must be between 1 and " + MAX_PARTITIONS);
+        }
+        this.outputFile = outputFile;
+        this.partitions = partitions;
+        this.users = new long[partitions];
+        this.bytes = new long[partitions];
+    }
+
+    /**
+     * Gets the partition of a user.
+     *
+     * @param userId the user ID
+     * @param partitions number of partitions
+     * @return the partition, between 0 and partitions - 1
+     */
+    public static int partitionOf(String userId, int partitions) {
+        int h = userId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return Math.floorMod(h, partitions);
+    }
+
+    /**
+     * Gets the path of a partition file.
+     *
+     * @param partition the partition
+     * @return the output path with ".part-NNNN" appended
+     */
+    public Path getPartitionPath(int partition) {
+        return Paths.get(outputFile + String.format(".part-%04d", partition));
+    }
+
+    /**
+     * Gets the path of the manifest file.
+     *
+     * @return the output path with ".manifest" appended
+     */
+    public Path getManifestPath() {
+        return Paths.get(outputFile + ".manifest");
+    }
+
+    /**
+     * Deletes the single output file and earlier partition files, computes and
+     * writes the recommendations of all users, one thread per partition, then
+     * writes the manifest.
+     *
+     * @param userList the users, in input order
+     * @param service the service used to format the blocks
+     * @param recommender computes the recommendations of one user; called from several threads
+     * @throws IOException if a partition cannot be written or a recommendation fails
+     */
+    public void writeAll(List<User> userList, RecommendationService service,
+                         Function<User, List<String>> recommender) throws IOException {
+        Files.deleteIfExists(outputFile);
+        deletePartitionFiles(outputFile);
+
+        // Counting sort of the user indices by partition, stable so each
+        // partition keeps input order: users of p are order[start[p]..start[p + 1])
+        int[] partitionOfUser = new int[userList.size()];
+        int[] start = new int[partitions + 1];
+        for (int i = 0; i < userList.size(); i++) {
+            partitionOfUser[i] = partitionOf(userList.get(i).getId(), partitions);
+            start[partitionOfUser[i] + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            start[p + 1] += start[p];
+        }
+        int[] order = new int[userList.size()];
+        int[] next = Arrays.copyOf(start, partitions);
+        for (int i = 0; i < partitionOfUser.length; i++) {
+            order[next[partitionOfUser[i]]++] = i;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(partitions, task -> {
+            Thread thread = new Thread(task, "partition-writer-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int partition = p;
+                tasks.add(pool.submit(() -> {
+                    writePartition(partition, userList, order, start[partition], start[partition + 1],
+                            service, recommender);
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing partitions", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Partition writer failed", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+        writeManifest();
+    }
+
+    /**
+     * Concatenates the partition files into the single output file.
+     *
+     * @param inputOrder the users in input order, to restore that order; null
+     *                   to put the partitions back to back
+     * @throws IOException if a partition cannot be read or the output written
+     */
+    public void concatenate(List<User> inputOrder) throws IOException {
+        if (inputOrder == null) {
+            try (FileChannel out = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int p = 0; p < partitions; p++) {
+                    try (FileChannel in = FileChannel.open(getPartitionPath(p), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long copied = 0;
+                        while (copied < size) {
+                            copied += in.transferTo(copied, size - copied, out);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        BufferedReader[] readers = new BufferedReader[partitions];
+        try (Writer out = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+            for (int p = 0; p < partitions; p++) {
+                readers[p] = Files.newBufferedReader(getPartitionPath(p), StandardCharsets.UTF_8);
+            }
+            // Each partition lists its users in input order, so the next block
+            // of a user's partition is always that user's block
+            for (User user : inputOrder) {
+                BufferedReader reader = readers[partitionOf(user.getId(), partitions)];
+                String userLine = reader.readLine();
+                String recommendationLine = reader.readLine();
+                if (userLine == null || recommendationLine == null) {
+                    throw new IOException("Partition ends before user " + user.getId());
+                }
+                out.write(userLine);
+                out.write('\n');
+                out.write(recommendationLine);
+                out.write('\n');
+            }
+        } finally {
+            for (BufferedReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the manifest and every partition file of an output path, whatever
+     * partition count wrote them.
+     *
+     * @param outputFile path of the single output file
+     * @throws IOException if the directory cannot be listed or a file deleted
+     */
+    public static void deletePartitionFiles(Path outputFile) throws IOException {
+        Path directory = outputFile.toAbsolutePath().getParent();
+        String name = outputFile.getFileName().toString();
+        Files.deleteIfExists(Paths.get(outputFile + ".manifest"));
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(directory,
+                file -> file.getFileName().toString().matches(Pattern.quote(name) + "\\.part-\\d{4}"))) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    /**
+     * Deletes the partition files and the manifest.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    public void deletePartitions() throws IOException {
+        for (int p = 0; p < partitions; p++) {
+            Files.deleteIfExists(getPartitionPath(p));
+        }
+        Files.deleteIfExists(getManifestPath());
+    }
+
+    /**
+     * Gets the number of partitions.
+     *
+     * @return the partition count
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Gets the number of users written to a partition.
+     *
+     * @param partition the partition
+     * @return the user count
+     */
+    public long getUsers(int partition) {
+        return users[partition];
+    }
+
+    /**
+     * Gets the size of a partition file.
+     *
+     * @param partition the partition
+     * @return the size in bytes
+     */
+    public long getBytes(int partition) {
+        return bytes[partition];
+    }
+
+    private void writePartition(int partition, List<User> userList, int[] order, int from, int to,
+                                RecommendationService service,
+                                Function<User, List<String>> recommender) throws IOException {
+        Path path = getPartitionPath(partition);
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8), BUFFER_CHARS)) {
+            for (int i = from; i < to; i++) {
+                User user = userList.get(order[i]);
+                writer.write(service.formatRecommendations(user, recommender.apply(user)));
+            }
+        }
+        // Each slot is written by its own thread and read after Future.get()
+        users[partition] = to - from;
+        bytes[partition] = Files.size(path);
+    }
+
+    private void writeManifest() throws IOException {
+        long totalUsers = 0;
+        long totalBytes = 0;
+        for (int p = 0; p < partitions; p++) {
+            totalUsers += users[p];
+            totalBytes += bytes[p];
+        }
+        try (Writer writer = Files.newBufferedWriter(getManifestPath(), StandardCharsets.UTF_8)) {
+            writer.write("partitions=" + partitions + "\n");
+            writer.write("hash=PartitionedRecommendationWriter.partitionOf(userId)\n");
+            writer.write("users=" + totalUsers + "\n");
+            writer.write("bytes=" + totalBytes + "\n");
+            for (int p = 0; p < partitions; p++) {
+                writer.write(getPartitionPath(p).getFileName() + "," + users[p] + "," + bytes[p] + "\n");
+            }
+        }
+    }
+}
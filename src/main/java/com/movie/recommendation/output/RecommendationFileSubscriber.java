@@ -0,0 +1,139 @@
+package com.movie.recommendation.output;
+
+import com.movie.recommendation.service.RecommendationService;
+import com.movie.recommendation.service.UserRecommendation;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+
+/**
+ * Flow.Subscriber that writes each (user, recommendations) pair to the output
+ * file as it arrives, in the format of RecommendationService.formatRecommendations().
+ *
+ * It requests a batch of pairs up front and tops the demand up after every
+ * half batch, so the publisher never runs more than one batch ahead of the
+ * disk. await() blocks until the stream ends and rethrows a write error or
+ * the publisher's error.
+ *
+ * TESTING NOTE:
+ * - The file content equals writing generateRecommendationsForAllUsers() output
+ * - A publisher error is rethrown by await() and the file is closed
+ */
+public class RecommendationFileSubscriber implements Flow.Subscriber<UserRecommendation> {
+
+    private final String outputFilePath;
+    private final RecommendationService service;
+    private final int batchSize;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private Writer writer;
+    private Flow.Subscription subscription;
+    private int receivedInBatch = 0;
+    private long written = 0;
+    private volatile Throwable failure;
+
+    /**
+     * Constructs a subscriber.
+     *
+     * @param outputFilePath path of the output file, created or truncated on subscribe
+     * @param service the service used to format the pairs
+     * @param batchSize number of pairs requested at a time, at least 2
+     */
+    public RecommendationFileSubscriber(String outputFilePath, RecommendationService service, int batchSize) {
+        if (batchSize < 2) {
+            throw new IllegalArgumentException("batchSize must be at least 2");
+        }
+        this.outputFilePath = outputFilePath;
+        this.service = service;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        try {
+            writer = new BufferedWriter(new FileWriter(outputFilePath), 1 << 16);
+        } catch (IOException e) {
+            subscription.cancel();
+            finish(e);
+            return;
+        }
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(UserRecommendation item) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(service.formatRecommendations(item.getUser(), item.getRecommendations()));
+            written++;
+        } catch (IOException e) {
+            subscription.cancel();
+            finish(e);
+            return;
+        }
+        if (++receivedInBatch == batchSize / 2) {
+            receivedInBatch = 0;
+            subscription.request(batchSize / 2);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        finish(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        finish(null);
+    }
+
+    /**
+     * Waits until the stream has ended and the file is closed.
+     *
+     * @return the number of users written
+     * @throws IOException if writing failed
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public long await() throws IOException, InterruptedException {
+        finished.await();
+        Throwable error = failure;
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error != null) {
+            throw new IOException("Recommendation stream failed", error);
+        }
+        return written;
+    }
+
+    private void finish(Throwable error) {
+        if (finished.getCount() == 0) {
+            return;
+        }
+        Throwable result = error;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (result == null) {
+                    result = e;
+                }
+            }
+            writer = null;
+        }
+        failure = result;
+        finished.countDown();
+    }
+}
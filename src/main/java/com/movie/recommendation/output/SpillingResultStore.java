@@ -0,0 +1,357 @@
+package com.movie.recommendation.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Memory-budgeted store for formatted user recommendation blocks.
+ *
+ * Blocks are buffered on the heap together with the user's input position
+ * (ordinal). Once the estimated size of the buffer exceeds the heap budget,
+ * the buffer is sorted by ordinal and written to a temporary "run" file.
+ * writeTo() performs a k-way merge of all runs plus the in-memory remainder,
+ * so the output file always lists users in input order no matter in which
+ * order blocks were added.
+ *
+ * The merge never opens more than MERGE_FAN_IN runs at once. With more runs
+ * than that, groups of MERGE_FAN_IN runs are first merged into intermediate
+ * runs, pass after pass, so a small budget on a large input costs extra
+ * passes instead of file descriptors. The read buffer of each open run is
+ * sized so that all of them together stay within the heap budget (between
+ * 4 KB and 64 KB each).
+ *
+ * Run file record format: ordinal (int), byte length (int), UTF-8 bytes.
+ *
+ * TESTING NOTE:
+ * Use a tiny budget (e.g. 1 byte) to force a spill after every block and
+ * verify that the merged output is still in input order. With more than
+ * MERGE_FAN_IN blocks this also exercises the intermediate merge passes.
+ */
+public class SpillingResultStore implements Closeable {
+
+    // Rough per-entry overhead: String header, backing array header, references
+    private static final int ENTRY_OVERHEAD_BYTES = 56;
+
+    /** Largest number of runs open at once during a merge. */
+    public static final int MERGE_FAN_IN = 64;
+
+    private static final int MIN_READ_BUFFER = 1 << 12;
+    private static final int MAX_READ_BUFFER = 1 << 16;
+
+    private final long heapBudgetBytes;
+    private final Path spillDirectory;
+    private final List<Path> runFiles = new ArrayList<>();
+
+    private int[] ordinals = new int[1024];
+    private String[] blocks = new String[1024];
+    private int size = 0;
+    private long bufferedBytes = 0;
+
+    private long spilledBytes = 0;
+    private long spilledRecords = 0;
+    private int spillRuns = 0;
+    private int mergePasses = 0;
+
+    /**
+     * Constructs a store.
+     *
+     * @param heapBudgetBytes estimated heap the buffered blocks may use before spilling
+     * @param spillDirectory directory for temporary run files
+     */
+    public SpillingResultStore(long heapBudgetBytes, Path spillDirectory) {
+        if (heapBudgetBytes <= 0) {
+            throw new IllegalArgumentException("heapBudgetBytes must be positive");
+        }
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Adds one user's formatted block.
+     *
+     * @param ordinal the user's position in the input file (unique, starting at 0)
+     * @param block the formatted recommendation block
+     * @throws IOException if a spill fails
+     */
+    public synchronized void add(int ordinal, String block) throws IOException {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+            blocks = Arrays.copyOf(blocks, size * 2);
+        }
+        ordinals[size] = ordinal;
+        blocks[size] = block;
+        size++;
+        bufferedBytes += ENTRY_OVERHEAD_BYTES + 2L * block.length();
+
+        if (bufferedBytes > heapBudgetBytes) {
+            spill();
+        }
+    }
+
+    /**
+     * Merges all spilled runs and the in-memory buffer into the output file.
+     *
+     * @param outputFilePath path to output file
+     * @throws IOException if reading a run or writing the output fails
+     */
+    public synchronized void writeTo(String outputFilePath) throws IOException {
+        while (runFiles.size() > MERGE_FAN_IN) {
+            mergePass();
+        }
+
+        List<RunCursor> cursors = new ArrayList<>();
+        try (Writer writer = new BufferedWriter(new FileWriter(outputFilePath), 1 << 16)) {
+            for (Path run : runFiles) {
+                cursors.add(new FileRunCursor(run, readBufferSize()));
+            }
+            cursors.add(new MemoryRunCursor(sortedIndexes(), ordinals, blocks));
+            merge(cursors, (ordinal, block) -> writer.write(block));
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes all temporary run files.
+     *
+     * @throws IOException if a run file cannot be deleted
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Path run : runFiles) {
+            Files.deleteIfExists(run);
+        }
+        runFiles.clear();
+        size = 0;
+        bufferedBytes = 0;
+    }
+
+    /**
+     * Gets the number of run files written so far.
+     *
+     * @return the number of spilled runs
+     */
+    public synchronized int getSpillRunCount() {
+        return spillRuns;
+    }
+
+    /**
+     * Gets the number of bytes written to run files.
+     *
+     * @return the spill volume in bytes
+     */
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Gets the number of user blocks written to run files.
+     *
+     * @return the number of spilled records
+     */
+    public synchronized long getSpilledRecords() {
+        return spilledRecords;
+    }
+
+    /**
+     * Gets the number of intermediate merge passes run by writeTo().
+     *
+     * @return 0 when all runs fit into one merge
+     */
+    public synchronized int getMergePassCount() {
+        return mergePasses;
+    }
+
+    private void spill() throws IOException {
+        Path run = Files.createTempFile(spillDirectory, "recommendations-run-", ".bin");
+        runFiles.add(run);
+        spillRuns++;
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (int index : sortedIndexes()) {
+                writeRecord(out, ordinals[index], blocks[index]);
+            }
+            spilledBytes += out.size();
+        }
+
+        spilledRecords += size;
+        Arrays.fill(blocks, 0, size, null);
+        size = 0;
+        bufferedBytes = 0;
+    }
+
+    /**
+     * Merges each group of MERGE_FAN_IN runs into one intermediate run.
+     */
+    private void mergePass() throws IOException {
+        List<Path> inputs = new ArrayList<>(runFiles);
+        List<Path> outputs = new ArrayList<>();
+        for (int from = 0; from < inputs.size(); from += MERGE_FAN_IN) {
+            List<Path> group = inputs.subList(from, Math.min(inputs.size(), from + MERGE_FAN_IN));
+            if (group.size() == 1) {
+                outputs.add(group.get(0));
+                continue;
+            }
+            Path merged = Files.createTempFile(spillDirectory, "recommendations-merge-", ".bin");
+            // Listed before writing so that close() deletes it if the pass fails
+            runFiles.add(merged);
+            List<RunCursor> cursors = new ArrayList<>();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(merged), readBufferSize()))) {
+                for (Path run : group) {
+                    cursors.add(new FileRunCursor(run, readBufferSize()));
+                }
+                merge(cursors, (ordinal, block) -> writeRecord(out, ordinal, block));
+            } finally {
+                for (RunCursor cursor : cursors) {
+                    cursor.close();
+                }
+            }
+            for (Path run : group) {
+                Files.deleteIfExists(run);
+                runFiles.remove(run);
+            }
+            outputs.add(merged);
+        }
+        runFiles.clear();
+        runFiles.addAll(outputs);
+        mergePasses++;
+    }
+
+    private static void merge(List<RunCursor> cursors, BlockSink sink) throws IOException {
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>(Math.max(1, cursors.size()),
+                (a, b) -> Integer.compare(a.ordinal, b.ordinal));
+        for (RunCursor cursor : cursors) {
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        while (!heap.isEmpty()) {
+            RunCursor cursor = heap.poll();
+            sink.write(cursor.ordinal, cursor.block);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, int ordinal, String block) throws IOException {
+        byte[] bytes = block.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(ordinal);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Splits the heap budget over the runs open at once, plus one output buffer.
+     */
+    private int readBufferSize() {
+        long share = heapBudgetBytes / (MERGE_FAN_IN + 1);
+        return (int) Math.max(MIN_READ_BUFFER, Math.min(MAX_READ_BUFFER, share));
+    }
+
+    /**
+     * Sorts buffer positions by ordinal using packed primitive keys.
+     */
+    private int[] sortedIndexes() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) ordinals[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = (int) keys[i];
+        }
+        return indexes;
+    }
+
+    /**
+     * Destination of merged blocks, in ordinal order.
+     */
+    private interface BlockSink {
+        void write(int ordinal, String block) throws IOException;
+    }
+
+    /**
+     * Position in one sorted run during the merge.
+     */
+    private abstract static class RunCursor implements Closeable {
+        int ordinal;
+        String block;
+
+        abstract boolean advance() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class FileRunCursor extends RunCursor {
+        private final DataInputStream in;
+
+        FileRunCursor(Path run, int bufferSize) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), bufferSize));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            try {
+                ordinal = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            block = new String(bytes, StandardCharsets.UTF_8);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class MemoryRunCursor extends RunCursor {
+        private final int[] order;
+        private final int[] ordinals;
+        private final String[] blocks;
+        private int next = 0;
+
+        MemoryRunCursor(int[] order, int[] ordinals, String[] blocks) {
+            this.order = order;
+            this.ordinals = ordinals;
+            this.blocks = blocks;
+        }
+
+        @Override
+        boolean advance() {
+            if (next == order.length) {
+                return false;
+            }
+            int index = order[next++];
+            ordinal = ordinals[index];
+            block = blocks[index];
+            return true;
+        }
+    }
+}
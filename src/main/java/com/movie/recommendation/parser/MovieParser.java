@@ -45,6 +45,8 @@ import java.util.List;
 public class MovieParser {
     
     private MovieValidator validator;
+    private StringPool stringPool;
+    private RejectLog rejectLog;
     
     /**
      * Constructs a MovieParser with a validator.
@@ -55,6 +57,27 @@ public class MovieParser {
         this.validator = validator;
     }
     
+    /**
+     * Sets a pool that canonicalizes titles, IDs and genres as they are read,
+     * so every repeated genre shares one String instance. Pass the same pool
+     * to UserParser to let liked IDs share the catalog's ID instances.
+     * 
+     * @param stringPool the pool to use, or null to keep every parsed string
+     */
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+    
+    /**
+     * Sets the lenient mode: invalid records are written to the reject log
+     * and skipped instead of aborting the parse.
+     * 
+     * @param rejectLog the log of rejected records, or null to stop at the first error
+     */
+    public void setRejectLog(RejectLog rejectLog) {
+        this.rejectLog = rejectLog;
+    }
+    
     /**
      * Parses movies from a file.
      * File format:
@@ -66,11 +89,13 @@ public class MovieParser {
      * 
      * @param filePath the path to the movies.txt file
      * @return list of parsed and validated Movie objects
-     * @throws ValidationException if any movie fails validation (stops at first error)
+     * @throws ValidationException if any movie fails validation (stops at first error),
+     *         or in the lenient mode if the reject budget is exceeded
      * @throws IOException if file cannot be read
      */
     public List<Movie> parseMovies(String filePath) throws ValidationException, IOException {
         List<Movie> movies = new ArrayList<>();
+        long rejected = 0;
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
@@ -84,38 +109,64 @@ public class MovieParser {
                     continue;
                 }
                 
-                // Parse movie title and ID (odd line numbers: 1, 3, 5, ...)
-                String[] parts = line.split(",", 2);
-                if (parts.length != 2) {
-                    throw new ValidationException("ERROR: Invalid format at line " + lineNumber);
-                }
-                
-                String title = parts[0].trim();
-                String id = parts[1].trim();
-                
-                // Validate title and ID (stops at first error)
-                validator.validateMovie(title, id);
-                
-                // Read next line for genres
+                // Read next line for genres, so a rejected record is skipped whole
+                int recordLine = lineNumber;
                 String genreLine = reader.readLine();
                 lineNumber++;
                 
-                if (genreLine == null) {
-                    throw new ValidationException("ERROR: Missing genre line for movie: " + title);
+                try {
+                    movies.add(parseMovie(line, genreLine, recordLine));
+                } catch (ValidationException e) {
+                    if (rejectLog == null) {
+                        throw e;
+                    }
+                    rejectLog.reject(filePath, recordLine, e);
+                    rejected++;
                 }
-                
-                // Parse genres
-                List<String> genres = parseGenres(genreLine);
-                
-                // Create movie object
-                Movie movie = new Movie(title, id, genres);
-                movies.add(movie);
             }
         }
         
+        if (rejectLog != null) {
+            rejectLog.checkFile(filePath, movies.size(), rejected);
+        }
         return movies;
     }
     
+    /**
+     * Parses and validates one movie record.
+     * 
+     * @param line the title line "Movie Title,Movie ID"
+     * @param genreLine the genre line, or null at the end of the file
+     * @param lineNumber line number of the title line
+     * @return the movie
+     * @throws ValidationException if the record is invalid (first error only)
+     */
+    private Movie parseMovie(String line, String genreLine, int lineNumber) throws ValidationException {
+        // Parse movie title and ID (odd line numbers: 1, 3, 5, ...)
+        String[] parts = line.split(",", 2);
+        if (parts.length != 2) {
+            throw new ValidationException(ValidationException.Code.INVALID_FORMAT,
+                "ERROR: Invalid format at line " + lineNumber);
+        }
+        
+        String title = parts[0].trim();
+        String id = parts[1].trim();
+        
+        // Validate title and ID (stops at first error)
+        validator.validateMovie(title, id);
+        
+        if (genreLine == null) {
+            throw new ValidationException(ValidationException.Code.MISSING_LINE,
+                "ERROR: Missing genre line for movie: " + title);
+        }
+        
+        // Parse genres
+        List<String> genres = parseGenres(genreLine);
+        
+        // Create movie object
+        return new Movie(canonical(title), canonical(id), genres);
+    }
+    
     /**
      * Parses genres from a comma-separated string.
      * 
@@ -129,10 +180,14 @@ public class MovieParser {
         for (String genre : genreArray) {
             String trimmedGenre = genre.trim();
             if (!trimmedGenre.isEmpty()) {
-                genres.add(trimmedGenre.toLowerCase());
+                genres.add(canonical(trimmedGenre.toLowerCase()));
             }
         }
         
         return genres;
     }
+    
+    private String canonical(String value) {
+        return stringPool != null ? stringPool.canonical(value) : value;
+    }
 }
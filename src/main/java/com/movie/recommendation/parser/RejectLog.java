@@ -0,0 +1,164 @@
+package com.movie.recommendation.parser;
+
+import com.movie.recommendation.exception.ValidationException;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Collects the records rejected by MovieParser and UserParser in the lenient
+ * (quarantine) mode.
+ *
+ * With a RejectLog set, a parser that meets an invalid record writes one line
+ * "file:line CODE message" here, skips both lines of the record and goes on
+ * with the next one, instead of aborting the run at the first
+ * ValidationException. Rejects are streamed to the writer and only counted in
+ * memory, so a large file with many bad records does not grow the heap.
+ *
+ * The error budget bounds how much bad input a run accepts: once more than
+ * maxRejects records are rejected, or more than maxRejectFraction of the
+ * records of a file, the parser throws a ValidationException with code
+ * ERROR_BUDGET and the run fails as in the strict mode.
+ *
+ * TESTING NOTE:
+ * - Each rejected record is written once, with the line number of its first line
+ * - getCount(code) sums to getTotal()
+ * - Exceeding either budget throws ERROR_BUDGET
+ */
+public class RejectLog implements AutoCloseable {
+
+    private final Writer writer;
+    private final long[] counts = new long[ValidationException.Code.values().length];
+    private long total = 0;
+    private long maxRejects = Long.MAX_VALUE;
+    private double maxRejectFraction = 1.0;
+
+    /**
+     * Constructs a log that writes to a file.
+     *
+     * @param rejectFilePath path of the reject file to create
+     * @throws IOException if the file cannot be created
+     */
+    public RejectLog(String rejectFilePath) throws IOException {
+        this(new BufferedWriter(new FileWriter(rejectFilePath)));
+    }
+
+    /**
+     * Constructs a log that writes to the given writer.
+     *
+     * @param writer the destination of the reject lines; closed by close()
+     */
+    public RejectLog(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Sets the largest number of rejected records allowed over the run.
+     *
+     * @param maxRejects the budget, Long.MAX_VALUE for no limit
+     */
+    public void setMaxRejects(long maxRejects) {
+        this.maxRejects = maxRejects;
+    }
+
+    /**
+     * Sets the largest share of rejected records allowed in one file,
+     * checked when the file has been read.
+     *
+     * @param maxRejectFraction fraction between 0 and 1; 1 for no limit
+     */
+    public void setMaxRejectFraction(double maxRejectFraction) {
+        this.maxRejectFraction = maxRejectFraction;
+    }
+
+    /**
+     * Records a rejected record.
+     *
+     * @param source name of the file the record comes from
+     * @param lineNumber line number of the record's first line
+     * @param error the validation error
+     * @throws IOException if the reject line cannot be written
+     * @throws ValidationException with code ERROR_BUDGET if the reject budget is exceeded
+     */
+    public void reject(String source, int lineNumber, ValidationException error)
+            throws IOException, ValidationException {
+        counts[error.getCode().ordinal()]++;
+        total++;
+        writer.write(source);
+        writer.write(':');
+        writer.write(Integer.toString(lineNumber));
+        writer.write(' ');
+        writer.write(error.getCode().name());
+        writer.write(' ');
+        writer.write(error.getMessage());
+        writer.write('\n');
+        if (total > maxRejects) {
+            throw new ValidationException(ValidationException.Code.ERROR_BUDGET,
+                "ERROR: More than " + maxRejects + " rejected records, last at " + source + " line " + lineNumber);
+        }
+    }
+
+    /**
+     * Checks the reject share of a file that has been read completely.
+     *
+     * @param source name of the file
+     * @param accepted number of records accepted from the file
+     * @param rejected number of records rejected from the file
+     * @throws ValidationException with code ERROR_BUDGET if the share is too high
+     */
+    public void checkFile(String source, long accepted, long rejected) throws ValidationException {
+        long records = accepted + rejected;
+        if (records > 0 && rejected > maxRejectFraction * records) {
+            throw new ValidationException(ValidationException.Code.ERROR_BUDGET,
+                "ERROR: " + rejected + " of " + records + " records rejected in " + source);
+        }
+    }
+
+    /**
+     * Gets the number of records rejected for one reason.
+     *
+     * @param code the reason
+     * @return the reject count
+     */
+    public long getCount(ValidationException.Code code) {
+        return counts[code.ordinal()];
+    }
+
+    /**
+     * Gets the number of rejected records.
+     *
+     * @return the reject count over all files
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Describes the reject counts, e.g. "3 rejected (MOVIE_TITLE=1, USER_ID=2)".
+     *
+     * @return the summary
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder().append(total).append(" rejected");
+        String separator = " (";
+        for (ValidationException.Code code : ValidationException.Code.values()) {
+            if (counts[code.ordinal()] > 0) {
+                summary.append(separator).append(code).append('=').append(counts[code.ordinal()]);
+                separator = ", ";
+            }
+        }
+        return total > 0 ? summary.append(')').toString() : summary.toString();
+    }
+
+    /**
+     * Flushes and closes the reject file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
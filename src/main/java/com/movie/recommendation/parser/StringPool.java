@@ -0,0 +1,180 @@
+package com.movie.recommendation.parser;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalization pool for strings read by the parsers.
+ *
+ * Every line split creates new String objects, so the genre "action" read for
+ * 100 000 movies, or a popular movie ID read in 1M users' like lists, exists
+ * once per occurrence. canonical() returns one shared instance per distinct
+ * value instead, and the duplicates become garbage as soon as the line is done.
+ * Share one pool between MovieParser and UserParser so liked IDs reuse the
+ * catalog's own ID instances.
+ *
+ * Modes:
+ * - STRONG: a HashMap; every distinct value stays until the pool is dropped
+ * - WEAK: a WeakHashMap; values nobody else references can be collected, so a
+ *   long-lived pool does not pin strings of discarded datasets
+ * - BOUNDED: a direct-mapped table of fixed size; a colliding value replaces
+ *   the previous one, so memory is capped and frequent values still dedupe
+ *
+ * Not thread-safe: a pool belongs to one parsing thread at a time.
+ *
+ * TESTING NOTE:
+ * - canonical() of two equal strings returns the same instance in every mode
+ * - BOUNDED never holds more than its capacity
+ * - getHits() counts lookups answered from the pool
+ */
+public class StringPool {
+
+    /**
+     * How the pool holds its canonical instances.
+     */
+    public enum Mode {
+        STRONG,
+        WEAK,
+        BOUNDED
+    }
+
+    private static final int DEFAULT_BOUNDED_CAPACITY = 1 << 16;
+
+    private final Mode mode;
+    private final Map<String, String> strong;
+    private final Map<String, WeakReference<String>> weak;
+    private final String[] slots;
+    private long lookups = 0;
+    private long hits = 0;
+
+    /**
+     * Constructs a STRONG pool.
+     */
+    public StringPool() {
+        this(Mode.STRONG);
+    }
+
+    /**
+     * Constructs a pool in the given mode (BOUNDED uses 65 536 slots).
+     *
+     * @param mode the pool mode
+     */
+    public StringPool(Mode mode) {
+        this(mode, DEFAULT_BOUNDED_CAPACITY);
+    }
+
+    /**
+     * Constructs a pool in the given mode.
+     *
+     * @param mode the pool mode
+     * @param boundedCapacity slot count for BOUNDED, rounded up to a power of two
+     */
+    public StringPool(Mode mode, int boundedCapacity) {
+        if (boundedCapacity < 1) {
+            throw new IllegalArgumentException("boundedCapacity must be at least 1");
+        }
+        this.mode = mode;
+        this.strong = mode == Mode.STRONG ? new HashMap<>() : null;
+        this.weak = mode == Mode.WEAK ? new WeakHashMap<>() : null;
+        int capacity = 1;
+        while (capacity < boundedCapacity) {
+            capacity <<= 1;
+        }
+        this.slots = mode == Mode.BOUNDED ? new String[capacity] : null;
+    }
+
+    /**
+     * Gets the canonical instance equal to a value, adding the value if it is new.
+     *
+     * @param value the string read from the file, or null
+     * @return the canonical equal string, or null for null
+     */
+    public String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups++;
+        switch (mode) {
+            case STRONG: {
+                String existing = strong.putIfAbsent(value, value);
+                if (existing != null) {
+                    hits++;
+                    return existing;
+                }
+                return value;
+            }
+            case WEAK: {
+                WeakReference<String> reference = weak.get(value);
+                String existing = reference != null ? reference.get() : null;
+                if (existing != null) {
+                    hits++;
+                    return existing;
+                }
+                weak.put(value, new WeakReference<>(value));
+                return value;
+            }
+            default: {
+                int hash = value.hashCode();
+                int slot = (hash ^ hash >>> 16) & (slots.length - 1);
+                String existing = slots[slot];
+                if (value.equals(existing)) {
+                    hits++;
+                    return existing;
+                }
+                slots[slot] = value;
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Gets the pool mode.
+     *
+     * @return the mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the number of canonical instances currently held.
+     * For WEAK this includes entries whose string is about to be collected.
+     *
+     * @return the pool size
+     */
+    public int size() {
+        if (strong != null) {
+            return strong.size();
+        }
+        if (weak != null) {
+            return weak.size();
+        }
+        int size = 0;
+        for (String slot : slots) {
+            if (slot != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of canonical() calls with a non-null value.
+     *
+     * @return the lookup count
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * Gets the number of lookups that returned an instance already in the pool.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+}
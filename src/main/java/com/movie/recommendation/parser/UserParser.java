@@ -3,6 +3,8 @@ package com.movie.recommendation.parser;
 import com.movie.recommendation.model.User;
 import com.movie.recommendation.validator.UserValidator;
 import com.movie.recommendation.exception.ValidationException;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.UserSimilarityIndex;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -46,7 +48,17 @@ import java.util.List;
  */
 public class UserParser {
     
+    /** Maximum number of dangling liked IDs listed in getDanglingReport() */
+    public static final int MAX_REPORTED_DANGLING = 1000;
+    
     private UserValidator validator;
+    private UserSimilarityIndex similarityIndex;
+    private StringPool stringPool;
+    private CatalogIndex catalog;
+    private RejectLog rejectLog;
+    private long danglingIds = 0;
+    private long usersWithDanglingIds = 0;
+    private final List<String> danglingReport = new ArrayList<>();
     
     /**
      * Constructs a UserParser with a validator.
@@ -57,6 +69,80 @@ public class UserParser {
         this.validator = validator;
     }
     
+    /**
+     * Sets an index that receives the MinHash signature of every parsed user.
+     * Signatures are computed while the file is read, so no second pass over
+     * the users is needed. The index ordinal of a user equals its position in
+     * the returned list, so use a fresh index for each parsed file.
+     * 
+     * @param similarityIndex the index to fill, or null to disable
+     */
+    public void setSimilarityIndex(UserSimilarityIndex similarityIndex) {
+        this.similarityIndex = similarityIndex;
+    }
+    
+    /**
+     * Sets a pool that canonicalizes user names and liked movie IDs as they
+     * are read. User IDs are unique and are left as read. Sharing the pool
+     * given to MovieParser makes liked IDs the catalog's own ID instances.
+     * 
+     * @param stringPool the pool to use, or null to keep every parsed string
+     */
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+    
+    /**
+     * Sets the catalog that liked movie IDs are checked against while parsing.
+     * IDs not in the catalog (dangling IDs) are kept in the user, as before,
+     * but counted and listed in getDanglingReport(). Each check is one
+     * perfect-hash probe in CatalogIndex.positionOf().
+     * 
+     * @param catalog the catalog index of the parsed movies, or null to skip the check
+     */
+    public void setCatalog(CatalogIndex catalog) {
+        this.catalog = catalog;
+    }
+    
+    /**
+     * Sets the lenient mode: invalid records are written to the reject log
+     * and skipped instead of aborting the parse. A rejected user's ID stays
+     * free, so a later valid record may still use it.
+     * 
+     * @param rejectLog the log of rejected records, or null to stop at the first error
+     */
+    public void setRejectLog(RejectLog rejectLog) {
+        this.rejectLog = rejectLog;
+    }
+    
+    /**
+     * Gets the number of liked IDs not found in the catalog, over all parsed files.
+     * 
+     * @return the dangling ID count (0 without setCatalog())
+     */
+    public long getDanglingIdCount() {
+        return danglingIds;
+    }
+    
+    /**
+     * Gets the number of users with at least one dangling liked ID.
+     * 
+     * @return the user count (0 without setCatalog())
+     */
+    public long getUsersWithDanglingIds() {
+        return usersWithDanglingIds;
+    }
+    
+    /**
+     * Gets the first MAX_REPORTED_DANGLING dangling IDs, one line each:
+     * "line N: user ID likes unknown movie ID".
+     * 
+     * @return the report lines, in file order
+     */
+    public List<String> getDanglingReport() {
+        return danglingReport;
+    }
+    
     /**
      * Parses users from a file.
      * File format:
@@ -68,11 +154,13 @@ public class UserParser {
      * 
      * @param filePath the path to the users.txt file
      * @return list of parsed and validated User objects
-     * @throws ValidationException if any user fails validation (stops at first error)
+     * @throws ValidationException if any user fails validation (stops at first error),
+     *         or in the lenient mode if the reject budget is exceeded
      * @throws IOException if file cannot be read
      */
     public List<User> parseUsers(String filePath) throws ValidationException, IOException {
         List<User> users = new ArrayList<>();
+        long rejected = 0;
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
@@ -86,38 +174,71 @@ public class UserParser {
                     continue;
                 }
                 
-                // Parse user name and ID
-                String[] parts = line.split(",", 2);
-                if (parts.length != 2) {
-                    throw new ValidationException("ERROR: Invalid format at line " + lineNumber);
-                }
-                
-                String name = parts[0].trim();
-                String id = parts[1].trim();
-                
-                // Validate name and ID (stops at first error)
-                validator.validateUser(name, id);
-                
-                // Read next line for movie IDs
+                // Read next line for movie IDs, so a rejected record is skipped whole
+                int recordLine = lineNumber;
                 String movieIdsLine = reader.readLine();
                 lineNumber++;
                 
-                if (movieIdsLine == null) {
-                    throw new ValidationException("ERROR: Missing movie IDs line for user: " + name);
+                User user;
+                try {
+                    user = parseUser(line, movieIdsLine, recordLine);
+                } catch (ValidationException e) {
+                    if (rejectLog == null) {
+                        throw e;
+                    }
+                    rejectLog.reject(filePath, recordLine, e);
+                    rejected++;
+                    continue;
+                }
+                if (catalog != null) {
+                    flagDanglingIds(user.getLikedMovieIds(), user.getId(), lineNumber);
                 }
-                
-                // Parse movie IDs
-                List<String> movieIds = parseMovieIds(movieIdsLine);
-                
-                // Create user object
-                User user = new User(name, id, movieIds);
                 users.add(user);
+                
+                if (similarityIndex != null) {
+                    similarityIndex.add(user.getLikedMovieIds());
+                }
             }
         }
         
+        if (rejectLog != null) {
+            rejectLog.checkFile(filePath, users.size(), rejected);
+        }
         return users;
     }
     
+    /**
+     * Parses and validates one user record.
+     * 
+     * @param line the user line "User Name,User ID"
+     * @param movieIdsLine the liked movie IDs line, or null at the end of the file
+     * @param lineNumber line number of the user line
+     * @return the user
+     * @throws ValidationException if the record is invalid (first error only)
+     */
+    private User parseUser(String line, String movieIdsLine, int lineNumber) throws ValidationException {
+        // Parse user name and ID
+        String[] parts = line.split(",", 2);
+        if (parts.length != 2) {
+            throw new ValidationException(ValidationException.Code.INVALID_FORMAT,
+                "ERROR: Invalid format at line " + lineNumber);
+        }
+        
+        String name = parts[0].trim();
+        String id = parts[1].trim();
+        
+        // Validate name and ID (stops at first error)
+        validator.validateUser(name, id);
+        
+        if (movieIdsLine == null) {
+            throw new ValidationException(ValidationException.Code.MISSING_LINE,
+                "ERROR: Missing movie IDs line for user: " + name);
+        }
+        
+        // Parse movie IDs and create user object
+        return new User(canonical(name), id, parseMovieIds(movieIdsLine));
+    }
+    
     /**
      * Parses movie IDs from a comma-separated string.
      * 
@@ -131,10 +252,31 @@ public class UserParser {
         for (String id : idArray) {
             String trimmedId = id.trim();
             if (!trimmedId.isEmpty()) {
-                movieIds.add(trimmedId);
+                movieIds.add(canonical(trimmedId));
             }
         }
         
         return movieIds;
     }
+    
+    private void flagDanglingIds(List<String> movieIds, String userId, int lineNumber) {
+        boolean flagged = false;
+        for (String movieId : movieIds) {
+            if (catalog.positionOf(movieId) >= 0) {
+                continue;
+            }
+            danglingIds++;
+            flagged = true;
+            if (danglingReport.size() < MAX_REPORTED_DANGLING) {
+                danglingReport.add("line " + lineNumber + ": user " + userId + " likes unknown movie " + movieId);
+            }
+        }
+        if (flagged) {
+            usersWithDanglingIds++;
+        }
+    }
+    
+    private String canonical(String value) {
+        return stringPool != null ? stringPool.canonical(value) : value;
+    }
 }
@@ -0,0 +1,190 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.model.User;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A user resolved against the catalog, shared by all stages of one request.
+ *
+ * reset() looks up the user's liked IDs once: liked catalog positions are
+ * kept sorted and distinct, and the genres of the liked movies are listed in
+ * the order they were first seen. Stages read these instead of resolving
+ * strings again. The context also carries the deadline of the running stage.
+ *
+ * A context is reused for many users by one thread; it is not thread-safe.
+ *
+ * TESTING NOTE:
+ * - Unknown liked IDs are ignored
+ * - likedGenreOrder() is 0 for genres the user doesn't like
+ * - clear() leaves no genre marked for the next user
+ */
+public class CandidateContext {
+
+    private final CatalogIndex catalog;
+    private final int[] genreOrder;
+    private final int[] likedGenres;
+    private int likedGenreCount = 0;
+    private int[] likedPositions = new int[64];
+    private int likedCount = 0;
+    private User user;
+    private long deadline = 0;
+
+    /**
+     * Constructs an empty context.
+     *
+     * @param catalog the catalog index users are resolved against
+     */
+    public CandidateContext(CatalogIndex catalog) {
+        this.catalog = catalog;
+        this.genreOrder = new int[catalog.getGenreCount()];
+        this.likedGenres = new int[catalog.getGenreCount()];
+    }
+
+    /**
+     * Resolves a user. Clears the previous user first.
+     *
+     * @param user the user
+     */
+    public void reset(User user) {
+        clear();
+        this.user = user;
+
+        List<String> likedIds = user.getLikedMovieIds();
+        int[] movieGenres = catalog.getMovieGenres();
+        for (int i = 0; i < likedIds.size(); i++) {
+            int position = catalog.positionOf(likedIds.get(i));
+            if (position < 0) {
+                continue;
+            }
+            if (likedCount == likedPositions.length) {
+                likedPositions = Arrays.copyOf(likedPositions, likedCount * 2);
+            }
+            likedPositions[likedCount++] = position;
+            for (int g = catalog.genreStart(position); g < catalog.genreEnd(position); g++) {
+                int genre = movieGenres[g];
+                if (genreOrder[genre] == 0) {
+                    likedGenres[likedGenreCount++] = genre;
+                    genreOrder[genre] = likedGenreCount;
+                }
+            }
+        }
+
+        Arrays.sort(likedPositions, 0, likedCount);
+        int distinct = likedCount == 0 ? 0 : 1;
+        for (int i = 1; i < likedCount; i++) {
+            if (likedPositions[i] != likedPositions[distinct - 1]) {
+                likedPositions[distinct++] = likedPositions[i];
+            }
+        }
+        likedCount = distinct;
+    }
+
+    /**
+     * Forgets the current user. Cost is proportional to the user's genres.
+     */
+    public void clear() {
+        for (int i = 0; i < likedGenreCount; i++) {
+            genreOrder[likedGenres[i]] = 0;
+        }
+        likedGenreCount = 0;
+        likedCount = 0;
+        user = null;
+        deadline = 0;
+    }
+
+    /**
+     * Gets the current user.
+     *
+     * @return the user, or null after clear()
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Gets the catalog index.
+     *
+     * @return the catalog index
+     */
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Gets the number of distinct liked movies found in the catalog.
+     *
+     * @return the liked movie count
+     */
+    public int getLikedCount() {
+        return likedCount;
+    }
+
+    /**
+     * Gets the sorted liked positions. Read the first getLikedCount() entries; do not modify.
+     *
+     * @return the liked catalog positions
+     */
+    public int[] getLikedPositions() {
+        return likedPositions;
+    }
+
+    /**
+     * Checks if the user likes a movie.
+     *
+     * @param position the catalog position
+     * @return true if the movie is liked
+     */
+    public boolean isLiked(int position) {
+        return Arrays.binarySearch(likedPositions, 0, likedCount, position) >= 0;
+    }
+
+    /**
+     * Gets the number of distinct genres of the liked movies.
+     *
+     * @return the liked genre count
+     */
+    public int getLikedGenreCount() {
+        return likedGenreCount;
+    }
+
+    /**
+     * Gets the i-th liked genre, in the order genres were first seen.
+     *
+     * @param i index between 0 and getLikedGenreCount() - 1
+     * @return the genre id
+     */
+    public int getLikedGenre(int i) {
+        return likedGenres[i];
+    }
+
+    /**
+     * Gets the 1-based position of a genre in the liked genre list.
+     *
+     * @param genreId the genre id
+     * @return i + 1 if getLikedGenre(i) == genreId, 0 if the genre is not liked
+     */
+    public int likedGenreOrder(int genreId) {
+        return genreOrder[genreId];
+    }
+
+    /**
+     * Checks if the running stage has used up its time budget.
+     *
+     * @return true if a deadline is set and has passed
+     */
+    public boolean isExpired() {
+        return deadline != 0 && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Sets the deadline of the next stage.
+     *
+     * @param budgetNanos the stage budget, 0 for none
+     */
+    void startStage(long budgetNanos) {
+        deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : 0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.movie.recommendation.pipeline;
+
+/**
+ * First stage of a RecommendationPipeline: proposes catalog positions for a user.
+ *
+ * A generator writes at most out.length distinct positions into out and
+ * returns how many it wrote. It should skip movies the user already likes
+ * and stop early once context.isExpired() returns true, keeping what it has.
+ * Implementations must be safe to call from several threads at once.
+ *
+ * TESTING NOTE:
+ * - No more than out.length candidates are written
+ * - Liked movies are never proposed
+ */
+public interface CandidateGenerator {
+
+    /**
+     * Gets the name used in stage counters.
+     *
+     * @return the stage name
+     */
+    String getName();
+
+    /**
+     * Proposes candidates for the user in the context.
+     *
+     * @param context the resolved user (liked positions and genres)
+     * @param out receives candidate catalog positions; its length is the bound
+     * @return number of candidates written
+     */
+    int generate(CandidateContext context, int[] out);
+}
@@ -0,0 +1,13 @@
+package com.movie.recommendation.pipeline;
+
+/**
+ * Built-in candidate generators that can be selected from RunOptions.
+ */
+public enum CandidateSource {
+    /** Movies sharing a genre with a liked movie (GenreCandidateGenerator) */
+    GENRE,
+    /** Movies liked by users who like the same movies (CoLikeCandidateGenerator) */
+    CO_LIKES,
+    /** The globally most liked movies (PopularityCandidateGenerator) */
+    POPULARITY
+}
@@ -0,0 +1,23 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.IntHashSet;
+import com.movie.recommendation.index.TopK;
+
+/**
+ * Keeps candidates in catalog order (every score is 0, ties go to the lower position).
+ * This is the ordering of RankingMode.NONE.
+ */
+public class CatalogOrderReRanker implements ReRanker {
+
+    @Override
+    public String getName() {
+        return "catalog-order";
+    }
+
+    @Override
+    public void rank(CandidateContext context, IntHashSet candidates, TopK top) {
+        for (int i = 0; i < candidates.size(); i++) {
+            top.offer(candidates.get(i), 0);
+        }
+    }
+}
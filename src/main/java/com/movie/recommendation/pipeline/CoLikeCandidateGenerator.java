@@ -0,0 +1,105 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.TopK;
+
+import java.util.Arrays;
+
+/**
+ * Proposes movies liked by users who like the same movies ("also liked").
+ *
+ * For every liked movie, up to maxLikersPerMovie of its likers are visited
+ * and each of their other likes gets one co-like count. The movies with the
+ * most co-likes are proposed. Counting uses a dense per-thread array that is
+ * reset through a touched list, so nothing is allocated per request.
+ *
+ * TESTING NOTE:
+ * - The movie most often liked together with the user's movies comes first
+ * - maxLikersPerMovie bounds the work for very popular movies
+ */
+public class CoLikeCandidateGenerator implements CandidateGenerator {
+
+    private final LikesTable userLikes;
+    private final LikesTable movieLikers;
+    private final int maxLikersPerMovie;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Constructs the generator.
+     *
+     * @param userLikes the user x movie likes table, built over the same catalog
+     * @param maxLikersPerMovie maximum number of likers visited per liked movie
+     */
+    public CoLikeCandidateGenerator(LikesTable userLikes, int maxLikersPerMovie) {
+        this.userLikes = userLikes;
+        this.movieLikers = userLikes.transpose();
+        this.maxLikersPerMovie = maxLikersPerMovie;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(userLikes.columnCount()));
+    }
+
+    @Override
+    public String getName() {
+        return "co-likes";
+    }
+
+    @Override
+    public int generate(CandidateContext context, int[] out) {
+        Scratch s = scratch.get();
+        int[] liked = context.getLikedPositions();
+        int[] likers = movieLikers.getColumns();
+        int[] columns = userLikes.getColumns();
+
+        for (int i = 0; i < context.getLikedCount() && !context.isExpired(); i++) {
+            int movie = liked[i];
+            int end = Math.min(movieLikers.rowEnd(movie), movieLikers.rowStart(movie) + maxLikersPerMovie);
+            for (int k = movieLikers.rowStart(movie); k < end; k++) {
+                int liker = likers[k];
+                for (int c = userLikes.rowStart(liker); c < userLikes.rowEnd(liker); c++) {
+                    s.count(columns[c]);
+                }
+            }
+        }
+
+        TopK top = s.topK(out.length);
+        for (int i = 0; i < s.touchedCount; i++) {
+            int movie = s.touched[i];
+            if (!context.isLiked(movie)) {
+                top.offer(movie, s.counts[movie]);
+            }
+            s.counts[movie] = 0;
+        }
+        s.touchedCount = 0;
+        return top.drainSorted(out);
+    }
+
+    /**
+     * Per-thread co-like counters.
+     */
+    private static final class Scratch {
+        final int[] counts;
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        private TopK top = new TopK(0);
+
+        Scratch(int movieCount) {
+            counts = new int[movieCount];
+        }
+
+        void count(int movie) {
+            if (counts[movie]++ == 0) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+                touched[touchedCount++] = movie;
+            }
+        }
+
+        TopK topK(int capacity) {
+            if (top.capacity() != capacity) {
+                top = new TopK(capacity);
+            }
+            top.clear();
+            return top;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.GenreVectors;
+import com.movie.recommendation.index.IntHashSet;
+import com.movie.recommendation.index.TopK;
+
+/**
+ * Orders candidates by cosine similarity between their TF-IDF genre vector
+ * and the sum of the vectors of the user's liked movies, as RankingMode.CONTENT does.
+ * Candidates sharing no genre with the profile (e.g. from co-likes) score 0.
+ */
+public class ContentReRanker implements ReRanker {
+
+    private final GenreVectors genreVectors;
+    private final ThreadLocal<float[]> profiles;
+
+    /**
+     * Constructs the re-ranker.
+     *
+     * @param genreVectors the genre vectors
+     */
+    public ContentReRanker(GenreVectors genreVectors) {
+        this.genreVectors = genreVectors;
+        int genreCount = genreVectors.getCatalog().getGenreCount();
+        this.profiles = ThreadLocal.withInitial(() -> new float[genreCount]);
+    }
+
+    @Override
+    public String getName() {
+        return "content";
+    }
+
+    @Override
+    public void rank(CandidateContext context, IntHashSet candidates, TopK top) {
+        CatalogIndex catalog = genreVectors.getCatalog();
+        int[] movieGenres = catalog.getMovieGenres();
+        float[] weights = genreVectors.getWeights();
+        float[] profile = profiles.get();
+
+        int[] liked = context.getLikedPositions();
+        for (int i = 0; i < context.getLikedCount(); i++) {
+            for (int g = catalog.genreStart(liked[i]); g < catalog.genreEnd(liked[i]); g++) {
+                profile[movieGenres[g]] += weights[g];
+            }
+        }
+        // Only the liked genres are non-zero, so they are also the ones to reset
+        double sumOfSquares = 0;
+        for (int i = 0; i < context.getLikedGenreCount(); i++) {
+            float value = profile[context.getLikedGenre(i)];
+            sumOfSquares += (double) value * value;
+        }
+        double profileNorm = Math.sqrt(sumOfSquares);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            if ((i & 1023) == 1023 && context.isExpired()) {
+                break;
+            }
+            int position = candidates.get(i);
+            double dot = 0;
+            for (int g = catalog.genreStart(position); g < catalog.genreEnd(position); g++) {
+                dot += profile[movieGenres[g]] * weights[g];
+            }
+            double norm = profileNorm * genreVectors.getNorm(position);
+            top.offer(position, norm > 0 ? dot / norm : 0);
+        }
+
+        for (int i = 0; i < context.getLikedGenreCount(); i++) {
+            profile[context.getLikedGenre(i)] = 0;
+        }
+    }
+}
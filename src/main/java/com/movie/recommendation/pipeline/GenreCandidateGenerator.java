@@ -0,0 +1,103 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.CatalogIndex;
+
+/**
+ * Proposes movies that share a genre with a liked movie.
+ *
+ * An inverted index (genre id to catalog positions, ascending) is built once,
+ * so only the postings of the user's genres are read instead of the whole
+ * catalog. A movie listed under several liked genres is proposed only under
+ * the first of them, so the output has no duplicates.
+ *
+ * Unbounded, this proposes exactly the candidates of the original
+ * genre-matching recommendation.
+ *
+ * TESTING NOTE:
+ * - A movie with two liked genres is proposed once
+ * - Movies without a liked genre are never proposed
+ */
+public class GenreCandidateGenerator implements CandidateGenerator {
+
+    private final CatalogIndex catalog;
+    private final int[] postingOffsets;
+    private final int[] postings;
+
+    /**
+     * Builds the genre postings.
+     *
+     * @param catalog the catalog index
+     */
+    public GenreCandidateGenerator(CatalogIndex catalog) {
+        this.catalog = catalog;
+        int genreCount = catalog.getGenreCount();
+        int[] movieGenres = catalog.getMovieGenres();
+
+        // Count each genre once per movie, even if it is listed twice
+        postingOffsets = new int[genreCount + 1];
+        int[] lastSeen = new int[genreCount];
+        for (int p = 0; p < catalog.size(); p++) {
+            for (int g = catalog.genreStart(p); g < catalog.genreEnd(p); g++) {
+                int genre = movieGenres[g];
+                if (lastSeen[genre] != p + 1) {
+                    lastSeen[genre] = p + 1;
+                    postingOffsets[genre + 1]++;
+                }
+            }
+        }
+        for (int genre = 0; genre < genreCount; genre++) {
+            postingOffsets[genre + 1] += postingOffsets[genre];
+        }
+
+        postings = new int[postingOffsets[genreCount]];
+        int[] fill = new int[genreCount];
+        System.arraycopy(postingOffsets, 0, fill, 0, genreCount);
+        for (int p = 0; p < catalog.size(); p++) {
+            for (int g = catalog.genreStart(p); g < catalog.genreEnd(p); g++) {
+                int genre = movieGenres[g];
+                if (lastSeen[genre] != -(p + 1)) {
+                    lastSeen[genre] = -(p + 1);
+                    postings[fill[genre]++] = p;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "genre";
+    }
+
+    @Override
+    public int generate(CandidateContext context, int[] out) {
+        int[] movieGenres = catalog.getMovieGenres();
+        int count = 0;
+        for (int i = 0; i < context.getLikedGenreCount() && count < out.length; i++) {
+            int genre = context.getLikedGenre(i);
+            for (int k = postingOffsets[genre]; k < postingOffsets[genre + 1] && count < out.length; k++) {
+                if ((k & 1023) == 0 && context.isExpired()) {
+                    return count;
+                }
+                int position = postings[k];
+                if (context.isLiked(position) || hasEarlierLikedGenre(position, i, context, movieGenres)) {
+                    continue;
+                }
+                out[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the movie was already proposed under one of the first `index` liked genres.
+     */
+    private boolean hasEarlierLikedGenre(int position, int index, CandidateContext context, int[] movieGenres) {
+        for (int g = catalog.genreStart(position); g < catalog.genreEnd(position); g++) {
+            int order = context.likedGenreOrder(movieGenres[g]);
+            if (order > 0 && order <= index) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.PopularityIndex;
+
+/**
+ * Proposes the globally most liked movies the user doesn't like yet.
+ *
+ * Reads the precomputed top list of the PopularityIndex, so the number of
+ * candidates is bounded by the index's top size. Also serves users whose
+ * likes don't resolve to any catalog movie.
+ *
+ * TESTING NOTE:
+ * Candidates follow getTopPositions() order, minus liked movies.
+ */
+public class PopularityCandidateGenerator implements CandidateGenerator {
+
+    private final PopularityIndex popularity;
+
+    /**
+     * Constructs the generator.
+     *
+     * @param popularity the popularity index
+     */
+    public PopularityCandidateGenerator(PopularityIndex popularity) {
+        this.popularity = popularity;
+    }
+
+    @Override
+    public String getName() {
+        return "popularity";
+    }
+
+    @Override
+    public int generate(CandidateContext context, int[] out) {
+        int[] top = popularity.getTopPositions();
+        int count = 0;
+        for (int i = 0; i < top.length && count < out.length; i++) {
+            if (!context.isLiked(top[i])) {
+                out[count++] = top[i];
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,39 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.IntHashSet;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.TopK;
+
+/**
+ * Orders candidates by global like count, as RankingMode.POPULARITY does.
+ */
+public class PopularityReRanker implements ReRanker {
+
+    private final PopularityIndex popularity;
+
+    /**
+     * Constructs the re-ranker.
+     *
+     * @param popularity the popularity index
+     */
+    public PopularityReRanker(PopularityIndex popularity) {
+        this.popularity = popularity;
+    }
+
+    @Override
+    public String getName() {
+        return "popularity";
+    }
+
+    @Override
+    public void rank(CandidateContext context, IntHashSet candidates, TopK top) {
+        int[] likeCounts = popularity.getLikeCounts();
+        for (int i = 0; i < candidates.size(); i++) {
+            if ((i & 1023) == 1023 && context.isExpired()) {
+                return;
+            }
+            int position = candidates.get(i);
+            top.offer(position, likeCounts[position]);
+        }
+    }
+}
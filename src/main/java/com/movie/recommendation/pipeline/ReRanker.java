@@ -0,0 +1,35 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.IntHashSet;
+import com.movie.recommendation.index.TopK;
+
+/**
+ * Second stage of a RecommendationPipeline: scores the merged candidates.
+ *
+ * Every candidate worth returning is offered to the top-K selector with its
+ * score (higher is better, ties go to the lower catalog position). When
+ * context.isExpired() returns true the re-ranker may stop; the pipeline
+ * then returns the best candidates scored so far.
+ * Implementations must be safe to call from several threads at once.
+ *
+ * TESTING NOTE:
+ * Offer a known candidate set and check the order drained from the TopK.
+ */
+public interface ReRanker {
+
+    /**
+     * Gets the name used in stage counters.
+     *
+     * @return the stage name
+     */
+    String getName();
+
+    /**
+     * Scores candidates into the selector.
+     *
+     * @param context the resolved user
+     * @param candidates the merged, deduplicated candidate positions
+     * @param top the selector receiving (position, score) pairs
+     */
+    void rank(CandidateContext context, IntHashSet candidates, TopK top);
+}
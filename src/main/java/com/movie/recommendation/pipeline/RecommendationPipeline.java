@@ -0,0 +1,223 @@
+package com.movie.recommendation.pipeline;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.IntHashSet;
+import com.movie.recommendation.index.TopK;
+import com.movie.recommendation.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-stage recommendation: candidate generation, then re-ranking.
+ *
+ * Stage 1: every registered CandidateGenerator proposes up to its own bound
+ * of catalog positions. The proposals are merged into a primitive IntHashSet,
+ * which drops duplicates between generators.
+ * Stage 2: the ReRanker scores the merged set into a bounded top-K.
+ *
+ * Each stage has its own time budget. A stage that runs out of budget returns
+ * what it has so far and is counted as over budget in its StageStats; the
+ * request still completes with the candidates produced in time.
+ *
+ * defaultPipeline() reproduces getRankedRecommendations() with
+ * RankingMode.NONE: all movies sharing a genre with a liked movie, in catalog
+ * order.
+ *
+ * Configure the pipeline before the first request; rank() can then be called
+ * from many threads, each using its own scratch buffers.
+ *
+ * TESTING NOTE:
+ * - The default pipeline returns the same positions as the NONE ranking
+ * - A candidate proposed by two generators is scored once
+ * - Per-stage counters add up over all requests
+ */
+public class RecommendationPipeline {
+
+    private final CatalogIndex catalog;
+    private final List<GeneratorStage> generators = new ArrayList<>();
+    private ReRanker reRanker = new CatalogOrderReRanker();
+    private StageStats reRankerStats = new StageStats(reRanker.getName(), 0);
+    private final LongAdder mergedCandidates = new LongAdder();
+    private final LongAdder duplicateCandidates = new LongAdder();
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * Constructs a pipeline with no generators and a catalog order re-ranker.
+     *
+     * @param catalog the catalog index all stages were built over
+     */
+    public RecommendationPipeline(CatalogIndex catalog) {
+        this.catalog = catalog;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(catalog));
+    }
+
+    /**
+     * Creates the pipeline equivalent to the unranked recommendations:
+     * one unbounded genre generator and catalog order.
+     *
+     * @param catalog the catalog index
+     * @return the default pipeline
+     */
+    public static RecommendationPipeline defaultPipeline(CatalogIndex catalog) {
+        RecommendationPipeline pipeline = new RecommendationPipeline(catalog);
+        pipeline.addGenerator(new GenreCandidateGenerator(catalog), catalog.size(), 0);
+        return pipeline;
+    }
+
+    /**
+     * Adds a candidate generator.
+     *
+     * @param generator the generator
+     * @param maxCandidates maximum number of candidates it may propose per request
+     * @param budgetNanos time budget per request, 0 for none
+     */
+    public void addGenerator(CandidateGenerator generator, int maxCandidates, long budgetNanos) {
+        if (maxCandidates < 1) {
+            throw new IllegalArgumentException("maxCandidates must be at least 1");
+        }
+        generators.add(new GeneratorStage(generator, maxCandidates,
+                new StageStats(generator.getName(), budgetNanos)));
+    }
+
+    /**
+     * Replaces the re-ranker.
+     *
+     * @param reRanker the re-ranker
+     * @param budgetNanos time budget per request, 0 for none
+     */
+    public void setReRanker(ReRanker reRanker, long budgetNanos) {
+        this.reRanker = reRanker;
+        this.reRankerStats = new StageStats(reRanker.getName(), budgetNanos);
+    }
+
+    /**
+     * Recommends movies for a user.
+     *
+     * @param user the user
+     * @param out receives catalog positions, best first; its length is the result limit
+     * @return number of positions written
+     */
+    public int rank(User user, int[] out) {
+        Scratch s = scratch.get();
+        CandidateContext context = s.context;
+        context.reset(user);
+        IntHashSet merged = s.merged;
+        merged.clear();
+
+        int proposed = 0;
+        for (GeneratorStage stage : generators) {
+            int[] buffer = s.buffer(stage.maxCandidates);
+            context.startStage(stage.stats.getBudgetNanos());
+            long start = System.nanoTime();
+            int count = stage.generator.generate(context, buffer);
+            stage.stats.record(count, System.nanoTime() - start, context.isExpired());
+
+            proposed += count;
+            for (int i = 0; i < count; i++) {
+                merged.add(buffer[i]);
+            }
+        }
+        mergedCandidates.add(merged.size());
+        duplicateCandidates.add(proposed - merged.size());
+
+        TopK top = s.topK(out.length);
+        context.startStage(reRankerStats.getBudgetNanos());
+        long start = System.nanoTime();
+        reRanker.rank(context, merged, top);
+        reRankerStats.record(merged.size(), System.nanoTime() - start, context.isExpired());
+
+        context.clear();
+        return top.drainSorted(out);
+    }
+
+    /**
+     * Gets the counters of all stages: generators in order, then the re-ranker.
+     *
+     * @return the stage counters
+     */
+    public List<StageStats> getStageStats() {
+        List<StageStats> stats = new ArrayList<>();
+        for (GeneratorStage stage : generators) {
+            stats.add(stage.stats);
+        }
+        stats.add(reRankerStats);
+        return stats;
+    }
+
+    /**
+     * Gets the number of distinct candidates passed to the re-ranker, over all requests.
+     *
+     * @return the merged candidate count
+     */
+    public long getMergedCandidates() {
+        return mergedCandidates.sum();
+    }
+
+    /**
+     * Gets the number of proposals dropped because another generator proposed them too.
+     *
+     * @return the duplicate candidate count
+     */
+    public long getDuplicateCandidates() {
+        return duplicateCandidates.sum();
+    }
+
+    /**
+     * Gets the catalog index.
+     *
+     * @return the catalog index
+     */
+    public CatalogIndex getCatalog() {
+        return catalog;
+    }
+
+    private static final class GeneratorStage {
+        final CandidateGenerator generator;
+        final int maxCandidates;
+        final StageStats stats;
+
+        GeneratorStage(CandidateGenerator generator, int maxCandidates, StageStats stats) {
+            this.generator = generator;
+            this.maxCandidates = maxCandidates;
+            this.stats = stats;
+        }
+    }
+
+    /**
+     * Per-thread working memory: the resolved user, the merge set,
+     * the generator buffers and the top-K heap.
+     */
+    private static final class Scratch {
+        final CandidateContext context;
+        final IntHashSet merged = new IntHashSet(256);
+        private int[][] buffers = new int[0][];
+        private TopK top = new TopK(0);
+
+        Scratch(CatalogIndex catalog) {
+            context = new CandidateContext(catalog);
+        }
+
+        // Generators with the same bound share a buffer; it is merged before the next stage runs
+        int[] buffer(int capacity) {
+            for (int[] buffer : buffers) {
+                if (buffer.length == capacity) {
+                    return buffer;
+                }
+            }
+            buffers = Arrays.copyOf(buffers, buffers.length + 1);
+            buffers[buffers.length - 1] = new int[capacity];
+            return buffers[buffers.length - 1];
+        }
+
+        TopK topK(int capacity) {
+            if (top.capacity() != capacity) {
+                top = new TopK(capacity);
+            }
+            top.clear();
+            return top;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.movie.recommendation.pipeline;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one pipeline stage, updated concurrently by all request threads.
+ *
+ * TESTING NOTE:
+ * After n requests getCalls() is n; getCandidates() sums what the stage produced.
+ */
+public class StageStats {
+
+    private final String name;
+    private final long budgetNanos;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+
+    StageStats(String name, long budgetNanos) {
+        this.name = name;
+        this.budgetNanos = budgetNanos;
+    }
+
+    void record(int produced, long elapsedNanos, boolean expired) {
+        calls.increment();
+        candidates.add(produced);
+        nanos.add(elapsedNanos);
+        if (expired) {
+            overBudget.increment();
+        }
+    }
+
+    /**
+     * Gets the stage name.
+     *
+     * @return the name of the generator or re-ranker
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the time budget per call.
+     *
+     * @return the budget in nanoseconds, 0 for none
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Gets the number of calls.
+     *
+     * @return the call count
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Gets the number of candidates produced (generators) or scored (re-ranker).
+     *
+     * @return the candidate count
+     */
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    /**
+     * Gets the total time spent in the stage.
+     *
+     * @return nanoseconds
+     */
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    /**
+     * Gets the number of calls that ran out of budget and returned partial results.
+     *
+     * @return the over budget count
+     */
+    public long getOverBudget() {
+        return overBudget.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getCalls() + " calls, " + getCandidates() + " candidates, "
+                + getNanos() / 1_000_000 + " ms, " + getOverBudget() + " over budget";
+    }
+}
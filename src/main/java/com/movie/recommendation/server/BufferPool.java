@@ -0,0 +1,75 @@
+package com.movie.recommendation.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of equally sized direct buffers, reused across connections.
+ *
+ * Buffers are created on demand up to any number, and released buffers are
+ * kept (up to maxPooled) for the next connection, so a server that keeps a
+ * stable number of connections stops allocating buffers after warm-up.
+ * Not thread-safe: the pool belongs to the selector thread.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private long created = 0;
+
+    /**
+     * Constructs a pool.
+     *
+     * @param bufferSize capacity of every buffer in bytes
+     * @param maxPooled maximum number of idle buffers kept
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, creating one if the pool is empty.
+     *
+     * @return a buffer in write mode
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            created++;
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer a buffer from acquire()
+     */
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (free.size() < maxPooled) {
+            free.push(buffer);
+        }
+    }
+
+    /**
+     * Gets the capacity of the buffers.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets the number of buffers created so far.
+     *
+     * @return the created buffer count
+     */
+    public long getCreatedCount() {
+        return created;
+    }
+}
@@ -0,0 +1,119 @@
+package com.movie.recommendation.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Blocking client of RecommendationServer, one request at a time.
+ *
+ * Not thread-safe: use one client per thread. recommendPositions() reuses the
+ * client's buffers and allocates nothing, so it can drive load tests.
+ */
+public class RecommendationClient implements Closeable {
+
+    private final SocketChannel channel;
+    private final ByteBuffer request = ByteBuffer.allocateDirect(4 + RecommendationProtocol.REQUEST_LENGTH);
+    private ByteBuffer response = ByteBuffer.allocateDirect(1 << 16);
+
+    /**
+     * Connects to a server.
+     *
+     * @param address the server address
+     * @throws IOException if the connection fails
+     */
+    public RecommendationClient(InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+    }
+
+    /**
+     * Requests the catalog positions recommended to a user.
+     *
+     * @param packedUserId the user ID packed with UserIdCodec
+     * @param k number of recommendations wanted
+     * @param out receives the positions
+     * @return number of positions written, or -1 if the server does not know the user
+     * @throws IOException if the connection fails or the server rejects the request
+     */
+    public int recommendPositions(long packedUserId, int k, int[] out) throws IOException {
+        int count = call(RecommendationProtocol.MODE_POSITIONS, packedUserId, k);
+        for (int i = 0; i < count; i++) {
+            out[i] = response.getInt();
+        }
+        return count;
+    }
+
+    /**
+     * Requests the titles recommended to a user.
+     *
+     * @param packedUserId the user ID packed with UserIdCodec
+     * @param k number of recommendations wanted
+     * @return the titles, or null if the server does not know the user
+     * @throws IOException if the connection fails or the server rejects the request
+     */
+    public List<String> recommendTitles(long packedUserId, int k) throws IOException {
+        int count = call(RecommendationProtocol.MODE_TITLES, packedUserId, k);
+        if (count < 0) {
+            return null;
+        }
+        List<String> titles = new ArrayList<>(count);
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < count; i++) {
+            int length = response.getShort() & 0xFFFF;
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            response.get(bytes, 0, length);
+            titles.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+        return titles;
+    }
+
+    private int call(byte mode, long packedUserId, int k) throws IOException {
+        request.clear();
+        request.putInt(RecommendationProtocol.REQUEST_LENGTH).put(mode).putLong(packedUserId).putInt(k);
+        request.flip();
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+
+        readFully(4);
+        int length = response.getInt();
+        if (length > response.capacity()) {
+            response = ByteBuffer.allocateDirect(length);
+        }
+        readFully(length);
+        byte status = response.get();
+        int count = response.getInt();
+        if (status == RecommendationProtocol.STATUS_UNKNOWN_USER) {
+            return -1;
+        }
+        if (status != RecommendationProtocol.STATUS_OK) {
+            throw new IOException("Server rejected the request (status " + status + ")");
+        }
+        return count;
+    }
+
+    private void readFully(int length) throws IOException {
+        response.clear().limit(length);
+        while (response.hasRemaining()) {
+            if (channel.read(response) < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+        }
+        response.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
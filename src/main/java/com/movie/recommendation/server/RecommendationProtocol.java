@@ -0,0 +1,57 @@
+package com.movie.recommendation.server;
+
+/**
+ * Frame layout of the binary recommendation protocol (all integers big-endian).
+ *
+ * Every frame starts with an int giving the number of bytes that follow it.
+ *
+ * Request (17 bytes on the wire):
+ * - int length = 13
+ * - byte mode: MODE_POSITIONS or MODE_TITLES
+ * - long user: the user ID packed with UserIdCodec
+ * - int k: number of recommendations wanted, 1..MAX_K
+ *
+ * Response:
+ * - int length
+ * - byte status: STATUS_OK, STATUS_UNKNOWN_USER, STATUS_BAD_REQUEST or STATUS_SERVER_ERROR
+ * - int count
+ * - MODE_POSITIONS: count ints, the catalog positions of the movies
+ * - MODE_TITLES: count times (unsigned short byte length, UTF-8 title bytes)
+ *
+ * Requests on one connection are answered in order, and a client may send
+ * several before reading (pipelining). After a STATUS_BAD_REQUEST response
+ * the server closes the connection, since the stream cannot be resynchronized.
+ * A STATUS_SERVER_ERROR response leaves the connection open.
+ */
+public final class RecommendationProtocol {
+
+    /** Body length of a request frame */
+    public static final int REQUEST_LENGTH = 13;
+
+    /** Largest k served; larger values are clamped */
+    public static final int MAX_K = 100;
+
+    /** Response carries catalog positions */
+    public static final byte MODE_POSITIONS = 0;
+
+    /** Response carries UTF-8 titles */
+    public static final byte MODE_TITLES = 1;
+
+    /** The user was found; count may be 0 */
+    public static final byte STATUS_OK = 0;
+
+    /** The packed user ID is not in the user index */
+    public static final byte STATUS_UNKNOWN_USER = 1;
+
+    /** The frame was malformed; the connection is closed after this response */
+    public static final byte STATUS_BAD_REQUEST = 2;
+
+    /** The server failed to compute this request; later requests are still served */
+    public static final byte STATUS_SERVER_ERROR = 3;
+
+    /** Bytes of a response frame before the payload (length, status, count) */
+    public static final int RESPONSE_HEADER = 9;
+
+    private RecommendationProtocol() {
+    }
+}
@@ -0,0 +1,420 @@
+package com.movie.recommendation.server;
+
+import com.movie.recommendation.RunOptions;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.GenreVectors;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.UserIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.parser.MovieParser;
+import com.movie.recommendation.parser.UserParser;
+import com.movie.recommendation.service.AlsTrainer;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+import com.movie.recommendation.validator.MovieValidator;
+import com.movie.recommendation.validator.UserValidator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking TCP server answering recommendation requests in the binary
+ * RecommendationProtocol.
+ *
+ * One selector thread accepts connections, reads request frames, computes the
+ * recommendations with RecommendationService.recommendPositions() and writes
+ * the response frames. Each connection owns a read and a write buffer taken
+ * from a BufferPool of direct buffers and returned when it closes; titles are
+ * encoded to UTF-8 once at startup. After warm-up a request therefore
+ * allocates nothing on the server: no Strings, no boxed values, no buffers.
+ *
+ * A connection is only read while its write buffer has room for the largest
+ * response, so a client that pipelines requests without reading the answers
+ * is throttled by TCP instead of growing server memory.
+ *
+ * A request whose computation throws gets STATUS_SERVER_ERROR and the
+ * connection stays open; any other unexpected exception closes only the
+ * connection it came from. Neither stops the selector thread.
+ *
+ * TESTING NOTE:
+ * - Positions and titles match getRankedRecommendations() for the same user
+ * - An unknown packed user ID gets STATUS_UNKNOWN_USER
+ * - A malformed frame, bad mode or k below 1 gets STATUS_BAD_REQUEST and the connection is closed
+ * - A failing request gets STATUS_SERVER_ERROR and the server keeps serving
+ */
+public class RecommendationServer implements Closeable {
+
+    private static final int MIN_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final RecommendationService service;
+    private final byte[][] titleBytes;
+    private final int maxResponseSize;
+    private final BufferPool buffers;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final int[] positions = new int[RecommendationProtocol.MAX_K];
+    private final Consumer<SelectionKey> keyHandler = this::handleKey;
+    private Thread selectorThread;
+    private volatile boolean running = false;
+    private long requests = 0;
+    private long failedRequests = 0;
+
+    /**
+     * Opens the server socket; call start() to begin serving.
+     *
+     * @param service the service, with a catalog index and a user index set
+     * @param catalog the catalog index of the service
+     * @param address address to bind to, port 0 for any free port
+     * @throws IOException if the socket cannot be bound
+     */
+    public RecommendationServer(RecommendationService service, CatalogIndex catalog,
+                                InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.titleBytes = new byte[catalog.size()][];
+        int longestTitle = 0;
+        for (int p = 0; p < catalog.size(); p++) {
+            byte[] bytes = catalog.getTitle(p).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                bytes = Arrays.copyOf(bytes, 0xFFFF);
+            }
+            titleBytes[p] = bytes;
+            longestTitle = Math.max(longestTitle, bytes.length);
+        }
+        this.maxResponseSize = RecommendationProtocol.RESPONSE_HEADER
+                + RecommendationProtocol.MAX_K * Math.max(4, 2 + longestTitle);
+        this.buffers = new BufferPool(Math.max(MIN_BUFFER_SIZE, 2 * maxResponseSize), MAX_POOLED_BUFFERS);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts the selector thread.
+     */
+    public synchronized void start() {
+        if (selectorThread != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        running = true;
+        selectorThread = new Thread(this::run, "recommendation-server");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Gets the bound port.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the number of requests answered so far.
+     *
+     * @return the request count (read without synchronization)
+     */
+    public long getRequestCount() {
+        return requests;
+    }
+
+    /**
+     * Gets the number of requests answered with STATUS_SERVER_ERROR.
+     *
+     * @return the failed request count (read without synchronization)
+     */
+    public long getFailedRequestCount() {
+        return failedRequests;
+    }
+
+    /**
+     * Gets the buffer pool of the connections.
+     *
+     * @return the pool
+     */
+    public BufferPool getBufferPool() {
+        return buffers;
+    }
+
+    /**
+     * Stops the selector thread and closes every connection.
+     *
+     * @throws IOException if closing the selector fails
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        Thread thread;
+        synchronized (this) {
+            thread = selectorThread;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (thread == null) {
+            closeAll();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(keyHandler, SELECT_TIMEOUT_MS);
+            }
+        } catch (IOException e) {
+            System.err.println("Recommendation server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                closeConnection(key);
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                read(key, connection);
+            } else if (key.isWritable()) {
+                // Requests may be waiting in the read buffer for room in the write buffer
+                process(key, connection);
+            }
+        } catch (IOException e) {
+            closeConnection(key);
+        } catch (RuntimeException e) {
+            // A bug in one connection's handling must not stop the selector thread
+            System.err.println("Closing connection after unexpected error: " + e);
+            closeConnection(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(buffers.acquire(), buffers.acquire()));
+    }
+
+    private void read(SelectionKey key, Connection connection) throws IOException {
+        if (((SocketChannel) key.channel()).read(connection.in) < 0) {
+            closeConnection(key);
+            return;
+        }
+        process(key, connection);
+    }
+
+    private void process(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        while (!connection.closing && in.remaining() >= 4 && out.remaining() >= maxResponseSize) {
+            int length = in.getInt(in.position());
+            if (length != RecommendationProtocol.REQUEST_LENGTH) {
+                writeStatus(out, RecommendationProtocol.STATUS_BAD_REQUEST);
+                connection.closing = true;
+                break;
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            in.getInt();
+            byte mode = in.get();
+            long packedUserId = in.getLong();
+            int k = in.getInt();
+            answer(connection, mode, packedUserId, k);
+        }
+        in.compact();
+
+        boolean pending = flush(key, connection);
+        if (!pending && connection.closing) {
+            closeConnection(key);
+            return;
+        }
+        int interest = pending ? SelectionKey.OP_WRITE : 0;
+        if (!connection.closing && out.remaining() >= maxResponseSize) {
+            interest |= SelectionKey.OP_READ;
+        }
+        if (key.interestOps() != interest) {
+            key.interestOps(interest);
+        }
+    }
+
+    private void answer(Connection connection, byte mode, long packedUserId, int k) {
+        ByteBuffer out = connection.out;
+        requests++;
+        if ((mode != RecommendationProtocol.MODE_POSITIONS && mode != RecommendationProtocol.MODE_TITLES)
+                || k < 1) {
+            // The protocol closes the connection after every STATUS_BAD_REQUEST
+            writeStatus(out, RecommendationProtocol.STATUS_BAD_REQUEST);
+            connection.closing = true;
+            return;
+        }
+        int count;
+        try {
+            count = service.recommendPositions(packedUserId, Math.min(k, RecommendationProtocol.MAX_K), positions);
+        } catch (RuntimeException e) {
+            // Only the first failure is logged; a misconfigured service would fail every request
+            if (failedRequests++ == 0) {
+                System.err.println("Request failed, later failures are only counted: " + e);
+            }
+            writeStatus(out, RecommendationProtocol.STATUS_SERVER_ERROR);
+            return;
+        }
+        if (count < 0) {
+            writeStatus(out, RecommendationProtocol.STATUS_UNKNOWN_USER);
+            return;
+        }
+        int start = out.position();
+        out.position(start + 4);
+        out.put(RecommendationProtocol.STATUS_OK);
+        out.putInt(count);
+        for (int i = 0; i < count; i++) {
+            if (mode == RecommendationProtocol.MODE_POSITIONS) {
+                out.putInt(positions[i]);
+            } else {
+                byte[] title = titleBytes[positions[i]];
+                out.putShort((short) title.length);
+                out.put(title);
+            }
+        }
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    private static void writeStatus(ByteBuffer out, byte status) {
+        out.putInt(RecommendationProtocol.RESPONSE_HEADER - 4);
+        out.put(status);
+        out.putInt(0);
+    }
+
+    private boolean flush(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        if (out.hasRemaining()) {
+            ((SocketChannel) key.channel()).write(out);
+        }
+        boolean pending = out.hasRemaining();
+        out.compact();
+        return pending;
+    }
+
+    private void closeConnection(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed by the peer
+        }
+        if (connection != null && !connection.released) {
+            connection.released = true;
+            buffers.release(connection.in);
+            buffers.release(connection.out);
+        }
+    }
+
+    private static final class Connection {
+        final ByteBuffer in;
+        final ByteBuffer out;
+        boolean closing = false;
+        boolean released = false;
+
+        Connection(ByteBuffer in, ByteBuffer out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    /**
+     * Command line entry point: parses the input files and serves recommendations.
+     * The model of the ranking mode (genre vectors or ALS factors with the
+     * RunOptions defaults) is built before the server starts.
+     *
+     * Usage:
+     * java -cp bin com.movie.recommendation.server.RecommendationServer movies.txt users.txt [port] [rankingMode]
+     *
+     * @param args movies file, users file, optional port (default 7070), optional ranking mode
+     * @throws Exception if the files cannot be parsed or the port cannot be bound
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: RecommendationServer <movies> <users> [port] [rankingMode]");
+            System.exit(1);
+        }
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 7070;
+        List<Movie> movies = new MovieParser(new MovieValidator()).parseMovies(args[0]);
+        List<User> users = new UserParser(new UserValidator()).parseUsers(args[1]);
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService service = new RecommendationService(catalog);
+        service.setPopularityIndex(new PopularityIndex(catalog, users, 0));
+        UserIndex userIndex = new UserIndex(catalog, users);
+        service.setUserIndex(userIndex);
+        if (args.length > 3) {
+            RankingMode mode = RankingMode.valueOf(args[3]);
+            if (mode == RankingMode.CONTENT) {
+                service.setGenreVectors(new GenreVectors(catalog));
+            } else if (mode == RankingMode.ALS) {
+                RunOptions defaults = new RunOptions();
+                service.setAlsModel(new AlsTrainer(defaults.getAlsRank(), defaults.getAlsIterations())
+                        .train(userIndex.getLikes()));
+            }
+            service.setRankingMode(mode);
+        }
+
+        RecommendationServer server = new RecommendationServer(service, catalog, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Serving " + users.size() + " users and " + movies.size()
+                + " movies on port " + server.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping server: " + e.getMessage());
+            }
+        }));
+        server.selectorThread.join();
+    }
+}
@@ -0,0 +1,273 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.index.TopK;
+
+/**
+ * Latent factor model trained by AlsTrainer.
+ *
+ * User and item factors are stored row-major in flat float arrays:
+ * user u's vector is userFactors[u * rank .. (u + 1) * rank), item i's vector
+ * is itemFactors[i * rank .. (i + 1) * rank). The predicted preference of a
+ * user for an item is the dot product of the two vectors.
+ *
+ * The model keeps the item Gramian (Y^T Y), so a user that was not part of
+ * training can be "folded in": its vector is solved from its liked items with
+ * the same equation the trainer uses, without retraining.
+ *
+ * TESTING NOTE:
+ * - score() equals the dot product of the factor rows
+ * - foldIn() of a training user's likes is close to its trained vector
+ * - recommend() never returns excluded (already liked) items
+ */
+public class AlsModel {
+
+    private final int rank;
+    private final int userCount;
+    private final int itemCount;
+    private final float[] userFactors;
+    private final float[] itemFactors;
+    private final double[] itemGramian;
+    private final double regularization;
+    private final double alpha;
+
+    AlsModel(int rank, int userCount, int itemCount, float[] userFactors, float[] itemFactors,
+             double[] itemGramian, double regularization, double alpha) {
+        this.rank = rank;
+        this.userCount = userCount;
+        this.itemCount = itemCount;
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+        this.itemGramian = itemGramian;
+        this.regularization = regularization;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Gets the number of latent factors.
+     *
+     * @return the rank
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * Gets the number of trained users.
+     *
+     * @return the user count
+     */
+    public int getUserCount() {
+        return userCount;
+    }
+
+    /**
+     * Gets the number of items (catalog size).
+     *
+     * @return the item count
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Gets the flat user factor array. Do not modify.
+     *
+     * @return user factors, row-major
+     */
+    public float[] getUserFactors() {
+        return userFactors;
+    }
+
+    /**
+     * Gets the flat item factor array. Do not modify.
+     *
+     * @return item factors, row-major
+     */
+    public float[] getItemFactors() {
+        return itemFactors;
+    }
+
+    /**
+     * Predicts the preference of a trained user for an item.
+     *
+     * @param user the user row
+     * @param item the item (catalog position)
+     * @return the predicted preference
+     */
+    public double score(int user, int item) {
+        return dot(userFactors, user * rank, item);
+    }
+
+    /**
+     * Computes the vector of a user from its liked items (fold-in).
+     *
+     * @param items liked catalog positions
+     * @param count number of items to read
+     * @param work scratch array of length rank * rank + rank
+     * @param out output vector of length rank
+     */
+    public void foldIn(int[] items, int count, double[] work, float[] out) {
+        solveRow(itemFactors, itemGramian, items, 0, count, rank, regularization, alpha, work, out, 0);
+    }
+
+    /**
+     * Offers every item, except the excluded ones, to a top-K selector by predicted preference.
+     *
+     * @param vector the user vector (trained row or fold-in result)
+     * @param vectorOffset start of the vector in its array
+     * @param excluded sorted item positions to skip (e.g. already liked)
+     * @param excludedCount number of excluded positions to read
+     * @param top the selector receiving (item, score) pairs
+     */
+    public void recommend(float[] vector, int vectorOffset, int[] excluded, int excludedCount, TopK top) {
+        int nextExcluded = 0;
+        for (int item = 0; item < itemCount; item++) {
+            while (nextExcluded < excludedCount && excluded[nextExcluded] < item) {
+                nextExcluded++;
+            }
+            if (nextExcluded < excludedCount && excluded[nextExcluded] == item) {
+                continue;
+            }
+            top.offer(item, dot(vector, vectorOffset, item));
+        }
+    }
+
+    /**
+     * Like recommend(), but scores blocks of items with a ScoringKernel.
+     *
+     * Scores are computed block by block into the caller's scratch array and
+     * then offered, skipping excluded items, so the dot products run as one
+     * dense loop the kernel can vectorize.
+     *
+     * @param vector the user vector (trained row or fold-in result)
+     * @param vectorOffset start of the vector in its array
+     * @param excluded sorted item positions to skip (e.g. already liked)
+     * @param excludedCount number of excluded positions to read
+     * @param top the selector receiving (item, score) pairs
+     * @param kernel the scoring kernel
+     * @param block scratch array for the scores of one block; its length is the block size
+     */
+    public void recommend(float[] vector, int vectorOffset, int[] excluded, int excludedCount, TopK top,
+                          ScoringKernel kernel, float[] block) {
+        int nextExcluded = 0;
+        for (int from = 0; from < itemCount; from += block.length) {
+            int to = Math.min(itemCount, from + block.length);
+            kernel.dotRows(vector, vectorOffset, itemFactors, rank, from, to, block);
+            for (int item = from; item < to; item++) {
+                while (nextExcluded < excludedCount && excluded[nextExcluded] < item) {
+                    nextExcluded++;
+                }
+                if (nextExcluded < excludedCount && excluded[nextExcluded] == item) {
+                    continue;
+                }
+                top.offer(item, block[item - from]);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap used by the factor arrays.
+     *
+     * @return size in bytes
+     */
+    public long getMemoryBytes() {
+        return 4L * (userFactors.length + itemFactors.length) + 8L * itemGramian.length;
+    }
+
+    private double dot(float[] vector, int offset, int item) {
+        int itemOffset = item * rank;
+        double sum = 0;
+        for (int k = 0; k < rank; k++) {
+            sum += vector[offset + k] * itemFactors[itemOffset + k];
+        }
+        return sum;
+    }
+
+    /**
+     * Solves one row of implicit ALS:
+     * (G + alpha * sum(y_i y_i^T) + lambda * I) x = (1 + alpha) * sum(y_i)
+     * where G is the Gramian of the fixed side and y_i are the fixed vectors
+     * of the row's liked entries. All work happens in the work array.
+     *
+     * @param fixed the fixed side's factors
+     * @param gramian the fixed side's Gramian, rank x rank
+     * @param entries indices of the row's liked entries
+     * @param from first index in entries
+     * @param to end index (exclusive) in entries
+     * @param rank number of factors
+     * @param regularization lambda
+     * @param alpha confidence weight of a like
+     * @param work scratch of length rank * rank + rank
+     * @param out output factors
+     * @param outOffset start of the row in out
+     */
+    static void solveRow(float[] fixed, double[] gramian, int[] entries, int from, int to, int rank,
+                         double regularization, double alpha, double[] work, float[] out, int outOffset) {
+        int matrixSize = rank * rank;
+        System.arraycopy(gramian, 0, work, 0, matrixSize);
+        for (int k = 0; k < rank; k++) {
+            work[k * rank + k] += regularization;
+            work[matrixSize + k] = 0;
+        }
+
+        for (int e = from; e < to; e++) {
+            int base = entries[e] * rank;
+            for (int a = 0; a < rank; a++) {
+                double ya = fixed[base + a];
+                work[matrixSize + a] += (1.0 + alpha) * ya;
+                double scaled = alpha * ya;
+                // Upper triangle only; Cholesky reads it
+                for (int b = a; b < rank; b++) {
+                    work[a * rank + b] += scaled * fixed[base + b];
+                }
+            }
+        }
+
+        choleskySolve(work, rank);
+        for (int k = 0; k < rank; k++) {
+            out[outOffset + k] = (float) work[matrixSize + k];
+        }
+    }
+
+    /**
+     * Solves A x = b in place for a symmetric positive definite A.
+     * A is stored in work[0 .. n*n) (upper triangle used), b in work[n*n .. n*n + n).
+     * The solution replaces b.
+     */
+    static void choleskySolve(double[] work, int n) {
+        int bOffset = n * n;
+        // Factor A = R^T R, R upper triangular, stored over the upper triangle
+        for (int j = 0; j < n; j++) {
+            double diagonal = work[j * n + j];
+            for (int k = 0; k < j; k++) {
+                double r = work[k * n + j];
+                diagonal -= r * r;
+            }
+            diagonal = Math.sqrt(Math.max(diagonal, 1e-12));
+            work[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double value = work[j * n + i];
+                for (int k = 0; k < j; k++) {
+                    value -= work[k * n + j] * work[k * n + i];
+                }
+                work[j * n + i] = value / diagonal;
+            }
+        }
+        // Forward substitution: R^T y = b
+        for (int i = 0; i < n; i++) {
+            double value = work[bOffset + i];
+            for (int k = 0; k < i; k++) {
+                value -= work[k * n + i] * work[bOffset + k];
+            }
+            work[bOffset + i] = value / work[i * n + i];
+        }
+        // Back substitution: R x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double value = work[bOffset + i];
+            for (int k = i + 1; k < n; k++) {
+                value -= work[i * n + k] * work[bOffset + k];
+            }
+            work[bOffset + i] = value / work[i * n + i];
+        }
+    }
+}
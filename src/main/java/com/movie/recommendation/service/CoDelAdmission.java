@@ -0,0 +1,120 @@
+package com.movie.recommendation.service;
+
+/**
+ * Admission control on measured queue wait, after the CoDel queue discipline.
+ *
+ * Each request reports how long it waited in the queue (its sojourn time)
+ * when a worker picks it up. Short bursts are absorbed: requests are only
+ * dropped once the wait has stayed above the target for a whole interval,
+ * which means the queue is standing rather than draining. While in that
+ * dropping state, drops are spaced interval / sqrt(drops) apart, so shedding
+ * intensifies until the wait falls below the target again. A drop count
+ * carried over from a recent dropping state restarts shedding near its old
+ * rate.
+ *
+ * Thread-safe; the decision is a few arithmetic operations under a lock.
+ *
+ * TESTING NOTE:
+ * - Waits below the target are always admitted
+ * - A wait above the target for less than one interval is admitted
+ * - A standing wait is shed at an increasing rate
+ */
+public class CoDelAdmission {
+
+    private final long targetNanos;
+    private final long intervalNanos;
+    private long firstAboveTime = 0;
+    private long dropNext = 0;
+    private int dropCount = 0;
+    private int lastDropCount = 0;
+    private boolean dropping = false;
+    private long admitted = 0;
+    private long shed = 0;
+
+    /**
+     * Constructs an admission controller.
+     *
+     * @param targetNanos acceptable standing queue wait (CoDel uses 5 ms for networks)
+     * @param intervalNanos how long the wait may exceed the target before shedding (CoDel uses 100 ms)
+     */
+    public CoDelAdmission(long targetNanos, long intervalNanos) {
+        if (targetNanos <= 0 || intervalNanos <= 0) {
+            throw new IllegalArgumentException("target and interval must be positive");
+        }
+        this.targetNanos = targetNanos;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Decides whether a dequeued request runs or is dropped.
+     *
+     * @param sojournNanos how long the request waited in the queue
+     * @param nowNanos the current System.nanoTime()
+     * @return true to run the request, false to shed it
+     */
+    public synchronized boolean admit(long sojournNanos, long nowNanos) {
+        if (sojournNanos < targetNanos) {
+            firstAboveTime = 0;
+            if (dropping) {
+                dropping = false;
+                lastDropCount = dropCount;
+            }
+            admitted++;
+            return true;
+        }
+        if (dropping) {
+            if (nowNanos - dropNext >= 0) {
+                dropCount++;
+                dropNext += controlLaw(dropCount);
+                shed++;
+                return false;
+            }
+            admitted++;
+            return true;
+        }
+        if (firstAboveTime == 0) {
+            firstAboveTime = nowNanos + intervalNanos;
+        } else if (nowNanos - firstAboveTime >= 0) {
+            dropping = true;
+            // Resume near the previous drop rate if the last dropping state ended recently
+            boolean recent = nowNanos - dropNext < 16 * intervalNanos;
+            dropCount = recent && lastDropCount > 2 ? lastDropCount - 2 : 1;
+            dropNext = nowNanos + controlLaw(dropCount);
+            shed++;
+            return false;
+        }
+        admitted++;
+        return true;
+    }
+
+    private long controlLaw(int count) {
+        return (long) (intervalNanos / Math.sqrt(count));
+    }
+
+    /**
+     * Gets the number of admitted requests.
+     *
+     * @return the admitted count
+     */
+    public synchronized long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * Gets the number of shed requests.
+     *
+     * @return the shed count
+     */
+    public synchronized long getShed() {
+        return shed;
+    }
+
+    /**
+     * Checks whether the controller is currently shedding.
+     *
+     * @return true in the dropping state
+     */
+    public synchronized boolean isDropping() {
+        return dropping;
+    }
+}
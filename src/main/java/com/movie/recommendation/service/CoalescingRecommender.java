@@ -0,0 +1,146 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Front end of RecommendationService.getRecommendations() for servers, where
+ * many concurrent requests ask for the same thing.
+ *
+ * Concurrent identical requests share one in-flight computation (see
+ * SingleFlight) instead of scanning the catalog in parallel. Two keys are
+ * available:
+ * - USER_ID: requests for the same user ID share the whole result
+ * - GENRE_SIGNATURE: requests whose liked movies cover the same genre set
+ *   share the catalog scan for those genres; each caller then drops its own
+ *   liked movies from the shared candidates, because the result of
+ *   getRecommendations() excludes them and they differ between users
+ *
+ * Results equal getRecommendations(user, movies), in the same order, and
+ * every caller gets its own list. Cold-start users skip coalescing since they
+ * do no scan.
+ *
+ * TESTING NOTE:
+ * - Results equal getRecommendations() for both keys
+ * - A burst of identical requests scans the catalog once
+ */
+public class CoalescingRecommender {
+
+    /**
+     * What makes two requests identical.
+     */
+    public enum Key {
+        USER_ID,
+        GENRE_SIGNATURE
+    }
+
+    private final RecommendationService service;
+    private final List<Movie> movies;
+    private final Key key;
+    private final SingleFlight<String, List<String>> byUser = new SingleFlight<>();
+    private final SingleFlight<String, List<Movie>> byGenres = new SingleFlight<>();
+
+    /**
+     * Constructs a coalescing front end.
+     *
+     * @param service the service computing the recommendations
+     * @param movies the catalog passed to getRecommendations()
+     * @param key what makes two requests identical
+     */
+    public CoalescingRecommender(RecommendationService service, List<Movie> movies, Key key) {
+        this.service = service;
+        this.movies = movies;
+        this.key = key;
+    }
+
+    /**
+     * Gets the recommendations of a user, joining an identical request in flight if any.
+     *
+     * @param user the user
+     * @return list of recommended movie titles, owned by the caller
+     */
+    public List<String> getRecommendations(User user) {
+        if (key == Key.USER_ID) {
+            return new ArrayList<>(join(byUser, user.getId(), () -> service.getRecommendations(user, movies)));
+        }
+
+        RecommendationService.MovieLookup movieMap = service.movieLookupFor(movies);
+        Set<String> likedGenres = new TreeSet<>();
+        boolean anyLikedMovieFound = false;
+        for (String likedMovieId : user.getLikedMovieIds()) {
+            Movie likedMovie = movieMap.get(likedMovieId);
+            if (likedMovie != null) {
+                anyLikedMovieFound = true;
+                likedGenres.addAll(likedMovie.getGenres());
+            }
+        }
+        if (!anyLikedMovieFound) {
+            return service.getRecommendations(user, movies);
+        }
+
+        service.getMetrics().recordUser();
+        List<Movie> candidates = join(byGenres, String.join(",", likedGenres), () -> scan(likedGenres));
+        // Same insertion sequence as getRecommendations(), hence the same iteration order
+        Set<String> recommendedTitles = new HashSet<>();
+        for (Movie movie : candidates) {
+            if (!user.hasLikedMovie(movie.getId())) {
+                recommendedTitles.add(movie.getTitle());
+            }
+        }
+        return new ArrayList<>(recommendedTitles);
+    }
+
+    private List<Movie> scan(Set<String> likedGenres) {
+        List<Movie> candidates = new ArrayList<>();
+        for (Movie movie : movies) {
+            for (String genre : movie.getGenres()) {
+                if (likedGenres.contains(genre.toLowerCase())) {
+                    candidates.add(movie);
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableList(candidates);
+    }
+
+    private static <V> V join(SingleFlight<String, V> flights, String flightKey, Supplier<V> computation) {
+        try {
+            return flights.execute(flightKey, computation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the coalescing counters of the active key.
+     *
+     * @return the single-flight group whose counters to read
+     */
+    public SingleFlight<String, ?> getFlights() {
+        return key == Key.USER_ID ? byUser : byGenres;
+    }
+
+    /**
+     * Gets the key in use.
+     *
+     * @return the key
+     */
+    public Key getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,154 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.model.User;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Worker pool for deadline-bound recommendation requests with load shedding.
+ *
+ * Requests wait in the pool's queue. When a worker picks one up it measures
+ * the queue wait and asks the CoDelAdmission whether to run it; a request
+ * whose deadline has already passed is shed without asking, since nobody
+ * waits for its answer any more. Admitted requests run with
+ * RecommendationService.getTimedRecommendations() under their own deadline,
+ * so a request admitted late still answers in time with a partial result.
+ *
+ * Shedding at dequeue time keeps the queue short under a sustained spike,
+ * which bounds the wait of the admitted requests, while short bursts are
+ * queued and served.
+ *
+ * close() sheds the requests still in the queue, and submit() after close()
+ * sheds at once, so no caller is left waiting.
+ *
+ * TESTING NOTE:
+ * - Every submitted future completes, with COMPLETE, PARTIAL or SHED, also across close()
+ * - Under overload the queue wait of admitted requests stays bounded
+ */
+public class LoadSheddingExecutor implements AutoCloseable {
+
+    private final RecommendationService service;
+    private final CoDelAdmission admission;
+    private final ExecutorService pool;
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * Constructs an executor.
+     *
+     * @param service the service, with a catalog index
+     * @param admission the admission controller; null admits everything not yet expired
+     * @param workers number of worker threads, at least 1
+     */
+    public LoadSheddingExecutor(RecommendationService service, CoDelAdmission admission, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        this.service = service;
+        this.admission = admission;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "recommendation-deadline-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a request.
+     *
+     * @param user the user to recommend for
+     * @param timeoutNanos time from now until the answer is due
+     * @return the future result; it never completes exceptionally unless ranking fails
+     */
+    public CompletableFuture<TimedRecommendations> submit(User user, long timeoutNanos) {
+        long enqueued = System.nanoTime();
+        long deadline = enqueued + timeoutNanos;
+        CompletableFuture<TimedRecommendations> future = new CompletableFuture<>();
+        try {
+            pool.execute(new Request(user, enqueued, deadline, future));
+        } catch (RejectedExecutionException e) {
+            future.complete(TimedRecommendations.shed(0));
+        }
+        return future;
+    }
+
+    private void run(User user, long enqueued, long deadline, CompletableFuture<TimedRecommendations> future) {
+        long start = System.nanoTime();
+        long wait = start - enqueued;
+        if (start - deadline >= 0) {
+            expired.increment();
+            future.complete(TimedRecommendations.shed(wait));
+            return;
+        }
+        if (admission != null && !admission.admit(wait, start)) {
+            future.complete(TimedRecommendations.shed(wait));
+            return;
+        }
+        try {
+            TimedRecommendations result = service.getTimedRecommendations(user, deadline);
+            result.setQueueWaitNanos(wait);
+            future.complete(result);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Gets the number of requests shed because their deadline passed in the queue.
+     *
+     * @return the expired count
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * Gets the admission controller.
+     *
+     * @return the controller, or null
+     */
+    public CoDelAdmission getAdmission() {
+        return admission;
+    }
+
+    /**
+     * Stops the workers and sheds the queued requests.
+     */
+    @Override
+    public void close() {
+        for (Runnable queued : pool.shutdownNow()) {
+            ((Request) queued).shed();
+        }
+    }
+
+    /**
+     * A queued request; kept as its own type so close() can complete it.
+     */
+    private final class Request implements Runnable {
+        private final User user;
+        private final long enqueued;
+        private final long deadline;
+        private final CompletableFuture<TimedRecommendations> future;
+
+        Request(User user, long enqueued, long deadline, CompletableFuture<TimedRecommendations> future) {
+            this.user = user;
+            this.enqueued = enqueued;
+            this.deadline = deadline;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            LoadSheddingExecutor.this.run(user, enqueued, deadline, future);
+        }
+
+        void shed() {
+            future.complete(TimedRecommendations.shed(System.nanoTime() - enqueued));
+        }
+    }
+}
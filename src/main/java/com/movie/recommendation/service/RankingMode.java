@@ -0,0 +1,16 @@
+package com.movie.recommendation.service;
+
+/**
+ * Ordering applied to a user's recommended movies by
+ * RecommendationService.getRankedRecommendations().
+ */
+public enum RankingMode {
+    /** No ranking: candidates in catalog order. */
+    NONE,
+    /** Most liked movies first, using precomputed global like counts. */
+    POPULARITY,
+    /** Highest cosine similarity between TF-IDF genre vectors of the movie and the user's likes. */
+    CONTENT,
+    /** Highest predicted preference from an implicit ALS latent factor model; not limited to shared genres. */
+    ALS
+}
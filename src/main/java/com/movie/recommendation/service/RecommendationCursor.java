@@ -0,0 +1,211 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.model.User;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over one user's genre-matched recommendations, in catalog order.
+ *
+ * Nothing is computed up front: next() walks the catalog from the current
+ * position and stops at the next movie that shares a liked genre, is not
+ * liked, and whose title has not appeared at an earlier matching position.
+ * The order and titles are those of getRankedRecommendations() with
+ * RankingMode.NONE and no result limit.
+ *
+ * getToken() encodes the scan position (plus checks for the user and the
+ * catalog), and RecommendationService.openCursor(user, token) resumes from it,
+ * so fetching page N never recomputes pages 1..N-1. Because a repeated title
+ * is detected by looking back through CatalogIndex.previousWithSameTitle(),
+ * the cursor keeps no record of what it has emitted: its memory is the liked
+ * positions and one genre mask, whatever the number of pages read.
+ *
+ * A cursor is not thread-safe; tokens can be passed between threads and processes.
+ *
+ * TESTING NOTE:
+ * - Reading all pages gives the same titles as getRankedRecommendations()
+ * - A resumed cursor continues exactly where the token was taken
+ * - A token from another user or catalog is rejected
+ */
+public class RecommendationCursor implements Iterator<String> {
+
+    private static final byte TOKEN_VERSION = 1;
+    private static final int TOKEN_BYTES = 13;
+
+    private final CatalogIndex catalog;
+    private final int userCheck;
+    private final int[] likedPositions;
+    private final boolean[] likedGenres;
+    private int position;
+    private int nextMatch = -1;
+
+    /**
+     * Opens a cursor at a scan position.
+     *
+     * @param catalog the catalog index
+     * @param user the user
+     * @param position the first catalog position to examine
+     */
+    RecommendationCursor(CatalogIndex catalog, User user, int position) {
+        this.catalog = catalog;
+        this.userCheck = user.getId() == null ? 0 : user.getId().hashCode();
+        this.position = position;
+
+        List<String> likedIds = user.getLikedMovieIds();
+        int[] liked = new int[likedIds.size()];
+        int count = 0;
+        for (String id : likedIds) {
+            int p = catalog.positionOf(id);
+            if (p >= 0) {
+                liked[count++] = p;
+            }
+        }
+        this.likedPositions = Arrays.copyOf(liked, count);
+        Arrays.sort(likedPositions);
+
+        this.likedGenres = new boolean[catalog.getGenreCount()];
+        int[] movieGenres = catalog.getMovieGenres();
+        for (int p : likedPositions) {
+            for (int g = catalog.genreStart(p); g < catalog.genreEnd(p); g++) {
+                likedGenres[movieGenres[g]] = true;
+            }
+        }
+    }
+
+    /**
+     * Decodes the scan position of a token and checks that it belongs to this user and catalog.
+     *
+     * @param catalog the catalog index
+     * @param user the user
+     * @param token a token from getToken()
+     * @return the scan position
+     * @throws IllegalArgumentException if the token is malformed or was issued for another user or catalog
+     */
+    static int positionOf(CatalogIndex catalog, User user, String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed recommendation token");
+        }
+        if (bytes.length != TOKEN_BYTES || bytes[0] != TOKEN_VERSION) {
+            throw new IllegalArgumentException("Malformed recommendation token");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, TOKEN_BYTES - 1);
+        int position = buffer.getInt();
+        int catalogSize = buffer.getInt();
+        int userCheck = buffer.getInt();
+        int expectedUser = user.getId() == null ? 0 : user.getId().hashCode();
+        if (catalogSize != catalog.size() || userCheck != expectedUser
+                || position < 0 || position > catalogSize) {
+            throw new IllegalArgumentException("Recommendation token was issued for another user or catalog");
+        }
+        return position;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return findNext() >= 0;
+    }
+
+    @Override
+    public String next() {
+        int match = findNext();
+        if (match < 0) {
+            throw new NoSuchElementException();
+        }
+        nextMatch = -1;
+        position = match + 1;
+        return catalog.getTitle(match);
+    }
+
+    /**
+     * Reads up to pageSize more titles.
+     *
+     * @param pageSize maximum number of titles, at least 1
+     * @return the titles; fewer than pageSize only at the end
+     */
+    public List<String> nextPage(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        List<String> page = new ArrayList<>(Math.min(pageSize, 64));
+        while (page.size() < pageSize && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    /**
+     * Gets a token that resumes this cursor after the last title returned.
+     *
+     * @return a URL-safe token
+     */
+    public String getToken() {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES);
+        buffer.put(TOKEN_VERSION).putInt(position).putInt(catalog.size()).putInt(userCheck);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Gets the scan position: the next catalog position to examine.
+     *
+     * @return the position, catalog size when the scan is done
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Finds the next emitted position at or after the scan position without consuming it.
+     */
+    private int findNext() {
+        if (nextMatch >= 0) {
+            return nextMatch;
+        }
+        if (likedPositions.length == 0) {
+            position = catalog.size();
+            return -1;
+        }
+        int size = catalog.size();
+        for (int p = position; p < size; p++) {
+            if (isCandidate(p) && !hasEarlierCandidateWithTitle(p)) {
+                nextMatch = p;
+                // Positions before the match are done even if the match is not consumed
+                position = p;
+                return p;
+            }
+        }
+        position = size;
+        return -1;
+    }
+
+    private boolean isCandidate(int p) {
+        if (Arrays.binarySearch(likedPositions, p) >= 0) {
+            return false;
+        }
+        int[] movieGenres = catalog.getMovieGenres();
+        for (int g = catalog.genreStart(p); g < catalog.genreEnd(p); g++) {
+            if (likedGenres[movieGenres[g]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasEarlierCandidateWithTitle(int p) {
+        for (int q = catalog.previousWithSameTitle(p); q >= 0; q = catalog.previousWithSameTitle(q)) {
+            if (isCandidate(q)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
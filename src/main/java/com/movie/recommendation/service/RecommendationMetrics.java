@@ -0,0 +1,79 @@
+package com.movie.recommendation.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run counters of a RecommendationService, safe to update from many threads.
+ *
+ * TESTING NOTE:
+ * A user whose liked IDs are all unknown increments getColdStartUsers() once per request.
+ */
+public class RecommendationMetrics {
+
+    private final LongAdder users = new LongAdder();
+    private final LongAdder coldStartUsers = new LongAdder();
+    private final LongAdder fallbackServed = new LongAdder();
+    private final LongAdder partialResults = new LongAdder();
+
+    void recordUser() {
+        users.increment();
+    }
+
+    void recordColdStart(boolean servedFallback) {
+        coldStartUsers.increment();
+        if (servedFallback) {
+            fallbackServed.increment();
+        }
+    }
+
+    void recordPartial() {
+        partialResults.increment();
+    }
+
+    /**
+     * Gets the number of recommendation requests.
+     *
+     * @return the user count
+     */
+    public long getUsers() {
+        return users.sum();
+    }
+
+    /**
+     * Gets the number of users with no liked ID in the catalog.
+     * These users skip the catalog scan.
+     *
+     * @return the cold-start user count
+     */
+    public long getColdStartUsers() {
+        return coldStartUsers.sum();
+    }
+
+    /**
+     * Gets the number of cold-start users that got a non-empty fallback list.
+     *
+     * @return the fallback count
+     */
+    public long getFallbackServed() {
+        return fallbackServed.sum();
+    }
+
+    /**
+     * Gets the number of deadline requests cut short with a partial result.
+     *
+     * @return the partial result count
+     */
+    public long getPartialResults() {
+        return partialResults.sum();
+    }
+
+    /**
+     * Resets all counters to 0.
+     */
+    public void reset() {
+        users.reset();
+        coldStartUsers.reset();
+        fallbackServed.reset();
+        partialResults.reset();
+    }
+}
@@ -0,0 +1,41 @@
+package com.movie.recommendation.service;
+
+import java.util.List;
+
+/**
+ * One page of a user's recommendations and the token of the page after it.
+ */
+public class RecommendationPage {
+
+    private final List<String> titles;
+    private final String nextToken;
+
+    /**
+     * Constructs a page.
+     *
+     * @param titles the titles of this page
+     * @param nextToken the token of the next page, or null if this is the last page
+     */
+    public RecommendationPage(List<String> titles, String nextToken) {
+        this.titles = titles;
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * Gets the titles of this page.
+     *
+     * @return the titles, in recommendation order
+     */
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    /**
+     * Gets the token to pass to RecommendationService.getRecommendationPage() for the next page.
+     *
+     * @return the token, or null if there are no more titles
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+}
@@ -0,0 +1,184 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.model.User;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Flow.Publisher of (user, recommendations) pairs computed by a worker pool.
+ *
+ * Every subscriber gets its own subscription and its own pool of worker
+ * threads, which is shut down when the subscription completes, fails or is
+ * cancelled. Pairs are emitted in input order as soon as they are ready, so a
+ * fast subscriber can start writing while later users are still computed.
+ *
+ * Demand is honoured end to end: a user is only handed to a worker once the
+ * subscriber has requested it, and at most one window of users is computed
+ * ahead of the next pair to emit. A slow subscriber therefore holds back the
+ * workers instead of letting results pile up in memory.
+ *
+ * Signals to one subscriber are serialized by a drain loop: whichever thread
+ * (a worker or the subscriber calling request()) enters it emits every pair
+ * that is ready, then hands work to the pool.
+ *
+ * TESTING NOTE:
+ * - onNext() is never called more often than requested
+ * - Pairs arrive in input order for any worker count
+ * - cancel() stops emission and the workers
+ * - An exception from the recommender ends the stream with onError()
+ */
+public class RecommendationPublisher implements Flow.Publisher<UserRecommendation> {
+
+    private static final int WINDOW_PER_WORKER = 4;
+
+    private final List<User> users;
+    private final Function<User, List<String>> recommender;
+    private final int workers;
+
+    /**
+     * Constructs a publisher.
+     *
+     * @param users the users, in output order
+     * @param recommender computes the recommendations of one user; called from several threads
+     * @param workers number of worker threads per subscription, at least 1
+     */
+    public RecommendationPublisher(List<User> users, Function<User, List<String>> recommender, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        this.users = users;
+        this.recommender = recommender;
+        this.workers = workers;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super UserRecommendation> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        UserSubscription subscription = new UserSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    private final class UserSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super UserRecommendation> subscriber;
+        private final AtomicReferenceArray<UserRecommendation> window;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final ExecutorService pool;
+        private volatile boolean cancelled = false;
+        private volatile Throwable failure;
+        private boolean done = false;
+        // Only read and written inside drain()
+        private int nextSubmit = 0;
+        private int nextEmit = 0;
+
+        UserSubscription(Flow.Subscriber<? super UserRecommendation> subscriber) {
+            this.subscriber = subscriber;
+            this.window = new AtomicReferenceArray<>(workers * WINDOW_PER_WORKER);
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.pool = Executors.newFixedThreadPool(workers, task -> {
+                Thread thread = new Thread(task, "recommendation-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void compute(int index) {
+            try {
+                User user = users.get(index);
+                window.set(index % window.length(), new UserRecommendation(user, recommender.apply(user)));
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    emitReady();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emitReady() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            while (nextEmit < users.size() && requested.get() > 0 && failure == null) {
+                int slot = nextEmit % window.length();
+                UserRecommendation ready = window.get(slot);
+                if (ready == null) {
+                    break;
+                }
+                window.set(slot, null);
+                nextEmit++;
+                requested.decrementAndGet();
+                subscriber.onNext(ready);
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+            }
+            if (failure != null) {
+                terminate();
+                subscriber.onError(failure);
+                return;
+            }
+            if (nextEmit == users.size()) {
+                terminate();
+                subscriber.onComplete();
+                return;
+            }
+
+            // Hand out users the subscriber has asked for, at most one window ahead
+            long allowed = Math.min(requested.get(), window.length());
+            int limit = (int) Math.min(users.size(), nextEmit + allowed);
+            while (nextSubmit < limit) {
+                int index = nextSubmit++;
+                try {
+                    pool.execute(() -> compute(index));
+                } catch (RejectedExecutionException e) {
+                    return; // terminated concurrently
+                }
+            }
+        }
+
+        private void terminate() {
+            done = true;
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Predicates applied while RecommendationService scans a user's candidates.
+ *
+ * - excluded genres: a movie with any of them is dropped
+ * - required genres: a movie must have all of them
+ * - minimum overlap: a movie must share at least this many distinct genres
+ *   with the movies the user liked (the default of 1 is what genre matching
+ *   already guarantees)
+ * - limit: at most this many titles are returned (0 means no limit)
+ *
+ * The genres are resolved against the catalog once and cached in the query,
+ * together with the union bitmap of the excluded genres, so the same query
+ * object can be reused for every user of a run. Changing a predicate drops the
+ * cache. A query may be shared by threads once it is no longer modified.
+ *
+ * TESTING NOTE:
+ * - An excluded genre removes movies that also match a liked genre
+ * - A required genre that no movie has gives an empty result
+ * - minOverlap 2 keeps only movies sharing two liked genres
+ * - The limit cuts the scan, not a materialised list
+ */
+public class RecommendationQuery {
+
+    private final Set<String> excludedGenres = new LinkedHashSet<>();
+    private final Set<String> requiredGenres = new LinkedHashSet<>();
+    private int minOverlap = 1;
+    private int limit = 0;
+    private volatile Compiled compiled;
+
+    /**
+     * Sets the genres a recommended movie must not have.
+     *
+     * @param genres genre names (case-insensitive)
+     */
+    public void setExcludedGenres(Collection<String> genres) {
+        copyLowerCase(genres, excludedGenres);
+    }
+
+    /**
+     * Gets the excluded genres.
+     *
+     * @return lowercase genre names (read-only)
+     */
+    public Set<String> getExcludedGenres() {
+        return Collections.unmodifiableSet(excludedGenres);
+    }
+
+    /**
+     * Sets the genres a recommended movie must all have.
+     *
+     * @param genres genre names (case-insensitive)
+     */
+    public void setRequiredGenres(Collection<String> genres) {
+        copyLowerCase(genres, requiredGenres);
+    }
+
+    /**
+     * Gets the required genres.
+     *
+     * @return lowercase genre names (read-only)
+     */
+    public Set<String> getRequiredGenres() {
+        return Collections.unmodifiableSet(requiredGenres);
+    }
+
+    /**
+     * Sets how many distinct genres a movie must share with the user's liked movies.
+     *
+     * @param minOverlap at least 1
+     */
+    public void setMinOverlap(int minOverlap) {
+        if (minOverlap < 1) {
+            throw new IllegalArgumentException("minOverlap must be at least 1");
+        }
+        this.minOverlap = minOverlap;
+        compiled = null;
+    }
+
+    /**
+     * Gets the minimum genre overlap.
+     *
+     * @return the minimum number of shared genres
+     */
+    public int getMinOverlap() {
+        return minOverlap;
+    }
+
+    /**
+     * Sets the maximum number of titles returned.
+     *
+     * @param limit the limit, or 0 for no limit
+     */
+    public void setLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.limit = limit;
+        compiled = null;
+    }
+
+    /**
+     * Gets the maximum number of titles returned.
+     *
+     * @return the limit, or 0 for no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Resolves the genres against a catalog, reusing the cached result for the same catalog.
+     *
+     * @param catalog the catalog index
+     * @return the compiled predicates
+     */
+    Compiled compile(CatalogIndex catalog) {
+        Compiled current = compiled;
+        if (current != null && current.catalog == catalog) {
+            return current;
+        }
+        current = new Compiled(catalog, this);
+        compiled = current;
+        return current;
+    }
+
+    private void copyLowerCase(Collection<String> genres, Set<String> target) {
+        target.clear();
+        for (String genre : genres) {
+            target.add(genre.toLowerCase());
+        }
+        compiled = null;
+    }
+
+    /**
+     * Genre ids and bitmaps of a query for one catalog.
+     */
+    static final class Compiled {
+        final CatalogIndex catalog;
+        /** Union of the excluded genre bitmaps, or null if nothing is excluded */
+        final RoaringBitmap excluded;
+        /** Required genre ids; empty if none */
+        final int[] required;
+        /** True if a required genre is not in the catalog, so nothing can match */
+        final boolean unsatisfiable;
+        final int minOverlap;
+        final int limit;
+
+        Compiled(CatalogIndex catalog, RecommendationQuery query) {
+            this.catalog = catalog;
+            this.minOverlap = query.minOverlap;
+            this.limit = query.limit;
+
+            List<RoaringBitmap> bitmaps = new ArrayList<>();
+            for (String genre : query.excludedGenres) {
+                int id = catalog.genreIdOf(genre);
+                if (id >= 0) {
+                    bitmaps.add(catalog.getGenreBitmap(id));
+                }
+            }
+            this.excluded = bitmaps.isEmpty()
+                ? null
+                : RoaringBitmap.or(bitmaps.toArray(new RoaringBitmap[0]), bitmaps.size());
+
+            int[] ids = new int[query.requiredGenres.size()];
+            int count = 0;
+            boolean missing = false;
+            for (String genre : query.requiredGenres) {
+                int id = catalog.genreIdOf(genre);
+                if (id < 0) {
+                    missing = true;
+                } else {
+                    ids[count++] = id;
+                }
+            }
+            this.required = ids;
+            this.unsatisfiable = missing;
+        }
+
+        /** True if candidates need a per-movie genre test besides the bitmap operations */
+        boolean testsGenres() {
+            return required.length > 0 || minOverlap > 1;
+        }
+    }
+}
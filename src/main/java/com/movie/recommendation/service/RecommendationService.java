@@ -1,10 +1,23 @@
 package com.movie.recommendation.service;
 
 import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.GenreVectors;
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.PerfectHash;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.RoaringBitmap;
+import com.movie.recommendation.index.TopK;
+import com.movie.recommendation.index.UserIndex;
+import com.movie.recommendation.index.UserSimilarityIndex;
 import com.movie.recommendation.model.User;
+import com.movie.recommendation.pipeline.RecommendationPipeline;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -50,6 +63,169 @@ import java.util.stream.Collectors;
  */
 public class RecommendationService {
     
+    private static final byte LIKED_GENRE = 1;
+    private static final byte REQUIRED_GENRE = 2;
+    private static final int[] NO_GENRES = new int[0];
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final int DEADLINE_CHECK_MASK = 255;
+    private static final int SCORE_BLOCK_SIZE = 1024;
+    
+    private final CatalogIndex catalog;
+    private PopularityIndex popularity;
+    private RankingMode rankingMode = RankingMode.NONE;
+    private int maxResults = 0;
+    private GenreVectors genreVectors;
+    private AlsModel alsModel;
+    private ScoringKernel scoringKernel;
+    private RecommendationPipeline pipeline;
+    private List<String> coldStartTitles = new ArrayList<>();
+    private UserIndex userIndex;
+    private volatile MovieLookup movieLookup;
+    private final RecommendationMetrics metrics = new RecommendationMetrics();
+    private final ThreadLocal<RankingScratch> rankingScratch =
+        ThreadLocal.withInitial(this::newRankingScratch);
+    
+    /**
+     * Constructs a service without a catalog index.
+     * Only the List-based methods can be used.
+     */
+    public RecommendationService() {
+        this.catalog = null;
+    }
+    
+    /**
+     * Constructs a service over a prebuilt catalog index.
+     * Enables getRankedRecommendations().
+     * 
+     * @param catalog the catalog index built from the parsed movies
+     */
+    public RecommendationService(CatalogIndex catalog) {
+        this.catalog = catalog;
+    }
+    
+    /**
+     * Sets the like counts used by RankingMode.POPULARITY.
+     * 
+     * @param popularity the popularity index built over the same catalog
+     */
+    public void setPopularityIndex(PopularityIndex popularity) {
+        this.popularity = popularity;
+    }
+    
+    /**
+     * Sets the TF-IDF genre vectors used by RankingMode.CONTENT.
+     * 
+     * @param genreVectors the genre vectors built over the same catalog
+     */
+    public void setGenreVectors(GenreVectors genreVectors) {
+        this.genreVectors = genreVectors;
+    }
+    
+    /**
+     * Sets the latent factor model used by RankingMode.ALS.
+     * 
+     * @param alsModel the model trained over the same catalog
+     */
+    public void setAlsModel(AlsModel alsModel) {
+        this.alsModel = alsModel;
+    }
+    
+    /**
+     * Sets the kernel scoring the ALS item factors in blocks, e.g.
+     * ScoringKernels.best(). Without a kernel ALS scores one item at a time.
+     * 
+     * @param scoringKernel the kernel, or null for the per-item loop
+     */
+    public void setScoringKernel(ScoringKernel scoringKernel) {
+        this.scoringKernel = scoringKernel;
+    }
+    
+    /**
+     * Sets a candidate generation and re-ranking pipeline. When set,
+     * getRankedRecommendations() delegates to it and the ranking mode is ignored.
+     * 
+     * @param pipeline the pipeline built over the same catalog, or null to scan the catalog
+     */
+    public void setPipeline(RecommendationPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+    
+    /**
+     * Sets the titles served to users whose liked IDs match no catalog movie.
+     * Compute the list once per catalog load, e.g. with PopularityIndex.getTopTitles().
+     * By default such users get an empty list.
+     * 
+     * @param coldStartTitles the fallback titles, best first
+     */
+    public void setColdStartTitles(List<String> coldStartTitles) {
+        this.coldStartTitles = new ArrayList<>(coldStartTitles);
+    }
+    
+    /**
+     * Sets the user index read by recommendFor().
+     * 
+     * @param userIndex the index built over the same catalog
+     */
+    public void setUserIndex(UserIndex userIndex) {
+        this.userIndex = userIndex;
+    }
+    
+    /**
+     * Builds the movie lookup of getRecommendations() for a movie list. The
+     * lookup is cached by list identity and size, so call this again after
+     * editing the list in place, e.g. with set(i, movie).
+     * 
+     * @param movies the list later passed to getRecommendations()
+     */
+    public void setMovies(List<Movie> movies) {
+        movieLookup = new MovieLookup(movies);
+    }
+    
+    /**
+     * Gets the run counters (requests, cold-start users).
+     * 
+     * @return the metrics of this service
+     */
+    public RecommendationMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets the pipeline set with setPipeline().
+     * 
+     * @return the pipeline, or null if the catalog is scanned
+     */
+    public RecommendationPipeline getPipeline() {
+        return pipeline;
+    }
+    
+    /**
+     * Gets the popularity index set with setPopularityIndex().
+     * 
+     * @return the popularity index, or null
+     */
+    public PopularityIndex getPopularityIndex() {
+        return popularity;
+    }
+    
+    /**
+     * Sets the ordering used by getRankedRecommendations().
+     * 
+     * @param rankingMode the ranking mode
+     */
+    public void setRankingMode(RankingMode rankingMode) {
+        this.rankingMode = rankingMode;
+    }
+    
+    /**
+     * Sets the maximum number of titles returned by getRankedRecommendations().
+     * 
+     * @param maxResults the limit, or 0 for no limit
+     */
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+    
     /**
      * Generates movie recommendations for a user based on their liked movies.
      * 
@@ -59,26 +235,35 @@ public class RecommendationService {
      * 3. Find all other movies (not already liked) that have any of these genres
      * 4. Return the titles of recommended movies
      * 
+     * Users whose liked IDs match no movie are detected before the scan and
+     * get the cold-start titles (empty unless setColdStartTitles() was called).
+     * 
      * @param user the user to generate recommendations for
      * @param allMovies the complete list of available movies
      * @return list of recommended movie titles
      */
     public List<String> getRecommendations(User user, List<Movie> allMovies) {
-        // Create a map for quick movie lookup by ID
-        Map<String, Movie> movieMap = new HashMap<>();
-        for (Movie movie : allMovies) {
-            movieMap.put(movie.getId(), movie);
-        }
+        metrics.recordUser();
+        // Movie lookup by ID, built once per movie list instead of once per user
+        MovieLookup movieMap = movieLookupFor(allMovies);
         
         // Find all genres the user likes
         Set<String> likedGenres = new HashSet<>();
+        boolean anyLikedMovieFound = false;
         for (String likedMovieId : user.getLikedMovieIds()) {
             Movie likedMovie = movieMap.get(likedMovieId);
             if (likedMovie != null) {
+                anyLikedMovieFound = true;
                 likedGenres.addAll(likedMovie.getGenres());
             }
         }
         
+        // Cold start: no liked movie is in the catalog, so the scan would find nothing
+        if (!anyLikedMovieFound) {
+            metrics.recordColdStart(!coldStartTitles.isEmpty());
+            return new ArrayList<>(coldStartTitles);
+        }
+        
         // Find recommendations: movies with matching genres that user hasn't liked
         Set<String> recommendedTitles = new HashSet<>(); // Use Set to avoid duplicates
         
@@ -100,6 +285,778 @@ public class RecommendationService {
         return new ArrayList<>(recommendedTitles);
     }
     
+    /**
+     * Generates recommendations from the catalog index, ordered by the ranking mode.
+     * 
+     * Candidates are the same as in getRecommendations(): movies the user hasn't
+     * liked that share a genre with a liked movie. They are computed from the
+     * catalog's compressed genre bitmaps as OR(liked genre bitmaps) ANDNOT
+     * liked movies, without visiting movies of other genres. Instead of
+     * sorting all candidates, a bounded top-K selection keeps only the best
+     * maxResults.
+     * 
+     * Scoring by mode:
+     * - NONE: catalog order
+     * - POPULARITY: global like count
+     * - CONTENT: cosine similarity between the movie's TF-IDF genre vector and
+     *   the sum of the vectors of the user's liked movies
+     * - ALS: predicted preference from the latent factor model; the user's
+     *   vector is folded in from its likes and every unliked movie is a candidate
+     * 
+     * Per-thread scratch arrays hold the user profile, liked positions and the
+     * top-K heap; per user only the candidate bitmaps and the returned list are allocated.
+     * 
+     * Users whose liked IDs don't match any catalog movie (cold start) get the
+     * cold-start titles if set, else the precomputed most liked list in
+     * POPULARITY mode, and nothing otherwise. They are counted in getMetrics().
+     * 
+     * With a pipeline set, candidates and order come from the pipeline instead.
+     * 
+     * TESTING NOTE:
+     * - With POPULARITY, more liked movies come first, ties in catalog order
+     * - With CONTENT, a movie sharing a rare genre beats one sharing a common genre
+     * - With a limit of K, exactly min(K, candidates) titles are returned
+     * - A user with only unknown liked IDs gets the most liked movies
+     * 
+     * @param user the user to generate recommendations for
+     * @return list of recommended movie titles, best first
+     */
+    public List<String> getRankedRecommendations(User user) {
+        if (catalog == null) {
+            throw new IllegalStateException("No catalog index: use RecommendationService(CatalogIndex)");
+        }
+        return rankedFor(user, -1, null);
+    }
+    
+    /**
+     * Gets ranked recommendations, giving up on the candidate scan at a deadline.
+     * 
+     * Works like getRankedRecommendations(), but the scoring loop checks the
+     * clock every 256 candidates. When the deadline has passed it stops and
+     * returns the top-K of the candidates scored so far, marked PARTIAL, so a
+     * request near its deadline still gets an answer instead of a timeout.
+     * Candidates are visited in catalog order, so a partial result is the best
+     * of a catalog prefix. In NONE mode there is no scoring loop and results
+     * are always complete; ALS scoring and the pipeline ignore the deadline.
+     * 
+     * TESTING NOTE:
+     * - With a distant deadline the titles equal getRankedRecommendations()
+     * - With a passed deadline the result is PARTIAL
+     * 
+     * @param user the user to generate recommendations for
+     * @param deadlineNanos deadline on the System.nanoTime() clock
+     * @return the titles, best first, and whether the scan completed
+     */
+    public TimedRecommendations getTimedRecommendations(User user, long deadlineNanos) {
+        if (catalog == null) {
+            throw new IllegalStateException("No catalog index: use RecommendationService(CatalogIndex)");
+        }
+        RankingScratch scratch = rankingScratch.get();
+        scratch.deadlineNanos = deadlineNanos;
+        scratch.partial = false;
+        List<String> titles;
+        try {
+            titles = rankedFor(user, -1, null);
+        } finally {
+            scratch.deadlineNanos = NO_DEADLINE;
+        }
+        if (scratch.partial) {
+            metrics.recordPartial();
+            return new TimedRecommendations(titles, TimedRecommendations.Status.PARTIAL);
+        }
+        return new TimedRecommendations(titles, TimedRecommendations.Status.COMPLETE);
+    }
+    
+    /**
+     * Gets recommendations that pass a query, ordered by the ranking mode.
+     * 
+     * The predicates are applied inside the candidate scan: excluded genres
+     * are removed with one bitmap ANDNOT, required genres and the minimum
+     * overlap are tested on each candidate's genre ids against per-genre
+     * masks, and the scan stops once the limit is reached in NONE mode.
+     * Rejected candidates never become title Strings. Users without liked
+     * movies in the catalog get an empty list. Not supported with ALS ranking
+     * or a pipeline.
+     * 
+     * TESTING NOTE:
+     * - Same result as post-filtering getRankedRecommendations() output
+     * - A limit of K returns the first K of the unlimited result
+     * 
+     * @param user the user to generate recommendations for
+     * @param query the predicates
+     * @return list of recommended movie titles, best first
+     */
+    public List<String> getFilteredRecommendations(User user, RecommendationQuery query) {
+        if (catalog == null) {
+            throw new IllegalStateException("No catalog index: use RecommendationService(CatalogIndex)");
+        }
+        if (pipeline != null || rankingMode == RankingMode.ALS) {
+            throw new IllegalStateException("Queries are not supported with ALS ranking or a pipeline");
+        }
+        return rankedFor(user, -1, query.compile(catalog));
+    }
+    
+    /**
+     * Gets ranked recommendations for one user by ID, without a batch run.
+     * 
+     * The user is found through the user index (one probe on the packed ID)
+     * and the liked movies are read from its likes table row, so nothing is
+     * parsed or resolved per call. The result equals getRankedRecommendations()
+     * for the same user, except that a movie listed twice in the user's likes
+     * counts once in CONTENT and ALS scores.
+     * 
+     * TESTING NOTE:
+     * - Same titles as getRankedRecommendations() for every indexed user
+     * - An unknown ID returns null
+     * 
+     * @param userId the user ID
+     * @return list of recommended movie titles, best first, or null if the user is not indexed
+     */
+    public List<String> recommendFor(String userId) {
+        if (catalog == null || userIndex == null) {
+            throw new IllegalStateException("recommendFor() needs a catalog index and setUserIndex()");
+        }
+        int row = userIndex.rowOf(userId);
+        if (row < 0) {
+            return null;
+        }
+        return rankedFor(userIndex.getUser(row), row, null);
+    }
+    
+    /**
+     * Opens a lazy cursor over the user's recommendations in catalog order.
+     * 
+     * @param user the user
+     * @return a cursor at the first candidate
+     */
+    public RecommendationCursor openCursor(User user) {
+        if (catalog == null) {
+            throw new IllegalStateException("No catalog index: use RecommendationService(CatalogIndex)");
+        }
+        return new RecommendationCursor(catalog, user, 0);
+    }
+    
+    /**
+     * Reopens a cursor at the position saved in a token.
+     * 
+     * @param user the user the token was issued for
+     * @param token a token from RecommendationCursor.getToken()
+     * @return a cursor that continues after the last title read before the token
+     * @throws IllegalArgumentException if the token is malformed or belongs to another user or catalog
+     */
+    public RecommendationCursor openCursor(User user, String token) {
+        if (catalog == null) {
+            throw new IllegalStateException("No catalog index: use RecommendationService(CatalogIndex)");
+        }
+        return new RecommendationCursor(catalog, user, RecommendationCursor.positionOf(catalog, user, token));
+    }
+    
+    /**
+     * Gets one page of recommendations, resuming the catalog scan from a token.
+     * 
+     * TESTING NOTE:
+     * - Concatenated pages equal getRankedRecommendations() with RankingMode.NONE
+     * - The last page has a null next token
+     * 
+     * @param user the user
+     * @param token the token of the page, or null for the first page
+     * @param pageSize maximum number of titles on the page
+     * @return the page and the token of the next one
+     */
+    public RecommendationPage getRecommendationPage(User user, String token, int pageSize) {
+        RecommendationCursor cursor = token == null ? openCursor(user) : openCursor(user, token);
+        List<String> titles = cursor.nextPage(pageSize);
+        return new RecommendationPage(titles, cursor.hasNext() ? cursor.getToken() : null);
+    }
+    
+    /**
+     * Writes the recommendations of an indexed user as catalog positions,
+     * best first, without allocating: the genre match is a scan over the
+     * catalog against the per-thread profile, ranking uses the per-thread
+     * top-K, and repeated titles are dropped with title stamps. Meant for
+     * servers that keep one output array per thread.
+     * 
+     * Uses the ranking mode but not the pipeline or the result limit. Users
+     * without resolvable likes get the most liked movies if a popularity
+     * index is set.
+     * 
+     * TESTING NOTE:
+     * - The titles of the positions equal the first k of getRankedRecommendations()
+     * - An unknown packed ID returns -1
+     * 
+     * @param packedUserId the user ID packed with UserIdCodec
+     * @param k maximum number of positions
+     * @param out receives the positions; its length also caps k and should not change between calls
+     * @return number of positions written, or -1 if the user is not indexed
+     * @throws IllegalStateException if the ranking mode's model has not been set
+     */
+    public int recommendPositions(long packedUserId, int k, int[] out) {
+        if (catalog == null || userIndex == null) {
+            throw new IllegalStateException("recommendPositions() needs a catalog index and setUserIndex()");
+        }
+        checkRankingModel();
+        int row = userIndex.rowOf(packedUserId);
+        if (row < 0) {
+            return -1;
+        }
+        metrics.recordUser();
+        int limit = Math.min(k, out.length);
+        RankingScratch scratch = rankingScratch.get();
+        int likedCount = buildProfile(userIndex.getLikes(), row, scratch);
+        int stamp = scratch.nextTitleStamp();
+        int count = 0;
+        
+        if (likedCount == 0) {
+            clearProfile(scratch);
+            if (popularity != null) {
+                int[] top = popularity.getTopPositions();
+                for (int i = 0; i < top.length && count < limit; i++) {
+                    count = addDistinctTitle(top[i], out, count, scratch, stamp);
+                }
+            }
+            metrics.recordColdStart(count > 0);
+            return count;
+        }
+        
+        TopK top = rankingMode == RankingMode.NONE ? null : scratch.topK(out.length);
+        if (rankingMode == RankingMode.ALS) {
+            recommendAls(scratch, likedCount, top);
+        } else {
+            for (int i = 0; i < scratch.touchedCount; i++) {
+                scratch.genreMask[scratch.touchedGenres[i]] |= LIKED_GENRE;
+            }
+            int[] movieGenres = catalog.getMovieGenres();
+            int liked = 0;
+            for (int p = 0; p < catalog.size() && count < limit; p++) {
+                while (liked < likedCount && scratch.likedPositions[liked] < p) {
+                    liked++;
+                }
+                if (liked < likedCount && scratch.likedPositions[liked] == p) {
+                    continue;
+                }
+                boolean sharesGenre = false;
+                for (int g = catalog.genreStart(p); g < catalog.genreEnd(p) && !sharesGenre; g++) {
+                    sharesGenre = (scratch.genreMask[movieGenres[g]] & LIKED_GENRE) != 0;
+                }
+                if (!sharesGenre) {
+                    continue;
+                }
+                if (top == null) {
+                    count = addDistinctTitle(p, out, count, scratch, stamp);
+                } else {
+                    top.offer(p, scoreOf(p, scratch));
+                }
+            }
+        }
+        clearProfile(scratch);
+        
+        if (top != null) {
+            int ranked = top.drainSorted(scratch.ranked);
+            for (int i = 0; i < ranked && count < limit; i++) {
+                count = addDistinctTitle(scratch.ranked[i], out, count, scratch, stamp);
+            }
+        }
+        return count;
+    }
+    
+    private int addDistinctTitle(int position, int[] out, int count, RankingScratch scratch, int stamp) {
+        int titleId = catalog.getTitleId(position);
+        if (scratch.titleStamps[titleId] == stamp) {
+            return count;
+        }
+        scratch.titleStamps[titleId] = stamp;
+        out[count] = position;
+        return count + 1;
+    }
+    
+    /**
+     * Ranks for a user whose likes come from its user index row, or from its
+     * liked IDs when row is -1. The query may be null.
+     */
+    private List<String> rankedFor(User user, int row, RecommendationQuery.Compiled query) {
+        metrics.recordUser();
+        int limit = maxResults > 0 ? Math.min(maxResults, catalog.size()) : catalog.size();
+        if (query != null && query.limit > 0) {
+            limit = Math.min(limit, query.limit);
+        }
+        RankingScratch scratch = rankingScratch.get();
+        if (pipeline != null) {
+            // Cold-start users get the fallback list if one is set, else
+            // whatever the pipeline's generators propose (e.g. popular movies)
+            boolean coldStart = !likesCatalogMovie(user, row);
+            if (coldStart && query == null && hasColdStartFallback()) {
+                return coldStartFor(null, limit, scratch);
+            }
+            List<String> titles = pipelineTitles(user, limit, scratch);
+            if (coldStart) {
+                metrics.recordColdStart(!titles.isEmpty());
+            }
+            return titles;
+        }
+        checkRankingModel();
+        
+        int likedCount = row >= 0
+            ? buildProfile(userIndex.getLikes(), row, scratch)
+            : buildProfile(user, scratch);
+        
+        if (likedCount == 0) {
+            clearProfile(scratch);
+            return coldStartFor(query, limit, scratch);
+        }
+        
+        TopK top = scratch.topK(limit);
+        if (rankingMode == RankingMode.ALS) {
+            recommendAls(scratch, likedCount, top);
+        } else {
+            if (query != null && query.unsatisfiable) {
+                clearProfile(scratch);
+                return new ArrayList<>();
+            }
+            RoaringBitmap candidates = candidateBitmap(scratch, likedCount);
+            if (query != null && query.excluded != null) {
+                candidates = candidates.andNot(query.excluded);
+            }
+            boolean testGenres = query != null && query.testsGenres();
+            if (testGenres) {
+                setGenreMask(scratch, query);
+            }
+            if (rankingMode == RankingMode.NONE) {
+                List<String> titles = titlesInOrder(scratch, candidates, testGenres ? query : null, limit);
+                clearProfile(scratch);
+                return titles;
+            }
+            scoreCandidates(scratch, candidates, top, testGenres ? query : null);
+        }
+        clearProfile(scratch);
+        
+        int count = top.drainSorted(scratch.ranked);
+        return titlesOf(scratch.ranked, count, limit, scratch);
+    }
+    
+    /**
+     * Gets the result of a user without resolvable likes: nothing for a query,
+     * else the cold-start titles, else the most liked movies in POPULARITY mode.
+     */
+    private List<String> coldStartFor(RecommendationQuery.Compiled query, int limit, RankingScratch scratch) {
+        if (query != null) {
+            metrics.recordColdStart(false);
+            return new ArrayList<>();
+        }
+        if (!coldStartTitles.isEmpty()) {
+            metrics.recordColdStart(true);
+            return new ArrayList<>(coldStartTitles.subList(0, Math.min(limit, coldStartTitles.size())));
+        }
+        if (rankingMode == RankingMode.POPULARITY && popularity != null) {
+            metrics.recordColdStart(popularity.getTopPositions().length > 0);
+            return titlesOf(popularity.getTopPositions(), popularity.getTopPositions().length, limit, scratch);
+        }
+        metrics.recordColdStart(false);
+        return new ArrayList<>();
+    }
+    
+    private boolean hasColdStartFallback() {
+        return !coldStartTitles.isEmpty() || (rankingMode == RankingMode.POPULARITY && popularity != null);
+    }
+    
+    /**
+     * Ranks with the pipeline. It ranks positions, so repeated titles can leave
+     * the result short; it ranks again with a larger K only then.
+     */
+    private List<String> pipelineTitles(User user, int limit, RankingScratch scratch) {
+        int capacity = limit;
+        while (true) {
+            int[] ranked = scratch.ranked(capacity);
+            int count = pipeline.rank(user, ranked);
+            List<String> titles = titlesOf(ranked, count, limit, scratch);
+            if (titles.size() == limit || count < capacity || capacity == catalog.size()) {
+                return titles;
+            }
+            capacity = (int) Math.min(catalog.size(), 2L * capacity);
+        }
+    }
+    
+    /**
+     * Checks if a user likes at least one catalog movie, without building a profile.
+     */
+    private boolean likesCatalogMovie(User user, int row) {
+        if (row >= 0) {
+            LikesTable likes = userIndex.getLikes();
+            return likes.rowEnd(row) > likes.rowStart(row);
+        }
+        for (String likedId : user.getLikedMovieIds()) {
+            if (catalog.positionOf(likedId) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Fails fast when the ranking mode's model is missing, instead of a
+     * NullPointerException in the middle of a ranking.
+     */
+    private void checkRankingModel() {
+        if (rankingMode == RankingMode.POPULARITY && popularity == null) {
+            throw new IllegalStateException("POPULARITY ranking needs setPopularityIndex()");
+        }
+        if (rankingMode == RankingMode.CONTENT && genreVectors == null) {
+            throw new IllegalStateException("CONTENT ranking needs setGenreVectors()");
+        }
+        if (rankingMode == RankingMode.ALS && alsModel == null) {
+            throw new IllegalStateException("ALS ranking needs setAlsModel()");
+        }
+    }
+    
+    /**
+     * Resolves the user's liked IDs and accumulates their genres into the profile.
+     * In CONTENT mode the profile holds TF-IDF weights, otherwise 1 per liked genre.
+     * 
+     * @return number of liked IDs found in the catalog
+     */
+    private int buildProfile(User user, RankingScratch scratch) {
+        List<String> likedIds = user.getLikedMovieIds();
+        int[] movieGenres = catalog.getMovieGenres();
+        float[] weights = rankingMode == RankingMode.CONTENT ? genreVectors.getWeights() : null;
+        float[] profile = scratch.profile;
+        
+        int likedCount = 0;
+        for (int i = 0; i < likedIds.size(); i++) {
+            int position = catalog.positionOf(likedIds.get(i));
+            if (position < 0) {
+                continue;
+            }
+            scratch.addLiked(likedCount++, position);
+            for (int g = catalog.genreStart(position); g < catalog.genreEnd(position); g++) {
+                int genre = movieGenres[g];
+                if (profile[genre] == 0) {
+                    scratch.touchedGenres[scratch.touchedCount++] = genre;
+                }
+                profile[genre] += weights != null ? weights[g] : 1f;
+            }
+        }
+        
+        // Sorted liked positions are skipped with a single merge-style cursor
+        Arrays.sort(scratch.likedPositions, 0, likedCount);
+        
+        double sumOfSquares = 0;
+        for (int i = 0; i < scratch.touchedCount; i++) {
+            float value = profile[scratch.touchedGenres[i]];
+            sumOfSquares += (double) value * value;
+        }
+        scratch.profileNorm = Math.sqrt(sumOfSquares);
+        return likedCount;
+    }
+    
+    /**
+     * Accumulates the profile from a likes table row, which is already sorted and distinct.
+     * 
+     * @return number of liked positions in the row
+     */
+    private int buildProfile(LikesTable likes, int row, RankingScratch scratch) {
+        int[] columns = likes.getColumns();
+        int[] movieGenres = catalog.getMovieGenres();
+        float[] weights = rankingMode == RankingMode.CONTENT ? genreVectors.getWeights() : null;
+        float[] profile = scratch.profile;
+        
+        int likedCount = 0;
+        for (int i = likes.rowStart(row); i < likes.rowEnd(row); i++) {
+            int position = columns[i];
+            scratch.addLiked(likedCount++, position);
+            for (int g = catalog.genreStart(position); g < catalog.genreEnd(position); g++) {
+                int genre = movieGenres[g];
+                if (profile[genre] == 0) {
+                    scratch.touchedGenres[scratch.touchedCount++] = genre;
+                }
+                profile[genre] += weights != null ? weights[g] : 1f;
+            }
+        }
+        
+        double sumOfSquares = 0;
+        for (int i = 0; i < scratch.touchedCount; i++) {
+            float value = profile[scratch.touchedGenres[i]];
+            sumOfSquares += (double) value * value;
+        }
+        scratch.profileNorm = Math.sqrt(sumOfSquares);
+        return likedCount;
+    }
+    
+    /**
+     * Computes the candidate set: OR(bitmaps of the liked genres) ANDNOT liked movies.
+     * The touched genres of the profile are exactly the liked genres.
+     */
+    private RoaringBitmap candidateBitmap(RankingScratch scratch, int likedCount) {
+        RoaringBitmap[] genreBitmaps = scratch.genreBitmaps;
+        for (int i = 0; i < scratch.touchedCount; i++) {
+            genreBitmaps[i] = catalog.getGenreBitmap(scratch.touchedGenres[i]);
+        }
+        RoaringBitmap sharingGenre = RoaringBitmap.or(genreBitmaps, scratch.touchedCount);
+        Arrays.fill(genreBitmaps, 0, scratch.touchedCount, null);
+        return sharingGenre.andNot(RoaringBitmap.of(scratch.likedPositions, 0, likedCount));
+    }
+    
+    /**
+     * Marks the liked genres and the query's required genres in the scratch genre mask.
+     * clearProfile() resets the mask.
+     */
+    private static void setGenreMask(RankingScratch scratch, RecommendationQuery.Compiled query) {
+        for (int i = 0; i < scratch.touchedCount; i++) {
+            scratch.genreMask[scratch.touchedGenres[i]] |= LIKED_GENRE;
+        }
+        for (int genre : query.required) {
+            scratch.genreMask[genre] |= REQUIRED_GENRE;
+        }
+        scratch.maskedRequired = query.required;
+    }
+    
+    /**
+     * Tests a candidate's genre ids against the genre mask.
+     */
+    private boolean accepts(int position, RankingScratch scratch, RecommendationQuery.Compiled query) {
+        int[] movieGenres = catalog.getMovieGenres();
+        int start = catalog.genreStart(position);
+        int overlap = 0;
+        int required = 0;
+        for (int g = start; g < catalog.genreEnd(position); g++) {
+            if (repeatsGenre(movieGenres, start, g)) {
+                continue;
+            }
+            byte mask = scratch.genreMask[movieGenres[g]];
+            overlap += mask & LIKED_GENRE;
+            required += (mask & REQUIRED_GENRE) >> 1;
+        }
+        return overlap >= query.minOverlap && required == query.required.length;
+    }
+    
+    /**
+     * Checks if a movie lists the genre at index g earlier (e.g. "action,action").
+     */
+    private static boolean repeatsGenre(int[] movieGenres, int start, int g) {
+        for (int k = start; k < g; k++) {
+            if (movieGenres[k] == movieGenres[g]) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Gets the first limit distinct titles of the candidates the query accepts
+     * (all of them for a null query), in catalog order. Bitmap order is catalog
+     * order, so only a prefix of the bitmap is extracted; the prefix doubles
+     * while repeated or rejected titles leave the result short.
+     */
+    private List<String> titlesInOrder(RankingScratch scratch, RoaringBitmap candidates,
+                                       RecommendationQuery.Compiled query, int limit) {
+        int cardinality = candidates.cardinality();
+        int extract = Math.min(limit, cardinality);
+        while (true) {
+            int[] positions = scratch.candidates(extract);
+            int total = candidates.toArray(positions);
+            List<String> titles = new ArrayList<>(limit);
+            int stamp = scratch.nextTitleStamp();
+            for (int i = 0; i < total && titles.size() < limit; i++) {
+                if (query != null && !accepts(positions[i], scratch, query)) {
+                    continue;
+                }
+                int titleId = catalog.getTitleId(positions[i]);
+                if (scratch.titleStamps[titleId] != stamp) {
+                    scratch.titleStamps[titleId] = stamp;
+                    titles.add(catalog.getTitle(positions[i]));
+                }
+            }
+            if (titles.size() == limit || total == cardinality) {
+                return titles;
+            }
+            extract = (int) Math.min(cardinality, 2L * total);
+        }
+    }
+    
+    /**
+     * Folds the user into the ALS model and offers every unliked movie to the top-K,
+     * through the scoring kernel if one is set.
+     */
+    private void recommendAls(RankingScratch scratch, int likedCount, TopK top) {
+        scratch.ensureAls(alsModel.getRank());
+        alsModel.foldIn(scratch.likedPositions, likedCount, scratch.alsWork, scratch.alsVector);
+        if (scoringKernel == null) {
+            alsModel.recommend(scratch.alsVector, 0, scratch.likedPositions, likedCount, top);
+        } else {
+            alsModel.recommend(scratch.alsVector, 0, scratch.likedPositions, likedCount, top,
+                scoringKernel, scratch.scoreBlock);
+        }
+    }
+    
+    /**
+     * Scores every candidate by the ranking mode, skipping those the query rejects.
+     */
+    private void scoreCandidates(RankingScratch scratch, RoaringBitmap candidates, TopK top,
+                                 RecommendationQuery.Compiled query) {
+        int[] positions = scratch.candidates(candidates.cardinality());
+        int count = candidates.toArray(positions);
+        boolean checkDeadline = scratch.deadlineNanos != NO_DEADLINE;
+        
+        for (int i = 0; i < count; i++) {
+            if (checkDeadline && (i & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - scratch.deadlineNanos >= 0) {
+                // Out of time: the heap holds the best of the candidates scored so far
+                scratch.partial = true;
+                return;
+            }
+            int p = positions[i];
+            if (query != null && !accepts(p, scratch, query)) {
+                continue;
+            }
+            top.offer(p, scoreOf(p, scratch));
+        }
+    }
+    
+    /**
+     * Scores one candidate by the ranking mode (POPULARITY or CONTENT).
+     */
+    private double scoreOf(int p, RankingScratch scratch) {
+        if (rankingMode == RankingMode.POPULARITY) {
+            return popularity.getLikeCounts()[p];
+        }
+        int[] movieGenres = catalog.getMovieGenres();
+        float[] weights = genreVectors.getWeights();
+        double dot = 0;
+        for (int g = catalog.genreStart(p); g < catalog.genreEnd(p); g++) {
+            dot += scratch.profile[movieGenres[g]] * weights[g];
+        }
+        return dot / (scratch.profileNorm * genreVectors.getNorm(p));
+    }
+    
+    private static void clearProfile(RankingScratch scratch) {
+        for (int i = 0; i < scratch.touchedCount; i++) {
+            scratch.profile[scratch.touchedGenres[i]] = 0;
+            scratch.genreMask[scratch.touchedGenres[i]] = 0;
+        }
+        for (int genre : scratch.maskedRequired) {
+            scratch.genreMask[genre] = 0;
+        }
+        scratch.maskedRequired = NO_GENRES;
+        scratch.touchedCount = 0;
+    }
+    
+    /**
+     * Generates ranked recommendations for all users, in input order.
+     * 
+     * @param users the list of all users
+     * @return map of user to their ranked recommendations, iterating in input order
+     */
+    public Map<User, List<String>> generateRankedRecommendationsForAllUsers(List<User> users) {
+        Map<User, List<String>> allRecommendations = new LinkedHashMap<>();
+        
+        for (User user : users) {
+            allRecommendations.put(user, getRankedRecommendations(user));
+        }
+        
+        return allRecommendations;
+    }
+    
+    /**
+     * Maps catalog positions to at most limit titles, dropping repeated titles like
+     * getRecommendations() does. Repeats are detected with title ids and a stamp
+     * array, without hashing.
+     */
+    private List<String> titlesOf(int[] positions, int count, int limit, RankingScratch scratch) {
+        List<String> titles = new ArrayList<>(Math.min(count, limit));
+        int stamp = scratch.nextTitleStamp();
+        for (int i = 0; i < count && titles.size() < limit; i++) {
+            int titleId = catalog.getTitleId(positions[i]);
+            if (scratch.titleStamps[titleId] != stamp) {
+                scratch.titleStamps[titleId] = stamp;
+                titles.add(catalog.getTitle(positions[i]));
+            }
+        }
+        return titles;
+    }
+    
+    /**
+     * Publishes genre-matched recommendations for all users as a Flow stream.
+     * Same results and order as generateRecommendationsForAllUsers().
+     * 
+     * @param users the users, in output order
+     * @param movies the list of all movies
+     * @param workers number of worker threads per subscription
+     * @return a publisher of (user, recommendations) pairs
+     */
+    public RecommendationPublisher publishRecommendations(List<User> users, List<Movie> movies, int workers) {
+        return new RecommendationPublisher(users, user -> getRecommendations(user, movies), workers);
+    }
+    
+    /**
+     * Publishes ranked recommendations for all users as a Flow stream.
+     * Same results and order as generateRankedRecommendationsForAllUsers().
+     * 
+     * @param users the users, in output order
+     * @param workers number of worker threads per subscription
+     * @return a publisher of (user, recommendations) pairs
+     */
+    public RecommendationPublisher publishRankedRecommendations(List<User> users, int workers) {
+        if (catalog == null) {
+            throw new IllegalStateException("No catalog index: use RecommendationService(CatalogIndex)");
+        }
+        return new RecommendationPublisher(users, this::getRankedRecommendations, workers);
+    }
+    
+    /**
+     * Generates "users like you also liked" recommendations.
+     * 
+     * Algorithm:
+     * 1. Look up candidate neighbours in the LSH index (no scan over all users)
+     * 2. Keep the most similar neighbours by estimated Jaccard similarity
+     * 3. Count how many neighbours liked each title the user hasn't liked;
+     *    a neighbour counts a title once, even if it lists it twice
+     * 4. Return titles ordered by that count, then by title
+     * 
+     * Movies resolve through the same cached lookup as getRecommendations(),
+     * so a request costs no pass over the catalog.
+     * 
+     * TESTING NOTE:
+     * Build the index by parsing users with UserParser.setSimilarityIndex(),
+     * or by calling index.add() for every user in list order.
+     * 
+     * @param user the user to generate recommendations for
+     * @param users all users, in the order they were added to the index
+     * @param allMovies the complete list of available movies
+     * @param index the similarity index built over the users
+     * @param maxNeighbours maximum number of neighbours to consider
+     * @return list of recommended movie titles, most shared first
+     */
+    public List<String> getNeighbourRecommendations(User user, List<User> users, List<Movie> allMovies,
+                                                    UserSimilarityIndex index, int maxNeighbours) {
+        MovieLookup movieMap = movieLookupFor(allMovies);
+        
+        int[] signature = index.signatureOf(user.getLikedMovieIds());
+        // One extra slot, because the user itself is usually its own best match
+        int[] neighbours = new int[maxNeighbours + 1];
+        int found = index.findNeighbours(signature, -1, 0.0, neighbours);
+        
+        // Count neighbour likes per title, skipping the user itself and movies already liked
+        Map<String, Integer> likeCounts = new HashMap<>();
+        Set<String> countedTitles = new HashSet<>();
+        int used = 0;
+        for (int i = 0; i < found && used < maxNeighbours; i++) {
+            User neighbour = users.get(neighbours[i]);
+            if (neighbour.equals(user)) {
+                continue;
+            }
+            used++;
+            countedTitles.clear();
+            for (String movieId : neighbour.getLikedMovieIds()) {
+                Movie movie = movieMap.get(movieId);
+                if (movie != null && !user.hasLikedMovie(movieId) && countedTitles.add(movie.getTitle())) {
+                    likeCounts.merge(movie.getTitle(), 1, Integer::sum);
+                }
+            }
+        }
+        
+        List<String> recommendedTitles = new ArrayList<>(likeCounts.keySet());
+        recommendedTitles.sort(Comparator.comparing((String title) -> -likeCounts.get(title))
+                .thenComparing(Comparator.naturalOrder()));
+        return recommendedTitles;
+    }
+    
     /**
      * Generates recommendations for all users.
      * 
@@ -151,4 +1108,130 @@ public class RecommendationService {
         
         return sb.toString();
     }
+    
+    MovieLookup movieLookupFor(List<Movie> allMovies) {
+        MovieLookup lookup = movieLookup;
+        if (lookup == null || lookup.movies != allMovies || lookup.size != allMovies.size()) {
+            lookup = new MovieLookup(allMovies);
+            movieLookup = lookup;
+        }
+        return lookup;
+    }
+    
+    private RankingScratch newRankingScratch() {
+        return new RankingScratch(catalog);
+    }
+    
+    /**
+     * Movie lookup by ID cached for the last movie list passed to getRecommendations().
+     * IDs resolve through a minimal perfect hash, so the liked IDs that are not
+     * in the list cost one probe and no boxing.
+     * It is keyed by list identity and size, so a call costs no catalog pass;
+     * setMovies() rebuilds it after an edit in place that keeps the size.
+     */
+    static final class MovieLookup {
+        final List<Movie> movies;
+        final int size;
+        private final PerfectHash ids;
+        private final Movie[] moviesBySlot;
+        
+        MovieLookup(List<Movie> movies) {
+            this.movies = movies;
+            this.size = movies.size();
+            // Last occurrence of a repeated ID wins
+            Map<String, Movie> byId = new HashMap<>();
+            for (Movie movie : movies) {
+                byId.put(movie.getId(), movie);
+            }
+            this.ids = new PerfectHash(byId.keySet().toArray(new String[0]));
+            this.moviesBySlot = new Movie[ids.size()];
+            for (Movie movie : byId.values()) {
+                moviesBySlot[ids.indexOf(movie.getId())] = movie;
+            }
+        }
+        
+        Movie get(String movieId) {
+            int slot = ids.indexOf(movieId);
+            return slot < 0 ? null : moviesBySlot[slot];
+        }
+    }
+    
+    /**
+     * Reusable per-thread working memory for getRankedRecommendations().
+     */
+    private static final class RankingScratch {
+        final float[] profile;
+        final byte[] genreMask;
+        int[] maskedRequired = NO_GENRES;
+        final int[] touchedGenres;
+        final int[] titleStamps;
+        int titleStamp = 0;
+        int touchedCount = 0;
+        double profileNorm = 0;
+        int[] likedPositions = new int[64];
+        int[] ranked = new int[0];
+        // Keeps one position per title, so K positions hold K distinct titles
+        private TopK top;
+        double[] alsWork = new double[0];
+        float[] alsVector = new float[0];
+        final float[] scoreBlock = new float[SCORE_BLOCK_SIZE];
+        final RoaringBitmap[] genreBitmaps;
+        private int[] candidates = new int[0];
+        long deadlineNanos = NO_DEADLINE;
+        boolean partial = false;
+        
+        RankingScratch(CatalogIndex catalog) {
+            profile = new float[catalog.getGenreCount()];
+            genreMask = new byte[catalog.getGenreCount()];
+            genreBitmaps = new RoaringBitmap[catalog.getGenreCount()];
+            touchedGenres = new int[catalog.getGenreCount()];
+            titleStamps = new int[catalog.getTitleCount()];
+            top = new TopK(0, catalog.getTitleIds(), catalog.getTitleCount());
+        }
+        
+        int nextTitleStamp() {
+            if (++titleStamp == Integer.MAX_VALUE) {
+                Arrays.fill(titleStamps, 0);
+                titleStamp = 1;
+            }
+            return titleStamp;
+        }
+        
+        void addLiked(int index, int position) {
+            if (index == likedPositions.length) {
+                likedPositions = Arrays.copyOf(likedPositions, index * 2);
+            }
+            likedPositions[index] = position;
+        }
+        
+        int[] candidates(int capacity) {
+            if (candidates.length < capacity) {
+                candidates = new int[Math.max(capacity, candidates.length * 2)];
+            }
+            return candidates;
+        }
+        
+        void ensureAls(int rank) {
+            if (alsVector.length != rank) {
+                alsWork = new double[rank * rank + rank];
+                alsVector = new float[rank];
+            }
+        }
+        
+        TopK topK(int capacity) {
+            top.clear();
+            if (top.capacity() != capacity) {
+                top = top.withCapacity(capacity);
+            }
+            ranked(capacity);
+            return top;
+        }
+        
+        int[] ranked(int capacity) {
+            if (ranked.length != capacity) {
+                ranked = new int[capacity];
+            }
+            return ranked;
+        }
+    }
 }
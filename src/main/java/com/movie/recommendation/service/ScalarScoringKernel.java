@@ -0,0 +1,26 @@
+package com.movie.recommendation.service;
+
+/**
+ * Plain loop implementation of ScoringKernel, accumulating in double like
+ * AlsModel.score(). Always available; the JIT may or may not vectorize it.
+ */
+final class ScalarScoringKernel implements ScoringKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void dotRows(float[] vector, int vectorOffset, float[] matrix, int width, int fromRow, int toRow,
+                        float[] out) {
+        for (int row = fromRow; row < toRow; row++) {
+            int rowOffset = row * width;
+            double sum = 0;
+            for (int k = 0; k < width; k++) {
+                sum += vector[vectorOffset + k] * matrix[rowOffset + k];
+            }
+            out[row - fromRow] = (float) sum;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.movie.recommendation.service;
+
+/**
+ * Dense scoring loop: dot products of one vector with consecutive rows of a
+ * row-major matrix, e.g. a user vector with the ALS item factors.
+ *
+ * Implementations must be stateless and safe to call from several threads.
+ *
+ * TESTING NOTE:
+ * Every implementation must match the scalar kernel within float rounding.
+ */
+public interface ScoringKernel {
+
+    /**
+     * Gets the name used in reports.
+     *
+     * @return the kernel name
+     */
+    String getName();
+
+    /**
+     * Computes out[r - fromRow] = dot(vector[vectorOffset .. vectorOffset + width), row r of matrix)
+     * for every row r in fromRow..toRow.
+     *
+     * @param vector the vector
+     * @param vectorOffset start of the vector in its array
+     * @param matrix row-major matrix with rows of length width
+     * @param width row length
+     * @param fromRow first row, inclusive
+     * @param toRow last row, exclusive
+     * @param out receives toRow - fromRow scores
+     */
+    void dotRows(float[] vector, int vectorOffset, float[] matrix, int width, int fromRow, int toRow, float[] out);
+}
@@ -0,0 +1,61 @@
+package com.movie.recommendation.service;
+
+/**
+ * Chooses a ScoringKernel at runtime.
+ *
+ * The SIMD kernel lives in src/vector/java and uses the incubating
+ * jdk.incubator.vector module, so it is only compiled by the opt-in vector
+ * build (build.sh --vector) and only loads when the JVM runs with
+ * --add-modules jdk.incubator.vector. In every other case best() quietly
+ * falls back to the scalar kernel.
+ *
+ * TESTING NOTE:
+ * best() never fails; it returns the scalar kernel without the vector build.
+ */
+public final class ScoringKernels {
+
+    private static final String VECTOR_KERNEL = "com.movie.recommendation.service.VectorScoringKernel";
+    private static final ScoringKernel SCALAR = new ScalarScoringKernel();
+    private static final ScoringKernel BEST = loadVectorKernel();
+
+    private ScoringKernels() {
+    }
+
+    /**
+     * Gets the scalar kernel.
+     *
+     * @return the plain loop kernel
+     */
+    public static ScoringKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Gets the fastest available kernel.
+     *
+     * @return the SIMD kernel if it was built and its module is present, else the scalar kernel
+     */
+    public static ScoringKernel best() {
+        return BEST;
+    }
+
+    /**
+     * Checks whether the SIMD kernel is available.
+     *
+     * @return true if best() is the SIMD kernel
+     */
+    public static boolean isVectorAvailable() {
+        return BEST != SCALAR;
+    }
+
+    private static ScoringKernel loadVectorKernel() {
+        try {
+            ScoringKernel kernel = (ScoringKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            // Fail here, not on the first request, if the module is missing at link time
+            kernel.dotRows(new float[1], 0, new float[1], 1, 0, 1, new float[1]);
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.movie.recommendation.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent computations of the same key.
+ *
+ * The first caller of a key (the leader) runs the computation on its own
+ * thread; callers arriving while it runs get the leader's future instead of
+ * computing again. The key is forgotten as soon as the computation ends, so
+ * this is not a cache: a later call computes afresh. A failure is shared by
+ * the callers of that flight only.
+ *
+ * TESTING NOTE:
+ * - N concurrent calls of one key run the computation once
+ * - Calls after completion run it again
+ * - An exception completes every waiting future exceptionally
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    /**
+     * Runs the computation of a key, or joins the one already running.
+     *
+     * @param key the key; equal keys must have equal results
+     * @param computation computes the result; called on the leader's thread
+     * @return the future of the result, already completed for the leader
+     */
+    public CompletableFuture<V> execute(K key, Supplier<V> computation) {
+        Flight<V> mine = new Flight<>();
+        Flight<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            running.followers.incrementAndGet();
+            coalesced.increment();
+            return running.future;
+        }
+
+        long start = System.nanoTime();
+        try {
+            mine.future.complete(computation.get());
+        } catch (RuntimeException | Error e) {
+            mine.future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, mine);
+            long elapsed = System.nanoTime() - start;
+            executions.increment();
+            savedNanos.add(elapsed * mine.followers.get());
+        }
+        return mine.future;
+    }
+
+    /**
+     * Gets the number of computations run.
+     *
+     * @return the leader count
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * Gets the number of calls that joined a running computation.
+     *
+     * @return the follower count
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the computation time not spent thanks to coalescing: for every
+     * flight, its duration times the number of callers that joined it.
+     *
+     * @return the saved computation time in nanoseconds
+     */
+    public long getSavedNanos() {
+        return savedNanos.sum();
+    }
+
+    /**
+     * Gets the number of computations running now.
+     *
+     * @return the in-flight key count
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Resets the counters to 0.
+     */
+    public void resetMetrics() {
+        executions.reset();
+        coalesced.reset();
+        savedNanos.reset();
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final AtomicInteger followers = new AtomicInteger();
+    }
+}
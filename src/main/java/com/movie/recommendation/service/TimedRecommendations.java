@@ -0,0 +1,85 @@
+package com.movie.recommendation.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recommendations computed under a deadline, with how they were obtained.
+ */
+public class TimedRecommendations {
+
+    /**
+     * How the request was served.
+     */
+    public enum Status {
+        /** The candidate scan completed */
+        COMPLETE,
+        /** The deadline stopped the scan; titles are the best of the candidates scored */
+        PARTIAL,
+        /** Admission control dropped the request before it ran; there are no titles */
+        SHED
+    }
+
+    private final List<String> titles;
+    private final Status status;
+    private long queueWaitNanos = 0;
+
+    /**
+     * Constructs a result.
+     *
+     * @param titles the recommended titles, best first
+     * @param status how the request was served
+     */
+    public TimedRecommendations(List<String> titles, Status status) {
+        this.titles = titles;
+        this.status = status;
+    }
+
+    /**
+     * Constructs the result of a request dropped by admission control.
+     *
+     * @param queueWaitNanos time the request waited before being dropped
+     * @return a SHED result without titles
+     */
+    public static TimedRecommendations shed(long queueWaitNanos) {
+        TimedRecommendations result = new TimedRecommendations(Collections.emptyList(), Status.SHED);
+        result.setQueueWaitNanos(queueWaitNanos);
+        return result;
+    }
+
+    /**
+     * Gets the recommended titles.
+     *
+     * @return the titles, best first; empty when shed
+     */
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    /**
+     * Gets how the request was served.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the time the request waited in a queue before it ran or was dropped.
+     *
+     * @return the queue wait in nanoseconds, 0 if it was not queued
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    /**
+     * Sets the time the request waited in a queue.
+     *
+     * @param queueWaitNanos the queue wait in nanoseconds
+     */
+    public void setQueueWaitNanos(long queueWaitNanos) {
+        this.queueWaitNanos = queueWaitNanos;
+    }
+}
@@ -0,0 +1,43 @@
+package com.movie.recommendation.service;
+
+import com.movie.recommendation.model.User;
+
+import java.util.List;
+
+/**
+ * A user and the recommendations computed for it, as emitted by RecommendationPublisher.
+ */
+public class UserRecommendation {
+
+    private final User user;
+    private final List<String> recommendations;
+
+    /**
+     * Constructs a pair.
+     *
+     * @param user the user
+     * @param recommendations the recommended titles
+     */
+    public UserRecommendation(User user, List<String> recommendations) {
+        this.user = user;
+        this.recommendations = recommendations;
+    }
+
+    /**
+     * Gets the user.
+     *
+     * @return the user
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Gets the recommendations.
+     *
+     * @return the recommended titles
+     */
+    public List<String> getRecommendations() {
+        return recommendations;
+    }
+}
@@ -0,0 +1,112 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.LikesTable;
+import com.movie.recommendation.index.TopK;
+import com.movie.recommendation.service.AlsModel;
+import com.movie.recommendation.service.AlsTrainer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark for AlsTrainer: training time per iteration and memory as the data grows.
+ *
+ * Likes are generated in memory with Zipf-distributed popularity, so item
+ * counts beyond the 1000 movie file limit can be tested. For every user count
+ * the benchmark trains a model and reports the mean and max iteration time,
+ * the size of the factor arrays and the likes table, the heap in use after
+ * training and the mean time to score all items for one user into a top-K.
+ *
+ * Usage:
+ * java -Xmx8g -cp bin com.movie.recommendation.tools.AlsBenchmark [users1,users2,...] [items] [rank] [iterations] [threads]
+ */
+public class AlsBenchmark {
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [userSizes] [items] [rank] [iterations] [threads]
+     */
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "10000,100000,1000000";
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int rank = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("items=%d rank=%d iterations=%d threads=%d%n", items, rank, iterations, threads);
+        System.out.println("users,likes,mean_iteration_ms,max_iteration_ms,model_mb,likes_mb,heap_used_mb,score_us");
+
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), items, rank, iterations, threads);
+        }
+    }
+
+    private static void run(int users, int items, int rank, int iterations, int threads) {
+        LikesTable likes = generate(users, items, new Random(3));
+
+        AlsTrainer trainer = new AlsTrainer(rank, iterations);
+        trainer.setParallelism(threads);
+        AlsModel model = trainer.train(likes);
+
+        long[] nanos = trainer.getIterationNanos();
+        long total = 0;
+        long max = 0;
+        for (long n : nanos) {
+            total += n;
+            max = Math.max(max, n);
+        }
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+        // Scoring path: all items of one trained user into a top-10
+        TopK top = new TopK(10);
+        int[] ranked = new int[10];
+        int samples = Math.min(users, 200);
+        long scoreStart = System.nanoTime();
+        for (int u = 0; u < samples; u++) {
+            int[] liked = Arrays.copyOfRange(likes.getColumns(), likes.rowStart(u), likes.rowEnd(u));
+            model.recommend(model.getUserFactors(), u * rank, liked, liked.length, top);
+            top.drainSorted(ranked);
+        }
+        double scoreUs = (System.nanoTime() - scoreStart) / 1000.0 / samples;
+
+        System.out.printf("%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f%n", users, likes.getEntryCount(),
+                total / 1e6 / nanos.length, max / 1e6,
+                model.getMemoryBytes() / 1048576.0, likes.getMemoryBytes() / 1048576.0,
+                heapUsed / 1048576.0, scoreUs);
+    }
+
+    /**
+     * Builds a likes table with 1..20 Zipf-distributed distinct likes per user.
+     */
+    static LikesTable generate(int users, int items, Random random) {
+        DatasetGenerator.ZipfSampler sampler = new DatasetGenerator.ZipfSampler(items, 1.0);
+        int[] offsets = new int[users + 1];
+        int[] columns = new int[users * 8];
+        int[] row = new int[20];
+        for (int u = 0; u < users; u++) {
+            int wanted = 1 + random.nextInt(row.length);
+            int count = 0;
+            for (int attempt = 0; count < wanted && attempt < wanted * 4; attempt++) {
+                int item = sampler.sample(random);
+                boolean seen = false;
+                for (int i = 0; i < count && !seen; i++) {
+                    seen = row[i] == item;
+                }
+                if (!seen) {
+                    row[count++] = item;
+                }
+            }
+            Arrays.sort(row, 0, count);
+            if (offsets[u] + count > columns.length) {
+                columns = Arrays.copyOf(columns, columns.length * 2);
+            }
+            System.arraycopy(row, 0, columns, offsets[u], count);
+            offsets[u + 1] = offsets[u] + count;
+        }
+        return new LikesTable(items, offsets, Arrays.copyOf(columns, offsets[users]));
+    }
+}
@@ -0,0 +1,138 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.RoaringBitmap;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.RecommendationService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark of genre matching: compressed genre bitmaps against the original scan.
+ *
+ * The catalog is generated in memory (so it can exceed the 1000 movie file
+ * limit) with Zipf-distributed genres. For every catalog size the benchmark
+ * reports:
+ * - scan_us: RecommendationService.getRecommendations(), which scans all movies
+ * - bitmap_us: getRankedRecommendations() with the default ranking, which
+ *   computes OR(liked genre bitmaps) ANDNOT liked movies
+ * - setop_us: the bitmap operations alone
+ * - the memory of the genre bitmaps against plain int posting lists
+ * Both paths are checked to return the same titles for every sampled user.
+ *
+ * Usage:
+ * java -Xmx4g -cp bin com.movie.recommendation.tools.BitmapBenchmark [movies1,movies2,...] [genres] [users]
+ */
+public class BitmapBenchmark {
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [movieSizes] [genres] [users]
+     */
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "10000,100000,1000000";
+        int genres = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.printf("genres=%d users=%d%n", genres, users);
+        System.out.println("movies,postings,bitmap_kb,int_postings_kb,mean_candidates,scan_us,bitmap_us,setop_us");
+
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), genres, users);
+        }
+    }
+
+    private static void run(int movieCount, int genreCount, int userCount) {
+        Random random = new Random(5);
+        DatasetGenerator.ZipfSampler genreSampler = new DatasetGenerator.ZipfSampler(genreCount, 1.0);
+        DatasetGenerator.ZipfSampler movieSampler = new DatasetGenerator.ZipfSampler(movieCount, 1.0);
+
+        List<Movie> movies = new ArrayList<>(movieCount);
+        long postings = 0;
+        for (int m = 0; m < movieCount; m++) {
+            List<String> movieGenres = new ArrayList<>();
+            int count = 1 + random.nextInt(3);
+            for (int g = 0; g < count; g++) {
+                String genre = "genre" + genreSampler.sample(random);
+                if (!movieGenres.contains(genre)) {
+                    movieGenres.add(genre);
+                }
+            }
+            postings += movieGenres.size();
+            movies.add(new Movie("Movie " + m, "M" + m, movieGenres));
+        }
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int u = 0; u < userCount; u++) {
+            List<String> liked = new ArrayList<>();
+            int count = 1 + random.nextInt(5);
+            for (int i = 0; i < count; i++) {
+                liked.add("M" + movieSampler.sample(random));
+            }
+            users.add(new User("User", DatasetGenerator.userId(u), liked));
+        }
+
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService scanService = new RecommendationService();
+        RecommendationService bitmapService = new RecommendationService(catalog);
+
+        long bitmapBytes = 0;
+        for (int g = 0; g < catalog.getGenreCount(); g++) {
+            bitmapBytes += catalog.getGenreBitmap(g).getMemoryBytes();
+        }
+
+        // The scan builds a movie map per call, so it is sampled on fewer users
+        int scanUsers = Math.max(1, Math.min(userCount, 20_000_000 / movieCount));
+        long candidates = 0;
+        long scanNanos = 0;
+        long bitmapNanos = 0;
+        for (int round = 0; round < 2; round++) {
+            scanNanos = 0;
+            bitmapNanos = 0;
+            candidates = 0;
+            for (int u = 0; u < userCount; u++) {
+                User user = users.get(u);
+                long start = System.nanoTime();
+                List<String> fromBitmap = bitmapService.getRankedRecommendations(user);
+                bitmapNanos += System.nanoTime() - start;
+                candidates += fromBitmap.size();
+
+                if (u < scanUsers) {
+                    start = System.nanoTime();
+                    List<String> fromScan = scanService.getRecommendations(user, movies);
+                    scanNanos += System.nanoTime() - start;
+                    if (!new HashSet<>(fromScan).equals(new HashSet<>(fromBitmap))) {
+                        throw new IllegalStateException("Results differ for user " + user.getId());
+                    }
+                }
+            }
+        }
+
+        long setOpNanos = 0;
+        RoaringBitmap[] liked = new RoaringBitmap[catalog.getGenreCount()];
+        for (User user : users) {
+            long start = System.nanoTime();
+            int genres = 0;
+            RoaringBitmap likedMovies = new RoaringBitmap();
+            for (String id : user.getLikedMovieIds()) {
+                int position = catalog.positionOf(id);
+                likedMovies.add(position);
+                for (int g = catalog.genreStart(position); g < catalog.genreEnd(position); g++) {
+                    liked[genres++] = catalog.getGenreBitmap(catalog.getMovieGenres()[g]);
+                }
+            }
+            RoaringBitmap.or(liked, genres).andNot(likedMovies);
+            setOpNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%d,%d,%d,%d,%d,%.1f,%.1f,%.1f%n", movieCount, postings,
+                bitmapBytes / 1024, postings * 4 / 1024, candidates / userCount,
+                scanNanos / 1000.0 / scanUsers, bitmapNanos / 1000.0 / userCount,
+                setOpNanos / 1000.0 / userCount);
+    }
+}
@@ -0,0 +1,136 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.CoalescingRecommender;
+import com.movie.recommendation.service.RecommendationService;
+import com.movie.recommendation.service.SingleFlight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Synthetic burst load of getRecommendations(), with and without coalescing.
+ *
+ * Client threads wait on a barrier and then all request at once, so every
+ * round is a burst. Requested users are drawn from a small Zipf-distributed
+ * hot set, as when a popular page or a retry storm hits the server. Each
+ * configuration (no coalescing, coalescing by user ID, coalescing by genre
+ * signature) runs the same rounds after a warm-up, and the report gives the
+ * request latency in microseconds, the number of catalog scans run and the
+ * scan time saved by coalescing.
+ *
+ * Usage:
+ * java -cp bin com.movie.recommendation.tools.CoalescingBenchmark [movies] [hotUsers] [threads] [rounds]
+ */
+public class CoalescingBenchmark {
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [movies] [hotUsers] [threads] [rounds]
+     * @throws Exception if a client thread fails
+     */
+    public static void main(String[] args) throws Exception {
+        int movieCount = args.length > 0 ? Integer.parseInt(args[0]) : DatasetGenerator.MAX_MOVIES;
+        int hotUsers = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+
+        Random random = new Random(17);
+        String[] genres = DatasetGenerator.genreNames(20);
+        DatasetGenerator.ZipfSampler genreSampler = new DatasetGenerator.ZipfSampler(genres.length, 1.0);
+        List<Movie> movies = new ArrayList<>(movieCount);
+        for (int m = 0; m < movieCount; m++) {
+            List<String> movieGenres = new ArrayList<>();
+            for (int g = 1 + random.nextInt(3); g > 0; g--) {
+                String genre = genres[genreSampler.sample(random)];
+                if (!movieGenres.contains(genre)) {
+                    movieGenres.add(genre);
+                }
+            }
+            movies.add(new Movie("Movie " + m, "M" + m, movieGenres));
+        }
+        List<User> users = new ArrayList<>(hotUsers);
+        for (int u = 0; u < hotUsers; u++) {
+            List<String> liked = new ArrayList<>();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                liked.add("M" + random.nextInt(movieCount));
+            }
+            users.add(new User("User", DatasetGenerator.userId(u), liked));
+        }
+        DatasetGenerator.ZipfSampler userSampler = new DatasetGenerator.ZipfSampler(hotUsers, 1.2);
+        int[][] picks = new int[threads][rounds];
+        for (int[] threadPicks : picks) {
+            for (int r = 0; r < rounds; r++) {
+                threadPicks[r] = userSampler.sample(random);
+            }
+        }
+
+        System.out.printf("movies=%d hot_users=%d threads=%d rounds=%d%n", movieCount, hotUsers, threads, rounds);
+        System.out.println("mode,requests,mean_us,p99_us,scans,coalesced,saved_ms");
+        RecommendationService service = new RecommendationService();
+        String[] modes = {"NONE", "USER_ID", "GENRE_SIGNATURE"};
+        for (String mode : modes) {
+            CoalescingRecommender coalescer = mode.equals("NONE") ? null
+                    : new CoalescingRecommender(service, movies, CoalescingRecommender.Key.valueOf(mode));
+            burst(service, coalescer, movies, users, picks);
+            if (coalescer != null) {
+                coalescer.getFlights().resetMetrics();
+            }
+            long[] nanos = burst(service, coalescer, movies, users, picks);
+            Arrays.sort(nanos);
+            double mean = Arrays.stream(nanos).average().orElse(0) / 1000.0;
+            SingleFlight<String, ?> flights = coalescer == null ? null : coalescer.getFlights();
+            System.out.printf("%s,%d,%.1f,%.1f,%d,%d,%.1f%n", mode, nanos.length, mean,
+                    nanos[(int) Math.ceil(0.99 * nanos.length) - 1] / 1000.0,
+                    flights == null ? nanos.length : flights.getExecutions(),
+                    flights == null ? 0 : flights.getCoalesced(),
+                    flights == null ? 0.0 : flights.getSavedNanos() / 1e6);
+        }
+    }
+
+    private static long[] burst(RecommendationService service, CoalescingRecommender coalescer, List<Movie> movies,
+                                List<User> users, int[][] picks) throws Exception {
+        int threads = picks.length;
+        int rounds = picks[0].length;
+        long[] nanos = new long[threads * rounds];
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] clients = new Thread[threads];
+        Exception[] failures = new Exception[threads];
+        for (int t = 0; t < threads; t++) {
+            int client = t;
+            clients[t] = new Thread(() -> {
+                try {
+                    for (int r = 0; r < rounds; r++) {
+                        barrier.await();
+                        User user = users.get(picks[client][r]);
+                        long begin = System.nanoTime();
+                        if (coalescer == null) {
+                            service.getRecommendations(user, movies);
+                        } else {
+                            coalescer.getRecommendations(user);
+                        }
+                        nanos[client * rounds + r] = System.nanoTime() - begin;
+                    }
+                } catch (Exception e) {
+                    failures[client] = e;
+                    barrier.reset();
+                }
+            }, "burst-client-" + t);
+            clients[t].start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        for (Exception failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return nanos;
+    }
+}
@@ -0,0 +1,496 @@
+package com.movie.recommendation.tools;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generates synthetic movies.txt and users.txt files of any size.
+ *
+ * Every generated record follows the validation rules enforced by
+ * MovieValidator and UserValidator, so the files can be fed straight into
+ * Main.processFiles():
+ * - Titles are built from capitalised words, and the movie ID is the title's
+ *   capital letters followed by a unique 3 digit number (setIdDigits() widens
+ *   it for catalogs of more than MAX_MOVIES)
+ * - User names contain only letters and spaces
+ * - User IDs are 8 digits followed by a digit or one uppercase letter, unique per user
+ *
+ * Genres and likes are drawn from Zipf distributions so that a few genres and
+ * a few movies dominate, as they do in real catalogs. A configurable share of
+ * "extreme" users either like a very large number of movies or like nothing.
+ *
+ * TESTING NOTE:
+ * Parse the generated files with MovieParser and UserParser using fresh
+ * validators. No ValidationException may be thrown for any seed or size.
+ *
+ * Usage:
+ * java -cp bin com.movie.recommendation.tools.DatasetGenerator movies users outputDir [genres] [seed] [idDigits]
+ */
+public class DatasetGenerator {
+
+    /** Largest catalog the default 3 digit movie ID number space can hold. */
+    public static final int MAX_MOVIES = 1000;
+
+    /** Largest user count the 8 digit user ID prefix can hold. */
+    public static final int MAX_USERS = 100_000_000;
+
+    // Real genre names are used first so that small datasets stay readable
+    private static final String[] BASE_GENRES = {
+        "action", "drama", "comedy", "thriller", "sci-fi", "crime", "romance",
+        "horror", "mystery", "animation", "adventure", "fantasy", "documentary",
+        "family", "war", "western", "musical", "history", "biography", "sport"
+    };
+
+    // No word starts with Q or X, so dangling IDs (prefix "QX") never collide with real ones
+    private static final String[] TITLE_WORDS = {
+        "The", "Dark", "Night", "Silent", "River", "Storm", "Lost", "City", "Last",
+        "Road", "Iron", "Star", "Blue", "Garden", "Shadow", "Empire", "Broken",
+        "Glass", "Winter", "Summer", "Falling", "Golden", "Hidden", "Wild", "Moon",
+        "Fire", "Ocean", "Paper", "Stone", "Red", "Echo", "Velvet", "Mountain",
+        "Kingdom", "Zero", "Ghost", "Yellow", "Under", "Over", "Journey"
+    };
+
+    private static final String[] FIRST_NAMES = {
+        "Alice", "Bob", "Charlie", "Diana", "Ethan", "Fiona", "George", "Hannah",
+        "Ivan", "Julia", "Kevin", "Laura", "Mina", "Nora", "Omar", "Paula",
+        "Rami", "Sara", "Tariq", "Yara"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Brown", "Taylor", "Anderson", "Thomas", "Jackson",
+        "White", "Harris", "Martin", "Garcia", "Wilson", "Lopez", "Young", "King"
+    };
+
+    private static final String DANGLING_ID_PREFIX = "QX";
+
+    private int genreCount = 20;
+    private int maxGenresPerMovie = 3;
+    private double genreSkew = 1.0;
+    private double likeSkew = 1.1;
+    private int meanLikesPerUser = 5;
+    private double heavyUserFraction = 0.001;
+    private int heavyUserLikes = 500;
+    private double emptyUserFraction = 0.01;
+    private double danglingLikeFraction = 0.0;
+    private long seed = 42L;
+    private int idDigits = 3;
+
+    /**
+     * Sets the number of distinct genres in the catalog (genre cardinality).
+     *
+     * @param genreCount number of genres, at least 1
+     */
+    public void setGenreCount(int genreCount) {
+        if (genreCount < 1) {
+            throw new IllegalArgumentException("genreCount must be at least 1");
+        }
+        this.genreCount = genreCount;
+    }
+
+    /**
+     * Sets the maximum number of genres a single movie can have.
+     *
+     * @param maxGenresPerMovie maximum genres per movie, at least 1
+     */
+    public void setMaxGenresPerMovie(int maxGenresPerMovie) {
+        if (maxGenresPerMovie < 1) {
+            throw new IllegalArgumentException("maxGenresPerMovie must be at least 1");
+        }
+        this.maxGenresPerMovie = maxGenresPerMovie;
+    }
+
+    /**
+     * Sets the Zipf exponent used to pick genres. 0 means uniform.
+     *
+     * @param genreSkew the Zipf exponent for genres
+     */
+    public void setGenreSkew(double genreSkew) {
+        this.genreSkew = genreSkew;
+    }
+
+    /**
+     * Sets the Zipf exponent used to pick liked movies. 0 means uniform.
+     *
+     * @param likeSkew the Zipf exponent for likes
+     */
+    public void setLikeSkew(double likeSkew) {
+        this.likeSkew = likeSkew;
+    }
+
+    /**
+     * Sets the average number of liked movies for a regular user.
+     *
+     * @param meanLikesPerUser mean likes per regular user
+     */
+    public void setMeanLikesPerUser(int meanLikesPerUser) {
+        this.meanLikesPerUser = meanLikesPerUser;
+    }
+
+    /**
+     * Sets the share of users that like a very large number of movies.
+     *
+     * @param heavyUserFraction fraction between 0 and 1
+     */
+    public void setHeavyUserFraction(double heavyUserFraction) {
+        this.heavyUserFraction = heavyUserFraction;
+    }
+
+    /**
+     * Sets how many movies a heavy user likes (capped by the catalog size).
+     *
+     * @param heavyUserLikes likes per heavy user
+     */
+    public void setHeavyUserLikes(int heavyUserLikes) {
+        this.heavyUserLikes = heavyUserLikes;
+    }
+
+    /**
+     * Sets the share of users that like no movies at all.
+     *
+     * @param emptyUserFraction fraction between 0 and 1
+     */
+    public void setEmptyUserFraction(double emptyUserFraction) {
+        this.emptyUserFraction = emptyUserFraction;
+    }
+
+    /**
+     * Sets the share of liked IDs that do not exist in the catalog.
+     *
+     * @param danglingLikeFraction fraction between 0 and 1
+     */
+    public void setDanglingLikeFraction(double danglingLikeFraction) {
+        this.danglingLikeFraction = danglingLikeFraction;
+    }
+
+    /**
+     * Sets how many digits follow the letters of a generated movie ID. The
+     * movies file must then be parsed with MovieValidator.setIdDigits() set
+     * to the same value.
+     *
+     * @param idDigits number of digits, between 3 and 9
+     */
+    public void setIdDigits(int idDigits) {
+        if (idDigits < 3 || idDigits > 9) {
+            throw new IllegalArgumentException("idDigits must be between 3 and 9");
+        }
+        this.idDigits = idDigits;
+    }
+
+    /**
+     * Gets the largest catalog the configured movie ID number space can hold.
+     *
+     * @return 10 to the power of the ID digits
+     */
+    public int getMaxMovies() {
+        int max = 1;
+        for (int d = 0; d < idDigits; d++) {
+            max *= 10;
+        }
+        return max;
+    }
+
+    /**
+     * Sets the random seed. The same seed and sizes always produce the same files.
+     *
+     * @param seed the random seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates both input files.
+     *
+     * @param movieCount number of movies to generate (at most getMaxMovies())
+     * @param userCount number of users to generate (at most MAX_USERS)
+     * @param moviesFilePath path of the movies file to write
+     * @param usersFilePath path of the users file to write
+     * @throws IOException if a file cannot be written
+     */
+    public void generate(int movieCount, int userCount, String moviesFilePath, String usersFilePath)
+            throws IOException {
+        String[] movieIds = generateMovies(movieCount, moviesFilePath);
+        generateUsers(userCount, movieIds, usersFilePath);
+    }
+
+    /**
+     * Writes the movies file.
+     *
+     * @param movieCount number of movies to generate
+     * @param moviesFilePath path of the movies file to write
+     * @return the generated movie IDs, in file order
+     * @throws IOException if the file cannot be written
+     */
+    public String[] generateMovies(int movieCount, String moviesFilePath) throws IOException {
+        int maxMovies = getMaxMovies();
+        if (movieCount < 0 || movieCount > maxMovies) {
+            throw new IllegalArgumentException("movieCount must be between 0 and " + maxMovies);
+        }
+        String numberFormat = "%0" + idDigits + "d";
+
+        Random random = new Random(seed);
+        String[] genres = genreNames(genreCount);
+        ZipfSampler genreSampler = new ZipfSampler(genreCount, genreSkew);
+        String[] movieIds = new String[movieCount];
+        int[] chosen = new int[Math.min(maxGenresPerMovie, genreCount)];
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(moviesFilePath), 1 << 16)) {
+            for (int i = 0; i < movieCount; i++) {
+                String title = randomTitle(random);
+                String id = capitalLetters(title) + String.format(numberFormat, i);
+                movieIds[i] = id;
+
+                writer.write(title);
+                writer.write(',');
+                writer.write(id);
+                writer.write('\n');
+
+                // Pick 1..maxGenresPerMovie distinct genres
+                int wanted = 1 + random.nextInt(chosen.length);
+                int picked = 0;
+                for (int attempt = 0; picked < wanted && attempt < wanted * 8; attempt++) {
+                    int genre = genreSampler.sample(random);
+                    if (!contains(chosen, picked, genre)) {
+                        chosen[picked++] = genre;
+                    }
+                }
+                for (int g = 0; g < picked; g++) {
+                    if (g > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(genres[chosen[g]]);
+                }
+                writer.write('\n');
+            }
+        }
+
+        return movieIds;
+    }
+
+    /**
+     * Writes the users file.
+     *
+     * @param userCount number of users to generate
+     * @param movieIds the catalog movie IDs users can like
+     * @param usersFilePath path of the users file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void generateUsers(int userCount, String[] movieIds, String usersFilePath) throws IOException {
+        if (userCount < 0 || userCount > MAX_USERS) {
+            throw new IllegalArgumentException("userCount must be between 0 and " + MAX_USERS);
+        }
+
+        // Separate stream so the users file does not depend on the movie count
+        Random random = new Random(seed * 31 + 7);
+        int movieCount = movieIds.length;
+        ZipfSampler likeSampler = movieCount > 0 ? new ZipfSampler(movieCount, likeSkew) : null;
+
+        // Shuffle popularity ranks so popular movies are spread over the file
+        int[] rankToMovie = new int[movieCount];
+        for (int i = 0; i < movieCount; i++) {
+            rankToMovie[i] = i;
+        }
+        for (int i = movieCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = rankToMovie[i];
+            rankToMovie[i] = rankToMovie[j];
+            rankToMovie[j] = tmp;
+        }
+
+        // Stamp array avoids clearing a "seen" set for every user
+        int[] seenStamp = new int[movieCount];
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(usersFilePath), 1 << 16)) {
+            for (int i = 0; i < userCount; i++) {
+                writer.write(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+                writer.write(' ');
+                writer.write(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                writer.write(',');
+                writer.write(userId(i));
+                writer.write('\n');
+
+                int likes = likeCount(random, movieCount);
+                int written = 0;
+                int stamp = i + 1;
+                for (int attempt = 0; written < likes && attempt < likes * 20; attempt++) {
+                    if (danglingLikeFraction > 0 && random.nextDouble() < danglingLikeFraction) {
+                        if (written > 0) {
+                            writer.write(',');
+                        }
+                        writer.write(DANGLING_ID_PREFIX + String.format("%03d", random.nextInt(1000)));
+                        written++;
+                        continue;
+                    }
+                    int movie = rankToMovie[likeSampler.sample(random)];
+                    if (seenStamp[movie] == stamp) {
+                        continue;
+                    }
+                    seenStamp[movie] = stamp;
+                    if (written > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(movieIds[movie]);
+                    written++;
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Builds the user ID for the i-th generated user.
+     * Every seventh user gets an ID ending in an uppercase letter.
+     *
+     * @param index zero-based user index
+     * @return a valid, unique 9 character user ID
+     */
+    static String userId(int index) {
+        String prefix = String.format("%08d", index);
+        if (index % 7 == 0) {
+            return prefix + (char) ('A' + index % 26);
+        }
+        return prefix + (index % 10);
+    }
+
+    /**
+     * Builds genre names, starting with real genres and continuing with
+     * synthetic letter-only names ("genreab", "genreac", ...).
+     *
+     * @param count number of genre names
+     * @return array of distinct genre names
+     */
+    static String[] genreNames(int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (i < BASE_GENRES.length) {
+                names[i] = BASE_GENRES[i];
+            } else {
+                StringBuilder sb = new StringBuilder("genre");
+                int n = i - BASE_GENRES.length;
+                do {
+                    sb.append((char) ('a' + n % 26));
+                    n /= 26;
+                } while (n > 0);
+                names[i] = sb.toString();
+            }
+        }
+        return names;
+    }
+
+    private int likeCount(Random random, int movieCount) {
+        double roll = random.nextDouble();
+        if (roll < emptyUserFraction || movieCount == 0) {
+            return 0;
+        }
+        if (roll < emptyUserFraction + heavyUserFraction) {
+            return Math.min(heavyUserLikes, movieCount);
+        }
+        // Geometric-like spread around the mean, at least one like
+        int likes = 1 + (int) (-Math.log(1.0 - random.nextDouble()) * Math.max(0, meanLikesPerUser - 1));
+        return Math.min(likes, movieCount);
+    }
+
+    private static String randomTitle(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String capitalLetters(String title) {
+        StringBuilder letters = new StringBuilder();
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (Character.isUpperCase(c)) {
+                letters.append(c);
+            }
+        }
+        return letters.toString();
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s.
+     * Uses a precomputed cumulative table and binary search.
+     */
+    static class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args movies users outputDir [genres] [seed] [idDigits]; idDigits defaults to
+     *             the fewest digits that fit the movie count
+     * @throws IOException if a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: DatasetGenerator <movies> <users> <outputDir> [genres] [seed] [idDigits]");
+            System.exit(1);
+        }
+        DatasetGenerator generator = new DatasetGenerator();
+        if (args.length > 3) {
+            generator.setGenreCount(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            generator.setSeed(Long.parseLong(args[4]));
+        }
+        int movies = Integer.parseInt(args[0]);
+        if (args.length > 5) {
+            generator.setIdDigits(Integer.parseInt(args[5]));
+        } else {
+            int digits = 3;
+            while (digits < 9 && movies > generator.getMaxMovies()) {
+                generator.setIdDigits(++digits);
+            }
+        }
+        String dir = args[2];
+        new java.io.File(dir).mkdirs();
+        generator.generate(movies, Integer.parseInt(args[1]),
+                dir + "/movies.txt", dir + "/users.txt");
+        System.out.println("Dataset written to: " + dir);
+    }
+}
@@ -0,0 +1,114 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.events.LikeEventLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of the like event log: append throughput and startup replay speed.
+ *
+ * Appends the given number of events (Zipf-distributed movies, uniform users,
+ * one unlike in ten), then measures:
+ * 1. open() replaying every segment
+ * 2. compact() folding all sealed segments into a snapshot
+ * 3. open() loading the snapshot only
+ *
+ * Usage:
+ * java -Xmx8g -cp bin com.movie.recommendation.tools.EventLogBenchmark [events] [users] [movies] [parent directory]
+ *
+ * The default is 100M events over 1M users, about 900 MB of segments. The log
+ * is written to a new temporary directory (inside the parent directory if
+ * given, e.g. to pick the disk), which is deleted afterwards; nothing else in
+ * the parent directory is touched.
+ */
+public class EventLogBenchmark {
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [events] [users] [movies] [parent directory]
+     * @throws IOException if the log cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        long events = args.length > 0 ? Long.parseLong(args[0]) : 100_000_000L;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int movies = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        // Only a directory created here is deleted at the end
+        Path directory = args.length > 3
+                ? Files.createTempDirectory(Files.createDirectories(Paths.get(args[3])), "like-log-bench")
+                : Files.createTempDirectory("like-log-bench");
+
+        // Ids are precomputed so the timing covers the log, not string formatting
+        String[] userIds = new String[users];
+        for (int u = 0; u < users; u++) {
+            userIds[u] = DatasetGenerator.userId(u);
+        }
+        String[] movieIds = new String[movies];
+        for (int m = 0; m < movies; m++) {
+            movieIds[m] = "M" + m;
+        }
+        DatasetGenerator.ZipfSampler sampler = new DatasetGenerator.ZipfSampler(movies, 1.0);
+        Random random = new Random(9);
+
+        try {
+            long start = System.nanoTime();
+            try (LikeEventLog log = new LikeEventLog(directory)) {
+                log.open();
+                for (long e = 0; e < events; e++) {
+                    log.append(userIds[random.nextInt(users)], movieIds[sampler.sample(random)],
+                            random.nextInt(10) != 0);
+                }
+                log.sync();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("append: %d events in %.1f s (%.0f events/s, %d group commits, %.1f MB)%n",
+                        events, seconds, events / seconds, log.getCommittedFrames(),
+                        directorySize(directory) / 1048576.0);
+            }
+
+            try (LikeEventLog log = new LikeEventLog(directory)) {
+                log.open();
+                double seconds = log.getRecoveryNanos() / 1e9;
+                System.out.printf("replay: %d events in %.1f s (%.0f events/s), %d users, %d likes%n",
+                        log.getRecoveredEvents(), seconds, log.getRecoveredEvents() / seconds,
+                        log.getUserCount(), log.getLikeCount());
+
+                start = System.nanoTime();
+                log.compact();
+                System.out.printf("compact: %.1f s, %.1f MB on disk after%n",
+                        (System.nanoTime() - start) / 1e9, directorySize(directory) / 1048576.0);
+            }
+
+            try (LikeEventLog log = new LikeEventLog(directory)) {
+                log.open();
+                System.out.printf("snapshot load: %.1f s, %d users, %d likes%n",
+                        log.getRecoveryNanos() / 1e9, log.getUserCount(), log.getLikeCount());
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        long total = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                total += Files.size(file);
+            }
+        }
+        return total;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
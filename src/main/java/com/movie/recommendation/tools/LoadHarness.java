@@ -0,0 +1,246 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.Main;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-to-end load harness for Main.processFiles().
+ *
+ * For every user count in the sweep the harness generates a dataset with
+ * DatasetGenerator, then runs the full pipeline (parse, validate, recommend,
+ * write) in a fresh JVM so that heap, RSS and GC numbers of one size do not
+ * leak into the next. Each run appends one row to a CSV file:
+ *
+ * users,movies,genres,input_bytes,wall_ms,peak_heap_bytes,peak_rss_bytes,gc_count,gc_ms
+ *
+ * peak_rss_bytes is read from /proc/self/status (VmHWM) and is -1 on systems
+ * without procfs.
+ *
+ * A run whose input fails validation writes an "Error" output file instead of
+ * recommendations. Its timings describe an aborted pipeline, so it gets no
+ * CSV row; it is reported on the console and counted in the final summary.
+ *
+ * Usage:
+ * java -cp bin com.movie.recommendation.tools.LoadHarness [csvFile] [users1,users2,...] [movies] [genres] [workDir]
+ *
+ * Extra JVM options for the child runs (e.g. -Xmx4g) can be passed with
+ * -Dharness.jvmArgs="-Xmx4g -XX:+UseParallelGC".
+ */
+public class LoadHarness {
+
+    static final String CSV_HEADER =
+            "users,movies,genres,input_bytes,wall_ms,peak_heap_bytes,peak_rss_bytes,gc_count,gc_ms";
+
+    private static final String SINGLE_RUN_FLAG = "--single-run";
+
+    private static final String FAILED_PREFIX = "FAILED,";
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [csvFile] [userSizes] [movies] [genres] [workDir]
+     * @throws Exception if generation or a child run fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && SINGLE_RUN_FLAG.equals(args[0])) {
+            runSingle(args);
+            return;
+        }
+
+        String csvFile = args.length > 0 ? args[0] : "output/load-harness.csv";
+        String sizes = args.length > 1 ? args[1] : "1000,10000,100000,1000000";
+        int movies = args.length > 2 ? Integer.parseInt(args[2]) : DatasetGenerator.MAX_MOVIES;
+        int genres = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        Path workDir = args.length > 4
+                ? Paths.get(args[4])
+                : Files.createTempDirectory("movie-load-harness");
+        Files.createDirectories(workDir);
+
+        int failedRuns = 0;
+        try (BufferedWriter csv = new BufferedWriter(new FileWriter(csvFile))) {
+            csv.write(CSV_HEADER);
+            csv.write('\n');
+
+            for (String size : sizes.split(",")) {
+                int users = Integer.parseInt(size.trim());
+                String moviesPath = workDir.resolve("movies-" + users + ".txt").toString();
+                String usersPath = workDir.resolve("users-" + users + ".txt").toString();
+                String outputPath = workDir.resolve("recommendations-" + users + ".txt").toString();
+
+                DatasetGenerator generator = new DatasetGenerator();
+                generator.setGenreCount(genres);
+                generator.generate(movies, users, moviesPath, usersPath);
+                long inputBytes = new File(moviesPath).length() + new File(usersPath).length();
+
+                String metrics = runChild(moviesPath, usersPath, outputPath);
+                Files.deleteIfExists(Paths.get(outputPath));
+                if (metrics.startsWith(FAILED_PREFIX)) {
+                    failedRuns++;
+                    System.out.println("Run with " + users + " users failed validation, no metrics recorded: "
+                            + metrics.substring(FAILED_PREFIX.length()));
+                    continue;
+                }
+                String row = users + "," + movies + "," + genres + "," + inputBytes + "," + metrics;
+                csv.write(row);
+                csv.write('\n');
+                csv.flush();
+                System.out.println(row);
+            }
+        }
+        if (failedRuns > 0) {
+            System.out.println(failedRuns + " run(s) failed validation and were left out of the results");
+        }
+        System.out.println("Load harness results written to: " + csvFile);
+    }
+
+    /**
+     * Runs one pipeline execution in a child JVM and returns its metrics
+     * columns, or FAILED_PREFIX and the error message if the input failed
+     * validation.
+     */
+    private static String runChild(String moviesPath, String usersPath, String outputPath)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String jvmArgs = System.getProperty("harness.jvmArgs", "").trim();
+        if (!jvmArgs.isEmpty()) {
+            for (String arg : jvmArgs.split("\\s+")) {
+                command.add(arg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadHarness.class.getName());
+        command.add(SINGLE_RUN_FLAG);
+        command.add(moviesPath);
+        command.add(usersPath);
+        command.add(outputPath);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String metrics = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // The metrics line is the last line printed by the child
+                if (line.startsWith("METRICS,")) {
+                    metrics = line.substring("METRICS,".length());
+                } else if (line.startsWith(FAILED_PREFIX)) {
+                    metrics = line;
+                } else {
+                    System.out.println("  " + line);
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || metrics == null) {
+            throw new IOException("Child run failed with exit code " + exitCode);
+        }
+        return metrics;
+    }
+
+    /**
+     * Child side: runs Main.processFiles() once and prints the metrics line,
+     * or a FAILED line if Main wrote an error file instead of recommendations.
+     */
+    private static void runSingle(String[] args) throws IOException {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long gcCountBefore = totalCollections(collectors);
+        long gcTimeBefore = totalCollectionTime(collectors);
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        long start = System.nanoTime();
+        Main.processFiles(args[1], args[2], args[3]);
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        String failure = validationError(Paths.get(args[3]));
+        if (failure != null) {
+            System.out.println(FAILED_PREFIX + failure);
+            return;
+        }
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        System.out.println("METRICS," + wallMs + "," + peakHeap + "," + peakRssBytes() + ","
+                + (totalCollections(collectors) - gcCountBefore) + ","
+                + (totalCollectionTime(collectors) - gcTimeBefore));
+    }
+
+    /**
+     * Reads the error message of an output file written by Main after a
+     * ValidationException.
+     *
+     * @param outputPath the output file of the run
+     * @return the error message, or null if the file holds recommendations
+     * @throws IOException if the file cannot be read
+     */
+    static String validationError(Path outputPath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(outputPath)) {
+            if (!"Error".equals(reader.readLine())) {
+                return null;
+            }
+            String message = reader.readLine();
+            return message == null ? "" : message;
+        }
+    }
+
+    private static long totalCollections(List<GarbageCollectorMXBean> collectors) {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long totalCollectionTime(List<GarbageCollectorMXBean> collectors) {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Reads the peak resident set size of this process.
+     *
+     * @return peak RSS in bytes, or -1 if it is not available
+     */
+    static long peakRssBytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    String[] parts = line.substring("VmHWM:".length()).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,156 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.IntHashSet;
+import com.movie.recommendation.index.UserSimilarityIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark for UserSimilarityIndex query latency and recall as the user count grows.
+ *
+ * Users are generated in memory with Zipf-distributed likes over integer
+ * movie keys, so sizes well beyond the 1000 movie file limit can be tested.
+ * For every size the benchmark reports index build time, query latency
+ * percentiles, mean candidate count and, for sizes up to the brute-force
+ * limit, recall against exact Jaccard similarity: the share of users with
+ * exact similarity at or above the threshold that the index returned as
+ * candidates.
+ *
+ * Usage:
+ * java -Xmx6g -cp bin com.movie.recommendation.tools.LshBenchmark [users1,users2,...] [bands] [rows] [movies]
+ *
+ * The default sweep is 10k, 100k, 1M and 10M users. The 10M run keeps about
+ * 2 GB of signatures and likes on the heap.
+ */
+public class LshBenchmark {
+
+    private static final int QUERIES = 10_000;
+    private static final int RECALL_QUERIES = 50;
+    private static final int BRUTE_FORCE_LIMIT = 1_000_000;
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [userSizes] [bands] [rows] [movies]
+     */
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "10000,100000,1000000,10000000";
+        int bands = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int movies = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        double threshold = UserSimilarityIndex.threshold(bands, rows);
+
+        System.out.printf("bands=%d rows=%d threshold=%.2f expected recall at threshold=%.2f%n",
+                bands, rows, threshold, UserSimilarityIndex.candidateProbability(threshold, bands, rows));
+        System.out.println("users,build_ms,p50_us,p99_us,p999_us,mean_candidates,recall");
+
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()), bands, rows, movies, threshold);
+        }
+    }
+
+    private static void run(int userCount, int bands, int rows, int movies, double threshold) {
+        Random random = new Random(7);
+        DatasetGenerator.ZipfSampler sampler = new DatasetGenerator.ZipfSampler(movies, 1.1);
+
+        // Likes in CSR layout: user i owns likes[offsets[i] .. offsets[i + 1])
+        int[] offsets = new int[userCount + 1];
+        int[] likes = new int[userCount * 6];
+        int[] scratch = new int[64];
+        UserSimilarityIndex index = new UserSimilarityIndex(bands, rows, 11);
+
+        long buildStart = System.nanoTime();
+        for (int u = 0; u < userCount; u++) {
+            int count = 2 + random.nextInt(9);
+            int written = 0;
+            for (int attempt = 0; written < count && attempt < count * 4; attempt++) {
+                int movie = sampler.sample(random);
+                if (!contains(scratch, written, movie)) {
+                    scratch[written++] = movie;
+                }
+            }
+            if (offsets[u] + written > likes.length) {
+                likes = Arrays.copyOf(likes, likes.length * 2);
+            }
+            System.arraycopy(scratch, 0, likes, offsets[u], written);
+            offsets[u + 1] = offsets[u] + written;
+            index.add(scratch, written);
+        }
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        // Query latency over random existing users
+        IntHashSet candidates = new IntHashSet(256);
+        long[] latencies = new long[QUERIES];
+        long totalCandidates = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int u = random.nextInt(userCount);
+            int[] signature = index.signatureOf(Arrays.copyOfRange(likes, offsets[u], offsets[u + 1]),
+                    offsets[u + 1] - offsets[u]);
+            long start = System.nanoTime();
+            index.findCandidates(signature, candidates);
+            latencies[q] = System.nanoTime() - start;
+            totalCandidates += candidates.size();
+        }
+        Arrays.sort(latencies);
+
+        String recall = "n/a";
+        if (userCount <= BRUTE_FORCE_LIMIT) {
+            recall = String.format("%.3f", measureRecall(index, offsets, likes, userCount, threshold, random));
+        }
+
+        System.out.printf("%d,%d,%.1f,%.1f,%.1f,%.1f,%s%n", userCount, buildMs,
+                latencies[QUERIES / 2] / 1000.0,
+                latencies[(int) (QUERIES * 0.99)] / 1000.0,
+                latencies[(int) (QUERIES * 0.999)] / 1000.0,
+                (double) totalCandidates / QUERIES, recall);
+    }
+
+    /**
+     * Compares LSH candidates with an exact Jaccard scan for a sample of users.
+     */
+    private static double measureRecall(UserSimilarityIndex index, int[] offsets, int[] likes,
+                                        int userCount, double threshold, Random random) {
+        IntHashSet candidates = new IntHashSet(256);
+        long relevant = 0;
+        long found = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            int u = random.nextInt(userCount);
+            int length = offsets[u + 1] - offsets[u];
+            index.findCandidates(index.signatureOf(Arrays.copyOfRange(likes, offsets[u], offsets[u + 1]), length),
+                    candidates);
+            for (int v = 0; v < userCount; v++) {
+                if (v != u && jaccard(likes, offsets[u], offsets[u + 1], offsets[v], offsets[v + 1]) >= threshold) {
+                    relevant++;
+                    if (candidates.contains(v)) {
+                        found++;
+                    }
+                }
+            }
+        }
+        return relevant == 0 ? 1.0 : (double) found / relevant;
+    }
+
+    private static double jaccard(int[] likes, int aStart, int aEnd, int bStart, int bEnd) {
+        int intersection = 0;
+        for (int i = aStart; i < aEnd; i++) {
+            for (int j = bStart; j < bEnd; j++) {
+                if (likes[i] == likes[j]) {
+                    intersection++;
+                    break;
+                }
+            }
+        }
+        int union = (aEnd - aStart) + (bEnd - bStart) - intersection;
+        return union == 0 ? 0.0 : (double) intersection / union;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
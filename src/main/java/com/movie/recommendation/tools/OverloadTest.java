@@ -0,0 +1,139 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.CoDelAdmission;
+import com.movie.recommendation.service.LoadSheddingExecutor;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+import com.movie.recommendation.service.TimedRecommendations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop overload test of LoadSheddingExecutor.
+ *
+ * The mean service time of one ranked request is measured first; requests
+ * then arrive at loadFactor times the capacity of the workers for the given
+ * number of seconds, whatever the executor does, as clients of an
+ * overloaded server would. Three configurations run the same arrivals:
+ * - UNBOUNDED: no deadline and no admission control, the queue just grows
+ * - DEADLINE: requests expire in the queue and are cut short near the deadline
+ * - CODEL: deadlines plus CoDel shedding on the measured queue wait
+ * The report gives the served, partial and shed counts and the end-to-end
+ * latency (submit to answer) of served requests in milliseconds.
+ *
+ * Usage:
+ * java -cp bin com.movie.recommendation.tools.OverloadTest [movies] [workers] [loadFactor] [seconds] [timeoutMs] [targetMs] [intervalMs]
+ */
+public class OverloadTest {
+
+    private static final long MS = 1_000_000L;
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [movies] [workers] [loadFactor] [seconds] [timeoutMs] [targetMs] [intervalMs]
+     * @throws Exception if a request fails
+     */
+    public static void main(String[] args) throws Exception {
+        int movieCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        double loadFactor = args.length > 2 ? Double.parseDouble(args[2]) : 2.0;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        long timeout = (args.length > 4 ? Long.parseLong(args[4]) : 50) * MS;
+        long target = (args.length > 5 ? Long.parseLong(args[5]) : 5) * MS;
+        long interval = (args.length > 6 ? Long.parseLong(args[6]) : 100) * MS;
+
+        Random random = new Random(23);
+        String[] genres = DatasetGenerator.genreNames(20);
+        DatasetGenerator.ZipfSampler genreSampler = new DatasetGenerator.ZipfSampler(genres.length, 1.0);
+        List<Movie> movies = new ArrayList<>(movieCount);
+        for (int m = 0; m < movieCount; m++) {
+            movies.add(new Movie("Movie " + m, "M" + m, Arrays.asList(genres[genreSampler.sample(random)])));
+        }
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < 10_000; u++) {
+            List<String> liked = new ArrayList<>();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                liked.add("M" + random.nextInt(movieCount));
+            }
+            users.add(new User("User", DatasetGenerator.userId(u), liked));
+        }
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService service = new RecommendationService(catalog);
+        service.setPopularityIndex(new PopularityIndex(catalog, users, 0));
+        service.setRankingMode(RankingMode.POPULARITY);
+        service.setMaxResults(10);
+
+        for (int i = 0; i < 2000; i++) {
+            service.getRankedRecommendations(users.get(i));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 2000; i++) {
+            service.getRankedRecommendations(users.get(i));
+        }
+        double serviceNanos = (System.nanoTime() - start) / 2000.0;
+        long interArrival = (long) (serviceNanos / workers / loadFactor);
+        int requests = (int) (seconds * 1e9 / interArrival);
+        System.out.printf("movies=%d workers=%d service_us=%.0f load=%.1fx requests=%d timeout_ms=%d%n",
+                movieCount, workers, serviceNanos / 1000, loadFactor, requests, timeout / MS);
+        System.out.println("mode,served,partial,shed,p50_ms,p99_ms,max_ms");
+
+        for (String mode : new String[] {"UNBOUNDED", "DEADLINE", "CODEL"}) {
+            CoDelAdmission admission = mode.equals("CODEL") ? new CoDelAdmission(target, interval) : null;
+            long requestTimeout = mode.equals("UNBOUNDED") ? TimeUnit.DAYS.toNanos(1) : timeout;
+            long[] latency = new long[requests];
+            List<CompletableFuture<TimedRecommendations>> futures = new ArrayList<>(requests);
+            try (LoadSheddingExecutor executor = new LoadSheddingExecutor(service, admission, workers)) {
+                long next = System.nanoTime();
+                for (int i = 0; i < requests; i++) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    int request = i;
+                    long submitted = System.nanoTime();
+                    futures.add(executor.submit(users.get(random.nextInt(users.size())), requestTimeout)
+                            .whenComplete((result, error) -> latency[request] = System.nanoTime() - submitted));
+                    next += interArrival;
+                }
+                int partial = 0;
+                int shed = 0;
+                long[] served = new long[requests];
+                int servedCount = 0;
+                for (int i = 0; i < requests; i++) {
+                    TimedRecommendations result = futures.get(i).get();
+                    if (result.getStatus() == TimedRecommendations.Status.SHED) {
+                        shed++;
+                        continue;
+                    }
+                    if (result.getStatus() == TimedRecommendations.Status.PARTIAL) {
+                        partial++;
+                    }
+                    served[servedCount++] = latency[i];
+                }
+                long[] sorted = Arrays.copyOf(served, servedCount);
+                Arrays.sort(sorted);
+                System.out.printf("%s,%d,%d,%d,%.1f,%.1f,%.1f%n", mode, servedCount, partial, shed,
+                        percentile(sorted, 0.5), percentile(sorted, 0.99),
+                        servedCount == 0 ? 0.0 : sorted[servedCount - 1] / 1e6);
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)] / 1e6;
+    }
+}
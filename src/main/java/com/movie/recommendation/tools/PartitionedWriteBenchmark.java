@@ -0,0 +1,118 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.output.PartitionedRecommendationWriter;
+import com.movie.recommendation.service.RecommendationService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Write throughput of the single output writer against PartitionedRecommendationWriter.
+ *
+ * Synthetic users with precomputed recommendation lists are written to the
+ * given directory, so only formatting and I/O are measured, once through one
+ * BufferedWriter as Main.writeRecommendationsToFile() does and once per
+ * partition count. Every file is fsynced before the clock stops, so the page
+ * cache does not hide the device; run it once per device (for example an
+ * NVMe and a spinning disk mount) to compare them. The report gives the
+ * elapsed time and MB/s, and for partitioned runs the time of the ordered
+ * concatenation step.
+ *
+ * Usage:
+ * java -cp bin com.movie.recommendation.tools.PartitionedWriteBenchmark [users] [partitions,partitions,...] [directory] [titlesPerUser]
+ */
+public class PartitionedWriteBenchmark {
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [users] [comma-separated partition counts] [directory] [titles per user]
+     * @throws IOException if a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String counts = args.length > 1 ? args[1] : "1,2,4,8";
+        Path directory = Paths.get(args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir"));
+        int titlesPerUser = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Random random = new Random(37);
+        List<User> users = new ArrayList<>(userCount);
+        Map<String, List<String>> recommendations = new HashMap<>(userCount * 2);
+        for (int u = 0; u < userCount; u++) {
+            User user = new User("User " + u, DatasetGenerator.userId(u), Collections.emptyList());
+            users.add(user);
+            List<String> titles = new ArrayList<>(titlesPerUser);
+            for (int t = 0; t < titlesPerUser; t++) {
+                titles.add("Movie Title " + random.nextInt(100_000));
+            }
+            recommendations.put(user.getId(), titles);
+        }
+        RecommendationService service = new RecommendationService();
+        Path output = Files.createTempFile(directory, "partitioned-benchmark-", ".txt");
+
+        System.out.printf("users=%d titles_per_user=%d directory=%s cpus=%d%n", userCount, titlesPerUser,
+                directory, Runtime.getRuntime().availableProcessors());
+        System.out.println("writer,partitions,write_ms,mb_per_s,concat_ms");
+        try {
+            for (int round = 0; round < 2; round++) {
+                boolean report = round == 1;
+                long start = System.nanoTime();
+                try (Writer writer = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+                    for (User user : users) {
+                        writer.write(service.formatRecommendations(user, recommendations.get(user.getId())));
+                    }
+                }
+                sync(output);
+                long bytes = Files.size(output);
+                if (report) {
+                    print("single", 1, System.nanoTime() - start, bytes, -1);
+                }
+
+                for (String count : counts.split(",")) {
+                    int partitions = Integer.parseInt(count.trim());
+                    PartitionedRecommendationWriter writer = new PartitionedRecommendationWriter(output, partitions);
+                    start = System.nanoTime();
+                    writer.writeAll(users, service, user -> recommendations.get(user.getId()));
+                    for (int p = 0; p < partitions; p++) {
+                        sync(writer.getPartitionPath(p));
+                    }
+                    long written = System.nanoTime() - start;
+                    start = System.nanoTime();
+                    writer.concatenate(users);
+                    sync(output);
+                    if (report) {
+                        print("partitioned", partitions, written, bytes, System.nanoTime() - start);
+                    }
+                    writer.deletePartitions();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static void sync(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void print(String writer, int partitions, long nanos, long bytes, long concatNanos) {
+        System.out.printf("%s,%d,%.0f,%.1f,%s%n", writer, partitions, nanos / 1e6, bytes / 1e6 / (nanos / 1e9),
+                concatNanos < 0 ? "" : String.format("%.0f", concatNanos / 1e6));
+    }
+}
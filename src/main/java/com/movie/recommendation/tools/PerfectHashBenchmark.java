@@ -0,0 +1,88 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.PerfectHash;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Lookup benchmark of PerfectHash against a HashMap from movie ID to position.
+ *
+ * For each catalog size both structures are built over the IDs M0..Mn-1 and
+ * then probed with a shuffled mix of known IDs and dangling ones (IDs past
+ * the end of the catalog), as the liked-ID check of UserParser does. The
+ * report gives the build time in milliseconds and the best lookup pass in
+ * nanoseconds per probe.
+ *
+ * Usage:
+ * java -cp bin com.movie.recommendation.tools.PerfectHashBenchmark [movies,movies,...] [danglingPercent]
+ */
+public class PerfectHashBenchmark {
+
+    private static final int PROBES = 2_000_000;
+    private static final int PASSES = 5;
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [comma-separated movie counts] [percentage of dangling probes]
+     */
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000,100000,1000000";
+        int danglingPercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Random random = new Random(31);
+        System.out.println("movies,structure,build_ms,ns_per_probe,found");
+        for (String size : sizes.split(",")) {
+            int movies = Integer.parseInt(size.trim());
+            String[] ids = new String[movies];
+            for (int m = 0; m < movies; m++) {
+                ids[m] = "M" + m;
+            }
+            String[] probes = new String[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                boolean dangling = random.nextInt(100) < danglingPercent;
+                probes[i] = "M" + (dangling ? movies + random.nextInt(movies) : random.nextInt(movies));
+            }
+
+            long start = System.nanoTime();
+            PerfectHash hash = new PerfectHash(ids);
+            double hashBuild = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            Map<String, Integer> map = new HashMap<>();
+            for (int m = 0; m < movies; m++) {
+                map.put(ids[m], m);
+            }
+            double mapBuild = (System.nanoTime() - start) / 1e6;
+
+            long best = Long.MAX_VALUE;
+            int found = 0;
+            for (int pass = 0; pass < 2 * PASSES; pass++) {
+                long begin = System.nanoTime();
+                found = 0;
+                for (String probe : probes) {
+                    if (hash.indexOf(probe) >= 0) {
+                        found++;
+                    }
+                }
+                best = pass < PASSES ? best : Math.min(best, System.nanoTime() - begin);
+            }
+            System.out.printf("%d,PerfectHash,%.1f,%.1f,%d%n", movies, hashBuild, (double) best / PROBES, found);
+
+            best = Long.MAX_VALUE;
+            for (int pass = 0; pass < 2 * PASSES; pass++) {
+                long begin = System.nanoTime();
+                found = 0;
+                for (String probe : probes) {
+                    Integer position = map.get(probe);
+                    if (position != null) {
+                        found++;
+                    }
+                }
+                best = pass < PASSES ? best : Math.min(best, System.nanoTime() - begin);
+            }
+            System.out.printf("%d,HashMap,%.1f,%.1f,%d%n", movies, mapBuild, (double) best / PROBES, found);
+        }
+    }
+}
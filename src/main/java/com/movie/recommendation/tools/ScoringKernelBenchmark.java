@@ -0,0 +1,92 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.service.ScoringKernel;
+import com.movie.recommendation.service.ScoringKernels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Throughput benchmark of the ScoringKernel implementations.
+ *
+ * For each catalog size a random item factor matrix is scored against a
+ * random user vector in blocks of 1024 items, as
+ * AlsModel.recommend(..., kernel, block) does. Each kernel gets warm-up passes
+ * and then timed passes over the whole matrix; the best pass is reported as
+ * nanoseconds per item and GFLOP/s (2 * rank flops per item). The SIMD kernel
+ * is only measured when the vector build is on the classpath and the JVM runs
+ * with --add-modules jdk.incubator.vector.
+ *
+ * Usage:
+ * java -Xmx2g [--add-modules jdk.incubator.vector] -cp bin com.movie.recommendation.tools.ScoringKernelBenchmark [rank] [items,items,...]
+ */
+public class ScoringKernelBenchmark {
+
+    private static final int BLOCK = 1024;
+    private static final int PASSES = 5;
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [rank] [comma-separated item counts]
+     */
+    public static void main(String[] args) {
+        int rank = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        String sizes = args.length > 1 ? args[1] : "10000,100000,1000000,10000000";
+
+        List<ScoringKernel> kernels = new ArrayList<>();
+        kernels.add(ScoringKernels.scalar());
+        if (ScoringKernels.isVectorAvailable()) {
+            kernels.add(ScoringKernels.best());
+        } else {
+            System.out.println("SIMD kernel not available: build with --vector and run with "
+                    + "--add-modules jdk.incubator.vector");
+        }
+
+        Random random = new Random(29);
+        float[] vector = new float[rank];
+        for (int k = 0; k < rank; k++) {
+            vector[k] = random.nextFloat() - 0.5f;
+        }
+        float[] block = new float[BLOCK];
+        System.out.println("items,rank,kernel,ns_per_item,gflops,checksum");
+        for (String size : sizes.split(",")) {
+            int items = Integer.parseInt(size.trim());
+            float[] matrix = new float[Math.multiplyExact(items, rank)];
+            for (int i = 0; i < matrix.length; i++) {
+                matrix[i] = random.nextFloat() - 0.5f;
+            }
+            // Same number of scored items per measurement, whatever the catalog size
+            int repeats = Math.max(1, 20_000_000 / items);
+            for (ScoringKernel kernel : kernels) {
+                double checksum = 0;
+                for (int pass = 0; pass < PASSES; pass++) {
+                    checksum = pass(kernel, vector, matrix, rank, items, block, repeats);
+                }
+                long best = Long.MAX_VALUE;
+                for (int pass = 0; pass < PASSES; pass++) {
+                    long start = System.nanoTime();
+                    checksum = pass(kernel, vector, matrix, rank, items, block, repeats);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                double nanosPerItem = best / ((double) items * repeats);
+                System.out.printf("%d,%d,%s,%.3f,%.2f,%.3f%n", items, rank, kernel.getName(), nanosPerItem,
+                        2.0 * rank / nanosPerItem, checksum);
+            }
+        }
+    }
+
+    private static double pass(ScoringKernel kernel, float[] vector, float[] matrix, int rank, int items,
+                               float[] block, int repeats) {
+        double checksum = 0;
+        for (int r = 0; r < repeats; r++) {
+            for (int from = 0; from < items; from += block.length) {
+                int to = Math.min(items, from + block.length);
+                kernel.dotRows(vector, 0, matrix, rank, from, to, block);
+                checksum += block[0];
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,177 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.UserIdCodec;
+import com.movie.recommendation.index.UserIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.server.RecommendationClient;
+import com.movie.recommendation.server.RecommendationServer;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Closed-loop load test of RecommendationServer over loopback.
+ *
+ * Users and movies are generated in memory as in UserLookupBenchmark, the
+ * server is started on a free port, and every client thread sends one
+ * request, waits for the response and sends the next, for the given number
+ * of seconds after a warm-up of the same length. The report gives the
+ * throughput, the latency percentiles in microseconds, and the bytes
+ * allocated by the selector thread per request (where the JVM exposes
+ * per-thread allocation counters, else -1).
+ *
+ * Usage:
+ * java -Xmx4g -cp bin com.movie.recommendation.tools.ServerLoadTest [users] [movies] [clients] [seconds] [k]
+ */
+public class ServerLoadTest {
+
+    private static final int MAX_SAMPLES_PER_CLIENT = 4_000_000;
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [users] [movies] [clients] [seconds] [k]
+     * @throws Exception if the server cannot be started or a client fails
+     */
+    public static void main(String[] args) throws Exception {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int movieCount = args.length > 1 ? Integer.parseInt(args[1]) : DatasetGenerator.MAX_MOVIES;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int k = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        Random random = new Random(11);
+        DatasetGenerator.ZipfSampler genreSampler = new DatasetGenerator.ZipfSampler(20, 1.0);
+        DatasetGenerator.ZipfSampler movieSampler = new DatasetGenerator.ZipfSampler(movieCount, 1.1);
+        String[] genres = DatasetGenerator.genreNames(20);
+        List<Movie> movies = new ArrayList<>(movieCount);
+        for (int m = 0; m < movieCount; m++) {
+            List<String> movieGenres = new ArrayList<>();
+            for (int g = 1 + random.nextInt(3); g > 0; g--) {
+                String genre = genres[genreSampler.sample(random)];
+                if (!movieGenres.contains(genre)) {
+                    movieGenres.add(genre);
+                }
+            }
+            movies.add(new Movie("Movie " + m, "M" + m, movieGenres));
+        }
+        List<User> users = new ArrayList<>(userCount);
+        long[] packedIds = new long[userCount];
+        for (int u = 0; u < userCount; u++) {
+            List<String> liked = new ArrayList<>();
+            for (int i = 1 + random.nextInt(9); i > 0; i--) {
+                liked.add("M" + movieSampler.sample(random));
+            }
+            users.add(new User("User", DatasetGenerator.userId(u), liked));
+            packedIds[u] = UserIdCodec.encode(DatasetGenerator.userId(u));
+        }
+
+        CatalogIndex catalog = new CatalogIndex(movies);
+        RecommendationService service = new RecommendationService(catalog);
+        service.setPopularityIndex(new PopularityIndex(catalog, users, 0));
+        service.setRankingMode(RankingMode.POPULARITY);
+        service.setUserIndex(new UserIndex(catalog, users));
+
+        try (RecommendationServer server = new RecommendationServer(service, catalog,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            System.out.printf("users=%d movies=%d clients=%d seconds=%d k=%d port=%d%n",
+                    userCount, movieCount, clients, seconds, k, server.getPort());
+
+            run(address, packedIds, clients, seconds, k, null);
+            long allocatedBefore = selectorAllocatedBytes();
+            long requestsBefore = server.getRequestCount();
+            long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+            int[] counts = run(address, packedIds, clients, seconds, k, samples);
+            long requests = server.getRequestCount() - requestsBefore;
+            long allocated = selectorAllocatedBytes();
+            double bytesPerRequest = allocatedBefore < 0 || allocated < 0 ? -1
+                    : (allocated - allocatedBefore) / (double) Math.max(1, requests);
+
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            long[] nanos = new long[total];
+            int offset = 0;
+            for (int c = 0; c < clients; c++) {
+                System.arraycopy(samples[c], 0, nanos, offset, counts[c]);
+                offset += counts[c];
+            }
+            Arrays.sort(nanos);
+            System.out.println("requests,req_per_s,p50_us,p99_us,p999_us,max_us,server_bytes_per_req");
+            System.out.printf("%d,%.0f,%.1f,%.1f,%.1f,%.1f,%.1f%n", total, total / (double) seconds,
+                    percentile(nanos, 0.5), percentile(nanos, 0.99), percentile(nanos, 0.999),
+                    nanos[total - 1] / 1000.0, bytesPerRequest);
+        }
+    }
+
+    private static int[] run(InetSocketAddress address, long[] packedIds, int clients, int seconds, int k,
+                             long[][] samples) throws Exception {
+        int[] counts = new int[clients];
+        Exception[] failures = new Exception[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(client);
+                int[] out = new int[k];
+                try (RecommendationClient connection = new RecommendationClient(address)) {
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        if (connection.recommendPositions(packedIds[random.nextInt(packedIds.length)], k, out) < 0) {
+                            throw new IllegalStateException("Server does not know a generated user");
+                        }
+                        if (samples != null && count < MAX_SAMPLES_PER_CLIENT) {
+                            samples[client][count++] = System.nanoTime() - begin;
+                        }
+                    }
+                    counts[client] = count;
+                } catch (Exception e) {
+                    failures[client] = e;
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.start();
+        }
+        done.await();
+        for (Exception failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return counts;
+    }
+
+    private static long selectorAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("recommendation-server".equals(thread.getName())) {
+                return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(thread.getId());
+            }
+        }
+        return -1;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)] / 1000.0;
+    }
+}
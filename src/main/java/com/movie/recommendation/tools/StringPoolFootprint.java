@@ -0,0 +1,130 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.exception.ValidationException;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.parser.MovieParser;
+import com.movie.recommendation.parser.StringPool;
+import com.movie.recommendation.parser.UserParser;
+import com.movie.recommendation.validator.MovieValidator;
+import com.movie.recommendation.validator.UserValidator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Footprint report of the parser string pool on a large generated dataset.
+ *
+ * Generates one dataset with DatasetGenerator, then parses it once without a
+ * pool and once per StringPool mode. For every run it reports:
+ * - parsed_mb: heap retained by the parsed movies and users once the pool
+ *   and the parsers are dropped, which is what the rest of a run keeps
+ * - parse_ms: wall time of both parsers
+ * - distinct/hits: pool size and lookups answered from the pool
+ * Heap is measured as used heap after repeated System.gc() calls, so run it
+ * with a collector that honours explicit GC (the default G1 does).
+ *
+ * Usage:
+ * java -Xmx8g -cp bin com.movie.recommendation.tools.StringPoolFootprint [movies] [users] [genres]
+ */
+public class StringPoolFootprint {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [movies] [users] [genres]
+     * @throws Exception if the dataset cannot be written or parsed
+     */
+    public static void main(String[] args) throws Exception {
+        int movies = args.length > 0 ? Integer.parseInt(args[0]) : DatasetGenerator.MAX_MOVIES;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int genres = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Path directory = Files.createTempDirectory("string-pool-footprint");
+        Path moviesFile = directory.resolve("movies.txt");
+        Path usersFile = directory.resolve("users.txt");
+        try {
+            DatasetGenerator generator = new DatasetGenerator();
+            generator.setGenreCount(genres);
+            generator.generate(movies, users, moviesFile.toString(), usersFile.toString());
+            System.out.printf("movies=%d users=%d genres=%d input_mb=%.1f%n", movies, users, genres,
+                    (Files.size(moviesFile) + Files.size(usersFile)) / 1048576.0);
+            System.out.println("mode,parsed_mb,parse_ms,distinct,hits");
+
+            // The first run warms up the parsers and is not reported
+            run(null, moviesFile, usersFile, false);
+            long baseline = run(null, moviesFile, usersFile, true);
+            for (StringPool.Mode mode : StringPool.Mode.values()) {
+                long parsed = run(mode, moviesFile, usersFile, true);
+                System.out.printf("  %s saves %.1f%%%n", mode, 100.0 * (baseline - parsed) / baseline);
+            }
+        } finally {
+            Files.deleteIfExists(moviesFile);
+            Files.deleteIfExists(usersFile);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static long run(StringPool.Mode mode, Path moviesFile, Path usersFile, boolean report)
+            throws IOException, ValidationException, InterruptedException {
+        long before = usedHeap();
+
+        StringPool pool = mode != null ? new StringPool(mode) : null;
+        long start = System.nanoTime();
+        List<Object> parsedData = parse(pool, moviesFile, usersFile);
+        long parseNanos = System.nanoTime() - start;
+
+        int distinct = pool != null ? pool.size() : 0;
+        long hits = pool != null ? pool.getHits() : 0;
+        pool = null;
+        long parsed = usedHeap() - before;
+
+        if (report) {
+            System.out.printf("%s,%.1f,%d,%d,%d%n", mode != null ? mode : "NONE",
+                    parsed / 1048576.0, parseNanos / 1_000_000, distinct, hits);
+        }
+        // Keep the parsed data reachable until after the last measurement
+        Reference.reachabilityFence(parsedData);
+        return parsed;
+    }
+
+    /**
+     * Parses both files in a frame of its own, so the parsers and validators
+     * (UserValidator keeps every user ID it has seen) are garbage on return.
+     */
+    private static List<Object> parse(StringPool pool, Path moviesFile, Path usersFile)
+            throws IOException, ValidationException {
+        MovieParser movieParser = new MovieParser(new MovieValidator());
+        UserParser userParser = new UserParser(new UserValidator());
+        movieParser.setStringPool(pool);
+        userParser.setStringPool(pool);
+        List<Movie> movies = movieParser.parseMovies(moviesFile.toString());
+        List<User> users = userParser.parseUsers(usersFile.toString());
+        return Arrays.asList(movies, users);
+    }
+
+    /**
+     * Collects until used heap stops shrinking, then returns it.
+     */
+    private static long usedHeap() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used - used / 200) {
+                return Math.min(now, used);
+            }
+            used = now;
+        }
+        return used;
+    }
+}
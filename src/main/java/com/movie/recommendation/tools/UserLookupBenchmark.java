@@ -0,0 +1,107 @@
+package com.movie.recommendation.tools;
+
+import com.movie.recommendation.index.CatalogIndex;
+import com.movie.recommendation.index.PopularityIndex;
+import com.movie.recommendation.index.UserIndex;
+import com.movie.recommendation.model.Movie;
+import com.movie.recommendation.model.User;
+import com.movie.recommendation.service.RankingMode;
+import com.movie.recommendation.service.RecommendationService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Latency benchmark of RecommendationService.recommendFor(userId).
+ *
+ * Users and movies are generated in memory (Zipf-distributed genres and
+ * likes), the catalog, popularity and user indexes are built once, and then
+ * random user IDs are looked up one at a time. Every lookup is timed on its
+ * own, and the report gives the percentiles in microseconds for each ranking
+ * mode, after a warm-up of the same number of lookups.
+ *
+ * Usage:
+ * java -Xmx4g -cp bin com.movie.recommendation.tools.UserLookupBenchmark [users] [movies] [genres] [lookups]
+ */
+public class UserLookupBenchmark {
+
+    /**
+     * Command line entry point.
+     *
+     * @param args [users] [movies] [genres] [lookups]
+     */
+    public static void main(String[] args) {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int movieCount = args.length > 1 ? Integer.parseInt(args[1]) : DatasetGenerator.MAX_MOVIES;
+        int genreCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int lookups = args.length > 3 ? Integer.parseInt(args[3]) : 200_000;
+
+        Random random = new Random(11);
+        DatasetGenerator.ZipfSampler genreSampler = new DatasetGenerator.ZipfSampler(genreCount, 1.0);
+        DatasetGenerator.ZipfSampler movieSampler = new DatasetGenerator.ZipfSampler(movieCount, 1.1);
+        String[] genres = DatasetGenerator.genreNames(genreCount);
+
+        List<Movie> movies = new ArrayList<>(movieCount);
+        for (int m = 0; m < movieCount; m++) {
+            List<String> movieGenres = new ArrayList<>();
+            int count = 1 + random.nextInt(3);
+            for (int g = 0; g < count; g++) {
+                String genre = genres[genreSampler.sample(random)];
+                if (!movieGenres.contains(genre)) {
+                    movieGenres.add(genre);
+                }
+            }
+            movies.add(new Movie("Movie " + m, "M" + m, movieGenres));
+        }
+        List<User> users = new ArrayList<>(userCount);
+        for (int u = 0; u < userCount; u++) {
+            List<String> liked = new ArrayList<>();
+            int count = 1 + random.nextInt(9);
+            for (int i = 0; i < count; i++) {
+                liked.add("M" + movieSampler.sample(random));
+            }
+            users.add(new User("User", DatasetGenerator.userId(u), liked));
+        }
+
+        long start = System.nanoTime();
+        CatalogIndex catalog = new CatalogIndex(movies);
+        PopularityIndex popularity = new PopularityIndex(catalog, users, 0);
+        UserIndex userIndex = new UserIndex(catalog, users);
+        System.out.printf("users=%d movies=%d genres=%d, indexes built in %d ms%n", userCount, movieCount,
+                genreCount, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("mode,lookups,p50_us,p90_us,p99_us,p999_us,max_us");
+
+        for (RankingMode mode : new RankingMode[] {RankingMode.NONE, RankingMode.POPULARITY}) {
+            RecommendationService service = new RecommendationService(catalog);
+            service.setPopularityIndex(popularity);
+            service.setRankingMode(mode);
+            service.setMaxResults(10);
+            service.setUserIndex(userIndex);
+
+            String[] ids = new String[lookups];
+            for (int i = 0; i < lookups; i++) {
+                ids[i] = DatasetGenerator.userId(random.nextInt(userCount));
+            }
+            long[] nanos = new long[lookups];
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < lookups; i++) {
+                    long begin = System.nanoTime();
+                    if (service.recommendFor(ids[i]) == null) {
+                        throw new IllegalStateException("Unknown user " + ids[i]);
+                    }
+                    nanos[i] = System.nanoTime() - begin;
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n", mode, lookups,
+                    percentile(nanos, 0.5), percentile(nanos, 0.9), percentile(nanos, 0.99),
+                    percentile(nanos, 0.999), nanos[lookups - 1] / 1000.0);
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)] / 1000.0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.movie.recommendation.validator;
 
 import com.movie.recommendation.exception.ValidationException;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -40,18 +41,64 @@ import java.util.regex.Pattern;
  * - testValidateMovie_InvalidTitle() - Invalid title, valid ID
  * - testValidateMovie_InvalidId() - Valid title, invalid ID
  * - testValidateMovie_BothInvalid() - Both invalid (should return first error)
+ * 
+ * Extended IDs (setIdDigits()):
+ * - testExtendedId_FiveDigits() - "TDK12345" with 5 digits configured
+ * - testExtendedId_ThreeDigitsRejected() - "TDK123" with 5 digits configured
+ * - testExtendedId_Duplicate() - same number for two movies
+ * - testValidId_NonAsciiDigitsDistinct() - "TDK\u0661\u0662\u0663" next to "TDK123"
  */
 public class MovieValidator {
     
-    // Track used number parts across all movies to ensure uniqueness
-    private Set<String> usedNumberParts = new HashSet<>();
+    /** Number of digits in a movie ID unless configured otherwise. */
+    public static final int DEFAULT_ID_DIGITS = 3;
+    
+    /** Largest supported number of digits; the number part must fit an int. */
+    public static final int MAX_ID_DIGITS = 9;
+    
+    private int idDigits = DEFAULT_ID_DIGITS;
+    
+    // Track used number parts across all movies to ensure uniqueness, one bit
+    // per number; the set grows to the largest number seen, at most 10^idDigits bits
+    private BitSet usedNumbers = new BitSet();
+    
+    // Number parts with non-ASCII digits (e.g. "\u0661\u0662\u0663") are kept as strings, so
+    // they never collide with the ASCII number of the same value
+    private final Set<String> usedOtherNumberParts = new HashSet<>();
     
     /**
      * Resets the validator state (used number parts).
      * Call this before validating a new file.
      */
     public void reset() {
-        usedNumberParts.clear();
+        usedNumbers.clear();
+        usedOtherNumberParts.clear();
+    }
+    
+    /**
+     * Sets how many digits follow the letters of a movie ID. The default of 3
+     * caps a catalog at 1000 movies; with 6 digits it can hold a million.
+     * Leading zeros count as digits, so "TDK000042" is a valid 6 digit ID.
+     * Resets the used number parts.
+     * 
+     * @param idDigits number of digits, between DEFAULT_ID_DIGITS and MAX_ID_DIGITS
+     */
+    public void setIdDigits(int idDigits) {
+        if (idDigits < DEFAULT_ID_DIGITS || idDigits > MAX_ID_DIGITS) {
+            throw new IllegalArgumentException("idDigits must be between " + DEFAULT_ID_DIGITS
+                + " and " + MAX_ID_DIGITS);
+        }
+        this.idDigits = idDigits;
+        reset();
+    }
+    
+    /**
+     * Gets how many digits follow the letters of a movie ID.
+     * 
+     * @return the number of digits
+     */
+    public int getIdDigits() {
+        return idDigits;
     }
     
     /**
@@ -63,7 +110,7 @@ public class MovieValidator {
      */
     public void validateTitle(String title) throws ValidationException {
         if (title == null || title.trim().isEmpty()) {
-            throw new ValidationException("ERROR: Movie Title {" + title + "} is wrong");
+            throw new ValidationException(ValidationException.Code.MOVIE_TITLE, "ERROR: Movie Title {" + title + "} is wrong");
         }
         
         String[] words = title.split("\\s+");
@@ -73,7 +120,7 @@ public class MovieValidator {
             }
             // Check if first character is uppercase
             if (!Character.isUpperCase(word.charAt(0))) {
-                throw new ValidationException("ERROR: Movie Title {" + title + "} is wrong");
+                throw new ValidationException(ValidationException.Code.MOVIE_TITLE, "ERROR: Movie Title {" + title + "} is wrong");
             }
         }
     }
@@ -82,7 +129,7 @@ public class MovieValidator {
      * Validates the movie ID.
      * Rules:
      * 1. Must contain all capital letters from the title
-     * 2. Followed by exactly 3 unique numbers
+     * 2. Followed by exactly 3 unique numbers (or the configured number of digits)
      * 
      * @param id the movie ID to validate
      * @param title the movie title (to extract capital letters)
@@ -90,7 +137,7 @@ public class MovieValidator {
      */
     public void validateId(String id, String title) throws ValidationException {
         if (id == null || id.trim().isEmpty()) {
-            throw new ValidationException("ERROR: Movie Id letters {" + id + "} are wrong");
+            throw new ValidationException(ValidationException.Code.MOVIE_ID_LETTERS, "ERROR: Movie Id letters {" + id + "} are wrong");
         }
         
         // Extract capital letters from title
@@ -120,24 +167,35 @@ public class MovieValidator {
         
         // Check if there are extra characters after numbers
         if (i < id.length()) {
-            throw new ValidationException("ERROR: Movie Id letters {" + id + "} are wrong");
+            throw new ValidationException(ValidationException.Code.MOVIE_ID_LETTERS, "ERROR: Movie Id letters {" + id + "} are wrong");
         }
         
         // Validate letter part matches expected letters
         if (!letterPart.equals(expectedLetters.toString())) {
-            throw new ValidationException("ERROR: Movie Id letters {" + id + "} are wrong");
+            throw new ValidationException(ValidationException.Code.MOVIE_ID_LETTERS, "ERROR: Movie Id letters {" + id + "} are wrong");
         }
         
-        // Validate number part has exactly 3 digits
-        if (numberPart.length() != 3) {
-            throw new ValidationException("ERROR: Movie Id numbers {" + id + "} aren't unique");
+        // Validate number part has exactly idDigits digits
+        if (numberPart.length() != idDigits) {
+            throw new ValidationException(ValidationException.Code.MOVIE_ID_NUMBERS, "ERROR: Movie Id numbers {" + id + "} aren't unique");
         }
         
-        // Validate that these 3 digits haven't been used by another movie
-        if (usedNumberParts.contains(numberPart)) {
-            throw new ValidationException("ERROR: Movie Id numbers {" + id + "} aren't unique");
+        // Validate that these digits haven't been used by another movie; the
+        // length is fixed, so the numeric value identifies an ASCII number part
+        int number = 0;
+        boolean ascii = true;
+        for (int d = 0; d < numberPart.length() && ascii; d++) {
+            char c = numberPart.charAt(d);
+            ascii = c >= '0' && c <= '9';
+            number = number * 10 + (c - '0');
+        }
+        boolean unique = ascii ? !usedNumbers.get(number) : usedOtherNumberParts.add(numberPart);
+        if (!unique) {
+            throw new ValidationException(ValidationException.Code.MOVIE_ID_NUMBERS, "ERROR: Movie Id numbers {" + id + "} aren't unique");
+        }
+        if (ascii) {
+            usedNumbers.set(number);
         }
-        usedNumberParts.add(numberPart);
     }
     
     /**
@@ -65,18 +65,18 @@ public class UserValidator {
      */
     public void validateName(String name) throws ValidationException {
         if (name == null || name.isEmpty()) {
-            throw new ValidationException("ERROR: User Name {" + name + "} is wrong");
+            throw new ValidationException(ValidationException.Code.USER_NAME, "ERROR: User Name {" + name + "} is wrong");
         }
         
         // Check if name starts with space
         if (name.startsWith(" ")) {
-            throw new ValidationException("ERROR: User Name {" + name + "} is wrong");
+            throw new ValidationException(ValidationException.Code.USER_NAME, "ERROR: User Name {" + name + "} is wrong");
         }
         
         // Check if name contains only alphabetic characters and spaces
         for (char c : name.toCharArray()) {
             if (!Character.isLetter(c) && c != ' ') {
-                throw new ValidationException("ERROR: User Name {" + name + "} is wrong");
+                throw new ValidationException(ValidationException.Code.USER_NAME, "ERROR: User Name {" + name + "} is wrong");
             }
         }
     }
@@ -94,12 +94,12 @@ public class UserValidator {
      */
     public void validateId(String id) throws ValidationException {
         if (id == null || id.length() != 9) {
-            throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+            throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
         }
         
         // Check if first character is a digit
         if (!Character.isDigit(id.charAt(0))) {
-            throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+            throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
         }
         
         // Check pattern: must be digits, optionally ending with one uppercase letter
@@ -114,29 +114,29 @@ public class UserValidator {
             if (Character.isLetter(c)) {
                 // Must be uppercase
                 if (!Character.isUpperCase(c)) {
-                    throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+                    throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
                 }
                 letterCount++;
                 foundLetter = true;
                 
                 // Letter can only be at the end
                 if (i != id.length() - 1) {
-                    throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+                    throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
                 }
             } else if (Character.isDigit(c)) {
                 // If we already found a letter, no more digits allowed
                 if (foundLetter) {
-                    throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+                    throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
                 }
             } else {
                 // Invalid character (not alphanumeric)
-                throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+                throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
             }
         }
         
         // Check if more than one letter
         if (letterCount > 1) {
-            throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+            throw new ValidationException(ValidationException.Code.USER_ID, "ERROR: User Id {" + id + "} is wrong");
         }
     }
     
@@ -148,7 +148,7 @@ public class UserValidator {
      */
     public void checkUniqueUserId(String id) throws ValidationException {
         if (usedUserIds.contains(id)) {
-            throw new ValidationException("ERROR: User Id {" + id + "} is wrong");
+            throw new ValidationException(ValidationException.Code.DUPLICATE_USER_ID, "ERROR: User Id {" + id + "} is wrong");
         }
         usedUserIds.add(id);
     }